@@ -49,6 +49,9 @@ android {
         viewBinding = true
         buildConfig = true
     }
+    testOptions {
+        unitTests.isIncludeAndroidResources = true
+    }
     packaging {
         resources {
             excludes += "META-INF/NOTICE.md"
@@ -109,6 +112,11 @@ dependencies {
     implementation("com.sun.mail:android-activation:1.6.7")
 
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.test.core)
+    testImplementation(libs.greenmail)
+    testImplementation(libs.work.testing)
+    testImplementation(libs.mockwebserver)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
@@ -0,0 +1,205 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the latency and peak native heap of {@link CaptionCompositor} over
+ * camera resolutions up to 50MP, and checks that memory stays within the
+ * decode and output bitmaps the class promises. Bitmap pixels live on the
+ * native heap since API 26. Results are logged under the "CaptionBenchmark"
+ * tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CaptionCompositorBenchmark {
+    private static final String TAG = "CaptionBenchmark";
+    private static final String CAPTION = "Sunset over the harbour, day three";
+    private static final int RUNS = 3;
+    // Allocations other than the two bitmaps: text layout, JPEG codec buffers
+    private static final long SLACK_BYTES = 24L * 1024 * 1024;
+
+    private Context context;
+    private File directory;
+    private final List<File> created = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        directory = new File(context.getCacheDir(), "caption_benchmark");
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : created) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void twelveMegapixels() throws IOException {
+        run(4000, 3000, ExifInterface.ORIENTATION_NORMAL);
+    }
+
+    @Test
+    public void twelveMegapixelsPortrait() throws IOException {
+        run(4000, 3000, ExifInterface.ORIENTATION_ROTATE_90);
+    }
+
+    @Test
+    public void justUnderSamplingThreshold() throws IOException {
+        // Long edge just below 1.5x the output size, decoded without sampling
+        run(6100, 4575, ExifInterface.ORIENTATION_NORMAL);
+    }
+
+    @Test
+    public void fiftyMegapixels() throws IOException {
+        run(8160, 6120, ExifInterface.ORIENTATION_NORMAL);
+    }
+
+    @Test
+    public void fiftyMegapixelsPortrait() throws IOException {
+        run(8160, 6120, ExifInterface.ORIENTATION_ROTATE_90);
+    }
+
+    private void run(int width, int height, int orientation) throws IOException {
+        File source = createPhoto(width, height, orientation);
+        CaptionCompositor compositor = new CaptionCompositor(context);
+
+        // JPEG sampling rounds each edge up
+        int sample = compositor.sampleSize(Math.max(width, height));
+        int decodedWidth = (width + sample - 1) / sample;
+        int decodedHeight = (height + sample - 1) / sample;
+        int decodedLongEdge = Math.max(decodedWidth, decodedHeight);
+        float scale = Math.min(1f, (float) CaptionCompositor.DEFAULT_MAX_OUTPUT_SIZE / decodedLongEdge);
+        int outputLongEdge = Math.round(decodedLongEdge * scale);
+        long outputPixels = (long) Math.round(decodedWidth * scale) * Math.round(decodedHeight * scale);
+        long allowed = ((long) decodedWidth * decodedHeight + outputPixels) * 4 + SLACK_BYTES;
+
+        long worstPeak = 0;
+        long totalMillis = 0;
+        for (int i = 0; i < RUNS; i++) {
+            File input = copy(source);
+            HeapSampler sampler = new HeapSampler();
+            long start = SystemClock.elapsedRealtime();
+            String outputPath = compositor.composeSync(input.getPath(), CAPTION, percent -> {
+            });
+            totalMillis += SystemClock.elapsedRealtime() - start;
+            worstPeak = Math.max(worstPeak, sampler.stop());
+            created.add(new File(outputPath));
+
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(outputPath, bounds);
+            assertEquals(outputLongEdge, Math.max(bounds.outWidth, bounds.outHeight));
+        }
+
+        Log.i(TAG, width + "x" + height + " orientation " + orientation + ": sample " + sample + ", "
+                + totalMillis / RUNS + " ms, peak native heap +" + worstPeak / (1024 * 1024) + " MB (allowed "
+                + allowed / (1024 * 1024) + " MB)");
+        assertTrue("Peak native heap " + worstPeak + " exceeds " + allowed, worstPeak <= allowed);
+    }
+
+    /**
+     * Write a JPEG of the given size. RGB_565 keeps the 50MP source bitmap at
+     * about 100MB while it is encoded.
+     */
+    private File createPhoto(int width, int height, int orientation) throws IOException {
+        File file = new File(directory, "source_" + width + "x" + height + "_" + orientation + ".jpg");
+        created.add(file);
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        try {
+            Canvas canvas = new Canvas(bitmap);
+            canvas.drawColor(Color.rgb(40, 90, 160));
+            Paint paint = new Paint();
+            paint.setColor(Color.rgb(230, 180, 60));
+            canvas.drawCircle(width / 2f, height / 2f, Math.min(width, height) / 3f, paint);
+            try (OutputStream out = new FileOutputStream(file)) {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+            }
+        } finally {
+            bitmap.recycle();
+        }
+        ExifInterface exif = new ExifInterface(file.getPath());
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(orientation));
+        exif.saveAttributes();
+        return file;
+    }
+
+    private File copy(File source) throws IOException {
+        File file = File.createTempFile("input_", ".jpg", directory);
+        created.add(file);
+        try (InputStream in = new FileInputStream(source);
+                OutputStream out = new FileOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Polls the native heap from a background thread and keeps the highest
+     * value above the level at start
+     */
+    private static class HeapSampler {
+        private final long baseline;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile long peak;
+
+        HeapSampler() {
+            Runtime.getRuntime().gc();
+            baseline = Debug.getNativeHeapAllocatedSize();
+            peak = baseline;
+            thread = new Thread(() -> {
+                while (running) {
+                    peak = Math.max(peak, Debug.getNativeHeapAllocatedSize());
+                    SystemClock.sleep(2);
+                }
+            });
+            thread.start();
+        }
+
+        long stop() {
+            running = false;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Math.max(0, Math.max(peak, Debug.getNativeHeapAllocatedSize()) - baseline);
+        }
+    }
+}
@@ -3,11 +3,19 @@ package com.example.voyagerbuds;
 import android.app.Application;
 import android.content.Intent;
 import android.content.IntentFilter;
+import androidx.work.Constraints;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
 import com.example.voyagerbuds.receivers.UserActivityReceiver;
-import com.example.voyagerbuds.services.EmergencyCheckWorker;
+import com.example.voyagerbuds.services.AlarmReconciler;
+import com.example.voyagerbuds.services.AlarmRefreshWorker;
+import com.example.voyagerbuds.services.EmailOutbox;
+import com.example.voyagerbuds.services.EmergencyDeadlineScheduler;
+import com.example.voyagerbuds.services.ThumbnailBackfillWorker;
+import com.example.voyagerbuds.services.ThumbnailStore;
 import java.util.concurrent.TimeUnit;
 
 public class MainApplication extends Application {
@@ -23,19 +31,48 @@ public class MainApplication extends Application {
         IntentFilter filter = new IntentFilter(Intent.ACTION_USER_PRESENT);
         registerReceiver(userActivityReceiver, filter);
 
-        // Schedule Emergency Check Worker
-        scheduleEmergencyCheck();
+        // Schedule the emergency check for the current inactivity deadline
+        EmergencyDeadlineScheduler.cancelLegacyPolling(this);
+        EmergencyDeadlineScheduler.schedule(this, false);
+
+        // Arm schedule reminders due soon and keep them armed as edits come in
+        AlarmReconciler.getInstance(this).requestReconcile(true);
+        scheduleAlarmRefresh();
+
+        // Send emails left in the outbox by an earlier run
+        EmailOutbox.schedule(this);
+
+        // Generate thumbnails as media is added, and for media added before
+        ThumbnailStore.getInstance(this);
+        scheduleThumbnailBackfill();
     }
 
-    private void scheduleEmergencyCheck() {
-        PeriodicWorkRequest emergencyCheckRequest = new PeriodicWorkRequest.Builder(EmergencyCheckWorker.class, 15,
-                TimeUnit.MINUTES)
+    private void scheduleAlarmRefresh() {
+        // Reminders are armed 48 hours ahead, so a pass every 12 hours arms
+        // each one well before it is due
+        PeriodicWorkRequest alarmRefreshRequest = new PeriodicWorkRequest.Builder(AlarmRefreshWorker.class, 12,
+                TimeUnit.HOURS)
                 .build();
 
         WorkManager.getInstance(this).enqueueUniquePeriodicWork(
-                "EmergencyCheckWork",
-                ExistingPeriodicWorkPolicy.KEEP, // Keep existing work if already scheduled
-                emergencyCheckRequest);
+                "AlarmRefreshWork",
+                ExistingPeriodicWorkPolicy.KEEP,
+                alarmRefreshRequest);
+    }
+
+    private void scheduleThumbnailBackfill() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        OneTimeWorkRequest backfillRequest = new OneTimeWorkRequest.Builder(ThumbnailBackfillWorker.class)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(this).enqueueUniqueWork(
+                "ThumbnailBackfillWork",
+                ExistingWorkPolicy.KEEP,
+                backfillRequest);
     }
 
     @Override
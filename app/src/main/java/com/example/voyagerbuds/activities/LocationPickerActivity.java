@@ -17,6 +17,8 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
 import com.example.voyagerbuds.R;
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.TaskScope;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
@@ -51,9 +53,13 @@ public class LocationPickerActivity extends AppCompatActivity {
     private GeoPoint selectedLocation;
     private String selectedAddress = "";
 
+    // Geocoding requests, cancelled when the activity is destroyed
+    private TaskScope activityTasks;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        activityTasks = AppExecutors.scope(this);
 
         // Set status bar color to white
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
@@ -190,7 +196,7 @@ public class LocationPickerActivity extends AppCompatActivity {
             return;
         }
 
-        new Thread(() -> {
+        activityTasks.execute(AppExecutors.Pool.NETWORK, () -> {
             try {
                 android.util.Log.d("LocationPicker",
                         "Reverse geocoding: " + location.getLatitude() + ", " + location.getLongitude());
@@ -229,7 +235,7 @@ public class LocationPickerActivity extends AppCompatActivity {
                             location.getLongitude());
                 }
 
-                runOnUiThread(() -> tvSelectedLocation.setText(selectedAddress));
+                activityTasks.post(() -> tvSelectedLocation.setText(selectedAddress));
 
             } catch (Exception e) {
                 android.util.Log.e("LocationPicker", "Error reverse geocoding", e);
@@ -237,9 +243,9 @@ public class LocationPickerActivity extends AppCompatActivity {
                         "%.6f, %.6f",
                         location.getLatitude(),
                         location.getLongitude());
-                runOnUiThread(() -> tvSelectedLocation.setText(selectedAddress));
+                activityTasks.post(() -> tvSelectedLocation.setText(selectedAddress));
             }
-        }).start();
+        });
     }
 
     private void getCurrentLocation() {
@@ -282,7 +288,7 @@ public class LocationPickerActivity extends AppCompatActivity {
 
         loadingContainer.setVisibility(View.VISIBLE);
 
-        new Thread(() -> {
+        activityTasks.execute(AppExecutors.Pool.NETWORK, () -> {
             try {
                 android.util.Log.d("LocationPicker", "Searching for: " + query);
 
@@ -290,7 +296,7 @@ public class LocationPickerActivity extends AppCompatActivity {
 
                 android.util.Log.d("LocationPicker", "Search results: " + (addresses != null ? addresses.size() : 0));
 
-                runOnUiThread(() -> {
+                activityTasks.post(() -> {
                     loadingContainer.setVisibility(View.GONE);
 
                     if (addresses != null && !addresses.isEmpty()) {
@@ -310,13 +316,13 @@ public class LocationPickerActivity extends AppCompatActivity {
                 });
             } catch (Exception e) {
                 android.util.Log.e("LocationPicker", "Error searching location", e);
-                runOnUiThread(() -> {
+                activityTasks.post(() -> {
                     loadingContainer.setVisibility(View.GONE);
                     Toast.makeText(this, "Error: " + e.getMessage() + ". Please drag the map to select location.",
                             Toast.LENGTH_LONG).show();
                 });
             }
-        }).start();
+        });
     }
 
     private String formatAddress(android.location.Address address) {
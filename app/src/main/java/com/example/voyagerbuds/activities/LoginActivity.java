@@ -70,7 +70,7 @@ public class LoginActivity extends BaseActivity {
             getSupportActionBar().hide();
         }
 
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
         mAuth = FirebaseAuth.getInstance();
         prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
 
@@ -14,8 +14,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.signature.ObjectKey;
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.models.Capture;
+import com.example.voyagerbuds.services.ThumbnailStore;
 
 import java.io.File;
 import java.util.List;
@@ -28,6 +30,14 @@ public class CaptureAdapter extends RecyclerView.Adapter<CaptureAdapter.CaptureV
     private Context context;
     private List<Capture> captureList;
     private OnCaptureActionListener listener;
+    // Rebinds the cells of photos that were shown from the original
+    private final ThumbnailStore.Listener thumbnailListener = path -> {
+        for (int i = 0; i < captureList.size(); i++) {
+            if (path.equals(captureList.get(i).getMediaPath())) {
+                notifyItemChanged(i);
+            }
+        }
+    };
 
     public interface OnCaptureActionListener {
         void onCaptureClicked(Capture capture);
@@ -62,11 +72,35 @@ public class CaptureAdapter extends RecyclerView.Adapter<CaptureAdapter.CaptureV
         return captureList.size();
     }
 
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        ThumbnailStore.getInstance(context).addListener(thumbnailListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        ThumbnailStore.getInstance(context).removeListener(thumbnailListener);
+    }
+
     public void updateList(List<Capture> newList) {
         captureList = newList;
         notifyDataSetChanged();
     }
 
+    /**
+     * Append a freshly loaded page of captures to the end of the list
+     */
+    public void appendCaptures(List<Capture> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        int start = captureList.size();
+        captureList.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
     class CaptureViewHolder extends RecyclerView.ViewHolder {
         private ImageView imageView;
         private FrameLayout itemView;
@@ -101,14 +135,24 @@ public class CaptureAdapter extends RecyclerView.Adapter<CaptureAdapter.CaptureV
                     .error(R.drawable.ic_image)
                     .override(300, 300); // Load smaller size for grid
 
-            // Handle both content URIs and file paths
+            // Prefer the stored thumbnail; handle both content URIs and file paths
             Object loadSource;
-            if (mediaPath.startsWith("content://") || mediaPath.startsWith("file://")) {
+            ThumbnailStore thumbnails = ThumbnailStore.getInstance(context);
+            File thumbnail = "video".equals(capture.getMediaType()) ? null
+                    : thumbnails.peek(mediaPath, ThumbnailStore.SIZE_GRID);
+            if (thumbnail != null) {
+                loadSource = thumbnail;
+            } else if (mediaPath.startsWith("content://") || mediaPath.startsWith("file://")) {
                 loadSource = android.net.Uri.parse(mediaPath);
             } else {
                 File mediaFile = new File(mediaPath);
                 loadSource = mediaFile.exists() ? mediaFile : R.drawable.ic_image;
             }
+            if (thumbnail == null) {
+                // Thumbnail names carry the photo's version; a photo rotated in
+                // place must not be served from Glide's caches
+                options = options.signature(new ObjectKey(thumbnails.originalModified(mediaPath)));
+            }
 
             Glide.with(context)
                     .load(loadSource)
@@ -18,6 +18,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.models.GalleryItem;
+import com.example.voyagerbuds.services.ThumbnailStore;
 
 import java.io.File;
 import java.util.List;
@@ -31,6 +32,15 @@ public class GalleryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private List<Object> items;
     private boolean isSelectionMode = false;
     private OnItemClickListener listener;
+    // Rebinds the cells of photos that were shown from the original
+    private final ThumbnailStore.Listener thumbnailListener = path -> {
+        for (int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            if (item instanceof GalleryItem && path.equals(((GalleryItem) item).getImagePath())) {
+                notifyItemChanged(i);
+            }
+        }
+    };
 
     public interface OnItemClickListener {
         void onItemClick(GalleryItem item, int position);
@@ -49,6 +59,30 @@ public class GalleryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         notifyDataSetChanged();
     }
 
+    /**
+     * Append a freshly loaded page of headers/items to the end of the list
+     */
+    public void appendItems(List<Object> newItems) {
+        if (newItems.isEmpty()) {
+            return;
+        }
+        int start = items.size();
+        items.addAll(newItems);
+        notifyItemRangeInserted(start, newItems.size());
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        ThumbnailStore.getInstance(context).addListener(thumbnailListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        ThumbnailStore.getInstance(context).removeListener(thumbnailListener);
+    }
+
     public void setSelectionMode(boolean selectionMode) {
         isSelectionMode = selectionMode;
         notifyDataSetChanged();
@@ -127,13 +161,22 @@ public class GalleryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             String path = item.getImagePath();
             imgGalleryItem.setTag(path);
 
-            // Use Glide for efficient loading with proper content URI support
+            // Use Glide for efficient loading with proper content URI support,
+            // from the stored thumbnail when there is one (photos only)
+            ThumbnailStore thumbnails = ThumbnailStore.getInstance(context);
+            File thumbnail = "video".equals(item.getMediaType()) ? null
+                    : thumbnails.peek(path, ThumbnailStore.SIZE_GRID);
             Uri uri;
-            if (path.startsWith("content://") || path.startsWith("file://")) {
+            if (thumbnail != null) {
+                uri = Uri.fromFile(thumbnail);
+            } else if (path.startsWith("content://") || path.startsWith("file://")) {
                 uri = Uri.parse(path);
             } else {
                 uri = Uri.fromFile(new File(path));
             }
+            // Thumbnail names carry the photo's version; a photo rotated in
+            // place must not be served from Glide's caches
+            long version = thumbnail != null ? 0 : thumbnails.originalModified(path);
 
             com.bumptech.glide.Glide.with(context)
                     .load(uri)
@@ -143,6 +186,7 @@ public class GalleryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                     .error(R.drawable.ic_photo)
                     .skipMemoryCache(false)
                     .diskCacheStrategy(com.bumptech.glide.load.engine.DiskCacheStrategy.ALL)
+                    .signature(new com.bumptech.glide.signature.ObjectKey(version))
                     .into(imgGalleryItem);
 
             if (isSelectionMode) {
@@ -1,7 +1,6 @@
 package com.example.voyagerbuds.adapters;
 
 import android.content.Context;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,17 +12,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.voyagerbuds.R;
 
-import java.io.File;
 import java.util.List;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.os.Handler;
-import android.os.Looper;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
-import com.example.voyagerbuds.utils.ImageUtils;
+import com.example.voyagerbuds.services.ImageService;
 
 public class ScheduleImageAdapter extends RecyclerView.Adapter<ScheduleImageAdapter.ViewHolder> {
 
@@ -33,8 +26,7 @@ public class ScheduleImageAdapter extends RecyclerView.Adapter<ScheduleImageAdap
     private OnImageRemoveListener removeListener;
     private OnImageClickListener clickListener;
     private OnImageRotationListener rotationListener;
-    private ExecutorService executorService = Executors.newFixedThreadPool(4);
-    private Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ImageService imageService;
 
     public interface OnImageRemoveListener {
         void onRemove(int position);
@@ -54,6 +46,7 @@ public class ScheduleImageAdapter extends RecyclerView.Adapter<ScheduleImageAdap
         this.imagePaths = imagePaths;
         this.isEditable = isEditable;
         this.removeListener = removeListener;
+        this.imageService = ImageService.getInstance(context);
     }
 
     public void setOnImageClickListener(OnImageClickListener listener) {
@@ -74,53 +67,29 @@ public class ScheduleImageAdapter extends RecyclerView.Adapter<ScheduleImageAdap
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         String path = imagePaths.get(position);
-        holder.ivImage.setTag(path); // Set tag to check later
         holder.ivImage.setImageResource(android.R.color.transparent); // Clear previous image
+        imageService.release(holder.bitmap);
+        holder.bitmap = null;
+        holder.ivImage.setTag(path); // Set tag to check later
 
-        executorService.execute(() -> {
-            Bitmap bitmap = null;
-            try {
-                Uri uri;
-                if (path.startsWith("content://") || path.startsWith("file://")) {
-                    uri = Uri.parse(path);
-                } else {
-                    uri = Uri.fromFile(new File(path));
+        // 100dp is approx 200-300px depending on density
+        imageService.loadImage(path, 200, 200, new ImageService.ImageLoadCallback() {
+            @Override
+            public void onImageLoaded(Bitmap bitmap) {
+                if (!path.equals(holder.ivImage.getTag()) || holder.bitmap != null) {
+                    imageService.release(bitmap);
+                    return;
                 }
-
-                // First decode with inJustDecodeBounds=true to check dimensions
-                BitmapFactory.Options options = new BitmapFactory.Options();
-                options.inJustDecodeBounds = true;
-
-                java.io.InputStream input = context.getContentResolver().openInputStream(uri);
-                BitmapFactory.decodeStream(input, null, options);
-                if (input != null)
-                    input.close();
-
-                // Calculate inSampleSize
-                options.inSampleSize = ImageUtils.calculateInSampleSize(options, 200, 200); // 100dp is approx 200-300px
-                                                                                            // depending on density
-
-                // Decode bitmap with inSampleSize set
-                options.inJustDecodeBounds = false;
-                input = context.getContentResolver().openInputStream(uri);
-                bitmap = BitmapFactory.decodeStream(input, null, options);
-                if (input != null)
-                    input.close();
-
-            } catch (Exception e) {
-                e.printStackTrace();
+                holder.bitmap = bitmap;
+                holder.ivImage.setImageBitmap(bitmap);
             }
 
-            final Bitmap finalBitmap = bitmap;
-            mainHandler.post(() -> {
+            @Override
+            public void onError(Exception e) {
                 if (path.equals(holder.ivImage.getTag())) {
-                    if (finalBitmap != null) {
-                        holder.ivImage.setImageBitmap(finalBitmap);
-                    } else {
-                        holder.ivImage.setImageResource(android.R.drawable.ic_menu_report_image);
-                    }
+                    holder.ivImage.setImageResource(android.R.drawable.ic_menu_report_image);
                 }
-            });
+            }
         });
 
         holder.ivImage.setOnClickListener(v -> {
@@ -149,6 +118,15 @@ public class ScheduleImageAdapter extends RecyclerView.Adapter<ScheduleImageAdap
         }
     }
 
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.ivImage.setTag(null);
+        holder.ivImage.setImageResource(android.R.color.transparent);
+        imageService.release(holder.bitmap);
+        holder.bitmap = null;
+    }
+
     @Override
     public int getItemCount() {
         return imagePaths.size();
@@ -158,6 +136,7 @@ public class ScheduleImageAdapter extends RecyclerView.Adapter<ScheduleImageAdap
         ImageView ivImage;
         ImageButton btnRemove;
         ImageButton btnRotate;
+        Bitmap bitmap;
 
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -166,6 +145,4 @@ public class ScheduleImageAdapter extends RecyclerView.Adapter<ScheduleImageAdap
             btnRotate = itemView.findViewById(R.id.btn_rotate_image);
         }
     }
-
-    // Removed calculateInSampleSize as it is now in ImageUtils
 }
@@ -0,0 +1,145 @@
+package com.example.voyagerbuds.adapters;
+
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.text.style.StyleSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.voyagerbuds.R;
+import com.example.voyagerbuds.models.SearchResult;
+
+import java.util.List;
+
+public class SearchResultAdapter extends RecyclerView.Adapter<SearchResultAdapter.ResultViewHolder> {
+
+    private List<SearchResult> results;
+    private OnResultClickListener listener;
+
+    public interface OnResultClickListener {
+        void onResultClick(SearchResult result);
+    }
+
+    public SearchResultAdapter(List<SearchResult> results, OnResultClickListener listener) {
+        this.results = results;
+        this.listener = listener;
+    }
+
+    /**
+     * Replace the results with the first page of a new query
+     */
+    public void setResults(List<SearchResult> newResults) {
+        results.clear();
+        results.addAll(newResults);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Append the next page of the current query
+     */
+    public void appendResults(List<SearchResult> page) {
+        int start = results.size();
+        results.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
+    @NonNull
+    @Override
+    public ResultViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_search_result, parent, false);
+        return new ResultViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ResultViewHolder holder, int position) {
+        SearchResult result = results.get(position);
+
+        String type = holder.itemView.getContext().getString(typeLabel(result.getType()));
+        if (result.getType() != SearchResult.TYPE_TRIP && !TextUtils.isEmpty(result.getTripName())) {
+            type = holder.itemView.getContext().getString(R.string.search_result_in_trip, type,
+                    result.getTripName());
+        }
+        holder.tvType.setText(type);
+
+        // Captures have no title, so their description is shown as the title
+        if (TextUtils.isEmpty(result.getTitle())) {
+            holder.tvTitle.setText(highlight(result.getSnippet()));
+            holder.tvSnippet.setVisibility(View.GONE);
+        } else {
+            holder.tvTitle.setText(highlight(result.getTitle()));
+            CharSequence snippet = highlight(result.getSnippet());
+            holder.tvSnippet.setText(snippet);
+            holder.tvSnippet.setVisibility(TextUtils.getTrimmedLength(snippet) == 0 ? View.GONE : View.VISIBLE);
+        }
+
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onResultClick(result);
+            }
+        });
+    }
+
+    @Override
+    public int getItemCount() {
+        return results.size();
+    }
+
+    private static int typeLabel(int type) {
+        switch (type) {
+            case SearchResult.TYPE_SCHEDULE:
+                return R.string.schedule;
+            case SearchResult.TYPE_EXPENSE:
+                return R.string.expense;
+            case SearchResult.TYPE_CAPTURE:
+                return R.string.capture;
+            default:
+                return R.string.trip;
+        }
+    }
+
+    /**
+     * Strip the match markers and bold the text between them
+     */
+    private static CharSequence highlight(String text) {
+        SpannableStringBuilder builder = new SpannableStringBuilder();
+        if (text == null) {
+            return builder;
+        }
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == SearchResult.MATCH_START.charAt(0)) {
+                start = builder.length();
+            } else if (c == SearchResult.MATCH_END.charAt(0)) {
+                if (start >= 0 && builder.length() > start) {
+                    builder.setSpan(new StyleSpan(Typeface.BOLD), start, builder.length(),
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                start = -1;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder;
+    }
+
+    static class ResultViewHolder extends RecyclerView.ViewHolder {
+        TextView tvType;
+        TextView tvTitle;
+        TextView tvSnippet;
+
+        ResultViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvType = itemView.findViewById(R.id.tv_result_type);
+            tvTitle = itemView.findViewById(R.id.tv_result_title);
+            tvSnippet = itemView.findViewById(R.id.tv_result_snippet);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.TripRepository;
 import com.example.voyagerbuds.models.Trip;
 
 import java.text.ParseException;
@@ -28,6 +29,7 @@ public class TripAdapter extends RecyclerView.Adapter<TripAdapter.TripViewHolder
     private List<Trip> tripList;
     private OnTripClickListener listener;
     private DatabaseHelper databaseHelper;
+    private TripRepository tripRepository;
     private boolean isCompactMode;
 
     public interface OnTripClickListener {
@@ -38,7 +40,8 @@ public class TripAdapter extends RecyclerView.Adapter<TripAdapter.TripViewHolder
         this.context = context;
         this.tripList = tripList;
         this.listener = listener;
-        this.databaseHelper = new DatabaseHelper(context);
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        this.tripRepository = TripRepository.getInstance(context);
         this.isCompactMode = false;
     }
 
@@ -46,7 +49,8 @@ public class TripAdapter extends RecyclerView.Adapter<TripAdapter.TripViewHolder
         this.context = context;
         this.tripList = tripList;
         this.listener = listener;
-        this.databaseHelper = new DatabaseHelper(context);
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        this.tripRepository = TripRepository.getInstance(context);
         this.isCompactMode = isCompactMode;
     }
 
@@ -85,7 +89,7 @@ public class TripAdapter extends RecyclerView.Adapter<TripAdapter.TripViewHolder
             holder.tvDuration.setText(duration);
 
             // Get total spent from expenses
-            double totalSpent = databaseHelper.getTotalExpensesForTrip(trip.getTripId());
+            double totalSpent = tripRepository.getTotalExpenses(trip.getTripId());
             String formattedSpent = CurrencyHelper.formatCurrency(context, totalSpent);
 
             if (trip.getBudget() > 0) {
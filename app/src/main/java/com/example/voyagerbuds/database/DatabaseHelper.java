@@ -4,18 +4,34 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import androidx.annotation.VisibleForTesting;
+
+import com.example.voyagerbuds.database.dao.AlarmRegistryDao;
 import com.example.voyagerbuds.database.dao.CaptureDao;
+import com.example.voyagerbuds.database.dao.DashboardSummaryDao;
 import com.example.voyagerbuds.database.dao.ExpenseDao;
+import com.example.voyagerbuds.database.dao.ExpenseLedgerDao;
+import com.example.voyagerbuds.database.dao.MediaDao;
+import com.example.voyagerbuds.database.dao.OutboxDao;
 import com.example.voyagerbuds.database.dao.ScheduleDao;
+import com.example.voyagerbuds.database.dao.SearchDao;
 import com.example.voyagerbuds.database.dao.TripDao;
+import com.example.voyagerbuds.database.dao.UserStatsDao;
+import com.example.voyagerbuds.models.BudgetLedger;
 import com.example.voyagerbuds.models.Capture;
+import com.example.voyagerbuds.models.DashboardSummary;
 import com.example.voyagerbuds.models.Expense;
+import com.example.voyagerbuds.models.Media;
 import com.example.voyagerbuds.models.ScheduleItem;
+import com.example.voyagerbuds.models.SearchResult;
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.models.TripCounts;
+import com.example.voyagerbuds.models.UserStats;
 
-import android.database.Cursor;
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * DatabaseHelper - Manages database schema, migrations, and provides access to
@@ -25,7 +41,7 @@ import java.util.List;
  */
 public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "VoyagerBuds.db";
-    private static final int DATABASE_VERSION = 12;
+    private static final int DATABASE_VERSION = 20;
 
     // Trips table
     private static final String TABLE_TRIPS = "Trips";
@@ -48,6 +64,8 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_BUDGET = "budget";
     private static final String COLUMN_BUDGET_CURRENCY = "budget_currency";
     private static final String COLUMN_PARTICIPANTS = "participants";
+    private static final String COLUMN_START_EPOCH_DAY = "start_epoch_day";
+    private static final String COLUMN_END_EPOCH_DAY = "end_epoch_day";
 
     // Expenses table
     private static final String TABLE_EXPENSES = "Expenses";
@@ -93,9 +111,143 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_SCHEDULE_NOTIFY_BEFORE = "notify_before_minutes";
     private static final String COLUMN_SCHEDULE_CREATED_AT = "created_at";
     private static final String COLUMN_SCHEDULE_UPDATED_AT = "updated_at";
+    private static final String COLUMN_SCHEDULE_EPOCH_DAY = "epoch_day";
+    private static final String COLUMN_SCHEDULE_START_MINUTE = "start_minute";
+    private static final String COLUMN_SCHEDULE_END_MINUTE = "end_minute";
+
+    private static DatabaseHelper instance;
+
+    // DAOs are cached against the single shared connection
+    private TripDao tripDao;
+    private ScheduleDao scheduleDao;
+    private ExpenseDao expenseDao;
+    private CaptureDao captureDao;
+    private UserStatsDao userStatsDao;
+    private MediaDao mediaDao;
+    private SearchDao searchDao;
+    private ExpenseLedgerDao expenseLedgerDao;
+    private DashboardSummaryDao dashboardSummaryDao;
+    private AlarmRegistryDao alarmRegistryDao;
+    private OutboxDao outboxDao;
+
+    private final InvalidationTracker invalidationTracker = new InvalidationTracker();
+
+    /**
+     * Get the process-wide DatabaseHelper. The underlying connection is opened
+     * once and kept warm for the lifetime of the app, so callers must not close
+     * it.
+     */
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Close the shared connection and forget it, so the next
+     * {@link #getInstance} opens the database again. Tests get a fresh
+     * database file each, which the cached DAOs would otherwise outlive.
+     */
+    @VisibleForTesting
+    public static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
 
-    public DatabaseHelper(Context context) {
+    private DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // WAL lets readers run concurrently with a writer on the shared connection
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    public synchronized TripDao getTripDao() {
+        if (tripDao == null) {
+            tripDao = new TripDao(getWritableDatabase());
+        }
+        return tripDao;
+    }
+
+    public synchronized ScheduleDao getScheduleDao() {
+        if (scheduleDao == null) {
+            scheduleDao = new ScheduleDao(getWritableDatabase());
+        }
+        return scheduleDao;
+    }
+
+    public synchronized ExpenseDao getExpenseDao() {
+        if (expenseDao == null) {
+            expenseDao = new ExpenseDao(getWritableDatabase());
+        }
+        return expenseDao;
+    }
+
+    public synchronized CaptureDao getCaptureDao() {
+        if (captureDao == null) {
+            captureDao = new CaptureDao(getWritableDatabase());
+        }
+        return captureDao;
+    }
+
+    public synchronized UserStatsDao getUserStatsDao() {
+        if (userStatsDao == null) {
+            userStatsDao = new UserStatsDao(getWritableDatabase());
+        }
+        return userStatsDao;
+    }
+
+    public synchronized MediaDao getMediaDao() {
+        if (mediaDao == null) {
+            mediaDao = new MediaDao(getWritableDatabase());
+        }
+        return mediaDao;
+    }
+
+    public synchronized SearchDao getSearchDao() {
+        if (searchDao == null) {
+            SearchDao dao = new SearchDao(getWritableDatabase());
+            // Any write to an indexed table can change a cached ranking
+            invalidationTracker.addCacheObserver((table, tripId) -> dao.invalidate());
+            searchDao = dao;
+        }
+        return searchDao;
+    }
+
+    public synchronized ExpenseLedgerDao getExpenseLedgerDao() {
+        if (expenseLedgerDao == null) {
+            expenseLedgerDao = new ExpenseLedgerDao(getWritableDatabase());
+        }
+        return expenseLedgerDao;
+    }
+
+    public synchronized DashboardSummaryDao getDashboardSummaryDao() {
+        if (dashboardSummaryDao == null) {
+            dashboardSummaryDao = new DashboardSummaryDao(getWritableDatabase());
+        }
+        return dashboardSummaryDao;
+    }
+
+    public synchronized AlarmRegistryDao getAlarmRegistryDao() {
+        if (alarmRegistryDao == null) {
+            alarmRegistryDao = new AlarmRegistryDao(getWritableDatabase());
+        }
+        return alarmRegistryDao;
+    }
+
+    public synchronized OutboxDao getOutboxDao() {
+        if (outboxDao == null) {
+            outboxDao = new OutboxDao(getWritableDatabase());
+        }
+        return outboxDao;
+    }
+
+    /**
+     * Tracker that publishes which (table, tripId) pairs each write touched
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidationTracker;
     }
 
     @Override
@@ -119,7 +271,9 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + COLUMN_LAST_SYNCED_AT + " INTEGER,"
                 + COLUMN_BUDGET + " REAL,"
                 + COLUMN_BUDGET_CURRENCY + " TEXT DEFAULT 'USD',"
-                + COLUMN_PARTICIPANTS + " TEXT"
+                + COLUMN_PARTICIPANTS + " TEXT,"
+                + COLUMN_START_EPOCH_DAY + " INTEGER,"
+                + COLUMN_END_EPOCH_DAY + " INTEGER"
                 + ")";
         db.execSQL(CREATE_TRIPS_TABLE);
 
@@ -156,6 +310,9 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + COLUMN_SCHEDULE_NOTIFY_BEFORE + " INTEGER DEFAULT 0,"
                 + COLUMN_SCHEDULE_CREATED_AT + " INTEGER,"
                 + COLUMN_SCHEDULE_UPDATED_AT + " INTEGER,"
+                + COLUMN_SCHEDULE_EPOCH_DAY + " INTEGER,"
+                + COLUMN_SCHEDULE_START_MINUTE + " INTEGER,"
+                + COLUMN_SCHEDULE_END_MINUTE + " INTEGER,"
                 + "FOREIGN KEY(" + COLUMN_SCHEDULE_TRIP_ID + ") REFERENCES "
                 + TABLE_TRIPS + "(" + COLUMN_TRIP_ID + ")"
                 + ")";
@@ -175,6 +332,70 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + TABLE_TRIPS + "(" + COLUMN_TRIP_ID + ")"
                 + ")";
         db.execSQL(CREATE_CAPTURES_TABLE);
+
+        MediaDao.createTable(db);
+        SearchDao.createSchema(db);
+        ExpenseLedgerDao.createSchema(db);
+        DashboardSummaryDao.createSchema(db);
+        AlarmRegistryDao.createTable(db);
+        OutboxDao.createTable(db);
+        createIndexes(db);
+        createDateIndexes(db);
+        createReminderIndex(db);
+    }
+
+    /**
+     * Create secondary indexes backing the per-trip and per-user DAO queries.
+     * Column order matches each query's WHERE + ORDER BY so SQLite can serve
+     * the rows in index order without a separate sort step.
+     */
+    private void createIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_trips_user_created ON " + TABLE_TRIPS + "("
+                + COLUMN_USER_ID + ", " + COLUMN_CREATED_AT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_trips_firebase_user ON " + TABLE_TRIPS + "("
+                + COLUMN_FIREBASE_ID + ", " + COLUMN_USER_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_expenses_trip_spent ON " + TABLE_EXPENSES + "("
+                + COLUMN_EXPENSE_TRIP_ID + ", " + COLUMN_SPENT_AT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_captures_trip_captured ON " + TABLE_CAPTURES + "("
+                + COLUMN_CAPTURE_TRIP_ID + ", " + COLUMN_CAPTURED_AT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_captures_user_captured ON " + TABLE_CAPTURES + "("
+                + COLUMN_CAPTURE_USER_ID + ", " + COLUMN_CAPTURED_AT + ")");
+    }
+
+    /**
+     * Create indexes on the integer date columns used for range checks and
+     * schedule ordering
+     */
+    private void createDateIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_trips_user_start_day ON " + TABLE_TRIPS + "("
+                + COLUMN_USER_ID + ", " + COLUMN_START_EPOCH_DAY + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_schedules_trip_epoch_start ON " + TABLE_SCHEDULES + "("
+                + COLUMN_SCHEDULE_TRIP_ID + ", " + COLUMN_SCHEDULE_EPOCH_DAY + ", " + COLUMN_SCHEDULE_START_MINUTE
+                + ")");
+    }
+
+    /**
+     * Create the index the alarm reconcile finds due reminders with. Only
+     * schedules with a reminder are in it.
+     */
+    private void createReminderIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_schedules_reminder ON " + TABLE_SCHEDULES + "("
+                + COLUMN_SCHEDULE_EPOCH_DAY + ", " + COLUMN_SCHEDULE_START_MINUTE + ") WHERE "
+                + COLUMN_SCHEDULE_NOTIFY_BEFORE + " > 0");
+    }
+
+    /**
+     * SQL expression converting an HH:mm / H:mm text column to minutes since
+     * midnight. Accepts the same values as
+     * {@link com.example.voyagerbuds.utils.DateUtils#toMinuteOfDay} and is NULL
+     * wherever that returns NO_MINUTE.
+     */
+    private static String minuteOfDaySql(String column) {
+        String hours = "CAST(substr(" + column + ", 1, instr(" + column + ", ':') - 1) AS INTEGER)";
+        String minutes = "CAST(substr(" + column + ", instr(" + column + ", ':') + 1, 2) AS INTEGER)";
+        return "CASE WHEN (" + column + " GLOB '[0-9]:[0-9][0-9]*' OR " + column + " GLOB '[0-9][0-9]:[0-9][0-9]*')"
+                + " AND " + hours + " <= 23 AND " + minutes + " <= 59"
+                + " THEN " + hours + " * 60 + " + minutes + " END";
     }
 
     @Override
@@ -264,370 +485,635 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             db.execSQL("ALTER TABLE " + TABLE_SCHEDULES + " ADD COLUMN " + COLUMN_SCHEDULE_LATITUDE + " REAL");
             db.execSQL("ALTER TABLE " + TABLE_SCHEDULES + " ADD COLUMN " + COLUMN_SCHEDULE_LONGITUDE + " REAL");
         }
+        if (oldVersion < 13) {
+            // Add indexes on tripId/userId foreign keys to avoid full table scans
+            createIndexes(db);
+            // Indexes on the text dates, replaced in version 15
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_trips_user_start ON " + TABLE_TRIPS + "("
+                    + COLUMN_USER_ID + ", " + COLUMN_START_DATE + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_schedules_trip_day_start ON " + TABLE_SCHEDULES + "("
+                    + COLUMN_SCHEDULE_TRIP_ID + ", " + COLUMN_SCHEDULE_DAY + ", " + COLUMN_SCHEDULE_START_TIME + ")");
+        }
+        if (oldVersion < 14) {
+            // Normalize schedule/expense image_paths JSON and capture paths into the Media
+            // table
+            MediaDao.createTable(db);
+            new MediaDao(db).rebuildAll();
+        }
+        if (oldVersion < 15) {
+            // Store dates as epoch days and times as minutes of day so range checks and
+            // ordering compare integers instead of strings
+            db.execSQL("ALTER TABLE " + TABLE_TRIPS + " ADD COLUMN " + COLUMN_START_EPOCH_DAY + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_TRIPS + " ADD COLUMN " + COLUMN_END_EPOCH_DAY + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_SCHEDULES + " ADD COLUMN " + COLUMN_SCHEDULE_EPOCH_DAY + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_SCHEDULES + " ADD COLUMN " + COLUMN_SCHEDULE_START_MINUTE
+                    + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_SCHEDULES + " ADD COLUMN " + COLUMN_SCHEDULE_END_MINUTE + " INTEGER");
+
+            // julianday() returns NULL for anything that is not a yyyy-MM-dd date
+            db.execSQL("UPDATE " + TABLE_TRIPS + " SET "
+                    + COLUMN_START_EPOCH_DAY + " = CAST(julianday(" + COLUMN_START_DATE + ") - 2440587.5 AS INTEGER), "
+                    + COLUMN_END_EPOCH_DAY + " = CAST(julianday(" + COLUMN_END_DATE + ") - 2440587.5 AS INTEGER)");
+            db.execSQL("UPDATE " + TABLE_SCHEDULES + " SET "
+                    + COLUMN_SCHEDULE_EPOCH_DAY + " = CAST(julianday(" + COLUMN_SCHEDULE_DAY
+                    + ") - 2440587.5 AS INTEGER), "
+                    + COLUMN_SCHEDULE_START_MINUTE + " = " + minuteOfDaySql(COLUMN_SCHEDULE_START_TIME) + ", "
+                    + COLUMN_SCHEDULE_END_MINUTE + " = " + minuteOfDaySql(COLUMN_SCHEDULE_END_TIME));
+
+            // The version 13 text-keyed indexes are replaced by the integer ones
+            db.execSQL("DROP INDEX IF EXISTS idx_trips_user_start");
+            db.execSQL("DROP INDEX IF EXISTS idx_schedules_trip_day_start");
+            createDateIndexes(db);
+        }
+        if (oldVersion < 16) {
+            // Full-text index over trips, schedules, expenses and captures, kept up to
+            // date by triggers
+            SearchDao.createSchema(db);
+            new SearchDao(db).rebuildAll();
+        }
+        if (oldVersion < 17) {
+            // Per-trip expense totals kept up to date by triggers
+            ExpenseLedgerDao.createSchema(db);
+            new ExpenseLedgerDao(db).rebuildAll();
+        }
+        if (oldVersion < 18) {
+            // Per-user dashboard totals kept up to date by triggers
+            DashboardSummaryDao.createSchema(db);
+            new DashboardSummaryDao(db).rebuildAll();
+        }
+        if (oldVersion < 19) {
+            // Record of armed schedule reminders, empty until the first reconcile, and
+            // the index the reconcile reads due reminders with
+            AlarmRegistryDao.createTable(db);
+            createReminderIndex(db);
+        }
+        if (oldVersion < 20) {
+            // Emails waiting to be sent
+            OutboxDao.createTable(db);
+        }
     }
 
     // Trip CRUD operations - Delegate to DAO
     public long addTrip(Trip trip) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        TripDao dao = new TripDao(db);
-        long id = dao.insert(trip);
-        db.close();
+        long id = getTripDao().insert(trip);
+        if (id != -1) {
+            invalidationTracker.notifyInvalidated(InvalidationTracker.TRIPS, (int) id);
+        }
         return id;
     }
 
+    /**
+     * Insert many trips in one transaction
+     *
+     * @return The new trip IDs, in input order
+     */
+    public long[] addTrips(List<Trip> trips) {
+        long[] ids = getTripDao().insertAll(trips);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.TRIPS, InvalidationTracker.ANY_TRIP);
+        return ids;
+    }
+
     // Schedule CRUD - Delegate to DAO
     public long addSchedule(ScheduleItem item) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ScheduleDao dao = new ScheduleDao(db);
-        long id = dao.insert(item);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        long id;
+        db.beginTransaction();
+        try {
+            id = getScheduleDao().insert(item);
+            if (id != -1) {
+                item.setId((int) id);
+                getMediaDao().replaceForSchedule(item);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.SCHEDULES, item.getTripId());
         return id;
     }
 
+    public int addSchedules(List<ScheduleItem> items) {
+        SQLiteDatabase db = getWritableDatabase();
+        Set<Integer> tripIds = new LinkedHashSet<>();
+        int inserted;
+        db.beginTransaction();
+        try {
+            inserted = getScheduleDao().insertAll(items);
+            for (ScheduleItem item : items) {
+                tripIds.add(item.getTripId());
+            }
+            rebuildMediaForTrips(tripIds);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyInvalidated(InvalidationTracker.SCHEDULES, tripIds);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.MEDIA, tripIds);
+        return inserted;
+    }
+
     public List<ScheduleItem> getSchedulesForTrip(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        ScheduleDao dao = new ScheduleDao(db);
-        List<ScheduleItem> list = dao.getAllByTripId(tripId);
-        db.close();
-        return list;
+        return getScheduleDao().getAllByTripId(tripId);
+    }
+
+    /**
+     * Get a trip's schedules for one day (yyyy-MM-dd), ordered by start time
+     */
+    public List<ScheduleItem> getSchedulesForDay(int tripId, String day) {
+        return getScheduleDao().getByTripIdAndDay(tripId, day);
+    }
+
+    /**
+     * Get the {scheduleId, startMinute, endMinute} ranges of a trip's schedules
+     * for one day, ordered by start
+     */
+    public List<int[]> getScheduleTimeRangesForDay(int tripId, String day) {
+        return getScheduleDao().getTimeRangesForDay(tripId, day);
     }
 
     public int updateSchedule(ScheduleItem item) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ScheduleDao dao = new ScheduleDao(db);
-        int result = dao.update(item);
-        db.close();
-        return result;
+        SQLiteDatabase db = getWritableDatabase();
+        int rows;
+        db.beginTransaction();
+        try {
+            rows = getScheduleDao().update(item);
+            syncScheduleMedia(item.getId());
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.SCHEDULES, item.getTripId());
+        return rows;
     }
 
     public void deleteSchedule(int scheduleId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ScheduleDao dao = new ScheduleDao(db);
-        dao.delete(scheduleId);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        ScheduleItem stored = getScheduleDao().getById(scheduleId);
+        db.beginTransaction();
+        try {
+            getScheduleDao().delete(scheduleId);
+            getMediaDao().deleteByOwner(Media.OWNER_SCHEDULE, scheduleId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.SCHEDULES,
+                stored != null ? stored.getTripId() : InvalidationTracker.ANY_TRIP);
     }
 
     public List<Trip> getAllTrips(int userId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        TripDao dao = new TripDao(db);
-        List<Trip> list = dao.getAllByUserId(userId);
-        db.close();
-        return list;
+        return getTripDao().getAllByUserId(userId);
+    }
+
+    /**
+     * Get lightweight trip summaries (no notes or participants) for list screens
+     */
+    public List<Trip> getTripSummaries(int userId) {
+        return getTripDao().getSummariesByUserId(userId);
+    }
+
+    /**
+     * Get the user's trip that includes the given epoch day, or null
+     */
+    public Trip getTripCoveringDay(int userId, long epochDay) {
+        return getTripDao().getTripCoveringDay(userId, epochDay);
     }
 
     public Trip getTripById(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        TripDao dao = new TripDao(db);
-        Trip trip = dao.getById(tripId);
-        db.close();
-        return trip;
+        return getTripDao().getById(tripId);
     }
 
     /**
      * Find a trip by firebase_id (the remote trip id) and user id.
      */
     public Trip getTripByFirebaseId(int firebaseId, int userId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        TripDao dao = new TripDao(db);
-        Trip trip = dao.getByFirebaseIdAndUserId(firebaseId, userId);
-        db.close();
-        return trip;
+        return getTripDao().getByFirebaseIdAndUserId(firebaseId, userId);
     }
 
     public double getTotalExpensesForTrip(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        double total = dao.getTotalByTripId(tripId);
-        db.close();
-        return total;
+        return getBudgetLedger(tripId).getTotal();
     }
 
     public java.util.Map<String, Double> getTotalExpensesByCurrency(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        java.util.Map<String, Double> totals = dao.getTotalsByCurrency(tripId);
-        db.close();
-        return totals;
+        return getBudgetLedger(tripId).getTotalsByCurrency();
+    }
+
+    /**
+     * Get a trip's expense totals by category and currency, count and highest
+     * expense from the ledger table
+     */
+    public BudgetLedger getBudgetLedger(int tripId) {
+        return getExpenseLedgerDao().getByTripId(tripId);
+    }
+
+    /**
+     * Get a user's trip count, destinations, and budget and spend per currency
+     * from the dashboard summary table
+     */
+    public DashboardSummary getDashboardSummary(int userId) {
+        return getDashboardSummaryDao().getByUserId(userId);
     }
 
     public int updateTrip(Trip trip) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        TripDao dao = new TripDao(db);
-        int result = dao.update(trip);
-        db.close();
-        return result;
+        int rows = getTripDao().update(trip);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.TRIPS, trip.getTripId());
+        return rows;
     }
 
     public void deleteTrip(int tripId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ExpenseDao expenseDao = new ExpenseDao(db);
-        ScheduleDao scheduleDao = new ScheduleDao(db);
-        CaptureDao captureDao = new CaptureDao(db);
-        TripDao tripDao = new TripDao(db);
-
-        // Delete related data first
-        expenseDao.deleteByTripId(tripId);
-        scheduleDao.deleteByTripId(tripId);
-        captureDao.deleteByTripId(tripId);
-        tripDao.delete(tripId);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Delete related data first
+            getExpenseDao().deleteByTripId(tripId);
+            getScheduleDao().deleteByTripId(tripId);
+            getCaptureDao().deleteByTripId(tripId);
+            getMediaDao().deleteByTripId(tripId);
+            getTripDao().delete(tripId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyTripData(tripId);
     }
 
     /**
      * Remove all data for a given user (trips and their related child data)
      */
     public void clearUserData(int userId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        TripDao tripDao = new TripDao(db);
-        List<Trip> trips = tripDao.getAllByUserId(userId);
-        for (Trip t : trips) {
-            // Cascade delete: tripDao.delete will not cascade; keep current behaviour using
-            // helpers
-            ExpenseDao expenseDao = new ExpenseDao(db);
-            ScheduleDao scheduleDao = new ScheduleDao(db);
-            CaptureDao captureDao = new CaptureDao(db);
-            expenseDao.deleteByTripId(t.getTripId());
-            scheduleDao.deleteByTripId(t.getTripId());
-            captureDao.deleteByTripId(t.getTripId());
-            tripDao.delete(t.getTripId());
-        }
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            List<Trip> trips = getTripDao().getAllByUserId(userId);
+            for (Trip t : trips) {
+                // Cascade delete: tripDao.delete will not cascade; keep current behaviour using
+                // helpers
+                getExpenseDao().deleteByTripId(t.getTripId());
+                getScheduleDao().deleteByTripId(t.getTripId());
+                getCaptureDao().deleteByTripId(t.getTripId());
+                getMediaDao().deleteByTripId(t.getTripId());
+                getTripDao().delete(t.getTripId());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyTripData(InvalidationTracker.ANY_TRIP);
     }
 
     /**
-     * Count total schedules for user by summing schedules across all trips
+     * Get aggregate counts and spend per currency for a user in one query
+     */
+    public UserStats getUserStats(int userId) {
+        return getUserStatsDao().getByUserId(userId);
+    }
+
+    /**
+     * Get schedule, expense and capture counts of each of a user's trips,
+     * keyed by trip id. Trips with no children are not in the map.
+     */
+    public Map<Integer, TripCounts> getTripCounts(int userId) {
+        return getUserStatsDao().getTripCountsByUserId(userId);
+    }
+
+    /**
+     * Count total schedules for user across all trips
      */
     public int getTotalSchedulesForUser(int userId) {
-        int total = 0;
-        List<Trip> trips = getAllTrips(userId);
-        for (Trip t : trips) {
-            total += getSchedulesForTrip(t.getTripId()).size();
-        }
-        return total;
+        return getUserStats(userId).getScheduleCount();
     }
 
     /**
-     * Count total expenses for user by summing expenses across all trips
+     * Count total expenses for user across all trips
      */
     public int getTotalExpensesForUser(int userId) {
-        int total = 0;
-        List<Trip> trips = getAllTrips(userId);
-        for (Trip t : trips) {
-            total += getExpensesForTrip(t.getTripId()).size();
-        }
-        return total;
+        return getUserStats(userId).getExpenseCount();
     }
 
     /**
-     * Count total captures for user by summing captures across all trips
+     * Count total captures for user across all trips
      */
     public int getTotalCapturesForUser(int userId) {
-        int total = 0;
-        List<Trip> trips = getAllTrips(userId);
-        for (Trip t : trips) {
-            total += getCapturesForTrip(t.getTripId()).size();
-        }
-        return total;
+        return getUserStats(userId).getCaptureCount();
     }
 
     public boolean isDateRangeAvailable(int userId, String startDate, String endDate) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        TripDao dao = new TripDao(db);
-        List<Trip> overlappingTrips = dao.getTripsByDateRange(userId, startDate, endDate);
-        db.close();
-        return overlappingTrips.isEmpty();
+        return getTripDao().getTripsByDateRange(userId, startDate, endDate).isEmpty();
     }
 
     public boolean isDateRangeAvailable(int userId, String startDate, String endDate, int excludeTripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        TripDao dao = new TripDao(db);
-        List<Trip> overlappingTrips = dao.getTripsByDateRangeExcluding(userId, startDate, endDate, excludeTripId);
-        db.close();
-        return overlappingTrips.isEmpty();
+        return getTripDao().getTripsByDateRangeExcluding(userId, startDate, endDate, excludeTripId).isEmpty();
     }
 
     public ScheduleItem getScheduleById(int scheduleId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        ScheduleDao dao = new ScheduleDao(db);
-        ScheduleItem item = dao.getById(scheduleId);
-        db.close();
-        return item;
+        return getScheduleDao().getById(scheduleId);
     }
 
     public void updateScheduleImages(int scheduleId, String imagesJson) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ScheduleDao dao = new ScheduleDao(db);
-        dao.updateImages(scheduleId, imagesJson);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        int tripId;
+        db.beginTransaction();
+        try {
+            getScheduleDao().updateImages(scheduleId, imagesJson);
+            tripId = syncScheduleMedia(scheduleId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.SCHEDULES, tripId);
     }
 
     public List<Expense> getExpensesForTrip(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        List<Expense> expenses = dao.getAllByTripId(tripId);
-        db.close();
-        return expenses;
+        return getExpenseDao().getAllByTripId(tripId);
     }
 
     public Expense getExpenseById(int expenseId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        Expense expense = dao.getById(expenseId);
-        db.close();
-        return expense;
+        return getExpenseDao().getById(expenseId);
     }
 
     public long addExpense(Expense expense) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        long id = dao.insert(expense);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        long id;
+        db.beginTransaction();
+        try {
+            id = getExpenseDao().insert(expense);
+            if (id != -1) {
+                expense.setExpenseId((int) id);
+                getMediaDao().replaceForExpense(expense);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.EXPENSES, expense.getTripId());
         return id;
     }
 
+    public int addExpenses(List<Expense> expenses) {
+        SQLiteDatabase db = getWritableDatabase();
+        Set<Integer> tripIds = new LinkedHashSet<>();
+        int inserted;
+        db.beginTransaction();
+        try {
+            inserted = getExpenseDao().insertAll(expenses);
+            for (Expense expense : expenses) {
+                tripIds.add(expense.getTripId());
+            }
+            rebuildMediaForTrips(tripIds);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyInvalidated(InvalidationTracker.EXPENSES, tripIds);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.MEDIA, tripIds);
+        return inserted;
+    }
+
     public int updateExpense(Expense expense) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        int rows = dao.update(expense);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        int rows;
+        db.beginTransaction();
+        try {
+            rows = getExpenseDao().update(expense);
+            syncExpenseMedia(expense.getExpenseId());
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.EXPENSES, expense.getTripId());
         return rows;
     }
 
     public void updateExpenseImages(int expenseId, String imagesJson) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        dao.updateImages(expenseId, imagesJson);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        int tripId;
+        db.beginTransaction();
+        try {
+            getExpenseDao().updateImages(expenseId, imagesJson);
+            tripId = syncExpenseMedia(expenseId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.EXPENSES, tripId);
     }
 
     public void deleteExpense(int expenseId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ExpenseDao dao = new ExpenseDao(db);
-        dao.delete(expenseId);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        Expense stored = getExpenseDao().getById(expenseId);
+        db.beginTransaction();
+        try {
+            getExpenseDao().delete(expenseId);
+            getMediaDao().deleteByOwner(Media.OWNER_EXPENSE, expenseId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.EXPENSES,
+                stored != null ? stored.getTripId() : InvalidationTracker.ANY_TRIP);
     }
 
     // Capture CRUD operations - Delegate to DAO
     public long addCapture(Capture capture) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        long id = dao.insert(capture);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        long id;
+        db.beginTransaction();
+        try {
+            id = getCaptureDao().insert(capture);
+            if (id != -1) {
+                capture.setCaptureId((int) id);
+                getMediaDao().replaceForCapture(capture);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.CAPTURES, capture.getTripId());
         return id;
     }
 
+    public int addCaptures(List<Capture> captures) {
+        SQLiteDatabase db = getWritableDatabase();
+        Set<Integer> tripIds = new LinkedHashSet<>();
+        int inserted;
+        db.beginTransaction();
+        try {
+            inserted = getCaptureDao().insertAll(captures);
+            for (Capture capture : captures) {
+                tripIds.add(capture.getTripId());
+            }
+            rebuildMediaForTrips(tripIds);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyInvalidated(InvalidationTracker.CAPTURES, tripIds);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.MEDIA, tripIds);
+        return inserted;
+    }
+
     public int updateCapture(Capture capture) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        int rows = dao.update(capture);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        int rows;
+        db.beginTransaction();
+        try {
+            rows = getCaptureDao().update(capture);
+            Capture stored = getCaptureDao().getById(capture.getCaptureId());
+            if (stored != null) {
+                getMediaDao().replaceForCapture(stored);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.CAPTURES, capture.getTripId());
         return rows;
     }
 
     public void deleteCapture(int captureId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        dao.delete(captureId);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        Capture stored = getCaptureDao().getById(captureId);
+        db.beginTransaction();
+        try {
+            getCaptureDao().delete(captureId);
+            getMediaDao().deleteByOwner(Media.OWNER_CAPTURE, captureId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.CAPTURES,
+                stored != null ? stored.getTripId() : InvalidationTracker.ANY_TRIP);
     }
 
     public Capture getCaptureById(int captureId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        Capture capture = dao.getById(captureId);
-        db.close();
-        return capture;
+        return getCaptureDao().getById(captureId);
     }
 
     public List<Capture> getCapturesForTrip(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        List<Capture> captures = dao.getAllByTripId(tripId);
-        db.close();
-        return captures;
+        return getCaptureDao().getAllByTripId(tripId);
     }
 
     public List<Capture> getCapturesForUser(int userId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        List<Capture> captures = dao.getAllByUserId(userId);
-        db.close();
-        return captures;
+        return getCaptureDao().getAllByUserId(userId);
     }
 
     public List<Capture> getCapturesByMediaType(int tripId, String mediaType) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        List<Capture> captures = dao.getByTripIdAndMediaType(tripId, mediaType);
-        db.close();
-        return captures;
+        return getCaptureDao().getByTripIdAndMediaType(tripId, mediaType);
     }
 
     public int getCaptureCountForTrip(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        int count = dao.getCountByTripId(tripId);
-        db.close();
-        return count;
+        return getCaptureDao().getCountByTripId(tripId);
     }
 
     public int getPhotoCountForTrip(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        int count = dao.getPhotoCountByTripId(tripId);
-        db.close();
-        return count;
+        return getCaptureDao().getPhotoCountByTripId(tripId);
     }
 
     public int getVideoCountForTrip(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        int count = dao.getVideoCountByTripId(tripId);
-        db.close();
-        return count;
+        return getCaptureDao().getVideoCountByTripId(tripId);
     }
 
     public void deleteAllCapturesForTrip(int tripId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        dao.deleteByTripId(tripId);
-        db.close();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            getCaptureDao().deleteByTripId(tripId);
+            getMediaDao().rebuildForTrip(tripId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyWithMedia(InvalidationTracker.CAPTURES, tripId);
     }
 
     /**
      * Get all captures for a user, ordered by timestamp descending
      */
     public List<Capture> getAllCapturesForUser(int userId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        CaptureDao dao = new CaptureDao(db);
-        List<Capture> captures = dao.getAllByUserId(userId);
-        db.close();
-        return captures;
+        return getCaptureDao().getAllByUserId(userId);
     }
 
     /**
      * Get all captures for a trip, ordered by timestamp ascending
      */
     public List<Capture> getCapturesForTripOrdered(int tripId) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        List<Capture> captures = new ArrayList<>();
+        return getCaptureDao().getAllByTripIdAscending(tripId);
+    }
 
-        String query = "SELECT * FROM " + CaptureDao.TABLE_NAME +
-                " WHERE " + CaptureDao.COLUMN_TRIP_ID + " = ? " +
-                " ORDER BY " + CaptureDao.COLUMN_CAPTURED_AT + " ASC";
+    // Media - normalized schedule/expense/capture images
+    /**
+     * Get every image and video of a trip (schedules, expenses and captures),
+     * oldest first
+     */
+    public List<Media> getMediaForTrip(int tripId) {
+        return getMediaDao().getAllByTripId(tripId);
+    }
 
-        Cursor cursor = db.rawQuery(query, new String[] { String.valueOf(tripId) });
+    /**
+     * Get one page of a trip's media, oldest first, after the given
+     * (takenAt, mediaId) key. See {@link MediaPagingSource}.
+     */
+    public List<Media> getMediaPageForTrip(int tripId, long afterTakenAt, int afterMediaId, int limit) {
+        return getMediaDao().getPageByTripId(tripId, afterTakenAt, afterMediaId, limit);
+    }
 
-        if (cursor.moveToFirst()) {
-            CaptureDao dao = new CaptureDao(db);
-            do {
-                Capture capture = dao.cursorToCapture(cursor);
-                captures.add(capture);
-            } while (cursor.moveToNext());
+    /**
+     * Get the newest media of a trip
+     */
+    public List<Media> getLatestMediaForTrip(int tripId, int limit) {
+        return getMediaDao().getLatestByTripId(tripId, limit);
+    }
+
+    // Search
+    /**
+     * Full-text search over a user's trips, schedules, expenses and captures,
+     * best match first. See {@link SearchDao#search}.
+     */
+    public List<SearchResult> search(int userId, String query, int offset, int limit) {
+        return getSearchDao().search(userId, query, offset, limit);
+    }
+
+    /**
+     * @return The schedule's trip ID, or ANY_TRIP when it no longer exists
+     */
+    private int syncScheduleMedia(int scheduleId) {
+        ScheduleItem stored = getScheduleDao().getById(scheduleId);
+        if (stored == null) {
+            return InvalidationTracker.ANY_TRIP;
         }
+        getMediaDao().replaceForSchedule(stored);
+        return stored.getTripId();
+    }
 
-        cursor.close();
-        db.close();
-        return captures;
+    /**
+     * @return The expense's trip ID, or ANY_TRIP when it no longer exists
+     */
+    private int syncExpenseMedia(int expenseId) {
+        Expense stored = getExpenseDao().getById(expenseId);
+        if (stored == null) {
+            return InvalidationTracker.ANY_TRIP;
+        }
+        getMediaDao().replaceForExpense(stored);
+        return stored.getTripId();
+    }
+
+    // Schedule, expense and capture writes also rewrite the trip's media rows
+    private void notifyWithMedia(String table, int tripId) {
+        invalidationTracker.notifyInvalidated(table, tripId);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.MEDIA, tripId);
+    }
+
+    private void notifyTripData(int tripId) {
+        invalidationTracker.notifyInvalidated(InvalidationTracker.TRIPS, tripId);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.SCHEDULES, tripId);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.EXPENSES, tripId);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.CAPTURES, tripId);
+        invalidationTracker.notifyInvalidated(InvalidationTracker.MEDIA, tripId);
+    }
+
+    private void rebuildMediaForTrips(Set<Integer> tripIds) {
+        for (int tripId : tripIds) {
+            getMediaDao().rebuildForTrip(tripId);
+        }
     }
 }
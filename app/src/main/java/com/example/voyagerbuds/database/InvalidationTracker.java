@@ -0,0 +1,73 @@
+package com.example.voyagerbuds.database;
+
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Publishes (table, tripId) invalidations after DatabaseHelper writes, so
+ * screens can re-run only the queries that read the changed rows.
+ * See {@link ObservableQuery}.
+ */
+public class InvalidationTracker {
+    // Tables that publish invalidations
+    public static final String TRIPS = "Trips";
+    public static final String SCHEDULES = "Schedules";
+    public static final String EXPENSES = "Expenses";
+    public static final String CAPTURES = "Captures";
+    public static final String MEDIA = "Media";
+
+    // Trip ID for writes that touch several or unknown trips, and for observers
+    // of every trip
+    public static final int ANY_TRIP = -1;
+
+    public interface Observer {
+        /**
+         * Called on the thread that made the write, after it completed
+         */
+        void onInvalidated(String table, int tripId);
+    }
+
+    private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
+
+    public void addObserver(Observer observer) {
+        observers.addIfAbsent(observer);
+    }
+
+    /**
+     * Add an observer that is notified before all others. Used by caches so
+     * they are cleared before observing queries re-run against them.
+     */
+    public void addCacheObserver(Observer observer) {
+        if (!observers.contains(observer)) {
+            observers.add(0, observer);
+        }
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Tell observers that rows of {@code table} belonging to {@code tripId}
+     * changed
+     */
+    public void notifyInvalidated(String table, int tripId) {
+        for (Observer observer : observers) {
+            observer.onInvalidated(table, tripId);
+        }
+    }
+
+    void notifyInvalidated(String table, Collection<Integer> tripIds) {
+        for (int tripId : tripIds) {
+            notifyInvalidated(table, tripId);
+        }
+    }
+
+    /**
+     * Whether an invalidation of {@code changedTripId} concerns an observer of
+     * {@code observedTripId}
+     */
+    public static boolean matches(int observedTripId, int changedTripId) {
+        return observedTripId == ANY_TRIP || changedTripId == ANY_TRIP || observedTripId == changedTripId;
+    }
+}
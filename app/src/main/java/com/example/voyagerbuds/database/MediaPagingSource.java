@@ -0,0 +1,53 @@
+package com.example.voyagerbuds.database;
+
+import com.example.voyagerbuds.models.Media;
+
+import java.util.List;
+
+/**
+ * MediaPagingSource - Streams a trip's media (schedule, expense and capture
+ * images) in pages of a fixed size, oldest first, using keyset pagination on
+ * (taken_at, mediaId).
+ * Each call to {@link #loadNextPage()} resumes after the last row returned,
+ * so only the rows the user has scrolled to are ever read into memory.
+ */
+public class MediaPagingSource {
+    public static final int DEFAULT_PAGE_SIZE = 60;
+
+    private final DatabaseHelper databaseHelper;
+    private final int tripId;
+    private final int pageSize;
+
+    private long lastTakenAt = Long.MIN_VALUE;
+    private int lastMediaId = 0;
+    private boolean hasMore = true;
+
+    public MediaPagingSource(DatabaseHelper databaseHelper, int tripId) {
+        this(databaseHelper, tripId, DEFAULT_PAGE_SIZE);
+    }
+
+    public MediaPagingSource(DatabaseHelper databaseHelper, int tripId, int pageSize) {
+        this.databaseHelper = databaseHelper;
+        this.tripId = tripId;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Load the next page of media. Returns an empty list once the end has
+     * been reached.
+     */
+    public synchronized List<Media> loadNextPage() {
+        List<Media> page = databaseHelper.getMediaPageForTrip(tripId, lastTakenAt, lastMediaId, pageSize);
+        if (!page.isEmpty()) {
+            Media last = page.get(page.size() - 1);
+            lastTakenAt = last.getTakenAt();
+            lastMediaId = last.getMediaId();
+        }
+        hasMore = page.size() == pageSize;
+        return page;
+    }
+
+    public synchronized boolean hasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.voyagerbuds.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.voyagerbuds.utils.AppExecutors;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A query that re-runs on a background thread whenever one of its tables is
+ * invalidated for its trip, delivering each result on the main thread.
+ * Call {@link #start()} when the screen's views exist and {@link #stop()} when
+ * they are destroyed.
+ *
+ * @param <T> Query result type
+ */
+public class ObservableQuery<T> implements InvalidationTracker.Observer {
+
+    public interface Query<T> {
+        T run();
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    // Queries run one at a time so a burst of writes does not pile up readers
+    private static final Executor QUERY_EXECUTOR = AppExecutors.serial(AppExecutors.Pool.DB);
+
+    private final InvalidationTracker tracker;
+    private final int tripId;
+    private final Set<String> tables;
+    private final Query<T> query;
+    private final Callback<T> callback;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Set while a run is queued but not started; further invalidations are
+    // folded into it
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+    private volatile boolean active = false;
+
+    /**
+     * @param tripId Trip whose rows the query reads, or
+     *               {@link InvalidationTracker#ANY_TRIP}
+     * @param tables Tables the query reads
+     */
+    public ObservableQuery(DatabaseHelper databaseHelper, int tripId, Query<T> query, Callback<T> callback,
+            String... tables) {
+        this.tracker = databaseHelper.getInvalidationTracker();
+        this.tripId = tripId;
+        this.tables = new HashSet<>(Arrays.asList(tables));
+        this.query = query;
+        this.callback = callback;
+    }
+
+    /**
+     * Start observing and run the query once
+     */
+    public void start() {
+        if (active) {
+            return;
+        }
+        active = true;
+        tracker.addObserver(this);
+        refresh();
+    }
+
+    /**
+     * Stop observing; results of a run in progress are dropped
+     */
+    public void stop() {
+        active = false;
+        tracker.removeObserver(this);
+    }
+
+    /**
+     * Re-run the query now, e.g. when something other than the database
+     * changed (the date, the language)
+     */
+    public void refresh() {
+        if (!active || !pending.compareAndSet(false, true)) {
+            return;
+        }
+        QUERY_EXECUTOR.execute(() -> {
+            // Clear first so a write during the run queues another one
+            pending.set(false);
+            if (!active) {
+                return;
+            }
+            T result = query.run();
+            mainHandler.post(() -> {
+                if (active) {
+                    callback.onResult(result);
+                }
+            });
+        });
+    }
+
+    @Override
+    public void onInvalidated(String table, int changedTripId) {
+        if (tables.contains(table) && InvalidationTracker.matches(tripId, changedTripId)) {
+            refresh();
+        }
+    }
+}
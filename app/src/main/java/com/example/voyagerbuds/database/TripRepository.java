@@ -0,0 +1,147 @@
+package com.example.voyagerbuds.database;
+
+import android.content.Context;
+
+import com.example.voyagerbuds.models.BudgetLedger;
+import com.example.voyagerbuds.models.Trip;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory cache of the current user's trips and per-trip budget ledgers in
+ * front of DatabaseHelper, so switching between tabs does not re-run the same
+ * queries. Entries are dropped when the {@link InvalidationTracker} reports a
+ * write to Trips or Expenses, which covers every write path.
+ */
+public class TripRepository implements InvalidationTracker.Observer {
+    // Per-trip ledgers are kept for the most recently used trips only
+    private static final int MAX_CACHED_LEDGERS = 64;
+
+    private static TripRepository instance;
+
+    private final DatabaseHelper databaseHelper;
+
+    // Trips of one user; switching users simply misses
+    private int cachedUserId;
+    private List<Trip> cachedTrips;
+    private final Map<Integer, BudgetLedger> ledgersByTrip = new LinkedHashMap<Integer, BudgetLedger>(16, 0.75f,
+            true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BudgetLedger> eldest) {
+            return size() > MAX_CACHED_LEDGERS;
+        }
+    };
+
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private long tripsVersion = 0;
+    private long ledgersVersion = 0;
+
+    public static synchronized TripRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new TripRepository(DatabaseHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private TripRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+        databaseHelper.getInvalidationTracker().addCacheObserver(this);
+    }
+
+    /**
+     * Get all trips of a user, newest first. The list is a copy and may be
+     * sorted or filtered by the caller; the trips themselves are shared and
+     * must not be modified.
+     */
+    public List<Trip> getTrips(int userId) {
+        long version;
+        synchronized (this) {
+            if (cachedTrips != null && cachedUserId == userId) {
+                return new ArrayList<>(cachedTrips);
+            }
+            version = tripsVersion;
+        }
+
+        List<Trip> trips = databaseHelper.getAllTrips(userId);
+        synchronized (this) {
+            if (version == tripsVersion) {
+                cachedUserId = userId;
+                cachedTrips = new ArrayList<>(trips);
+            }
+        }
+        return trips;
+    }
+
+    /**
+     * Get a trip from the cached list, falling back to the database. The trip
+     * is shared and must not be modified; load it from DatabaseHelper to edit.
+     */
+    public Trip getTrip(int tripId) {
+        synchronized (this) {
+            if (cachedTrips != null) {
+                for (Trip trip : cachedTrips) {
+                    if (trip.getTripId() == tripId) {
+                        return trip;
+                    }
+                }
+            }
+        }
+        return databaseHelper.getTripById(tripId);
+    }
+
+    /**
+     * Get a trip's budget ledger. The ledger is shared and must not be
+     * modified.
+     */
+    public BudgetLedger getBudgetLedger(int tripId) {
+        long version;
+        synchronized (this) {
+            BudgetLedger ledger = ledgersByTrip.get(tripId);
+            if (ledger != null) {
+                return ledger;
+            }
+            version = ledgersVersion;
+        }
+
+        BudgetLedger ledger = databaseHelper.getBudgetLedger(tripId);
+        synchronized (this) {
+            if (version == ledgersVersion) {
+                ledgersByTrip.put(tripId, ledger);
+            }
+        }
+        return ledger;
+    }
+
+    /**
+     * Get the sum of all expense amounts of a trip
+     */
+    public double getTotalExpenses(int tripId) {
+        return getBudgetLedger(tripId).getTotal();
+    }
+
+    /**
+     * Get a trip's expense totals keyed by currency code
+     */
+    public Map<String, Double> getTotalExpensesByCurrency(int tripId) {
+        return new HashMap<>(getBudgetLedger(tripId).getTotalsByCurrency());
+    }
+
+    @Override
+    public synchronized void onInvalidated(String table, int tripId) {
+        if (InvalidationTracker.TRIPS.equals(table)) {
+            tripsVersion++;
+            cachedTrips = null;
+        } else if (InvalidationTracker.EXPENSES.equals(table)) {
+            ledgersVersion++;
+            if (tripId == InvalidationTracker.ANY_TRIP) {
+                ledgersByTrip.clear();
+            } else {
+                ledgersByTrip.remove(tripId);
+            }
+        }
+    }
+}
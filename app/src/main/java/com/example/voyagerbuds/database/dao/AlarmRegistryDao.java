@@ -0,0 +1,89 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data Access Object for the AlarmRegistry table.
+ * AlarmRegistry records which schedule reminders are currently armed with
+ * AlarmManager and for what time, so the reconciler only registers and
+ * cancels the alarms that changed.
+ */
+public class AlarmRegistryDao {
+    public static final String TABLE_NAME = "AlarmRegistry";
+    private static final String COLUMN_SCHEDULE_ID = "scheduleId";
+    private static final String COLUMN_TRIGGER_AT = "trigger_at";
+
+    private final SQLiteDatabase database;
+
+    public AlarmRegistryDao(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Create the AlarmRegistry table
+     */
+    public static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + "("
+                + COLUMN_SCHEDULE_ID + " INTEGER PRIMARY KEY,"
+                + COLUMN_TRIGGER_AT + " INTEGER NOT NULL"
+                + ")");
+    }
+
+    /**
+     * Get every armed alarm as scheduleId to trigger time in epoch millis
+     */
+    public Map<Integer, Long> getAll() {
+        Cursor cursor = database.query(TABLE_NAME, new String[] { COLUMN_SCHEDULE_ID, COLUMN_TRIGGER_AT },
+                null, null, null, null, null);
+
+        Map<Integer, Long> alarms = new HashMap<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                do {
+                    alarms.put(cursor.getInt(0), cursor.getLong(1));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return alarms;
+    }
+
+    /**
+     * Record registered alarms and forget removed ones in one transaction
+     *
+     * @param registered scheduleId to trigger time of alarms that were armed
+     * @param removed    scheduleIds whose alarms were cancelled or have fired
+     */
+    public void apply(Map<Integer, Long> registered, Collection<Integer> removed) {
+        if (registered.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        SQLiteStatement put = database.compileStatement("INSERT OR REPLACE INTO " + TABLE_NAME + " ("
+                + COLUMN_SCHEDULE_ID + ", " + COLUMN_TRIGGER_AT + ") VALUES (?, ?)");
+        SQLiteStatement delete = database.compileStatement("DELETE FROM " + TABLE_NAME + " WHERE "
+                + COLUMN_SCHEDULE_ID + " = ?");
+        database.beginTransaction();
+        try {
+            for (Map.Entry<Integer, Long> alarm : registered.entrySet()) {
+                put.bindLong(1, alarm.getKey());
+                put.bindLong(2, alarm.getValue());
+                put.executeInsert();
+            }
+            for (int scheduleId : removed) {
+                delete.bindLong(1, scheduleId);
+                delete.executeUpdateDelete();
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+            put.close();
+            delete.close();
+        }
+    }
+}
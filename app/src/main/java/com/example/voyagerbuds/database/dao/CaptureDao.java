@@ -3,6 +3,7 @@ package com.example.voyagerbuds.database.dao;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import com.example.voyagerbuds.models.Capture;
 
@@ -30,6 +31,27 @@ public class CaptureDao {
     // Keep private alias for backward compatibility
     private static final String TABLE_CAPTURES = TABLE_NAME;
 
+    // Explicit projection for full capture rows
+    private static final String[] ALL_COLUMNS = {
+            COLUMN_CAPTURE_ID, COLUMN_USER_ID, COLUMN_TRIP_ID, COLUMN_MEDIA_PATH, COLUMN_MEDIA_TYPE,
+            COLUMN_DESCRIPTION, COLUMN_CAPTURED_AT, COLUMN_CREATED_AT, COLUMN_UPDATED_AT
+    };
+
+    // Indexed reads, public so QueryPlanTest plans the same statements
+    private static final String SELECT_ALL = "SELECT " + String.join(", ", ALL_COLUMNS) + " FROM " + TABLE_NAME;
+    public static final String BY_TRIP_QUERY = SELECT_ALL + " WHERE " + COLUMN_TRIP_ID + " = ? ORDER BY "
+            + COLUMN_CAPTURED_AT + " DESC";
+    public static final String BY_TRIP_ASCENDING_QUERY = SELECT_ALL + " WHERE " + COLUMN_TRIP_ID + " = ? ORDER BY "
+            + COLUMN_CAPTURED_AT + " ASC";
+    public static final String BY_USER_QUERY = SELECT_ALL + " WHERE " + COLUMN_USER_ID + " = ? ORDER BY "
+            + COLUMN_CAPTURED_AT + " DESC";
+    public static final String BY_TRIP_AND_TYPE_QUERY = SELECT_ALL + " WHERE " + COLUMN_TRIP_ID + " = ? AND "
+            + COLUMN_MEDIA_TYPE + " = ? ORDER BY " + COLUMN_CAPTURED_AT + " DESC";
+    public static final String COUNT_BY_TRIP_QUERY = "SELECT COUNT(*) as count FROM " + TABLE_NAME + " WHERE "
+            + COLUMN_TRIP_ID + " = ?";
+    public static final String COUNT_BY_TRIP_AND_TYPE_QUERY = COUNT_BY_TRIP_QUERY + " AND " + COLUMN_MEDIA_TYPE
+            + " = ?";
+
     private final SQLiteDatabase database;
 
     public CaptureDao(SQLiteDatabase database) {
@@ -53,6 +75,51 @@ public class CaptureDao {
         return database.insert(TABLE_CAPTURES, null, values);
     }
 
+    /**
+     * Insert many captures with one compiled statement inside a single
+     * transaction
+     *
+     * @return Number of rows inserted
+     */
+    public int insertAll(List<Capture> captures) {
+        if (captures.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO " + TABLE_CAPTURES + " (" + COLUMN_USER_ID + ", " + COLUMN_TRIP_ID + ", "
+                + COLUMN_MEDIA_PATH + ", " + COLUMN_MEDIA_TYPE + ", " + COLUMN_DESCRIPTION + ", "
+                + COLUMN_CAPTURED_AT + ", " + COLUMN_CREATED_AT + ", " + COLUMN_UPDATED_AT
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        int inserted = 0;
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(sql);
+        try {
+            for (Capture capture : captures) {
+                // media_path is NOT NULL; skip rows the single insert() would also reject
+                if (capture.getMediaPath() == null) {
+                    continue;
+                }
+                statement.clearBindings();
+                statement.bindLong(1, capture.getUserId());
+                statement.bindLong(2, capture.getTripId());
+                statement.bindString(3, capture.getMediaPath());
+                StatementUtils.bindString(statement, 4, capture.getMediaType());
+                StatementUtils.bindString(statement, 5, capture.getDescription());
+                statement.bindLong(6, capture.getCapturedAt());
+                statement.bindLong(7, capture.getCreatedAt());
+                statement.bindLong(8, capture.getUpdatedAt());
+                if (statement.executeInsert() != -1) {
+                    inserted++;
+                }
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+        return inserted;
+    }
+
     /**
      * Update an existing capture
      */
@@ -96,12 +163,14 @@ public class CaptureDao {
      * Get capture by ID
      */
     public Capture getById(int captureId) {
-        Cursor cursor = database.query(TABLE_CAPTURES, null, COLUMN_CAPTURE_ID + "=?",
+        Cursor cursor = database.query(TABLE_CAPTURES, ALL_COLUMNS, COLUMN_CAPTURE_ID + "=?",
                 new String[] { String.valueOf(captureId) }, null, null, null);
 
         Capture capture = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            capture = cursorToCapture(cursor);
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                capture = cursorToCapture(cursor, new CaptureColumns(cursor));
+            }
             cursor.close();
         }
         return capture;
@@ -112,63 +181,40 @@ public class CaptureDao {
      * first)
      */
     public List<Capture> getAllByTripId(int tripId) {
-        List<Capture> captures = new ArrayList<>();
-        Cursor cursor = database.query(TABLE_CAPTURES, null, COLUMN_TRIP_ID + "=?",
-                new String[] { String.valueOf(tripId) }, null, null, COLUMN_CAPTURED_AT + " DESC");
+        Cursor cursor = database.rawQuery(BY_TRIP_QUERY, new String[] { String.valueOf(tripId) });
+        return readAll(cursor);
+    }
 
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                captures.add(cursorToCapture(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
-        }
-        return captures;
+    /**
+     * Get all captures for a trip, ordered by captured date ascending (oldest
+     * first)
+     */
+    public List<Capture> getAllByTripIdAscending(int tripId) {
+        Cursor cursor = database.rawQuery(BY_TRIP_ASCENDING_QUERY, new String[] { String.valueOf(tripId) });
+        return readAll(cursor);
     }
 
     /**
      * Get all captures for a user, ordered by captured date descending
      */
     public List<Capture> getAllByUserId(int userId) {
-        List<Capture> captures = new ArrayList<>();
-        Cursor cursor = database.query(TABLE_CAPTURES, null, COLUMN_USER_ID + "=?",
-                new String[] { String.valueOf(userId) }, null, null, COLUMN_CAPTURED_AT + " DESC");
-
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                captures.add(cursorToCapture(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
-        }
-        return captures;
+        Cursor cursor = database.rawQuery(BY_USER_QUERY, new String[] { String.valueOf(userId) });
+        return readAll(cursor);
     }
 
     /**
      * Get captures by media type (photo or video) for a trip
      */
     public List<Capture> getByTripIdAndMediaType(int tripId, String mediaType) {
-        List<Capture> captures = new ArrayList<>();
-        String selection = COLUMN_TRIP_ID + " = ? AND " + COLUMN_MEDIA_TYPE + " = ?";
-        String[] selectionArgs = new String[] { String.valueOf(tripId), mediaType };
-
-        Cursor cursor = database.query(TABLE_CAPTURES, null, selection, selectionArgs,
-                null, null, COLUMN_CAPTURED_AT + " DESC");
-
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                captures.add(cursorToCapture(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
-        }
-        return captures;
+        Cursor cursor = database.rawQuery(BY_TRIP_AND_TYPE_QUERY, new String[] { String.valueOf(tripId), mediaType });
+        return readAll(cursor);
     }
 
     /**
      * Get count of captures for a trip
      */
     public int getCountByTripId(int tripId) {
-        Cursor cursor = database.query(TABLE_CAPTURES, new String[] { "COUNT(*) as count" },
-                COLUMN_TRIP_ID + "=?", new String[] { String.valueOf(tripId) },
-                null, null, null);
+        Cursor cursor = database.rawQuery(COUNT_BY_TRIP_QUERY, new String[] { String.valueOf(tripId) });
 
         int count = 0;
         if (cursor != null && cursor.moveToFirst()) {
@@ -182,10 +228,8 @@ public class CaptureDao {
      * Get count of photos (media_type = 'photo') for a trip
      */
     public int getPhotoCountByTripId(int tripId) {
-        Cursor cursor = database.query(TABLE_CAPTURES, new String[] { "COUNT(*) as count" },
-                COLUMN_TRIP_ID + "=? AND " + COLUMN_MEDIA_TYPE + "=?",
-                new String[] { String.valueOf(tripId), "photo" },
-                null, null, null);
+        Cursor cursor = database.rawQuery(COUNT_BY_TRIP_AND_TYPE_QUERY,
+                new String[] { String.valueOf(tripId), "photo" });
 
         int count = 0;
         if (cursor != null && cursor.moveToFirst()) {
@@ -199,10 +243,8 @@ public class CaptureDao {
      * Get count of videos (media_type = 'video') for a trip
      */
     public int getVideoCountByTripId(int tripId) {
-        Cursor cursor = database.query(TABLE_CAPTURES, new String[] { "COUNT(*) as count" },
-                COLUMN_TRIP_ID + "=? AND " + COLUMN_MEDIA_TYPE + "=?",
-                new String[] { String.valueOf(tripId), "video" },
-                null, null, null);
+        Cursor cursor = database.rawQuery(COUNT_BY_TRIP_AND_TYPE_QUERY,
+                new String[] { String.valueOf(tripId), "video" });
 
         int count = 0;
         if (cursor != null && cursor.moveToFirst()) {
@@ -213,19 +255,64 @@ public class CaptureDao {
     }
 
     /**
-     * Convert cursor row to Capture object (public for DatabaseHelper access)
+     * Read every row of a cursor and close it
      */
-    public Capture cursorToCapture(Cursor cursor) {
+    private List<Capture> readAll(Cursor cursor) {
+        List<Capture> captures = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                CaptureColumns columns = new CaptureColumns(cursor);
+                do {
+                    captures.add(cursorToCapture(cursor, columns));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return captures;
+    }
+
+    /**
+     * Convert cursor row to Capture object
+     */
+    private Capture cursorToCapture(Cursor cursor, CaptureColumns c) {
         Capture capture = new Capture();
-        capture.setCaptureId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_CAPTURE_ID)));
-        capture.setUserId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_USER_ID)));
-        capture.setTripId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_TRIP_ID)));
-        capture.setMediaPath(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MEDIA_PATH)));
-        capture.setMediaType(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MEDIA_TYPE)));
-        capture.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DESCRIPTION)));
-        capture.setCapturedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_CAPTURED_AT)));
-        capture.setCreatedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT)));
-        capture.setUpdatedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT)));
+        capture.setCaptureId(cursor.getInt(c.captureId));
+        capture.setUserId(cursor.getInt(c.userId));
+        capture.setTripId(cursor.getInt(c.tripId));
+        capture.setMediaPath(cursor.getString(c.mediaPath));
+        capture.setMediaType(cursor.getString(c.mediaType));
+        capture.setDescription(cursor.getString(c.description));
+        capture.setCapturedAt(cursor.getLong(c.capturedAt));
+        capture.setCreatedAt(cursor.getLong(c.createdAt));
+        capture.setUpdatedAt(cursor.getLong(c.updatedAt));
         return capture;
     }
+
+    /**
+     * Column positions for a capture cursor, resolved once per cursor rather
+     * than once per row
+     */
+    private static final class CaptureColumns {
+        final int captureId;
+        final int userId;
+        final int tripId;
+        final int mediaPath;
+        final int mediaType;
+        final int description;
+        final int capturedAt;
+        final int createdAt;
+        final int updatedAt;
+
+        CaptureColumns(Cursor cursor) {
+            captureId = cursor.getColumnIndexOrThrow(COLUMN_CAPTURE_ID);
+            userId = cursor.getColumnIndexOrThrow(COLUMN_USER_ID);
+            tripId = cursor.getColumnIndexOrThrow(COLUMN_TRIP_ID);
+            mediaPath = cursor.getColumnIndexOrThrow(COLUMN_MEDIA_PATH);
+            mediaType = cursor.getColumnIndexOrThrow(COLUMN_MEDIA_TYPE);
+            description = cursor.getColumnIndexOrThrow(COLUMN_DESCRIPTION);
+            capturedAt = cursor.getColumnIndexOrThrow(COLUMN_CAPTURED_AT);
+            createdAt = cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT);
+            updatedAt = cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT);
+        }
+    }
 }
@@ -0,0 +1,196 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.voyagerbuds.models.DashboardSummary;
+
+/**
+ * Data Access Object for the DashboardSummary table.
+ * DashboardSummary keeps a few rows per user: the trip count, one row per
+ * destination, and budget and spend per currency. Triggers on Trips and
+ * Expenses update it on every write, so the dashboard reads it with one
+ * primary key range lookup however many trips and expenses the user has.
+ * Amounts stay in their own currency and are converted when read, since
+ * exchange rates change daily.
+ */
+public class DashboardSummaryDao {
+    public static final String TABLE_NAME = "DashboardSummary";
+    private static final String COLUMN_USER_ID = "userId";
+    private static final String COLUMN_KIND = "kind";
+    private static final String COLUMN_KEY = "key"; // Destination or currency code
+    private static final String COLUMN_COUNT = "count";
+    private static final String COLUMN_AMOUNT = "amount";
+
+    // Row kinds
+    private static final String KIND_TRIPS = "trips";
+    private static final String KIND_DESTINATION = "destination";
+    private static final String KIND_BUDGET = "budget";
+    private static final String KIND_SPENT = "spent";
+
+    // Public so QueryPlanTest plans the same statement
+    public static final String BY_USER_QUERY = "SELECT " + COLUMN_KIND + ", " + COLUMN_KEY + ", " + COLUMN_COUNT
+            + ", " + COLUMN_AMOUNT + " FROM " + TABLE_NAME + " WHERE " + COLUMN_USER_ID + " = ?";
+
+    private final SQLiteDatabase database;
+
+    public DashboardSummaryDao(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Create the DashboardSummary table and the triggers that maintain it.
+     * Spend of a trip's expenses is moved between rows using the trip's
+     * ExpenseLedger rows, so ExpenseLedgerDao's schema must exist first.
+     */
+    public static void createSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + "("
+                + COLUMN_USER_ID + " INTEGER NOT NULL,"
+                + COLUMN_KIND + " TEXT NOT NULL,"
+                + COLUMN_KEY + " TEXT NOT NULL,"
+                + COLUMN_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_AMOUNT + " REAL NOT NULL DEFAULT 0,"
+                + "PRIMARY KEY (" + COLUMN_USER_ID + ", " + COLUMN_KIND + ", " + COLUMN_KEY + ")"
+                + ") WITHOUT ROWID");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS dashboard_trips_ai AFTER INSERT ON Trips BEGIN "
+                + addTrip("NEW", 1) + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS dashboard_trips_ad AFTER DELETE ON Trips BEGIN "
+                + addTrip("OLD", -1) + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS dashboard_trips_au AFTER UPDATE OF userId, destination, budget,"
+                + " budget_currency ON Trips BEGIN " + addTrip("OLD", -1) + " " + addTrip("NEW", 1) + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS dashboard_expenses_ai AFTER INSERT ON Expenses BEGIN "
+                + addExpense("NEW", 1) + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS dashboard_expenses_ad AFTER DELETE ON Expenses BEGIN "
+                + addExpense("OLD", -1) + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS dashboard_expenses_au AFTER UPDATE OF tripId, amount, currency"
+                + " ON Expenses BEGIN " + addExpense("OLD", -1) + " " + addExpense("NEW", 1) + " END");
+    }
+
+    /**
+     * Recompute every summary row from the Trips and Expenses tables. Used to
+     * backfill the table on upgrade.
+     */
+    public void rebuildAll() {
+        String insert = "INSERT INTO " + TABLE_NAME + " (" + COLUMN_USER_ID + ", " + COLUMN_KIND + ", " + COLUMN_KEY
+                + ", " + COLUMN_COUNT + ", " + COLUMN_AMOUNT + ") ";
+        database.beginTransaction();
+        try {
+            database.execSQL("DELETE FROM " + TABLE_NAME);
+            database.execSQL(insert + "SELECT coalesce(t.userId, 0), '" + KIND_TRIPS + "', '', COUNT(*), 0"
+                    + " FROM Trips t GROUP BY 1");
+            database.execSQL(insert + "SELECT coalesce(t.userId, 0), '" + KIND_DESTINATION + "', t.destination,"
+                    + " COUNT(*), 0 FROM Trips t WHERE coalesce(t.destination, '') <> '' GROUP BY 1, 3");
+            database.execSQL(insert + "SELECT coalesce(t.userId, 0), '" + KIND_BUDGET + "', " + tripCurrency("t")
+                    + ", COUNT(*), SUM(coalesce(t.budget, 0)) FROM Trips t GROUP BY 1, 3");
+            database.execSQL(insert + "SELECT coalesce(t.userId, 0), '" + KIND_SPENT + "', "
+                    + expenseCurrency("e") + ", COUNT(*), SUM(e.amount) FROM Expenses e JOIN Trips t"
+                    + " ON t.tripId = e.tripId GROUP BY 1, 3");
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Get a user's summary
+     */
+    public DashboardSummary getByUserId(int userId) {
+        Cursor cursor = database.rawQuery(BY_USER_QUERY, new String[] { String.valueOf(userId) });
+
+        DashboardSummary summary = new DashboardSummary();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                do {
+                    String kind = cursor.getString(0);
+                    String key = cursor.getString(1);
+                    if (KIND_TRIPS.equals(kind)) {
+                        summary.setTripCount(cursor.getInt(2));
+                    } else if (KIND_DESTINATION.equals(kind)) {
+                        summary.getVisitsByDestination().put(key, cursor.getInt(2));
+                    } else if (KIND_BUDGET.equals(kind)) {
+                        summary.getBudgetByCurrency().put(key, cursor.getDouble(3));
+                    } else if (KIND_SPENT.equals(kind)) {
+                        summary.getSpentByCurrency().put(key, cursor.getDouble(3));
+                    }
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return summary;
+    }
+
+    // Add (sign 1) or remove (sign -1) a trip row (NEW/OLD): its count,
+    // destination, budget and the spend of its expenses
+    private static String addTrip(String row, int sign) {
+        String userId = "coalesce(" + row + ".userId, 0)";
+        String ledgerCurrency = "CASE WHEN l.currency = '' THEN " + tripCurrency(row) + " ELSE l.currency END";
+        String ledgerRows = " FROM " + ExpenseLedgerDao.TABLE_NAME + " l WHERE l.tripId = " + row + ".tripId";
+        String ledgerRowsForKey = ledgerRows + " AND " + ledgerCurrency + " = " + TABLE_NAME + "." + COLUMN_KEY;
+
+        return bump(userId, "'" + KIND_TRIPS + "'", "''", String.valueOf(sign), "0") + " "
+                + "INSERT OR IGNORE INTO " + TABLE_NAME + " (" + COLUMN_USER_ID + ", " + COLUMN_KIND + ", "
+                + COLUMN_KEY + ") SELECT " + userId + ", '" + KIND_DESTINATION + "', " + row + ".destination"
+                + " WHERE coalesce(" + row + ".destination, '') <> ''; "
+                + "UPDATE " + TABLE_NAME + " SET " + COLUMN_COUNT + " = " + COLUMN_COUNT + " + (" + sign + ")"
+                + " WHERE " + summaryRow(userId, "'" + KIND_DESTINATION + "'", row + ".destination") + "; "
+                + "DELETE FROM " + TABLE_NAME + " WHERE "
+                + summaryRow(userId, "'" + KIND_DESTINATION + "'", row + ".destination") + " AND " + COLUMN_COUNT
+                + " <= 0; "
+                + bump(userId, "'" + KIND_BUDGET + "'", tripCurrency(row), String.valueOf(sign),
+                        sign + " * coalesce(" + row + ".budget, 0)")
+                + " "
+                + "INSERT OR IGNORE INTO " + TABLE_NAME + " (" + COLUMN_USER_ID + ", " + COLUMN_KIND + ", "
+                + COLUMN_KEY + ") SELECT " + userId + ", '" + KIND_SPENT + "', " + ledgerCurrency + ledgerRows + "; "
+                + "UPDATE " + TABLE_NAME + " SET " + COLUMN_COUNT + " = " + COLUMN_COUNT + " + " + sign
+                + " * (SELECT SUM(l.expense_count)" + ledgerRowsForKey + "), " + COLUMN_AMOUNT + " = "
+                + COLUMN_AMOUNT + " + " + sign + " * (SELECT SUM(l.total)" + ledgerRowsForKey + ")"
+                + " WHERE " + COLUMN_USER_ID + " = " + userId + " AND " + COLUMN_KIND + " = '" + KIND_SPENT
+                + "' AND " + COLUMN_KEY + " IN (SELECT " + ledgerCurrency + ledgerRows + "); "
+                + "DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_USER_ID + " = " + userId + " AND " + COLUMN_KIND
+                + " = '" + KIND_SPENT + "' AND " + COLUMN_COUNT + " <= 0;";
+    }
+
+    // Add (sign 1) or remove (sign -1) an expense row (NEW/OLD) from its
+    // trip's user; expenses whose trip does not exist are not counted
+    private static String addExpense(String row, int sign) {
+        String trip = " FROM Trips t WHERE t.tripId = " + row + ".tripId";
+        String userId = "(SELECT coalesce(t.userId, 0)" + trip + ")";
+        String currency = "(SELECT " + expenseCurrency(row) + trip + ")";
+        String where = summaryRow(userId, "'" + KIND_SPENT + "'", currency);
+
+        return "INSERT OR IGNORE INTO " + TABLE_NAME + " (" + COLUMN_USER_ID + ", " + COLUMN_KIND + ", "
+                + COLUMN_KEY + ") SELECT coalesce(t.userId, 0), '" + KIND_SPENT + "', " + expenseCurrency(row)
+                + trip + "; "
+                + "UPDATE " + TABLE_NAME + " SET " + COLUMN_COUNT + " = " + COLUMN_COUNT + " + (" + sign + "), "
+                + COLUMN_AMOUNT + " = " + COLUMN_AMOUNT + " + (" + sign + ") * " + row + ".amount WHERE " + where
+                + "; "
+                + "DELETE FROM " + TABLE_NAME + " WHERE " + where + " AND " + COLUMN_COUNT + " <= 0;";
+    }
+
+    // Add to one summary row, creating it if needed and dropping it once empty
+    private static String bump(String userId, String kind, String key, String count, String amount) {
+        String where = summaryRow(userId, kind, key);
+        return "INSERT OR IGNORE INTO " + TABLE_NAME + " (" + COLUMN_USER_ID + ", " + COLUMN_KIND + ", "
+                + COLUMN_KEY + ") VALUES (" + userId + ", " + kind + ", " + key + "); "
+                + "UPDATE " + TABLE_NAME + " SET " + COLUMN_COUNT + " = " + COLUMN_COUNT + " + (" + count + "), "
+                + COLUMN_AMOUNT + " = " + COLUMN_AMOUNT + " + (" + amount + ") WHERE " + where + "; "
+                + "DELETE FROM " + TABLE_NAME + " WHERE " + where + " AND " + COLUMN_COUNT + " <= 0;";
+    }
+
+    private static String summaryRow(String userId, String kind, String key) {
+        return COLUMN_USER_ID + " = " + userId + " AND " + COLUMN_KIND + " = " + kind + " AND " + COLUMN_KEY
+                + " = " + key;
+    }
+
+    // Budget currency of a trip row, USD when unset
+    private static String tripCurrency(String trip) {
+        return "coalesce(nullif(" + trip + ".budget_currency, ''), 'USD')";
+    }
+
+    // Currency of an expense row, or its trip's (alias t) when unset
+    private static String expenseCurrency(String expense) {
+        return "CASE WHEN coalesce(" + expense + ".currency, '') = '' THEN " + tripCurrency("t") + " ELSE "
+                + expense + ".currency END";
+    }
+}
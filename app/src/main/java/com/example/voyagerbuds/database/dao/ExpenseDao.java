@@ -3,6 +3,7 @@ package com.example.voyagerbuds.database.dao;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import com.example.voyagerbuds.models.Expense;
 
@@ -25,6 +26,26 @@ public class ExpenseDao {
     private static final String COLUMN_SPENT_AT = "spent_at";
     private static final String COLUMN_EXPENSE_IMAGES = "image_paths";
 
+    // Explicit projection for full expense rows
+    private static final String[] ALL_COLUMNS = {
+            COLUMN_EXPENSE_ID, COLUMN_EXPENSE_TRIP_ID, COLUMN_CATEGORY, COLUMN_AMOUNT, COLUMN_CURRENCY,
+            COLUMN_NOTE, COLUMN_SPENT_AT, COLUMN_EXPENSE_IMAGES
+    };
+
+    // Indexed reads, public so QueryPlanTest plans the same statements
+    private static final String SELECT_ALL = "SELECT " + String.join(", ", ALL_COLUMNS) + " FROM " + TABLE_EXPENSES;
+    public static final String BY_TRIP_QUERY = SELECT_ALL + " WHERE " + COLUMN_EXPENSE_TRIP_ID + " = ? ORDER BY "
+            + COLUMN_SPENT_AT + " DESC";
+    public static final String BY_TRIP_AND_CATEGORY_QUERY = SELECT_ALL + " WHERE " + COLUMN_EXPENSE_TRIP_ID
+            + " = ? AND " + COLUMN_CATEGORY + " = ? ORDER BY " + COLUMN_SPENT_AT + " DESC";
+    public static final String TOTAL_BY_TRIP_QUERY = "SELECT SUM(" + COLUMN_AMOUNT + ") as total FROM "
+            + TABLE_EXPENSES + " WHERE " + COLUMN_EXPENSE_TRIP_ID + " = ?";
+    public static final String TOTAL_BY_TRIP_AND_CATEGORY_QUERY = TOTAL_BY_TRIP_QUERY + " AND " + COLUMN_CATEGORY
+            + " = ?";
+    public static final String TOTALS_BY_CURRENCY_QUERY = "SELECT " + COLUMN_CURRENCY + ", SUM(" + COLUMN_AMOUNT
+            + ") as total FROM " + TABLE_EXPENSES + " WHERE " + COLUMN_EXPENSE_TRIP_ID + " = ? GROUP BY "
+            + COLUMN_CURRENCY;
+
     private final SQLiteDatabase database;
 
     public ExpenseDao(SQLiteDatabase database) {
@@ -47,6 +68,45 @@ public class ExpenseDao {
         return database.insert(TABLE_EXPENSES, null, values);
     }
 
+    /**
+     * Insert many expenses with one compiled statement inside a single
+     * transaction
+     *
+     * @return Number of rows inserted
+     */
+    public int insertAll(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO " + TABLE_EXPENSES + " (" + COLUMN_EXPENSE_TRIP_ID + ", " + COLUMN_CATEGORY + ", "
+                + COLUMN_AMOUNT + ", " + COLUMN_CURRENCY + ", " + COLUMN_NOTE + ", " + COLUMN_SPENT_AT + ", "
+                + COLUMN_EXPENSE_IMAGES + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+        int inserted = 0;
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(sql);
+        try {
+            for (Expense expense : expenses) {
+                statement.clearBindings();
+                statement.bindLong(1, expense.getTripId());
+                StatementUtils.bindString(statement, 2, expense.getCategory());
+                statement.bindDouble(3, expense.getAmount());
+                StatementUtils.bindString(statement, 4, expense.getCurrency());
+                StatementUtils.bindString(statement, 5, expense.getNote());
+                statement.bindLong(6, expense.getSpentAt());
+                StatementUtils.bindString(statement, 7, expense.getImagePaths());
+                if (statement.executeInsert() != -1) {
+                    inserted++;
+                }
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+        return inserted;
+    }
+
     /**
      * Update an existing expense
      */
@@ -83,12 +143,14 @@ public class ExpenseDao {
      * Get expense by ID
      */
     public Expense getById(int expenseId) {
-        Cursor cursor = database.query(TABLE_EXPENSES, null, COLUMN_EXPENSE_ID + "=?",
+        Cursor cursor = database.query(TABLE_EXPENSES, ALL_COLUMNS, COLUMN_EXPENSE_ID + "=?",
                 new String[] { String.valueOf(expenseId) }, null, null, null);
 
         Expense expense = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            expense = cursorToExpense(cursor);
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                expense = cursorToExpense(cursor, new ExpenseColumns(cursor));
+            }
             cursor.close();
         }
         return expense;
@@ -98,46 +160,24 @@ public class ExpenseDao {
      * Get all expenses for a trip, ordered by spent date descending
      */
     public List<Expense> getAllByTripId(int tripId) {
-        List<Expense> expenses = new ArrayList<>();
-        Cursor cursor = database.query(TABLE_EXPENSES, null, COLUMN_EXPENSE_TRIP_ID + "=?",
-                new String[] { String.valueOf(tripId) }, null, null, COLUMN_SPENT_AT + " DESC");
-
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                expenses.add(cursorToExpense(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
-        }
-        return expenses;
+        Cursor cursor = database.rawQuery(BY_TRIP_QUERY, new String[] { String.valueOf(tripId) });
+        return readAll(cursor);
     }
 
     /**
      * Get expenses by category for a trip
      */
     public List<Expense> getByTripIdAndCategory(int tripId, String category) {
-        List<Expense> expenses = new ArrayList<>();
-        String selection = COLUMN_EXPENSE_TRIP_ID + " = ? AND " + COLUMN_CATEGORY + " = ?";
-        String[] selectionArgs = new String[] { String.valueOf(tripId), category };
-
-        Cursor cursor = database.query(TABLE_EXPENSES, null, selection, selectionArgs,
-                null, null, COLUMN_SPENT_AT + " DESC");
-
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                expenses.add(cursorToExpense(cursor));
-            } while (cursor.moveToNext());
-            cursor.close();
-        }
-        return expenses;
+        Cursor cursor = database.rawQuery(BY_TRIP_AND_CATEGORY_QUERY,
+                new String[] { String.valueOf(tripId), category });
+        return readAll(cursor);
     }
 
     /**
      * Get total amount of expenses for a trip
      */
     public double getTotalByTripId(int tripId) {
-        String query = "SELECT SUM(" + COLUMN_AMOUNT + ") as total FROM " + TABLE_EXPENSES + " WHERE "
-                + COLUMN_EXPENSE_TRIP_ID + " = ?";
-        Cursor cursor = database.rawQuery(query, new String[] { String.valueOf(tripId) });
+        Cursor cursor = database.rawQuery(TOTAL_BY_TRIP_QUERY, new String[] { String.valueOf(tripId) });
 
         double total = 0.0;
         if (cursor.moveToFirst()) {
@@ -151,9 +191,8 @@ public class ExpenseDao {
      * Get total amount by category for a trip
      */
     public double getTotalByTripIdAndCategory(int tripId, String category) {
-        String query = "SELECT SUM(" + COLUMN_AMOUNT + ") as total FROM " + TABLE_EXPENSES + " WHERE "
-                + COLUMN_EXPENSE_TRIP_ID + " = ? AND " + COLUMN_CATEGORY + " = ?";
-        Cursor cursor = database.rawQuery(query, new String[] { String.valueOf(tripId), category });
+        Cursor cursor = database.rawQuery(TOTAL_BY_TRIP_AND_CATEGORY_QUERY,
+                new String[] { String.valueOf(tripId), category });
 
         double total = 0.0;
         if (cursor.moveToFirst()) {
@@ -169,14 +208,14 @@ public class ExpenseDao {
      */
     public java.util.Map<String, Double> getTotalsByCurrency(int tripId) {
         java.util.Map<String, Double> totals = new java.util.HashMap<>();
-        String query = "SELECT " + COLUMN_CURRENCY + ", SUM(" + COLUMN_AMOUNT + ") as total FROM " + TABLE_EXPENSES
-                + " WHERE " + COLUMN_EXPENSE_TRIP_ID + " = ? GROUP BY " + COLUMN_CURRENCY;
-        Cursor cursor = database.rawQuery(query, new String[] { String.valueOf(tripId) });
+        Cursor cursor = database.rawQuery(TOTALS_BY_CURRENCY_QUERY, new String[] { String.valueOf(tripId) });
 
         if (cursor != null && cursor.moveToFirst()) {
+            int currencyIndex = cursor.getColumnIndexOrThrow(COLUMN_CURRENCY);
+            int totalIndex = cursor.getColumnIndexOrThrow("total");
             do {
-                String currency = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CURRENCY));
-                double total = cursor.getDouble(cursor.getColumnIndexOrThrow("total"));
+                String currency = cursor.getString(currencyIndex);
+                double total = cursor.getDouble(totalIndex);
                 if (currency != null && !currency.isEmpty()) {
                     totals.put(currency, total);
                 }
@@ -186,27 +225,69 @@ public class ExpenseDao {
         return totals;
     }
 
+    /**
+     * Read every row of a cursor and close it
+     */
+    private List<Expense> readAll(Cursor cursor) {
+        List<Expense> expenses = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                ExpenseColumns columns = new ExpenseColumns(cursor);
+                do {
+                    expenses.add(cursorToExpense(cursor, columns));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return expenses;
+    }
+
     /**
      * Convert cursor to Expense object
      */
-    private Expense cursorToExpense(Cursor cursor) {
+    private Expense cursorToExpense(Cursor cursor, ExpenseColumns c) {
         Expense expense = new Expense();
-        expense.setExpenseId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_EXPENSE_ID)));
-        expense.setTripId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_EXPENSE_TRIP_ID)));
-        expense.setCategory(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CATEGORY)));
-        expense.setAmount(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_AMOUNT)));
-        expense.setCurrency(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CURRENCY)));
-        expense.setNote(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NOTE)));
-        expense.setSpentAt(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SPENT_AT)));
-
-        int imageColIndex = cursor.getColumnIndex(COLUMN_EXPENSE_IMAGES);
-        if (imageColIndex != -1) {
-            expense.setImagePaths(cursor.getString(imageColIndex));
+        expense.setExpenseId(cursor.getInt(c.expenseId));
+        expense.setTripId(cursor.getInt(c.tripId));
+        expense.setCategory(cursor.getString(c.category));
+        expense.setAmount(cursor.getDouble(c.amount));
+        expense.setCurrency(cursor.getString(c.currency));
+        expense.setNote(cursor.getString(c.note));
+        expense.setSpentAt(cursor.getInt(c.spentAt));
+
+        if (c.images != -1) {
+            expense.setImagePaths(cursor.getString(c.images));
         }
 
         return expense;
     }
 
+    /**
+     * Column positions for an expense cursor, resolved once per cursor rather
+     * than once per row
+     */
+    private static final class ExpenseColumns {
+        final int expenseId;
+        final int tripId;
+        final int category;
+        final int amount;
+        final int currency;
+        final int note;
+        final int spentAt;
+        final int images;
+
+        ExpenseColumns(Cursor cursor) {
+            expenseId = cursor.getColumnIndexOrThrow(COLUMN_EXPENSE_ID);
+            tripId = cursor.getColumnIndexOrThrow(COLUMN_EXPENSE_TRIP_ID);
+            category = cursor.getColumnIndexOrThrow(COLUMN_CATEGORY);
+            amount = cursor.getColumnIndexOrThrow(COLUMN_AMOUNT);
+            currency = cursor.getColumnIndexOrThrow(COLUMN_CURRENCY);
+            note = cursor.getColumnIndexOrThrow(COLUMN_NOTE);
+            spentAt = cursor.getColumnIndexOrThrow(COLUMN_SPENT_AT);
+            images = cursor.getColumnIndex(COLUMN_EXPENSE_IMAGES);
+        }
+    }
+
     /**
      * Update only the image paths for an expense
      */
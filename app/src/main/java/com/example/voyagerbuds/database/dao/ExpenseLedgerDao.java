@@ -0,0 +1,159 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.voyagerbuds.models.BudgetLedger;
+
+/**
+ * Data Access Object for the ExpenseLedger summary table.
+ * ExpenseLedger keeps one row per trip, category and currency with the running
+ * total, count and highest expense. Triggers on Expenses update it on every
+ * insert, update and delete, so a trip's budget figures are read from a few
+ * rows instead of rescanning its expenses.
+ */
+public class ExpenseLedgerDao {
+    public static final String TABLE_NAME = "ExpenseLedger";
+    private static final String TABLE_EXPENSES = "Expenses";
+    private static final String COLUMN_TRIP_ID = "tripId";
+    private static final String COLUMN_CATEGORY = "category"; // '' for expenses without one
+    private static final String COLUMN_CURRENCY = "currency"; // '' for expenses without one
+    private static final String COLUMN_TOTAL = "total";
+    private static final String COLUMN_EXPENSE_COUNT = "expense_count";
+    private static final String COLUMN_MAX_AMOUNT = "max_amount";
+    private static final String COLUMN_MAX_EXPENSE_ID = "max_expense_id";
+
+    // Public so QueryPlanTest plans the same statement
+    public static final String BY_TRIP_QUERY = "SELECT " + COLUMN_CATEGORY + ", " + COLUMN_CURRENCY + ", "
+            + COLUMN_TOTAL + ", " + COLUMN_EXPENSE_COUNT + ", " + COLUMN_MAX_AMOUNT + ", " + COLUMN_MAX_EXPENSE_ID
+            + " FROM " + TABLE_NAME + " WHERE " + COLUMN_TRIP_ID + " = ?";
+
+    private final SQLiteDatabase database;
+
+    public ExpenseLedgerDao(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Create the ExpenseLedger table and the triggers that maintain it
+     */
+    public static void createSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + "("
+                + COLUMN_TRIP_ID + " INTEGER NOT NULL,"
+                + COLUMN_CATEGORY + " TEXT NOT NULL,"
+                + COLUMN_CURRENCY + " TEXT NOT NULL,"
+                + COLUMN_TOTAL + " REAL NOT NULL DEFAULT 0,"
+                + COLUMN_EXPENSE_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_MAX_AMOUNT + " REAL,"
+                + COLUMN_MAX_EXPENSE_ID + " INTEGER,"
+                + "PRIMARY KEY (" + COLUMN_TRIP_ID + ", " + COLUMN_CATEGORY + ", " + COLUMN_CURRENCY + ")"
+                + ") WITHOUT ROWID");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS ledger_expenses_ai AFTER INSERT ON " + TABLE_EXPENSES
+                + " BEGIN " + addExpense("NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS ledger_expenses_ad AFTER DELETE ON " + TABLE_EXPENSES
+                + " BEGIN " + removeExpense("OLD") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS ledger_expenses_au AFTER UPDATE OF tripId, category, amount,"
+                + " currency ON " + TABLE_EXPENSES + " BEGIN " + removeExpense("OLD") + " " + addExpense("NEW")
+                + " END");
+    }
+
+    /**
+     * Recompute every ledger row from the Expenses table. Used to backfill the
+     * table on upgrade.
+     */
+    public void rebuildAll() {
+        database.beginTransaction();
+        try {
+            database.execSQL("DELETE FROM " + TABLE_NAME);
+            // With MAX() SQLite takes the bare expenseId from the row holding the maximum
+            database.execSQL("INSERT INTO " + TABLE_NAME + " SELECT tripId, coalesce(category, ''),"
+                    + " coalesce(currency, ''), SUM(amount), COUNT(*), MAX(amount), expenseId FROM "
+                    + TABLE_EXPENSES + " GROUP BY 1, 2, 3");
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Get a trip's ledger, summed over its category and currency rows
+     */
+    public BudgetLedger getByTripId(int tripId) {
+        Cursor cursor = database.rawQuery(BY_TRIP_QUERY, new String[] { String.valueOf(tripId) });
+
+        BudgetLedger ledger = new BudgetLedger();
+        if (cursor != null) {
+            double total = 0.0;
+            double noCurrencyTotal = 0.0;
+            int expenseCount = 0;
+            if (cursor.moveToFirst()) {
+                do {
+                    String category = cursor.getString(0);
+                    String currency = cursor.getString(1);
+                    double rowTotal = cursor.getDouble(2);
+                    double maxAmount = cursor.getDouble(4);
+
+                    total += rowTotal;
+                    expenseCount += cursor.getInt(3);
+                    if (category.isEmpty()) {
+                        category = BudgetLedger.UNCATEGORIZED;
+                    }
+                    ledger.getTotalsByCategory().merge(category, rowTotal, Double::sum);
+                    if (currency.isEmpty()) {
+                        noCurrencyTotal += rowTotal;
+                    } else {
+                        ledger.getTotalsByCurrency().merge(currency, rowTotal, Double::sum);
+                    }
+                    if (ledger.getHighestExpenseId() == -1 || maxAmount > ledger.getHighestAmount()) {
+                        ledger.setHighest(cursor.getInt(5), maxAmount);
+                    }
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+            ledger.setTotal(total);
+            ledger.setExpenseCount(expenseCount);
+            ledger.setNoCurrencyTotal(noCurrencyTotal);
+        }
+        return ledger;
+    }
+
+    // Add an expense row (NEW/OLD) to its ledger row, creating it if needed
+    private static String addExpense(String row) {
+        return "INSERT OR IGNORE INTO " + TABLE_NAME + " (" + COLUMN_TRIP_ID + ", " + COLUMN_CATEGORY + ", "
+                + COLUMN_CURRENCY + ") VALUES (" + row + ".tripId, coalesce(" + row + ".category, ''), coalesce("
+                + row + ".currency, '')); "
+                + "UPDATE " + TABLE_NAME + " SET " + COLUMN_TOTAL + " = " + COLUMN_TOTAL + " + " + row + ".amount, "
+                + COLUMN_EXPENSE_COUNT + " = " + COLUMN_EXPENSE_COUNT + " + 1, "
+                + COLUMN_MAX_EXPENSE_ID + " = CASE WHEN " + isNewMax(row) + " THEN " + row + ".expenseId ELSE "
+                + COLUMN_MAX_EXPENSE_ID + " END, "
+                + COLUMN_MAX_AMOUNT + " = CASE WHEN " + isNewMax(row) + " THEN " + row + ".amount ELSE "
+                + COLUMN_MAX_AMOUNT + " END"
+                + " WHERE " + ledgerRow(row) + ";";
+    }
+
+    // Take an expense row out of its ledger row, dropping the row once empty.
+    // The maximum is only recomputed when the removed expense held it.
+    private static String removeExpense(String row) {
+        String highest = " FROM " + TABLE_EXPENSES + " x WHERE x.tripId = " + row + ".tripId"
+                + " AND coalesce(x.category, '') = coalesce(" + row + ".category, '')"
+                + " AND coalesce(x.currency, '') = coalesce(" + row + ".currency, '')"
+                + " ORDER BY x.amount DESC, x.expenseId LIMIT 1";
+        return "UPDATE " + TABLE_NAME + " SET " + COLUMN_TOTAL + " = " + COLUMN_TOTAL + " - " + row + ".amount, "
+                + COLUMN_EXPENSE_COUNT + " = " + COLUMN_EXPENSE_COUNT + " - 1 WHERE " + ledgerRow(row) + "; "
+                + "DELETE FROM " + TABLE_NAME + " WHERE " + ledgerRow(row) + " AND " + COLUMN_EXPENSE_COUNT
+                + " <= 0; "
+                + "UPDATE " + TABLE_NAME + " SET " + COLUMN_MAX_AMOUNT + " = (SELECT x.amount" + highest + "), "
+                + COLUMN_MAX_EXPENSE_ID + " = (SELECT x.expenseId" + highest + ")"
+                + " WHERE " + ledgerRow(row) + " AND " + COLUMN_MAX_EXPENSE_ID + " = " + row + ".expenseId;";
+    }
+
+    private static String isNewMax(String row) {
+        return COLUMN_MAX_AMOUNT + " IS NULL OR " + row + ".amount > " + COLUMN_MAX_AMOUNT;
+    }
+
+    private static String ledgerRow(String row) {
+        return COLUMN_TRIP_ID + " = " + row + ".tripId AND " + COLUMN_CATEGORY + " = coalesce(" + row
+                + ".category, '') AND " + COLUMN_CURRENCY + " = coalesce(" + row + ".currency, '')";
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.voyagerbuds.models.Capture;
+import com.example.voyagerbuds.models.Expense;
+import com.example.voyagerbuds.models.Media;
+import com.example.voyagerbuds.models.ScheduleItem;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Data Access Object for the Media table.
+ * Media rows are a normalized copy of the image_paths JSON on schedules and
+ * expenses plus the media_path of captures, so a trip's gallery is a single
+ * indexed read. The owner tables stay the source of truth; this DAO rebuilds
+ * an owner's rows whenever it is written.
+ */
+public class MediaDao {
+    // Table and column names (public for DatabaseHelper access)
+    public static final String TABLE_NAME = "Media";
+    public static final String COLUMN_MEDIA_ID = "mediaId";
+    public static final String COLUMN_OWNER_TYPE = "owner_type";
+    public static final String COLUMN_OWNER_ID = "owner_id";
+    public static final String COLUMN_TRIP_ID = "tripId";
+    public static final String COLUMN_PATH = "path";
+    public static final String COLUMN_MEDIA_TYPE = "media_type";
+    public static final String COLUMN_CAPTION = "caption";
+    public static final String COLUMN_TAKEN_AT = "taken_at";
+
+    private static final String MEDIA_TYPE_PHOTO = "photo";
+
+    private static final String[] ALL_COLUMNS = {
+            COLUMN_MEDIA_ID, COLUMN_OWNER_TYPE, COLUMN_OWNER_ID, COLUMN_TRIP_ID, COLUMN_PATH, COLUMN_MEDIA_TYPE,
+            COLUMN_CAPTION, COLUMN_TAKEN_AT
+    };
+
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE_NAME + " (" + COLUMN_OWNER_TYPE + ", "
+            + COLUMN_OWNER_ID + ", " + COLUMN_TRIP_ID + ", " + COLUMN_PATH + ", " + COLUMN_MEDIA_TYPE + ", "
+            + COLUMN_CAPTION + ", " + COLUMN_TAKEN_AT + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Indexed reads, public so QueryPlanTest plans the same statements
+    private static final String SELECT_BY_TRIP = "SELECT " + String.join(", ", ALL_COLUMNS) + " FROM " + TABLE_NAME
+            + " WHERE " + COLUMN_TRIP_ID + " = ?";
+    private static final String OLDEST_FIRST = " ORDER BY " + COLUMN_TAKEN_AT + " ASC, " + COLUMN_MEDIA_ID + " ASC";
+    private static final String SELECT_PHOTO_PATHS = "SELECT DISTINCT " + COLUMN_PATH + " FROM " + TABLE_NAME
+            + " WHERE coalesce(" + COLUMN_MEDIA_TYPE + ", '" + MEDIA_TYPE_PHOTO + "') = '" + MEDIA_TYPE_PHOTO + "'";
+
+    public static final String BY_TRIP_QUERY = SELECT_BY_TRIP + OLDEST_FIRST;
+    // Arguments: tripId, then the (takenAt, mediaId) key three times as
+    // takenAt, takenAt, mediaId, then the limit
+    public static final String PAGE_BY_TRIP_QUERY = SELECT_BY_TRIP + " AND " + COLUMN_TAKEN_AT + " >= ? AND ("
+            + COLUMN_TAKEN_AT + " > ? OR " + COLUMN_MEDIA_ID + " > ?)" + OLDEST_FIRST + " LIMIT ?";
+    public static final String LATEST_BY_TRIP_QUERY = SELECT_BY_TRIP + " ORDER BY " + COLUMN_TAKEN_AT + " DESC, "
+            + COLUMN_MEDIA_ID + " DESC LIMIT ?";
+    public static final String PHOTO_PATHS_BY_TRIP_QUERY = SELECT_PHOTO_PATHS + " AND " + COLUMN_TRIP_ID + " = ?";
+
+    private final SQLiteDatabase database;
+
+    public MediaDao(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Create the Media table and its indexes
+     */
+    public static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + "("
+                + COLUMN_MEDIA_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + COLUMN_OWNER_TYPE + " INTEGER NOT NULL,"
+                + COLUMN_OWNER_ID + " INTEGER NOT NULL,"
+                + COLUMN_TRIP_ID + " INTEGER,"
+                + COLUMN_PATH + " TEXT NOT NULL,"
+                + COLUMN_MEDIA_TYPE + " TEXT,"
+                + COLUMN_CAPTION + " TEXT,"
+                // Never NULL, so rows stay reachable by the keyset predicate
+                + COLUMN_TAKEN_AT + " INTEGER NOT NULL DEFAULT 0"
+                + ")");
+        // Gallery reads: WHERE tripId = ? ORDER BY taken_at, mediaId
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_media_trip_taken ON " + TABLE_NAME + "("
+                + COLUMN_TRIP_ID + ", " + COLUMN_TAKEN_AT + ")");
+        // Owner rewrites: WHERE owner_type = ? AND owner_id = ?
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_media_owner ON " + TABLE_NAME + "("
+                + COLUMN_OWNER_TYPE + ", " + COLUMN_OWNER_ID + ")");
+    }
+
+    /**
+     * Replace the media rows of a schedule item with its current image paths
+     */
+    public void replaceForSchedule(ScheduleItem item) {
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(INSERT_SQL);
+        try {
+            deleteByOwner(Media.OWNER_SCHEDULE, item.getId());
+            insertPaths(statement, Media.OWNER_SCHEDULE, item.getId(), item.getTripId(), item.getImagePaths(),
+                    item.getTitle(), parseDay(newDayFormat(), item.getDay()));
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Replace the media rows of an expense with its current image paths
+     */
+    public void replaceForExpense(Expense expense) {
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(INSERT_SQL);
+        try {
+            deleteByOwner(Media.OWNER_EXPENSE, expense.getExpenseId());
+            insertPaths(statement, Media.OWNER_EXPENSE, expense.getExpenseId(), expense.getTripId(),
+                    expense.getImagePaths(), expense.getCategory(), expense.getSpentAt() * 1000L);
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Replace the media row of a capture
+     */
+    public void replaceForCapture(Capture capture) {
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(INSERT_SQL);
+        try {
+            deleteByOwner(Media.OWNER_CAPTURE, capture.getCaptureId());
+            if (capture.getMediaPath() != null && !capture.getMediaPath().isEmpty()) {
+                bindAndInsert(statement, Media.OWNER_CAPTURE, capture.getCaptureId(), capture.getTripId(),
+                        capture.getMediaPath(), capture.getMediaType(), capture.getDescription(),
+                        capture.getCapturedAt());
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Delete all media rows of one owner
+     */
+    public int deleteByOwner(int ownerType, int ownerId) {
+        return database.delete(TABLE_NAME, COLUMN_OWNER_TYPE + " = ? AND " + COLUMN_OWNER_ID + " = ?",
+                new String[] { String.valueOf(ownerType), String.valueOf(ownerId) });
+    }
+
+    /**
+     * Delete all media rows for a trip
+     */
+    public int deleteByTripId(int tripId) {
+        return database.delete(TABLE_NAME, COLUMN_TRIP_ID + " = ?", new String[] { String.valueOf(tripId) });
+    }
+
+    /**
+     * Rebuild a trip's media rows from its schedules, expenses and captures.
+     * Used after bulk inserts that do not return row IDs.
+     */
+    public void rebuildForTrip(int tripId) {
+        rebuild(COLUMN_TRIP_ID + " = ?", new String[] { String.valueOf(tripId) });
+    }
+
+    /**
+     * Rebuild every media row. Used to backfill the table on upgrade.
+     */
+    public void rebuildAll() {
+        rebuild(null, null);
+    }
+
+    /**
+     * Get all media for a trip, oldest first
+     */
+    public List<Media> getAllByTripId(int tripId) {
+        Cursor cursor = database.rawQuery(BY_TRIP_QUERY, new String[] { String.valueOf(tripId) });
+        return readAll(cursor);
+    }
+
+    /**
+     * Get up to {@code limit} media rows for a trip that sort after the given
+     * (takenAt, mediaId) key, oldest first. Pass Long.MIN_VALUE and 0 for the
+     * first page.
+     */
+    public List<Media> getPageByTripId(int tripId, long afterTakenAt, int afterMediaId, int limit) {
+        String after = String.valueOf(afterTakenAt);
+        Cursor cursor = database.rawQuery(PAGE_BY_TRIP_QUERY, new String[] { String.valueOf(tripId), after, after,
+                String.valueOf(afterMediaId), String.valueOf(limit) });
+        return readAll(cursor);
+    }
+
+    /**
+     * Get the newest media rows for a trip
+     */
+    public List<Media> getLatestByTripId(int tripId, int limit) {
+        Cursor cursor = database.rawQuery(LATEST_BY_TRIP_QUERY,
+                new String[] { String.valueOf(tripId), String.valueOf(limit) });
+        return readAll(cursor);
+    }
+
+    /**
+     * Get the distinct photo paths of a trip, or of every trip when
+     * {@code tripId} is negative
+     */
+    public List<String> getPhotoPaths(int tripId) {
+        Cursor cursor = tripId >= 0
+                ? database.rawQuery(PHOTO_PATHS_BY_TRIP_QUERY, new String[] { String.valueOf(tripId) })
+                : database.rawQuery(SELECT_PHOTO_PATHS, null);
+
+        List<String> paths = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                do {
+                    paths.add(cursor.getString(0));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return paths;
+    }
+
+    private void rebuild(String tripSelection, String[] tripArgs) {
+        String ownerFilter = tripSelection == null ? "" : " AND " + tripSelection;
+        SimpleDateFormat dayFormat = newDayFormat();
+
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(INSERT_SQL);
+        try {
+            database.delete(TABLE_NAME, tripSelection, tripArgs);
+
+            Cursor schedules = database.rawQuery("SELECT scheduleId, tripId, day, title, image_paths FROM Schedules"
+                    + " WHERE image_paths IS NOT NULL AND image_paths != ''" + ownerFilter, tripArgs);
+            try {
+                while (schedules.moveToNext()) {
+                    insertPaths(statement, Media.OWNER_SCHEDULE, schedules.getInt(0), schedules.getInt(1),
+                            schedules.getString(4), schedules.getString(3), parseDay(dayFormat, schedules.getString(2)));
+                }
+            } finally {
+                schedules.close();
+            }
+
+            Cursor expenses = database.rawQuery("SELECT expenseId, tripId, spent_at, category, image_paths FROM Expenses"
+                    + " WHERE image_paths IS NOT NULL AND image_paths != ''" + ownerFilter, tripArgs);
+            try {
+                while (expenses.moveToNext()) {
+                    insertPaths(statement, Media.OWNER_EXPENSE, expenses.getInt(0), expenses.getInt(1),
+                            expenses.getString(4), expenses.getString(3), expenses.getLong(2) * 1000L);
+                }
+            } finally {
+                expenses.close();
+            }
+
+            // Captures already hold one path per row; undated ones sort first,
+            // as they do when inserted one at a time
+            database.execSQL("INSERT INTO " + TABLE_NAME + " (" + COLUMN_OWNER_TYPE + ", " + COLUMN_OWNER_ID + ", "
+                    + COLUMN_TRIP_ID + ", " + COLUMN_PATH + ", " + COLUMN_MEDIA_TYPE + ", " + COLUMN_CAPTION + ", "
+                    + COLUMN_TAKEN_AT + ") SELECT " + Media.OWNER_CAPTURE + ", captureId, tripId, media_path,"
+                    + " media_type, description, coalesce(captured_at, 0) FROM Captures WHERE media_path != ''" + ownerFilter,
+                    tripArgs == null ? new Object[0] : tripArgs);
+
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+    }
+
+    private void insertPaths(SQLiteStatement statement, int ownerType, int ownerId, int tripId, String imagePaths,
+            String caption, long takenAt) {
+        if (imagePaths == null || imagePaths.isEmpty()) {
+            return;
+        }
+        try {
+            JSONArray array = new JSONArray(imagePaths);
+            for (int i = 0; i < array.length(); i++) {
+                String path = array.optString(i, null);
+                if (path != null && !path.isEmpty()) {
+                    bindAndInsert(statement, ownerType, ownerId, tripId, path, MEDIA_TYPE_PHOTO, caption, takenAt);
+                }
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void bindAndInsert(SQLiteStatement statement, int ownerType, int ownerId, int tripId, String path,
+            String mediaType, String caption, long takenAt) {
+        statement.clearBindings();
+        statement.bindLong(1, ownerType);
+        statement.bindLong(2, ownerId);
+        statement.bindLong(3, tripId);
+        statement.bindString(4, path);
+        StatementUtils.bindString(statement, 5, mediaType);
+        StatementUtils.bindString(statement, 6, caption);
+        statement.bindLong(7, takenAt);
+        statement.executeInsert();
+    }
+
+    private static SimpleDateFormat newDayFormat() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    }
+
+    /**
+     * Schedule images are dated at local midnight of the schedule's day
+     */
+    private static long parseDay(SimpleDateFormat dayFormat, String day) {
+        if (day == null) {
+            return 0;
+        }
+        try {
+            Date date = dayFormat.parse(day);
+            return date != null ? date.getTime() : 0;
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Read every row of a cursor and close it
+     */
+    private List<Media> readAll(Cursor cursor) {
+        List<Media> list = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                int idIndex = cursor.getColumnIndexOrThrow(COLUMN_MEDIA_ID);
+                int ownerTypeIndex = cursor.getColumnIndexOrThrow(COLUMN_OWNER_TYPE);
+                int ownerIdIndex = cursor.getColumnIndexOrThrow(COLUMN_OWNER_ID);
+                int tripIdIndex = cursor.getColumnIndexOrThrow(COLUMN_TRIP_ID);
+                int pathIndex = cursor.getColumnIndexOrThrow(COLUMN_PATH);
+                int mediaTypeIndex = cursor.getColumnIndexOrThrow(COLUMN_MEDIA_TYPE);
+                int captionIndex = cursor.getColumnIndexOrThrow(COLUMN_CAPTION);
+                int takenAtIndex = cursor.getColumnIndexOrThrow(COLUMN_TAKEN_AT);
+                do {
+                    Media media = new Media();
+                    media.setMediaId(cursor.getInt(idIndex));
+                    media.setOwnerType(cursor.getInt(ownerTypeIndex));
+                    media.setOwnerId(cursor.getInt(ownerIdIndex));
+                    media.setTripId(cursor.getInt(tripIdIndex));
+                    media.setPath(cursor.getString(pathIndex));
+                    media.setMediaType(cursor.getString(mediaTypeIndex));
+                    media.setCaption(cursor.getString(captionIndex));
+                    media.setTakenAt(cursor.getLong(takenAtIndex));
+                    list.add(media);
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return list;
+    }
+}
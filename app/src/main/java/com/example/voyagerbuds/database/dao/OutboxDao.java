@@ -0,0 +1,145 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.voyagerbuds.models.OutboxMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the Outbox table.
+ * Outbox holds emails that have not been sent yet. Rows are deleted once
+ * sent or given up on.
+ */
+public class OutboxDao {
+    public static final String TABLE_NAME = "Outbox";
+    private static final String COLUMN_MESSAGE_ID = "messageId";
+    private static final String COLUMN_RECIPIENT = "recipient";
+    private static final String COLUMN_SUBJECT = "subject";
+    private static final String COLUMN_BODY = "body";
+    private static final String COLUMN_ATTEMPTS = "attempts";
+    private static final String COLUMN_LAST_ERROR = "last_error";
+    private static final String COLUMN_CREATED_AT = "created_at";
+
+    private static final String[] ALL_COLUMNS = {
+            COLUMN_MESSAGE_ID, COLUMN_RECIPIENT, COLUMN_SUBJECT, COLUMN_BODY, COLUMN_ATTEMPTS, COLUMN_LAST_ERROR,
+            COLUMN_CREATED_AT
+    };
+
+    private final SQLiteDatabase database;
+
+    public OutboxDao(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Create the Outbox table
+     */
+    public static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + "("
+                + COLUMN_MESSAGE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + COLUMN_RECIPIENT + " TEXT NOT NULL,"
+                + COLUMN_SUBJECT + " TEXT,"
+                + COLUMN_BODY + " TEXT,"
+                + COLUMN_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_LAST_ERROR + " TEXT,"
+                + COLUMN_CREATED_AT + " INTEGER"
+                + ")");
+    }
+
+    /**
+     * Queue messages in a single transaction
+     *
+     * @return Number of messages queued
+     */
+    public int insertAll(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        int inserted = 0;
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement("INSERT INTO " + TABLE_NAME + " ("
+                + COLUMN_RECIPIENT + ", " + COLUMN_SUBJECT + ", " + COLUMN_BODY + ", " + COLUMN_CREATED_AT
+                + ") VALUES (?, ?, ?, ?)");
+        try {
+            for (OutboxMessage message : messages) {
+                statement.clearBindings();
+                statement.bindString(1, message.getRecipient());
+                StatementUtils.bindString(statement, 2, message.getSubject());
+                StatementUtils.bindString(statement, 3, message.getBody());
+                statement.bindLong(4, message.getCreatedAt());
+                long id = statement.executeInsert();
+                if (id != -1) {
+                    message.setMessageId(id);
+                    inserted++;
+                }
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+        return inserted;
+    }
+
+    /**
+     * Get queued messages, oldest first
+     */
+    public List<OutboxMessage> getPending(int limit) {
+        Cursor cursor = database.query(TABLE_NAME, ALL_COLUMNS, null, null, null, null, COLUMN_MESSAGE_ID,
+                String.valueOf(limit));
+
+        List<OutboxMessage> messages = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                do {
+                    OutboxMessage message = new OutboxMessage();
+                    message.setMessageId(cursor.getLong(0));
+                    message.setRecipient(cursor.getString(1));
+                    message.setSubject(cursor.getString(2));
+                    message.setBody(cursor.getString(3));
+                    message.setAttempts(cursor.getInt(4));
+                    message.setLastError(cursor.getString(5));
+                    message.setCreatedAt(cursor.getLong(6));
+                    messages.add(message);
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return messages;
+    }
+
+    /**
+     * Number of queued messages
+     */
+    public int getPendingCount() {
+        Cursor cursor = database.rawQuery("SELECT COUNT(*) FROM " + TABLE_NAME, null);
+        int count = 0;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                count = cursor.getInt(0);
+            }
+            cursor.close();
+        }
+        return count;
+    }
+
+    /**
+     * Remove a message that was sent or given up on
+     */
+    public int delete(long messageId) {
+        return database.delete(TABLE_NAME, COLUMN_MESSAGE_ID + " = ?", new String[] { String.valueOf(messageId) });
+    }
+
+    /**
+     * Count a failed attempt for a message
+     */
+    public void recordFailure(long messageId, String error) {
+        database.execSQL("UPDATE " + TABLE_NAME + " SET " + COLUMN_ATTEMPTS + " = " + COLUMN_ATTEMPTS + " + 1, "
+                + COLUMN_LAST_ERROR + " = ? WHERE " + COLUMN_MESSAGE_ID + " = ?",
+                new Object[] { error, messageId });
+    }
+}
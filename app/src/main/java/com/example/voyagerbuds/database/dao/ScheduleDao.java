@@ -3,8 +3,10 @@ package com.example.voyagerbuds.database.dao;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import com.example.voyagerbuds.models.ScheduleItem;
+import com.example.voyagerbuds.utils.DateUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +33,53 @@ public class ScheduleDao {
     private static final String COLUMN_SCHEDULE_NOTIFY_BEFORE = "notify_before_minutes";
     private static final String COLUMN_SCHEDULE_CREATED_AT = "created_at";
     private static final String COLUMN_SCHEDULE_UPDATED_AT = "updated_at";
+    private static final String COLUMN_SCHEDULE_EPOCH_DAY = "epoch_day";
+    private static final String COLUMN_SCHEDULE_START_MINUTE = "start_minute";
+    private static final String COLUMN_SCHEDULE_END_MINUTE = "end_minute";
+
+    // Integer ordering; the text columns only break ties for days that are not dates
+    private static final String ORDER_BY_DAY_AND_START = COLUMN_SCHEDULE_EPOCH_DAY + ", "
+            + COLUMN_SCHEDULE_START_MINUTE + ", " + COLUMN_SCHEDULE_DAY + ", " + COLUMN_SCHEDULE_START_TIME;
+
+    // Explicit projection for full schedule rows
+    private static final String[] ALL_COLUMNS = {
+            COLUMN_SCHEDULE_ID, COLUMN_SCHEDULE_TRIP_ID, COLUMN_SCHEDULE_DAY, COLUMN_SCHEDULE_START_TIME,
+            COLUMN_SCHEDULE_END_TIME, COLUMN_SCHEDULE_TITLE, COLUMN_SCHEDULE_NOTES, COLUMN_SCHEDULE_LOCATION,
+            COLUMN_SCHEDULE_LATITUDE, COLUMN_SCHEDULE_LONGITUDE, COLUMN_SCHEDULE_PARTICIPANTS,
+            COLUMN_SCHEDULE_IMAGES, COLUMN_SCHEDULE_NOTIFY_BEFORE, COLUMN_SCHEDULE_CREATED_AT,
+            COLUMN_SCHEDULE_UPDATED_AT, COLUMN_SCHEDULE_EPOCH_DAY, COLUMN_SCHEDULE_START_MINUTE,
+            COLUMN_SCHEDULE_END_MINUTE
+    };
+
+    // Indexed reads, public so QueryPlanTest plans the same statements
+    private static final String SELECT_ALL = "SELECT " + String.join(", ", ALL_COLUMNS) + " FROM " + TABLE_SCHEDULES;
+    private static final String SELECT_TIME_RANGES = "SELECT " + COLUMN_SCHEDULE_ID + ", "
+            + COLUMN_SCHEDULE_START_MINUTE + ", " + COLUMN_SCHEDULE_END_MINUTE + " FROM " + TABLE_SCHEDULES;
+    private static final String WHERE_EPOCH_DAY = " WHERE " + COLUMN_SCHEDULE_TRIP_ID + " = ? AND "
+            + COLUMN_SCHEDULE_EPOCH_DAY + " = ?";
+    // Free-text days such as "Day 1" have no epoch day
+    private static final String WHERE_TEXT_DAY = " WHERE " + COLUMN_SCHEDULE_TRIP_ID + " = ? AND "
+            + COLUMN_SCHEDULE_DAY + " = ?";
+    private static final String WITH_TIMES = " AND " + COLUMN_SCHEDULE_START_MINUTE + " IS NOT NULL AND "
+            + COLUMN_SCHEDULE_END_MINUTE + " IS NOT NULL ORDER BY " + COLUMN_SCHEDULE_START_MINUTE;
+    private static final String REMINDER_START = COLUMN_SCHEDULE_EPOCH_DAY + " * 1440 + "
+            + COLUMN_SCHEDULE_START_MINUTE;
+
+    public static final String BY_TRIP_QUERY = SELECT_ALL + " WHERE " + COLUMN_SCHEDULE_TRIP_ID + " = ? ORDER BY "
+            + ORDER_BY_DAY_AND_START;
+    public static final String BY_EPOCH_DAY_QUERY = SELECT_ALL + WHERE_EPOCH_DAY + " ORDER BY "
+            + COLUMN_SCHEDULE_START_MINUTE + ", " + COLUMN_SCHEDULE_START_TIME;
+    public static final String BY_TEXT_DAY_QUERY = SELECT_ALL + WHERE_TEXT_DAY + " ORDER BY "
+            + COLUMN_SCHEDULE_START_MINUTE + ", " + COLUMN_SCHEDULE_START_TIME;
+    public static final String TIME_RANGES_BY_EPOCH_DAY_QUERY = SELECT_TIME_RANGES + WHERE_EPOCH_DAY + WITH_TIMES;
+    public static final String TIME_RANGES_BY_TEXT_DAY_QUERY = SELECT_TIME_RANGES + WHERE_TEXT_DAY + WITH_TIMES;
+    // Arguments: first day, from minute, to minute. Arguments are bound as
+    // text, which compares greater than any number unless cast. The first day
+    // bound lets idx_schedules_reminder skip past days.
+    public static final String REMINDERS_QUERY = SELECT_ALL + " WHERE " + COLUMN_SCHEDULE_NOTIFY_BEFORE + " > 0 AND "
+            + COLUMN_SCHEDULE_EPOCH_DAY + " >= CAST(? AS INTEGER) AND " + COLUMN_SCHEDULE_START_MINUTE
+            + " IS NOT NULL AND " + REMINDER_START + " > CAST(? AS INTEGER) AND " + REMINDER_START + " - "
+            + COLUMN_SCHEDULE_NOTIFY_BEFORE + " <= CAST(? AS INTEGER)";
 
     private final SQLiteDatabase database;
 
@@ -55,10 +104,65 @@ public class ScheduleDao {
         values.put(COLUMN_SCHEDULE_NOTIFY_BEFORE, item.getNotifyBeforeMinutes());
         values.put(COLUMN_SCHEDULE_CREATED_AT, item.getCreatedAt());
         values.put(COLUMN_SCHEDULE_UPDATED_AT, item.getUpdatedAt());
+        putDateKeys(values, item);
 
         return database.insert(TABLE_SCHEDULES, null, values);
     }
 
+    /**
+     * Insert many schedule items with one compiled statement inside a single
+     * transaction
+     *
+     * @return Number of rows inserted
+     */
+    public int insertAll(List<ScheduleItem> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO " + TABLE_SCHEDULES + " (" + COLUMN_SCHEDULE_TRIP_ID + ", " + COLUMN_SCHEDULE_DAY
+                + ", " + COLUMN_SCHEDULE_START_TIME + ", " + COLUMN_SCHEDULE_END_TIME + ", " + COLUMN_SCHEDULE_TITLE
+                + ", " + COLUMN_SCHEDULE_NOTES + ", " + COLUMN_SCHEDULE_LOCATION + ", " + COLUMN_SCHEDULE_LATITUDE
+                + ", " + COLUMN_SCHEDULE_LONGITUDE + ", " + COLUMN_SCHEDULE_PARTICIPANTS + ", "
+                + COLUMN_SCHEDULE_IMAGES + ", " + COLUMN_SCHEDULE_NOTIFY_BEFORE + ", " + COLUMN_SCHEDULE_CREATED_AT
+                + ", " + COLUMN_SCHEDULE_UPDATED_AT + ", " + COLUMN_SCHEDULE_EPOCH_DAY + ", "
+                + COLUMN_SCHEDULE_START_MINUTE + ", " + COLUMN_SCHEDULE_END_MINUTE
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        int inserted = 0;
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(sql);
+        try {
+            for (ScheduleItem item : items) {
+                statement.clearBindings();
+                statement.bindLong(1, item.getTripId());
+                StatementUtils.bindString(statement, 2, item.getDay());
+                StatementUtils.bindString(statement, 3, item.getStartTime());
+                StatementUtils.bindString(statement, 4, item.getEndTime());
+                StatementUtils.bindString(statement, 5, item.getTitle());
+                StatementUtils.bindString(statement, 6, item.getNotes());
+                StatementUtils.bindString(statement, 7, item.getLocation());
+                StatementUtils.bindDouble(statement, 8, item.getLatitude());
+                StatementUtils.bindDouble(statement, 9, item.getLongitude());
+                StatementUtils.bindString(statement, 10, item.getParticipants());
+                StatementUtils.bindString(statement, 11, item.getImagePaths());
+                statement.bindLong(12, item.getNotifyBeforeMinutes());
+                statement.bindLong(13, item.getCreatedAt());
+                statement.bindLong(14, item.getUpdatedAt());
+                StatementUtils.bindLong(statement, 15, item.getEpochDay(), DateUtils.NO_EPOCH_DAY);
+                StatementUtils.bindLong(statement, 16, item.getStartMinute(), DateUtils.NO_MINUTE);
+                StatementUtils.bindLong(statement, 17, item.getEndMinute(), DateUtils.NO_MINUTE);
+                if (statement.executeInsert() != -1) {
+                    inserted++;
+                }
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+        return inserted;
+    }
+
     /**
      * Update an existing schedule item
      */
@@ -80,6 +184,7 @@ public class ScheduleDao {
         values.put(COLUMN_SCHEDULE_IMAGES, item.getImagePaths());
         values.put(COLUMN_SCHEDULE_NOTIFY_BEFORE, item.getNotifyBeforeMinutes());
         values.put(COLUMN_SCHEDULE_UPDATED_AT, item.getUpdatedAt());
+        putDateKeys(values, item);
 
         return database.update(TABLE_SCHEDULES, values, COLUMN_SCHEDULE_ID + " = ?",
                 new String[] { String.valueOf(item.getId()) });
@@ -105,12 +210,14 @@ public class ScheduleDao {
      * Get schedule item by ID
      */
     public ScheduleItem getById(int scheduleId) {
-        Cursor cursor = database.query(TABLE_SCHEDULES, null, COLUMN_SCHEDULE_ID + "=?",
+        Cursor cursor = database.query(TABLE_SCHEDULES, ALL_COLUMNS, COLUMN_SCHEDULE_ID + "=?",
                 new String[] { String.valueOf(scheduleId) }, null, null, null);
 
         ScheduleItem item = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            item = cursorToScheduleItem(cursor);
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                item = cursorToScheduleItem(cursor, new ScheduleColumns(cursor));
+            }
             cursor.close();
         }
         return item;
@@ -120,39 +227,62 @@ public class ScheduleDao {
      * Get all schedule items for a trip, ordered by day and start time
      */
     public List<ScheduleItem> getAllByTripId(int tripId) {
-        List<ScheduleItem> list = new ArrayList<>();
-        String query = "SELECT * FROM " + TABLE_SCHEDULES + " WHERE " + COLUMN_SCHEDULE_TRIP_ID + " = ? ORDER BY "
-                + COLUMN_SCHEDULE_DAY + ", " + COLUMN_SCHEDULE_START_TIME;
-
-        Cursor cursor = database.rawQuery(query, new String[] { String.valueOf(tripId) });
-
-        if (cursor.moveToFirst()) {
-            do {
-                list.add(cursorToScheduleItem(cursor));
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        return list;
+        Cursor cursor = database.rawQuery(BY_TRIP_QUERY, new String[] { String.valueOf(tripId) });
+        return readAll(cursor);
     }
 
     /**
      * Get schedules for a specific day
      */
     public List<ScheduleItem> getByTripIdAndDay(int tripId, String day) {
-        List<ScheduleItem> list = new ArrayList<>();
-        String selection = COLUMN_SCHEDULE_TRIP_ID + " = ? AND " + COLUMN_SCHEDULE_DAY + " = ?";
-        String[] selectionArgs = new String[] { String.valueOf(tripId), day };
+        Cursor cursor = database.rawQuery(hasEpochDay(day) ? BY_EPOCH_DAY_QUERY : BY_TEXT_DAY_QUERY,
+                daySelectionArgs(tripId, day));
+        return readAll(cursor);
+    }
 
-        Cursor cursor = database.query(TABLE_SCHEDULES, null, selection, selectionArgs,
-                null, null, COLUMN_SCHEDULE_START_TIME);
+    /**
+     * Get the time ranges of a day's schedules as {scheduleId, startMinute,
+     * endMinute}, ordered by start. Schedules without valid times are left out.
+     */
+    public List<int[]> getTimeRangesForDay(int tripId, String day) {
+        Cursor cursor = database.rawQuery(
+                hasEpochDay(day) ? TIME_RANGES_BY_EPOCH_DAY_QUERY : TIME_RANGES_BY_TEXT_DAY_QUERY,
+                daySelectionArgs(tripId, day));
 
-        if (cursor.moveToFirst()) {
-            do {
-                list.add(cursorToScheduleItem(cursor));
-            } while (cursor.moveToNext());
+        List<int[]> ranges = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                do {
+                    ranges.add(new int[] { cursor.getInt(0), cursor.getInt(1), cursor.getInt(2) });
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
         }
-        cursor.close();
-        return list;
+        return ranges;
+    }
+
+    /**
+     * Get schedules with a reminder that starts after {@code fromMinute} and
+     * whose reminder is due by {@code toMinute}, both in local minutes since
+     * 1970-01-01. Schedules without a date and start time are left out.
+     */
+    public List<ScheduleItem> getRemindersBetween(long fromMinute, long toMinute) {
+        // A start minute is below 1440, so a schedule starting after fromMinute
+        // is on fromMinute's day or later
+        Cursor cursor = database.rawQuery(REMINDERS_QUERY, new String[] {
+                String.valueOf(Math.floorDiv(fromMinute, 1440L)), String.valueOf(fromMinute),
+                String.valueOf(toMinute) });
+        return readAll(cursor);
+    }
+
+    private static boolean hasEpochDay(String day) {
+        return DateUtils.toEpochDay(day) != DateUtils.NO_EPOCH_DAY;
+    }
+
+    private static String[] daySelectionArgs(int tripId, String day) {
+        long epochDay = DateUtils.toEpochDay(day);
+        return new String[] { String.valueOf(tripId),
+                epochDay != DateUtils.NO_EPOCH_DAY ? String.valueOf(epochDay) : day };
     }
 
     /**
@@ -165,53 +295,122 @@ public class ScheduleDao {
                 new String[] { String.valueOf(scheduleId) });
     }
 
+    private static void putDateKeys(ContentValues values, ScheduleItem item) {
+        StatementUtils.putLong(values, COLUMN_SCHEDULE_EPOCH_DAY, item.getEpochDay(), DateUtils.NO_EPOCH_DAY);
+        StatementUtils.putLong(values, COLUMN_SCHEDULE_START_MINUTE, item.getStartMinute(), DateUtils.NO_MINUTE);
+        StatementUtils.putLong(values, COLUMN_SCHEDULE_END_MINUTE, item.getEndMinute(), DateUtils.NO_MINUTE);
+    }
+
+    /**
+     * Read every row of a cursor and close it
+     */
+    private List<ScheduleItem> readAll(Cursor cursor) {
+        List<ScheduleItem> list = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                ScheduleColumns columns = new ScheduleColumns(cursor);
+                do {
+                    list.add(cursorToScheduleItem(cursor, columns));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return list;
+    }
+
     /**
      * Convert cursor to ScheduleItem object
      */
-    private ScheduleItem cursorToScheduleItem(Cursor cursor) {
+    private ScheduleItem cursorToScheduleItem(Cursor cursor, ScheduleColumns c) {
         ScheduleItem item = new ScheduleItem();
-        item.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_ID)));
-        item.setTripId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_TRIP_ID)));
-        item.setDay(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_DAY)));
-        item.setStartTime(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_START_TIME)));
-        item.setEndTime(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_END_TIME)));
-        item.setTitle(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_TITLE)));
-        item.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_NOTES)));
+        item.setId(cursor.getInt(c.id));
+        item.setTripId(cursor.getInt(c.tripId));
+        item.setDay(cursor.getString(c.day));
+        item.setStartTime(cursor.getString(c.startTime));
+        item.setEndTime(cursor.getString(c.endTime));
+        item.setTitle(cursor.getString(c.title));
+        item.setNotes(cursor.getString(c.notes));
 
         // Handle optional columns
-        int locationIndex = cursor.getColumnIndex(COLUMN_SCHEDULE_LOCATION);
-        if (locationIndex != -1) {
-            item.setLocation(cursor.getString(locationIndex));
+        if (c.location != -1) {
+            item.setLocation(cursor.getString(c.location));
         }
-
-        int participantsIndex = cursor.getColumnIndex(COLUMN_SCHEDULE_PARTICIPANTS);
-        if (participantsIndex != -1) {
-            item.setParticipants(cursor.getString(participantsIndex));
+        if (c.participants != -1) {
+            item.setParticipants(cursor.getString(c.participants));
         }
-
-        int imagesIndex = cursor.getColumnIndex(COLUMN_SCHEDULE_IMAGES);
-        if (imagesIndex != -1) {
-            item.setImagePaths(cursor.getString(imagesIndex));
+        if (c.images != -1) {
+            item.setImagePaths(cursor.getString(c.images));
         }
-
-        int notifyBeforeIndex = cursor.getColumnIndex(COLUMN_SCHEDULE_NOTIFY_BEFORE);
-        if (notifyBeforeIndex != -1) {
-            item.setNotifyBeforeMinutes(cursor.getInt(notifyBeforeIndex));
+        if (c.notifyBefore != -1) {
+            item.setNotifyBeforeMinutes(cursor.getInt(c.notifyBefore));
         }
-
-        int latitudeIndex = cursor.getColumnIndex(COLUMN_SCHEDULE_LATITUDE);
-        if (latitudeIndex != -1 && !cursor.isNull(latitudeIndex)) {
-            item.setLatitude(cursor.getDouble(latitudeIndex));
+        if (c.latitude != -1 && !cursor.isNull(c.latitude)) {
+            item.setLatitude(cursor.getDouble(c.latitude));
         }
-
-        int longitudeIndex = cursor.getColumnIndex(COLUMN_SCHEDULE_LONGITUDE);
-        if (longitudeIndex != -1 && !cursor.isNull(longitudeIndex)) {
-            item.setLongitude(cursor.getDouble(longitudeIndex));
+        if (c.longitude != -1 && !cursor.isNull(c.longitude)) {
+            item.setLongitude(cursor.getDouble(c.longitude));
         }
 
-        item.setCreatedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_CREATED_AT)));
-        item.setUpdatedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_UPDATED_AT)));
+        item.setCreatedAt(cursor.getLong(c.createdAt));
+        item.setUpdatedAt(cursor.getLong(c.updatedAt));
+
+        // Stored integer keys; NULL means the text could not be parsed
+        if (c.epochDay != -1) {
+            item.setEpochDay(cursor.isNull(c.epochDay) ? DateUtils.NO_EPOCH_DAY : cursor.getLong(c.epochDay));
+        }
+        if (c.startMinute != -1) {
+            item.setStartMinute(cursor.isNull(c.startMinute) ? DateUtils.NO_MINUTE : cursor.getInt(c.startMinute));
+        }
+        if (c.endMinute != -1) {
+            item.setEndMinute(cursor.isNull(c.endMinute) ? DateUtils.NO_MINUTE : cursor.getInt(c.endMinute));
+        }
 
         return item;
     }
+
+    /**
+     * Column positions for a schedule cursor, resolved once per cursor rather
+     * than once per row. Optional columns are -1 when not in the projection.
+     */
+    private static final class ScheduleColumns {
+        final int id;
+        final int tripId;
+        final int day;
+        final int startTime;
+        final int endTime;
+        final int title;
+        final int notes;
+        final int location;
+        final int participants;
+        final int images;
+        final int notifyBefore;
+        final int latitude;
+        final int longitude;
+        final int createdAt;
+        final int updatedAt;
+        final int epochDay;
+        final int startMinute;
+        final int endMinute;
+
+        ScheduleColumns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_ID);
+            tripId = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_TRIP_ID);
+            day = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_DAY);
+            startTime = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_START_TIME);
+            endTime = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_END_TIME);
+            title = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_TITLE);
+            notes = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_NOTES);
+            location = cursor.getColumnIndex(COLUMN_SCHEDULE_LOCATION);
+            participants = cursor.getColumnIndex(COLUMN_SCHEDULE_PARTICIPANTS);
+            images = cursor.getColumnIndex(COLUMN_SCHEDULE_IMAGES);
+            notifyBefore = cursor.getColumnIndex(COLUMN_SCHEDULE_NOTIFY_BEFORE);
+            latitude = cursor.getColumnIndex(COLUMN_SCHEDULE_LATITUDE);
+            longitude = cursor.getColumnIndex(COLUMN_SCHEDULE_LONGITUDE);
+            createdAt = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_CREATED_AT);
+            updatedAt = cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE_UPDATED_AT);
+            epochDay = cursor.getColumnIndex(COLUMN_SCHEDULE_EPOCH_DAY);
+            startMinute = cursor.getColumnIndex(COLUMN_SCHEDULE_START_MINUTE);
+            endMinute = cursor.getColumnIndex(COLUMN_SCHEDULE_END_MINUTE);
+        }
+    }
 }
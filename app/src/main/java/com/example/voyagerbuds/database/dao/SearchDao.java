@@ -0,0 +1,368 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.voyagerbuds.models.SearchResult;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Data Access Object for the SearchIndex full-text table.
+ * SearchIndex is an FTS4 table over trip names/destinations/notes, schedule
+ * titles/notes/locations, expense categories/notes and capture descriptions.
+ * Triggers on the source tables keep it up to date, so this DAO only reads
+ * from it (and backfills it on upgrade). The ranking of the last query is
+ * cached for paging until {@link #invalidate()}.
+ */
+public class SearchDao {
+    public static final String TABLE_NAME = "SearchIndex";
+    private static final String COLUMN_TITLE = "title";
+    private static final String COLUMN_BODY = "body";
+    private static final String COLUMN_SCOPE = "scope"; // "u<userId>"
+    private static final String COLUMN_OWNER_TYPE = "owner_type";
+    private static final String COLUMN_OWNER_ID = "owner_id";
+    private static final String COLUMN_TRIP_ID = "trip_id";
+
+    private static final String INSERT_COLUMNS = "docid, " + COLUMN_TITLE + ", " + COLUMN_BODY + ", "
+            + COLUMN_SCOPE + ", " + COLUMN_OWNER_TYPE + ", " + COLUMN_OWNER_ID + ", " + COLUMN_TRIP_ID;
+
+    // Only the newest matches are scored, since reading the match info of
+    // every row a short prefix matches is too slow to run on each keystroke,
+    // and only the best of them are kept for paging
+    private static final int MAX_CANDIDATES = 500;
+    public static final int MAX_RANKED_RESULTS = 200;
+    private static final int MIN_QUERY_LENGTH = 2;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int SNIPPET_TOKENS = 12;
+
+    // BM25 parameters and per-column weights (title, body, scope, owner_type,
+    // owner_id, trip_id)
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    private static final double[] COLUMN_WEIGHTS = { 4.0, 1.0, 0.0, 0.0, 0.0, 0.0 };
+    private static final int TITLE_INDEX = 0;
+    private static final int BODY_INDEX = 1;
+
+    private final SQLiteDatabase database;
+
+    // Scope and match expression, and ranking, of the last search
+    private String cachedKey;
+    private List<RankedDoc> cachedRanking;
+
+    public SearchDao(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Create the SearchIndex table and the triggers that maintain it. The
+     * docid of every row is ownerId * 4 + type, so triggers can find a row
+     * without a lookup. Two and three letter prefixes are indexed, so a short
+     * prefix reads one list of rows instead of merging one per word.
+     */
+    public static void createSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_NAME + " USING fts4("
+                + COLUMN_TITLE + ", " + COLUMN_BODY + ", " + COLUMN_SCOPE + ", " + COLUMN_OWNER_TYPE + ", "
+                + COLUMN_OWNER_ID + ", " + COLUMN_TRIP_ID + ", tokenize=unicode61, notindexed=" + COLUMN_OWNER_TYPE
+                + ", notindexed=" + COLUMN_OWNER_ID + ", notindexed=" + COLUMN_TRIP_ID + ", prefix=\"2,3\")");
+
+        createTriggers(db, "trips", "Trips", "tripId", SearchResult.TYPE_TRIP, tripValues("NEW."),
+                "trip_name, destination, notes, userId");
+        createTriggers(db, "schedules", "Schedules", "scheduleId", SearchResult.TYPE_SCHEDULE,
+                scheduleValues("NEW."), "title, notes, location, tripId");
+        createTriggers(db, "expenses", "Expenses", "expenseId", SearchResult.TYPE_EXPENSE, expenseValues("NEW."),
+                "category, note, tripId");
+        createTriggers(db, "captures", "Captures", "captureId", SearchResult.TYPE_CAPTURE, captureValues("NEW."),
+                "description, tripId, userId");
+
+        // Schedules and expenses take their user from the trip
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS search_trips_scope AFTER UPDATE OF userId ON Trips"
+                + " WHEN OLD.userId IS NOT NEW.userId BEGIN"
+                + " UPDATE " + TABLE_NAME + " SET " + COLUMN_SCOPE + " = 'u' || coalesce(NEW.userId, 0)"
+                + " WHERE " + COLUMN_TRIP_ID + " = NEW.tripId AND " + COLUMN_OWNER_TYPE + " IN ("
+                + SearchResult.TYPE_SCHEDULE + ", " + SearchResult.TYPE_EXPENSE + "); END");
+    }
+
+    /**
+     * Re-index every trip, schedule, expense and capture. Used to backfill the
+     * table on upgrade.
+     */
+    public void rebuildAll() {
+        database.beginTransaction();
+        try {
+            database.execSQL("DELETE FROM " + TABLE_NAME);
+            database.execSQL("INSERT INTO " + TABLE_NAME + " (" + INSERT_COLUMNS + ") SELECT " + tripValues("t.")
+                    + " FROM Trips t");
+            database.execSQL("INSERT INTO " + TABLE_NAME + " (" + INSERT_COLUMNS + ") SELECT "
+                    + scheduleValues("s.") + " FROM Schedules s");
+            database.execSQL("INSERT INTO " + TABLE_NAME + " (" + INSERT_COLUMNS + ") SELECT " + expenseValues("e.")
+                    + " FROM Expenses e");
+            database.execSQL("INSERT INTO " + TABLE_NAME + " (" + INSERT_COLUMNS + ") SELECT " + captureValues("c.")
+                    + " FROM Captures c");
+            // Merge the index into a single segment so the first searches are fast
+            database.execSQL("INSERT INTO " + TABLE_NAME + "(" + TABLE_NAME + ") VALUES('optimize')");
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Search a user's trips, schedules, expenses and captures. Every word of
+     * the query is matched as a prefix, so this can run as the user types.
+     * The user's newest matches are ranked by BM25 with title hits weighted
+     * above body hits, and the best {@link #MAX_RANKED_RESULTS} can be paged.
+     * Later pages of the same query reuse the ranking.
+     *
+     * @return Up to {@code limit} results starting at {@code offset}, best
+     *         first. Empty when the query has fewer than two letters.
+     */
+    public List<SearchResult> search(int userId, String query, int offset, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        String match = toMatchQuery(query);
+        if (match == null || offset >= MAX_RANKED_RESULTS) {
+            return results;
+        }
+
+        List<RankedDoc> ranked = ranking("u" + userId, match);
+        if (offset >= ranked.size()) {
+            return results;
+        }
+        List<RankedDoc> page = ranked.subList(offset, Math.min(ranked.size(), offset + limit));
+
+        // Load titles, snippets and trip names for this page only
+        StringBuilder docIds = new StringBuilder();
+        for (RankedDoc doc : page) {
+            if (docIds.length() > 0) {
+                docIds.append(',');
+            }
+            docIds.append(doc.docId);
+        }
+        Map<Long, SearchResult> byDocId = new HashMap<>();
+        Cursor cursor = database.rawQuery("SELECT docid, " + COLUMN_OWNER_TYPE + ", " + COLUMN_OWNER_ID + ", "
+                + COLUMN_TRIP_ID + ", snippet(" + TABLE_NAME + ", ?, ?, '...', 0, 64), snippet(" + TABLE_NAME
+                + ", ?, ?, '...', 1, " + SNIPPET_TOKENS + "), (SELECT trip_name FROM Trips WHERE tripId = "
+                + TABLE_NAME + "." + COLUMN_TRIP_ID + ") FROM " + TABLE_NAME + " WHERE " + TABLE_NAME
+                + " MATCH ? AND docid IN (" + docIds + ")",
+                new String[] { SearchResult.MATCH_START, SearchResult.MATCH_END, SearchResult.MATCH_START,
+                        SearchResult.MATCH_END, match });
+        try {
+            while (cursor.moveToNext()) {
+                SearchResult result = new SearchResult();
+                result.setType(cursor.getInt(1));
+                result.setOwnerId(cursor.getInt(2));
+                result.setTripId(cursor.getInt(3));
+                result.setTitle(cursor.getString(4));
+                result.setSnippet(cursor.getString(5));
+                result.setTripName(cursor.getString(6));
+                byDocId.put(cursor.getLong(0), result);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        for (RankedDoc doc : page) {
+            SearchResult result = byDocId.get(doc.docId);
+            if (result != null) {
+                result.setScore(doc.score);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Drop the cached ranking. Called after every write to the indexed tables.
+     */
+    public synchronized void invalidate() {
+        cachedKey = null;
+        cachedRanking = null;
+    }
+
+    private synchronized List<RankedDoc> ranking(String scope, String match) {
+        String key = scope + ' ' + match;
+        if (!key.equals(cachedKey)) {
+            cachedRanking = rank(scope, match);
+            cachedKey = key;
+        }
+        return cachedRanking;
+    }
+
+    /**
+     * Score the newest {@link #MAX_CANDIDATES} matches in a scope with BM25
+     * from matchinfo('pcnalx') and return the best {@link #MAX_RANKED_RESULTS},
+     * best first. Newer rows win ties. Rows where a search term only hit the
+     * scope column are dropped.
+     * The scope is compared on the matched rows rather than matched as a
+     * term: as a term it is in every row of the user, so its row list and
+     * hit counts would be read in full on every search.
+     */
+    private List<RankedDoc> rank(String scope, String match) {
+        Comparator<RankedDoc> better = (a, b) -> a.score != b.score
+                ? Double.compare(a.score, b.score)
+                : Long.compare(a.docId, b.docId);
+        // Min-heap of the best rows so far
+        PriorityQueue<RankedDoc> best = new PriorityQueue<>(MAX_RANKED_RESULTS + 1, better);
+        Cursor cursor = database.rawQuery("SELECT docid, matchinfo(" + TABLE_NAME + ", 'pcnalx') FROM "
+                + TABLE_NAME + " WHERE " + TABLE_NAME + " MATCH ? AND " + COLUMN_SCOPE + " = ?"
+                + " ORDER BY docid DESC LIMIT " + MAX_CANDIDATES, new String[] { match, scope });
+        try {
+            while (cursor.moveToNext()) {
+                IntBuffer info = ByteBuffer.wrap(cursor.getBlob(1)).order(ByteOrder.nativeOrder()).asIntBuffer();
+                if (!termsHitContent(info)) {
+                    continue;
+                }
+                best.add(new RankedDoc(cursor.getLong(0), bm25(info)));
+                if (best.size() > MAX_RANKED_RESULTS) {
+                    best.poll();
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        List<RankedDoc> ranked = new ArrayList<>(best);
+        Collections.sort(ranked, better.reversed());
+        return ranked;
+    }
+
+    /**
+     * Whether every search term hit the title or body of this row. Terms are
+     * not column-qualified, because the meaning of OR next to an implicit AND
+     * depends on how SQLite was built, so a term such as "u1" can also match
+     * scope tokens.
+     */
+    private static boolean termsHitContent(IntBuffer info) {
+        int phrases = info.get(0);
+        int columns = info.get(1);
+        int hitsOffset = 3 + 2 * columns;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            int base = hitsOffset + 3 * phrase * columns;
+            if (info.get(base + 3 * TITLE_INDEX) == 0 && info.get(base + 3 * BODY_INDEX) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double bm25(IntBuffer info) {
+        int phrases = info.get(0);
+        int columns = info.get(1);
+        int rows = info.get(2);
+        int averageOffset = 3;
+        int lengthOffset = averageOffset + columns;
+        int hitsOffset = lengthOffset + columns;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns && column < COLUMN_WEIGHTS.length; column++) {
+                double weight = COLUMN_WEIGHTS[column];
+                int base = hitsOffset + 3 * (phrase * columns + column);
+                int hits = info.get(base);
+                if (weight == 0 || hits == 0) {
+                    continue;
+                }
+                int rowsWithHits = info.get(base + 2);
+                double idf = Math.log(1 + (rows - rowsWithHits + 0.5) / (rowsWithHits + 0.5));
+                double average = Math.max(1, info.get(averageOffset + column));
+                double length = info.get(lengthOffset + column);
+                score += weight * idf * hits * (BM25_K1 + 1)
+                        / (hits + BM25_K1 * (1 - BM25_B + BM25_B * length / average));
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Turn user input into an FTS MATCH expression: every letter/digit run as
+     * a prefix term, all ANDed. Returns null when the input is too short to
+     * search.
+     */
+    private static String toMatchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        String lower = query.toLowerCase(Locale.ROOT);
+        int terms = 0;
+        int letters = 0;
+        int i = 0;
+        while (i < lower.length() && terms < MAX_QUERY_TERMS) {
+            while (i < lower.length() && !Character.isLetterOrDigit(lower.codePointAt(i))) {
+                i += Character.charCount(lower.codePointAt(i));
+            }
+            int start = i;
+            while (i < lower.length() && Character.isLetterOrDigit(lower.codePointAt(i))) {
+                i += Character.charCount(lower.codePointAt(i));
+            }
+            if (i > start) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(lower, start, i).append('*');
+                letters += i - start;
+                terms++;
+            }
+        }
+        return letters < MIN_QUERY_LENGTH ? null : match.toString();
+    }
+
+    private static void createTriggers(SQLiteDatabase db, String name, String table, String idColumn, int type,
+            String newValues, String indexedColumns) {
+        String insert = "INSERT INTO " + TABLE_NAME + " (" + INSERT_COLUMNS + ") SELECT " + newValues + ";";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS search_" + name + "_ai AFTER INSERT ON " + table + " BEGIN "
+                + insert + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS search_" + name + "_au AFTER UPDATE OF " + indexedColumns + " ON "
+                + table + " BEGIN DELETE FROM " + TABLE_NAME + " WHERE docid = OLD." + idColumn + " * 4 + " + type
+                + "; " + insert + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS search_" + name + "_ad AFTER DELETE ON " + table + " BEGIN "
+                + "DELETE FROM " + TABLE_NAME + " WHERE docid = OLD." + idColumn + " * 4 + " + type + "; END");
+    }
+
+    // Row values for each source table, in INSERT_COLUMNS order. The prefix is
+    // "NEW." inside triggers and the table alias when backfilling.
+    private static String tripValues(String row) {
+        return row + "tripId * 4 + " + SearchResult.TYPE_TRIP + ", " + row + "trip_name, coalesce(" + row
+                + "destination, '') || ' ' || coalesce(" + row + "notes, ''), 'u' || coalesce(" + row
+                + "userId, 0), " + SearchResult.TYPE_TRIP + ", " + row + "tripId, " + row + "tripId";
+    }
+
+    private static String scheduleValues(String row) {
+        return row + "scheduleId * 4 + " + SearchResult.TYPE_SCHEDULE + ", " + row + "title, coalesce(" + row
+                + "notes, '') || ' ' || coalesce(" + row + "location, ''), " + tripScope(row) + ", "
+                + SearchResult.TYPE_SCHEDULE + ", " + row + "scheduleId, " + row + "tripId";
+    }
+
+    private static String expenseValues(String row) {
+        return row + "expenseId * 4 + " + SearchResult.TYPE_EXPENSE + ", " + row + "category, " + row + "note, "
+                + tripScope(row) + ", " + SearchResult.TYPE_EXPENSE + ", " + row + "expenseId, " + row + "tripId";
+    }
+
+    private static String captureValues(String row) {
+        return row + "captureId * 4 + " + SearchResult.TYPE_CAPTURE + ", '', " + row + "description, 'u' || coalesce("
+                + row + "userId, 0), " + SearchResult.TYPE_CAPTURE + ", " + row + "captureId, " + row + "tripId";
+    }
+
+    private static String tripScope(String row) {
+        return "'u' || coalesce((SELECT owner.userId FROM Trips owner WHERE owner.tripId = " + row + "tripId), 0)";
+    }
+
+    private static class RankedDoc {
+        final long docId;
+        final double score;
+
+        RankedDoc(long docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Helpers for binding nullable values to compiled statements used by the
+ * DAO batch operations.
+ */
+final class StatementUtils {
+
+    private StatementUtils() {
+    }
+
+    static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    static void bindDouble(SQLiteStatement statement, int index, Double value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindDouble(index, value);
+        }
+    }
+
+    /**
+     * Bind a long, or NULL when it equals the caller's "no value" sentinel
+     */
+    static void bindLong(SQLiteStatement statement, int index, long value, long noValue) {
+        if (value == noValue) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value);
+        }
+    }
+
+    /**
+     * Put a long, or NULL when it equals the caller's "no value" sentinel
+     */
+    static void putLong(ContentValues values, String column, long value, long noValue) {
+        if (value == noValue) {
+            values.putNull(column);
+        } else {
+            values.put(column, value);
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.example.voyagerbuds.database.dao;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.utils.DateUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,6 +37,42 @@ public class TripDao {
     private static final String COLUMN_BUDGET = "budget";
     private static final String COLUMN_BUDGET_CURRENCY = "budget_currency";
     private static final String COLUMN_PARTICIPANTS = "participants";
+    private static final String COLUMN_START_EPOCH_DAY = "start_epoch_day";
+    private static final String COLUMN_END_EPOCH_DAY = "end_epoch_day";
+
+    // Explicit projection for full trip rows
+    private static final String[] ALL_COLUMNS = {
+            COLUMN_TRIP_ID, COLUMN_USER_ID, COLUMN_TRIP_NAME, COLUMN_START_DATE, COLUMN_END_DATE,
+            COLUMN_DESTINATION, COLUMN_NOTES, COLUMN_PHOTO_URL, COLUMN_CREATED_AT, COLUMN_UPDATED_AT,
+            COLUMN_IS_GROUP_TRIP, COLUMN_MAP_LATITUDE, COLUMN_MAP_LONGITUDE, COLUMN_SYNC_STATUS,
+            COLUMN_FIREBASE_ID, COLUMN_LAST_SYNCED_AT, COLUMN_BUDGET, COLUMN_BUDGET_CURRENCY,
+            COLUMN_PARTICIPANTS, COLUMN_START_EPOCH_DAY, COLUMN_END_EPOCH_DAY
+    };
+
+    // Lightweight projection for list/card screens (no notes, participants or
+    // sync bookkeeping)
+    private static final String[] SUMMARY_COLUMNS = {
+            COLUMN_TRIP_ID, COLUMN_USER_ID, COLUMN_TRIP_NAME, COLUMN_START_DATE, COLUMN_END_DATE,
+            COLUMN_DESTINATION, COLUMN_PHOTO_URL, COLUMN_CREATED_AT, COLUMN_UPDATED_AT,
+            COLUMN_MAP_LATITUDE, COLUMN_MAP_LONGITUDE, COLUMN_BUDGET, COLUMN_BUDGET_CURRENCY,
+            COLUMN_START_EPOCH_DAY, COLUMN_END_EPOCH_DAY
+    };
+
+    // Indexed reads, public so QueryPlanTest plans the same statements
+    private static final String SELECT_ALL = "SELECT " + String.join(", ", ALL_COLUMNS) + " FROM " + TABLE_TRIPS;
+    public static final String BY_USER_QUERY = SELECT_ALL + " WHERE " + COLUMN_USER_ID + " = ? ORDER BY "
+            + COLUMN_CREATED_AT + " DESC";
+    public static final String SUMMARIES_BY_USER_QUERY = "SELECT " + String.join(", ", SUMMARY_COLUMNS) + " FROM "
+            + TABLE_TRIPS + " WHERE " + COLUMN_USER_ID + " = ? ORDER BY " + COLUMN_CREATED_AT + " DESC";
+    public static final String BY_FIREBASE_ID_QUERY = SELECT_ALL + " WHERE " + COLUMN_FIREBASE_ID + " = ? AND "
+            + COLUMN_USER_ID + " = ?";
+    // Arguments: userId, end day, start day, trip to leave out
+    public static final String OVERLAPPING_QUERY = SELECT_ALL + " WHERE " + COLUMN_USER_ID + " = ? AND "
+            + COLUMN_START_EPOCH_DAY + " <= ? AND " + COLUMN_END_EPOCH_DAY + " >= ? AND " + COLUMN_TRIP_ID
+            + " != CAST(? AS INTEGER)";
+    public static final String COVERING_DAY_QUERY = SELECT_ALL + " WHERE " + COLUMN_USER_ID + " = ? AND "
+            + COLUMN_START_EPOCH_DAY + " <= ? AND " + COLUMN_END_EPOCH_DAY + " >= ? ORDER BY "
+            + COLUMN_START_EPOCH_DAY + " LIMIT 1";
 
     private final SQLiteDatabase database;
 
@@ -65,10 +103,72 @@ public class TripDao {
         values.put(COLUMN_BUDGET, trip.getBudget());
         values.put(COLUMN_BUDGET_CURRENCY, trip.getBudgetCurrency());
         values.put(COLUMN_PARTICIPANTS, trip.getParticipants());
+        putEpochDays(values, trip);
 
         return database.insert(TABLE_TRIPS, null, values);
     }
 
+    /**
+     * Insert many trips with one compiled statement inside a single transaction
+     *
+     * @return The new row IDs, in the same order as the input list
+     */
+    public long[] insertAll(List<Trip> trips) {
+        long[] ids = new long[trips.size()];
+        if (trips.isEmpty()) {
+            return ids;
+        }
+        String sql = "INSERT INTO " + TABLE_TRIPS + " (" + COLUMN_USER_ID + ", " + COLUMN_TRIP_NAME + ", "
+                + COLUMN_START_DATE + ", " + COLUMN_END_DATE + ", " + COLUMN_DESTINATION + ", " + COLUMN_NOTES + ", "
+                + COLUMN_PHOTO_URL + ", " + COLUMN_CREATED_AT + ", " + COLUMN_UPDATED_AT + ", "
+                + COLUMN_IS_GROUP_TRIP + ", " + COLUMN_MAP_LATITUDE + ", " + COLUMN_MAP_LONGITUDE + ", "
+                + COLUMN_SYNC_STATUS + ", " + COLUMN_FIREBASE_ID + ", " + COLUMN_LAST_SYNCED_AT + ", "
+                + COLUMN_BUDGET + ", " + COLUMN_BUDGET_CURRENCY + ", " + COLUMN_PARTICIPANTS + ", "
+                + COLUMN_START_EPOCH_DAY + ", " + COLUMN_END_EPOCH_DAY
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        database.beginTransaction();
+        SQLiteStatement statement = database.compileStatement(sql);
+        try {
+            for (int i = 0; i < trips.size(); i++) {
+                Trip trip = trips.get(i);
+                // trip_name is NOT NULL; mirror insert() by reporting -1 instead of failing
+                // the whole batch
+                if (trip.getTripName() == null) {
+                    ids[i] = -1;
+                    continue;
+                }
+                statement.clearBindings();
+                statement.bindLong(1, trip.getUserId());
+                StatementUtils.bindString(statement, 2, trip.getTripName());
+                StatementUtils.bindString(statement, 3, trip.getStartDate());
+                StatementUtils.bindString(statement, 4, trip.getEndDate());
+                StatementUtils.bindString(statement, 5, trip.getDestination());
+                StatementUtils.bindString(statement, 6, trip.getNotes());
+                StatementUtils.bindString(statement, 7, trip.getPhotoUrl());
+                statement.bindLong(8, trip.getCreatedAt());
+                statement.bindLong(9, trip.getUpdatedAt());
+                statement.bindLong(10, trip.getIsGroupTrip());
+                statement.bindDouble(11, trip.getMapLatitude());
+                statement.bindDouble(12, trip.getMapLongitude());
+                StatementUtils.bindString(statement, 13, trip.getSyncStatus());
+                statement.bindLong(14, trip.getFirebaseId());
+                statement.bindLong(15, trip.getLastSyncedAt());
+                statement.bindDouble(16, trip.getBudget());
+                StatementUtils.bindString(statement, 17, trip.getBudgetCurrency());
+                StatementUtils.bindString(statement, 18, trip.getParticipants());
+                StatementUtils.bindLong(statement, 19, trip.getStartEpochDay(), DateUtils.NO_EPOCH_DAY);
+                StatementUtils.bindLong(statement, 20, trip.getEndEpochDay(), DateUtils.NO_EPOCH_DAY);
+                ids[i] = statement.executeInsert();
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            statement.close();
+            database.endTransaction();
+        }
+        return ids;
+    }
+
     /**
      * Update an existing trip
      */
@@ -88,6 +188,7 @@ public class TripDao {
         values.put(COLUMN_PARTICIPANTS, trip.getParticipants());
         values.put(COLUMN_IS_GROUP_TRIP, trip.getIsGroupTrip());
         values.put(COLUMN_FIREBASE_ID, trip.getFirebaseId());
+        putEpochDays(values, trip);
 
         return database.update(TABLE_TRIPS, values, COLUMN_TRIP_ID + " = ?",
                 new String[] { String.valueOf(trip.getTripId()) });
@@ -105,126 +206,214 @@ public class TripDao {
      * Get trip by ID
      */
     public Trip getById(int tripId) {
-        Cursor cursor = database.query(TABLE_TRIPS, null, COLUMN_TRIP_ID + "=?",
+        Cursor cursor = database.query(TABLE_TRIPS, ALL_COLUMNS, COLUMN_TRIP_ID + "=?",
                 new String[] { String.valueOf(tripId) }, null, null, null);
-
-        Trip trip = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            trip = cursorToTrip(cursor);
-            cursor.close();
-        }
-        return trip;
+        return readFirst(cursor);
     }
 
     /**
      * Get trip by firebase id (remote id) and user
      */
     public Trip getByFirebaseIdAndUserId(int firebaseId, int userId) {
-        Cursor cursor = database.query(TABLE_TRIPS, null, COLUMN_FIREBASE_ID + "=? AND " + COLUMN_USER_ID + "=?",
-                new String[] { String.valueOf(firebaseId), String.valueOf(userId) }, null, null, null);
-
-        Trip trip = null;
-        if (cursor != null && cursor.moveToFirst()) {
-            trip = cursorToTrip(cursor);
-            cursor.close();
-        }
-        return trip;
+        Cursor cursor = database.rawQuery(BY_FIREBASE_ID_QUERY,
+                new String[] { String.valueOf(firebaseId), String.valueOf(userId) });
+        return readFirst(cursor);
     }
 
     /**
      * Get all trips for a specific user, ordered by creation date
      */
     public List<Trip> getAllByUserId(int userId) {
-        List<Trip> tripList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TRIPS + " WHERE " + COLUMN_USER_ID + " = ? ORDER BY "
-                + COLUMN_CREATED_AT + " DESC";
-
-        Cursor cursor = database.rawQuery(selectQuery, new String[] { String.valueOf(userId) });
+        Cursor cursor = database.rawQuery(BY_USER_QUERY, new String[] { String.valueOf(userId) });
+        return readAll(cursor);
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                tripList.add(cursorToTrip(cursor));
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        return tripList;
+    /**
+     * Get lightweight trip summaries for a user, ordered by creation date.
+     * Notes, participants and sync fields are left unset.
+     */
+    public List<Trip> getSummariesByUserId(int userId) {
+        Cursor cursor = database.rawQuery(SUMMARIES_BY_USER_QUERY, new String[] { String.valueOf(userId) });
+        return readAll(cursor);
     }
 
     /**
      * Get trips by date range for a specific user (for checking overlaps)
      */
     public List<Trip> getTripsByDateRange(int userId, String startDate, String endDate) {
-        List<Trip> tripList = new ArrayList<>();
-        String selection = COLUMN_USER_ID + " = ? AND " + COLUMN_START_DATE + " <= ? AND " + COLUMN_END_DATE + " >= ?";
-        String[] selectionArgs = new String[] { String.valueOf(userId), endDate, startDate };
-
-        Cursor cursor = database.query(TABLE_TRIPS, null, selection, selectionArgs, null, null, null);
-
-        if (cursor.moveToFirst()) {
-            do {
-                tripList.add(cursorToTrip(cursor));
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        return tripList;
+        return getTripsOverlapping(userId, DateUtils.toEpochDay(startDate), DateUtils.toEpochDay(endDate), -1);
     }
 
     /**
      * Get trips by date range for a specific user, excluding a specific trip
      */
     public List<Trip> getTripsByDateRangeExcluding(int userId, String startDate, String endDate, int excludeTripId) {
-        List<Trip> tripList = new ArrayList<>();
-        // Inline excludeTripId to avoid potential binding type issues
-        String selection = COLUMN_USER_ID + " = ? AND " + COLUMN_START_DATE + " <= ? AND " + COLUMN_END_DATE
-                + " >= ? AND " + COLUMN_TRIP_ID + " != " + excludeTripId;
-        String[] selectionArgs = new String[] { String.valueOf(userId), endDate, startDate };
+        return getTripsOverlapping(userId, DateUtils.toEpochDay(startDate), DateUtils.toEpochDay(endDate),
+                excludeTripId);
+    }
+
+    /**
+     * Get a user's trips whose [start, end] epoch-day range intersects the given
+     * one. Pass -1 as excludeTripId to keep every trip.
+     */
+    public List<Trip> getTripsOverlapping(int userId, long startEpochDay, long endEpochDay, int excludeTripId) {
+        Cursor cursor = database.rawQuery(OVERLAPPING_QUERY, new String[] { String.valueOf(userId),
+                String.valueOf(endEpochDay), String.valueOf(startEpochDay), String.valueOf(excludeTripId) });
+        return readAll(cursor);
+    }
+
+    /**
+     * Get the user's trip that covers the given epoch day, if any
+     */
+    public Trip getTripCoveringDay(int userId, long epochDay) {
+        String day = String.valueOf(epochDay);
+        Cursor cursor = database.rawQuery(COVERING_DAY_QUERY, new String[] { String.valueOf(userId), day, day });
+        return readFirst(cursor);
+    }
 
-        Cursor cursor = database.query(TABLE_TRIPS, null, selection, selectionArgs, null, null, null);
+    private static void putEpochDays(ContentValues values, Trip trip) {
+        StatementUtils.putLong(values, COLUMN_START_EPOCH_DAY, trip.getStartEpochDay(), DateUtils.NO_EPOCH_DAY);
+        StatementUtils.putLong(values, COLUMN_END_EPOCH_DAY, trip.getEndEpochDay(), DateUtils.NO_EPOCH_DAY);
+    }
+
+    /**
+     * Read the first row of a cursor and close it
+     */
+    private Trip readFirst(Cursor cursor) {
+        Trip trip = null;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                trip = cursorToTrip(cursor, new TripColumns(cursor));
+            }
+            cursor.close();
+        }
+        return trip;
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                tripList.add(cursorToTrip(cursor));
-            } while (cursor.moveToNext());
+    /**
+     * Read every row of a cursor and close it
+     */
+    private List<Trip> readAll(Cursor cursor) {
+        List<Trip> tripList = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                TripColumns columns = new TripColumns(cursor);
+                do {
+                    tripList.add(cursorToTrip(cursor, columns));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
         }
-        cursor.close();
         return tripList;
     }
 
     /**
-     * Convert cursor to Trip object
+     * Convert cursor to Trip object. Columns missing from the projection are
+     * left at their model defaults.
      */
-    private Trip cursorToTrip(Cursor cursor) {
+    private Trip cursorToTrip(Cursor cursor, TripColumns c) {
         Trip trip = new Trip();
-        trip.setTripId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_TRIP_ID)));
-        trip.setUserId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_USER_ID)));
-        trip.setTripName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TRIP_NAME)));
-        trip.setStartDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_START_DATE)));
-        trip.setEndDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_END_DATE)));
-        trip.setDestination(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DESTINATION)));
-        trip.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NOTES)));
-        trip.setPhotoUrl(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PHOTO_URL)));
-        trip.setCreatedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT)));
-        trip.setUpdatedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT)));
-        trip.setIsGroupTrip(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_IS_GROUP_TRIP)));
-        trip.setMapLatitude(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_MAP_LATITUDE)));
-        trip.setMapLongitude(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_MAP_LONGITUDE)));
-        trip.setSyncStatus(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SYNC_STATUS)));
-        trip.setFirebaseId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_FIREBASE_ID)));
-        trip.setLastSyncedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_LAST_SYNCED_AT)));
-        trip.setBudget(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_BUDGET)));
+        trip.setTripId(cursor.getInt(c.tripId));
+        trip.setUserId(cursor.getInt(c.userId));
+        trip.setTripName(cursor.getString(c.tripName));
+        trip.setStartDate(cursor.getString(c.startDate));
+        trip.setEndDate(cursor.getString(c.endDate));
+        if (c.destination != -1)
+            trip.setDestination(cursor.getString(c.destination));
+        if (c.notes != -1)
+            trip.setNotes(cursor.getString(c.notes));
+        if (c.photoUrl != -1)
+            trip.setPhotoUrl(cursor.getString(c.photoUrl));
+        if (c.createdAt != -1)
+            trip.setCreatedAt(cursor.getLong(c.createdAt));
+        if (c.updatedAt != -1)
+            trip.setUpdatedAt(cursor.getLong(c.updatedAt));
+        if (c.isGroupTrip != -1)
+            trip.setIsGroupTrip(cursor.getInt(c.isGroupTrip));
+        if (c.mapLatitude != -1)
+            trip.setMapLatitude(cursor.getDouble(c.mapLatitude));
+        if (c.mapLongitude != -1)
+            trip.setMapLongitude(cursor.getDouble(c.mapLongitude));
+        if (c.syncStatus != -1)
+            trip.setSyncStatus(cursor.getString(c.syncStatus));
+        if (c.firebaseId != -1)
+            trip.setFirebaseId(cursor.getInt(c.firebaseId));
+        if (c.lastSyncedAt != -1)
+            trip.setLastSyncedAt(cursor.getLong(c.lastSyncedAt));
+        if (c.budget != -1)
+            trip.setBudget(cursor.getDouble(c.budget));
 
         // Handle budget_currency with null check for backward compatibility
-        int currencyIndex = cursor.getColumnIndex(COLUMN_BUDGET_CURRENCY);
-        if (currencyIndex != -1 && !cursor.isNull(currencyIndex)) {
-            trip.setBudgetCurrency(cursor.getString(currencyIndex));
+        if (c.budgetCurrency != -1 && !cursor.isNull(c.budgetCurrency)) {
+            trip.setBudgetCurrency(cursor.getString(c.budgetCurrency));
         } else {
             trip.setBudgetCurrency("USD"); // Default value
         }
 
-        trip.setParticipants(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PARTICIPANTS)));
+        if (c.participants != -1)
+            trip.setParticipants(cursor.getString(c.participants));
+        // Stored integer keys; NULL means the date text could not be parsed
+        if (c.startEpochDay != -1)
+            trip.setStartEpochDay(cursor.isNull(c.startEpochDay) ? DateUtils.NO_EPOCH_DAY
+                    : cursor.getLong(c.startEpochDay));
+        if (c.endEpochDay != -1)
+            trip.setEndEpochDay(cursor.isNull(c.endEpochDay) ? DateUtils.NO_EPOCH_DAY
+                    : cursor.getLong(c.endEpochDay));
         return trip;
     }
 
+    /**
+     * Column positions for a trip cursor, resolved once per cursor rather than
+     * once per row. Optional columns are -1 when not in the projection.
+     */
+    private static final class TripColumns {
+        final int tripId;
+        final int userId;
+        final int tripName;
+        final int startDate;
+        final int endDate;
+        final int destination;
+        final int notes;
+        final int photoUrl;
+        final int createdAt;
+        final int updatedAt;
+        final int isGroupTrip;
+        final int mapLatitude;
+        final int mapLongitude;
+        final int syncStatus;
+        final int firebaseId;
+        final int lastSyncedAt;
+        final int budget;
+        final int budgetCurrency;
+        final int participants;
+        final int startEpochDay;
+        final int endEpochDay;
+
+        TripColumns(Cursor cursor) {
+            tripId = cursor.getColumnIndexOrThrow(COLUMN_TRIP_ID);
+            userId = cursor.getColumnIndexOrThrow(COLUMN_USER_ID);
+            tripName = cursor.getColumnIndexOrThrow(COLUMN_TRIP_NAME);
+            startDate = cursor.getColumnIndexOrThrow(COLUMN_START_DATE);
+            endDate = cursor.getColumnIndexOrThrow(COLUMN_END_DATE);
+            destination = cursor.getColumnIndex(COLUMN_DESTINATION);
+            notes = cursor.getColumnIndex(COLUMN_NOTES);
+            photoUrl = cursor.getColumnIndex(COLUMN_PHOTO_URL);
+            createdAt = cursor.getColumnIndex(COLUMN_CREATED_AT);
+            updatedAt = cursor.getColumnIndex(COLUMN_UPDATED_AT);
+            isGroupTrip = cursor.getColumnIndex(COLUMN_IS_GROUP_TRIP);
+            mapLatitude = cursor.getColumnIndex(COLUMN_MAP_LATITUDE);
+            mapLongitude = cursor.getColumnIndex(COLUMN_MAP_LONGITUDE);
+            syncStatus = cursor.getColumnIndex(COLUMN_SYNC_STATUS);
+            firebaseId = cursor.getColumnIndex(COLUMN_FIREBASE_ID);
+            lastSyncedAt = cursor.getColumnIndex(COLUMN_LAST_SYNCED_AT);
+            budget = cursor.getColumnIndex(COLUMN_BUDGET);
+            budgetCurrency = cursor.getColumnIndex(COLUMN_BUDGET_CURRENCY);
+            participants = cursor.getColumnIndex(COLUMN_PARTICIPANTS);
+            startEpochDay = cursor.getColumnIndex(COLUMN_START_EPOCH_DAY);
+            endEpochDay = cursor.getColumnIndex(COLUMN_END_EPOCH_DAY);
+        }
+    }
+
     /**
      * Generate a trip code for sharing/joining
      * Format: TRIPNAME_TRIPID_HASH
@@ -0,0 +1,120 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.voyagerbuds.models.TripCounts;
+import com.example.voyagerbuds.models.UserStats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data Access Object for per-user aggregate statistics.
+ * Computes counts directly in SQL instead of materializing child entities.
+ */
+public class UserStatsDao {
+    private static final String TABLE_TRIPS = "Trips";
+    private static final String TABLE_SCHEDULES = "Schedules";
+    private static final String TABLE_EXPENSES = "Expenses";
+    private static final String TABLE_CAPTURES = "Captures";
+    private static final String COLUMN_TRIP_ID = "tripId";
+    private static final String COLUMN_USER_ID = "userId";
+    private static final String COLUMN_EXPENSE_ID = "expenseId";
+    private static final String COLUMN_AMOUNT = "amount";
+    private static final String COLUMN_CURRENCY = "currency";
+
+    // One row per expense currency; the scalar subqueries repeat on every row.
+    // The LEFT JOIN against a single-row table guarantees a row even when the
+    // user has no expenses.
+    private static final String STATS_QUERY = "SELECT "
+            + "(SELECT COUNT(*) FROM " + TABLE_TRIPS + " WHERE " + COLUMN_USER_ID + " = ?) AS trip_count, "
+            + "(SELECT COUNT(*) FROM " + TABLE_SCHEDULES + " s JOIN " + TABLE_TRIPS + " t ON s." + COLUMN_TRIP_ID
+            + " = t." + COLUMN_TRIP_ID + " WHERE t." + COLUMN_USER_ID + " = ?) AS schedule_count, "
+            + "(SELECT COUNT(*) FROM " + TABLE_CAPTURES + " c JOIN " + TABLE_TRIPS + " t ON c." + COLUMN_TRIP_ID
+            + " = t." + COLUMN_TRIP_ID + " WHERE t." + COLUMN_USER_ID + " = ?) AS capture_count, "
+            + "e." + COLUMN_CURRENCY + " AS currency, "
+            + "COUNT(e." + COLUMN_EXPENSE_ID + ") AS expense_count, "
+            + "SUM(e." + COLUMN_AMOUNT + ") AS total "
+            + "FROM (SELECT 1) LEFT JOIN (SELECT x." + COLUMN_EXPENSE_ID + ", x." + COLUMN_CURRENCY + ", x."
+            + COLUMN_AMOUNT + " FROM " + TABLE_EXPENSES + " x JOIN " + TABLE_TRIPS + " t ON x." + COLUMN_TRIP_ID
+            + " = t." + COLUMN_TRIP_ID + " WHERE t." + COLUMN_USER_ID + " = ?) e "
+            + "GROUP BY e." + COLUMN_CURRENCY;
+
+    // Each child row of the user's trips is tagged with its table, so one pass
+    // groups all three counts by trip. Trips without children have no row.
+    public static final String TRIP_COUNTS_QUERY = "SELECT " + COLUMN_TRIP_ID + ", "
+            + "SUM(kind = 0) AS schedule_count, SUM(kind = 1) AS expense_count, SUM(kind = 2) AS capture_count "
+            + "FROM (SELECT s." + COLUMN_TRIP_ID + ", 0 AS kind FROM " + TABLE_SCHEDULES + " s JOIN " + TABLE_TRIPS
+            + " t ON s." + COLUMN_TRIP_ID + " = t." + COLUMN_TRIP_ID + " WHERE t." + COLUMN_USER_ID + " = ? "
+            + "UNION ALL SELECT x." + COLUMN_TRIP_ID + ", 1 FROM " + TABLE_EXPENSES + " x JOIN " + TABLE_TRIPS
+            + " t ON x." + COLUMN_TRIP_ID + " = t." + COLUMN_TRIP_ID + " WHERE t." + COLUMN_USER_ID + " = ? "
+            + "UNION ALL SELECT c." + COLUMN_TRIP_ID + ", 2 FROM " + TABLE_CAPTURES + " c JOIN " + TABLE_TRIPS
+            + " t ON c." + COLUMN_TRIP_ID + " = t." + COLUMN_TRIP_ID + " WHERE t." + COLUMN_USER_ID + " = ?) "
+            + "GROUP BY " + COLUMN_TRIP_ID;
+
+    private final SQLiteDatabase database;
+
+    public UserStatsDao(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Get trip, schedule, expense and capture counts plus spend per currency for
+     * a user in a single query
+     */
+    public UserStats getByUserId(int userId) {
+        String id = String.valueOf(userId);
+        Cursor cursor = database.rawQuery(STATS_QUERY, new String[] { id, id, id, id });
+
+        UserStats stats = new UserStats();
+        if (cursor.moveToFirst()) {
+            int tripCountIndex = cursor.getColumnIndexOrThrow("trip_count");
+            int scheduleCountIndex = cursor.getColumnIndexOrThrow("schedule_count");
+            int captureCountIndex = cursor.getColumnIndexOrThrow("capture_count");
+            int currencyIndex = cursor.getColumnIndexOrThrow("currency");
+            int expenseCountIndex = cursor.getColumnIndexOrThrow("expense_count");
+            int totalIndex = cursor.getColumnIndexOrThrow("total");
+
+            stats.setTripCount(cursor.getInt(tripCountIndex));
+            stats.setScheduleCount(cursor.getInt(scheduleCountIndex));
+            stats.setCaptureCount(cursor.getInt(captureCountIndex));
+
+            int expenseCount = 0;
+            do {
+                expenseCount += cursor.getInt(expenseCountIndex);
+                String currency = cursor.isNull(currencyIndex) ? null : cursor.getString(currencyIndex);
+                if (currency != null && !currency.isEmpty()) {
+                    stats.getSpendByCurrency().put(currency, cursor.getDouble(totalIndex));
+                }
+            } while (cursor.moveToNext());
+            stats.setExpenseCount(expenseCount);
+        }
+        cursor.close();
+        return stats;
+    }
+
+    /**
+     * Get schedule, expense and capture counts of each of a user's trips in a
+     * single query, keyed by trip id. Trips with no children are left out.
+     */
+    public Map<Integer, TripCounts> getTripCountsByUserId(int userId) {
+        String id = String.valueOf(userId);
+        Cursor cursor = database.rawQuery(TRIP_COUNTS_QUERY, new String[] { id, id, id });
+
+        Map<Integer, TripCounts> countsByTrip = new HashMap<>();
+        int tripIdIndex = cursor.getColumnIndexOrThrow(COLUMN_TRIP_ID);
+        int scheduleCountIndex = cursor.getColumnIndexOrThrow("schedule_count");
+        int expenseCountIndex = cursor.getColumnIndexOrThrow("expense_count");
+        int captureCountIndex = cursor.getColumnIndexOrThrow("capture_count");
+        while (cursor.moveToNext()) {
+            TripCounts counts = new TripCounts();
+            counts.setScheduleCount(cursor.getInt(scheduleCountIndex));
+            counts.setExpenseCount(cursor.getInt(expenseCountIndex));
+            counts.setCaptureCount(cursor.getInt(captureCountIndex));
+            countsByTrip.put(cursor.getInt(tripIdIndex), counts);
+        }
+        cursor.close();
+        return countsByTrip;
+    }
+}
@@ -380,6 +380,8 @@ public class FirebaseBackupManager {
             List<Task<?>> writeTasks = new ArrayList<>();
             List<com.google.android.gms.tasks.Task<?>> readTasks = new ArrayList<>();
 
+            // Build every trip first so APPEND/OVERWRITE can insert them in one batch
+            List<Trip> restoredTrips = new ArrayList<>();
             for (com.google.firebase.firestore.DocumentSnapshot doc : snapshotList) {
                 Map<String, Object> tripData = doc.getData();
                 Trip trip = new Trip();
@@ -407,14 +409,19 @@ public class FirebaseBackupManager {
                 trip.setBudget(((Number) tripData.getOrDefault("budget", 0.0)).doubleValue());
                 trip.setBudgetCurrency((String) tripData.getOrDefault("budgetCurrency", "USD"));
                 trip.setParticipants((String) tripData.getOrDefault("participants", ""));
+                restoredTrips.add(trip);
+            }
 
-                // Check merge strategy: if MERGE, try to find existing trip by firebase id or
-                // by name/date
-                // MERGE: Skip duplicates, update existing matches
-                // APPEND: Always add as new (default behavior)
-                // OVERWRITE: Delete all local data first (handled above), then add
-                long newIdLong;
-                if (strategy == RestoreStrategy.MERGE) {
+            // Check merge strategy: if MERGE, try to find existing trip by firebase id or
+            // by name/date
+            // MERGE: Skip duplicates, update existing matches
+            // APPEND: Always add as new (default behavior)
+            // OVERWRITE: Delete all local data first (handled above), then add
+            int[] insertedTripIds = new int[restoredTrips.size()];
+            if (strategy == RestoreStrategy.MERGE) {
+                List<Trip> localTrips = dbHelper.getAllTrips(localUserId);
+                for (int i = 0; i < restoredTrips.size(); i++) {
+                    Trip trip = restoredTrips.get(i);
                     Trip existing = null;
                     // First, try to match by Firebase ID (most precise)
                     if (trip.getFirebaseId() > 0) {
@@ -423,7 +430,6 @@ public class FirebaseBackupManager {
                     // Fallback: match by tripName + startDate + endDate (precise duplicate
                     // detection)
                     if (existing == null) {
-                        List<Trip> localTrips = dbHelper.getAllTrips(localUserId);
                         for (Trip lt : localTrips) {
                             boolean nameMatches = (lt.getTripName() != null && trip.getTripName() != null
                                     && lt.getTripName().trim().equalsIgnoreCase(trip.getTripName().trim()));
@@ -444,25 +450,38 @@ public class FirebaseBackupManager {
                         trip.setFirebaseId(
                                 existing.getFirebaseId() == 0 ? trip.getFirebaseId() : existing.getFirebaseId());
                         dbHelper.updateTrip(trip);
-                        newIdLong = existing.getTripId();
+                        insertedTripIds[i] = existing.getTripId();
                         Log.d(TAG, "MERGE: Updated existing trip - " + trip.getTripName());
                     } else {
                         // No match found, add as new trip
                         long newId = dbHelper.addTrip(trip);
-                        newIdLong = newId;
+                        insertedTripIds[i] = (int) newId;
+                        trip.setTripId((int) newId);
+                        localTrips.add(trip);
                         Log.d(TAG, "MERGE: Added new trip - " + trip.getTripName());
                     }
-                } else {
-                    // APPEND or OVERWRITE: Simply add as new trip
-                    long newId = dbHelper.addTrip(trip);
-                    newIdLong = newId;
-                    Log.d(TAG, strategy + ": Added trip - " + trip.getTripName());
                 }
-                int insertedTripId = (int) newIdLong;
+            } else {
+                // APPEND or OVERWRITE: Simply add all trips as new in one transaction
+                long[] newIds = dbHelper.addTrips(restoredTrips);
+                for (int i = 0; i < newIds.length; i++) {
+                    insertedTripIds[i] = (int) newIds[i];
+                }
+                Log.d(TAG, strategy + ": Added " + newIds.length + " trips");
+            }
+
+            for (int i = 0; i < snapshotList.size(); i++) {
+                com.google.firebase.firestore.DocumentSnapshot doc = snapshotList.get(i);
+                Trip trip = restoredTrips.get(i);
+                int insertedTripId = insertedTripIds[i];
 
                 // Now child collections: schedules
                 com.google.android.gms.tasks.Task<com.google.firebase.firestore.QuerySnapshot> sTask = doc
                         .getReference().collection(SCHEDULE_COLLECTION).get().addOnSuccessListener(querySnapshot -> {
+                            List<ScheduleItem> existingSchedules = strategy == RestoreStrategy.MERGE
+                                    ? dbHelper.getSchedulesForTrip(insertedTripId)
+                                    : new ArrayList<>();
+                            List<ScheduleItem> newSchedules = new ArrayList<>();
                             for (com.google.firebase.firestore.DocumentSnapshot scheduleDoc : querySnapshot
                                     .getDocuments()) {
                                 Map<String, Object> scheduleData = scheduleDoc.getData();
@@ -483,7 +502,6 @@ public class FirebaseBackupManager {
                                 // For MERGE, try to avoid duplicates for schedules
                                 // Match by: title + day + startTime (precise duplicate detection)
                                 if (strategy == RestoreStrategy.MERGE) {
-                                    List<ScheduleItem> existingSchedules = dbHelper.getSchedulesForTrip(insertedTripId);
                                     boolean found = false;
                                     for (ScheduleItem es : existingSchedules) {
                                         boolean titleMatches = (es.getTitle() != null && item.getTitle() != null
@@ -504,13 +522,14 @@ public class FirebaseBackupManager {
                                         }
                                     }
                                     if (!found) {
-                                        dbHelper.addSchedule(item);
+                                        newSchedules.add(item);
                                         Log.d(TAG, "MERGE: Added new schedule - " + item.getTitle());
                                     }
                                 } else {
-                                    dbHelper.addSchedule(item);
+                                    newSchedules.add(item);
                                 }
                             }
+                            dbHelper.addSchedules(newSchedules);
                         }).addOnFailureListener(
                                 e -> Log.w(TAG, "Failed to restore schedules for trip: " + trip.getTripName(), e));
                 readTasks.add(sTask);
@@ -518,6 +537,10 @@ public class FirebaseBackupManager {
                 // expenses
                 com.google.android.gms.tasks.Task<com.google.firebase.firestore.QuerySnapshot> eTask = doc
                         .getReference().collection(EXPENSES_COLLECTION).get().addOnSuccessListener(querySnapshot -> {
+                            List<Expense> existingExpenses = strategy == RestoreStrategy.MERGE
+                                    ? dbHelper.getExpensesForTrip(insertedTripId)
+                                    : new ArrayList<>();
+                            List<Expense> newExpenses = new ArrayList<>();
                             for (com.google.firebase.firestore.DocumentSnapshot expenseDoc : querySnapshot
                                     .getDocuments()) {
                                 Map<String, Object> expenseData = expenseDoc.getData();
@@ -533,7 +556,6 @@ public class FirebaseBackupManager {
                                 // Match by: category + amount + spentAt + currency (precise duplicate
                                 // detection)
                                 if (strategy == RestoreStrategy.MERGE) {
-                                    List<Expense> existingExpenses = dbHelper.getExpensesForTrip(insertedTripId);
                                     boolean found = false;
                                     for (Expense ee : existingExpenses) {
                                         boolean categoryMatches = (ee.getCategory() != null
@@ -557,14 +579,15 @@ public class FirebaseBackupManager {
                                         }
                                     }
                                     if (!found) {
-                                        dbHelper.addExpense(expense);
+                                        newExpenses.add(expense);
                                         Log.d(TAG, "MERGE: Added new expense - " + expense.getCategory() + " $"
                                                 + expense.getAmount());
                                     }
                                 } else {
-                                    dbHelper.addExpense(expense);
+                                    newExpenses.add(expense);
                                 }
                             }
+                            dbHelper.addExpenses(newExpenses);
                         }).addOnFailureListener(
                                 e -> Log.w(TAG, "Failed to restore expenses for trip: " + trip.getTripName(), e));
                 readTasks.add(eTask);
@@ -572,6 +595,10 @@ public class FirebaseBackupManager {
                 // captures
                 com.google.android.gms.tasks.Task<com.google.firebase.firestore.QuerySnapshot> cTask = doc
                         .getReference().collection(CAPTURES_COLLECTION).get().addOnSuccessListener(querySnapshot -> {
+                            List<Capture> existingCaptures = strategy == RestoreStrategy.MERGE
+                                    ? dbHelper.getCapturesForTrip(insertedTripId)
+                                    : new ArrayList<>();
+                            List<Capture> newCaptures = new ArrayList<>();
                             for (com.google.firebase.firestore.DocumentSnapshot captureDoc : querySnapshot
                                     .getDocuments()) {
                                 Map<String, Object> captureData = captureDoc.getData();
@@ -589,7 +616,6 @@ public class FirebaseBackupManager {
                                 // Note: Images are not backed up to cloud yet, so mediaPath may reference local
                                 // files
                                 if (strategy == RestoreStrategy.MERGE) {
-                                    List<Capture> existingCaptures = dbHelper.getCapturesForTrip(insertedTripId);
                                     boolean found = false;
                                     for (Capture ec : existingCaptures) {
                                         boolean mediaPathMatches = (ec.getMediaPath() != null
@@ -607,19 +633,19 @@ public class FirebaseBackupManager {
                                         }
                                     }
                                     if (!found) {
-                                        dbHelper.addCapture(capture);
+                                        newCaptures.add(capture);
                                         Log.d(TAG, "MERGE: Added new capture - " + capture.getMediaPath());
                                     }
                                 } else {
-                                    dbHelper.addCapture(capture);
+                                    newCaptures.add(capture);
                                 }
                             }
+                            dbHelper.addCaptures(newCaptures);
                         }).addOnFailureListener(
                                 e -> Log.w(TAG, "Failed to restore captures for trip: " + trip.getTripName(), e));
                 readTasks.add(cTask);
 
             }
-
             // Wait for all child reads to complete
             com.google.android.gms.tasks.Tasks.whenAllComplete(readTasks).addOnSuccessListener(aVoid -> {
                 callback.onSuccess();
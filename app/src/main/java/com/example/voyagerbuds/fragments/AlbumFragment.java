@@ -22,23 +22,26 @@ import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.adapters.AlbumSectionAdapter;
 import com.example.voyagerbuds.adapters.TripSelectionAdapter;
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.MediaPagingSource;
+import com.example.voyagerbuds.database.TripRepository;
 import com.example.voyagerbuds.models.AlbumDay;
 import com.example.voyagerbuds.models.AlbumSection;
 import com.example.voyagerbuds.models.Capture;
+import com.example.voyagerbuds.models.Media;
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.TaskScope;
 
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TimeZone;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * AlbumFragment - Displays captures organized by trip, day, and time
@@ -54,6 +57,8 @@ public class AlbumFragment extends Fragment {
     private ImageButton btnSelectTrip;
 
     private DatabaseHelper databaseHelper;
+
+    private TripRepository tripRepository;
     private AlbumSectionAdapter adapter;
     private List<AlbumSection> albumSections;
     private List<Trip> allTrips;
@@ -61,11 +66,16 @@ public class AlbumFragment extends Fragment {
 
     private int currentUserId;
 
-    // Background thread executor
-    private ExecutorService executorService;
+    // Background work, cancelled when the view is destroyed
+    private TaskScope viewTasks;
     private Handler mainHandler;
     private boolean isLoading = false;
 
+    // The selected trip's media is streamed page by page in taken_at order
+    private MediaPagingSource mediaPager;
+    private final List<Capture> loadedCaptures = new ArrayList<>();
+    private boolean isLoadingPage = false;
+
     public AlbumFragment() {
         // Required empty public constructor
     }
@@ -77,15 +87,15 @@ public class AlbumFragment extends Fragment {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
+        tripRepository = TripRepository.getInstance(getContext());
         albumSections = new ArrayList<>();
 
         // Get actual logged-in user ID
         currentUserId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(getContext());
         android.util.Log.d("AlbumFragment", "Current user ID: " + currentUserId);
 
-        // Initialize executor and handler
-        executorService = Executors.newSingleThreadExecutor();
+        // Initialize handler
         mainHandler = new Handler(Looper.getMainLooper());
     }
 
@@ -94,6 +104,7 @@ public class AlbumFragment extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_album, container, false);
+        viewTasks = AppExecutors.scope(getViewLifecycleOwner());
 
         // Initialize views
         recyclerViewAlbum = view.findViewById(R.id.recycler_view_album);
@@ -122,6 +133,20 @@ public class AlbumFragment extends Fragment {
         recyclerViewAlbum.setItemViewCacheSize(20);
         recyclerViewAlbum.setDrawingCacheEnabled(true);
         recyclerViewAlbum.setDrawingCacheQuality(View.DRAWING_CACHE_QUALITY_HIGH);
+        recyclerViewAlbum.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || isLoadingPage || mediaPager == null || !mediaPager.hasMore()) {
+                    return;
+                }
+                // The trip is one section, so load ahead by distance rather than position
+                int remaining = rv.computeVerticalScrollRange() - rv.computeVerticalScrollOffset()
+                        - rv.computeVerticalScrollExtent();
+                if (remaining < rv.getHeight()) {
+                    loadNextPage(mediaPager, selectedTrip);
+                }
+            }
+        });
 
         // Load data asynchronously
         loadAlbumData();
@@ -130,12 +155,12 @@ public class AlbumFragment extends Fragment {
     }
 
     @Override
-    public void onDestroy() {
-        super.onDestroy();
-        // Shutdown executor to prevent memory leaks
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Loads still running were cancelled with the view
+        isLoading = false;
+        isLoadingPage = false;
+        mediaPager = null;
     }
 
     @Override
@@ -156,6 +181,9 @@ public class AlbumFragment extends Fragment {
      * Load all trips and select current trip by default
      */
     private void loadAlbumData() {
+        if (viewTasks == null || viewTasks.isCancelled()) {
+            return;
+        }
         if (isLoading) {
             android.util.Log.d("AlbumFragment", "Already loading, skipping...");
             return;
@@ -178,17 +206,17 @@ public class AlbumFragment extends Fragment {
         });
 
         // Load trips in background thread
-        executorService.execute(() -> {
+        viewTasks.execute(AppExecutors.Pool.DB, () -> {
             try {
                 // Get all trips
-                allTrips = databaseHelper.getAllTrips(currentUserId);
+                allTrips = tripRepository.getTrips(currentUserId);
                 android.util.Log.d("AlbumFragment", "Found " + allTrips.size() + " trips");
 
                 // Find current trip (trip that includes today's date)
                 Trip currentTrip = findCurrentTrip(allTrips);
 
                 // Update UI on main thread
-                mainHandler.post(() -> {
+                viewTasks.post(() -> {
                     isLoading = false;
                     if (loadingIndicator != null) {
                         loadingIndicator.setVisibility(View.GONE);
@@ -204,7 +232,7 @@ public class AlbumFragment extends Fragment {
                 });
             } catch (Exception e) {
                 android.util.Log.e("AlbumFragment", "Error loading trips", e);
-                mainHandler.post(() -> {
+                viewTasks.post(() -> {
                     isLoading = false;
                     if (loadingIndicator != null) {
                         loadingIndicator.setVisibility(View.GONE);
@@ -220,40 +248,12 @@ public class AlbumFragment extends Fragment {
      * date)
      */
     private Trip findCurrentTrip(List<Trip> trips) {
-        long now = System.currentTimeMillis();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        sdf.setTimeZone(TimeZone.getDefault());
-
-        // Get today at midnight for comparison
-        Calendar today = Calendar.getInstance();
-        today.set(Calendar.HOUR_OF_DAY, 0);
-        today.set(Calendar.MINUTE, 0);
-        today.set(Calendar.SECOND, 0);
-        today.set(Calendar.MILLISECOND, 0);
-        long todayMillis = today.getTimeInMillis();
+        long today = com.example.voyagerbuds.utils.DateUtils.todayEpochDay();
 
         for (Trip trip : trips) {
-            try {
-                Date startDate = sdf.parse(trip.getStartDate());
-                Date endDate = sdf.parse(trip.getEndDate());
-
-                if (startDate != null && endDate != null) {
-                    // Set end date to end of day
-                    Calendar endCal = Calendar.getInstance();
-                    endCal.setTime(endDate);
-                    endCal.set(Calendar.HOUR_OF_DAY, 23);
-                    endCal.set(Calendar.MINUTE, 59);
-                    endCal.set(Calendar.SECOND, 59);
-                    endCal.set(Calendar.MILLISECOND, 999);
-
-                    // Check if today is between start and end date (inclusive)
-                    if (todayMillis >= startDate.getTime() && todayMillis <= endCal.getTimeInMillis()) {
-                        android.util.Log.d("AlbumFragment", "Found current trip: " + trip.getTripName());
-                        return trip;
-                    }
-                }
-            } catch (ParseException e) {
-                e.printStackTrace();
+            if (trip.coversEpochDay(today)) {
+                android.util.Log.d("AlbumFragment", "Found current trip: " + trip.getTripName());
+                return trip;
             }
         }
 
@@ -273,27 +273,47 @@ public class AlbumFragment extends Fragment {
     }
 
     /**
-     * Load captures for a specific trip
+     * Load the first page of captures for a specific trip; later pages are
+     * loaded as the user scrolls
      */
     private void loadCapturesForTrip(Trip trip) {
-        // Show loading
-        mainHandler.post(() -> {
-            if (loadingIndicator != null) {
-                loadingIndicator.setVisibility(View.VISIBLE);
-            }
-        });
+        mediaPager = new MediaPagingSource(databaseHelper, trip.getTripId());
+        loadedCaptures.clear();
+        isLoadingPage = false;
+        loadNextPage(mediaPager, trip);
+    }
+
+    /**
+     * Load the next page of a trip's captures in the background and append it
+     * to the album. Pages of a trip that is no longer selected are dropped.
+     */
+    private void loadNextPage(MediaPagingSource pager, Trip trip) {
+        isLoadingPage = true;
+        boolean firstPage = loadedCaptures.isEmpty();
+        if (firstPage && loadingIndicator != null) {
+            loadingIndicator.setVisibility(View.VISIBLE);
+        }
 
-        executorService.execute(() -> {
+        viewTasks.execute(AppExecutors.Pool.DB, () -> {
             try {
-                List<AlbumSection> sections = loadTripDataInBackground(trip);
+                List<Capture> page = toCaptures(trip, pager.loadNextPage());
 
-                mainHandler.post(() -> {
+                viewTasks.post(() -> {
+                    if (pager != mediaPager) {
+                        return;
+                    }
+                    isLoadingPage = false;
                     if (loadingIndicator != null) {
                         loadingIndicator.setVisibility(View.GONE);
                     }
 
+                    loadedCaptures.addAll(page);
                     albumSections.clear();
-                    albumSections.addAll(sections);
+                    if (!loadedCaptures.isEmpty()) {
+                        // Regroup what is loaded, since a page can continue the last day
+                        albumSections.add(new AlbumSection(trip,
+                                organizeCapturesByDay(trip, new ArrayList<>(loadedCaptures))));
+                    }
 
                     if (albumSections.isEmpty()) {
                         showEmptyState();
@@ -304,11 +324,17 @@ public class AlbumFragment extends Fragment {
                 });
             } catch (Exception e) {
                 android.util.Log.e("AlbumFragment", "Error loading trip data", e);
-                mainHandler.post(() -> {
+                viewTasks.post(() -> {
+                    if (pager != mediaPager) {
+                        return;
+                    }
+                    isLoadingPage = false;
                     if (loadingIndicator != null) {
                         loadingIndicator.setVisibility(View.GONE);
                     }
-                    showEmptyState();
+                    if (loadedCaptures.isEmpty()) {
+                        showEmptyState();
+                    }
                 });
             }
         });
@@ -351,83 +377,29 @@ public class AlbumFragment extends Fragment {
     }
 
     /**
-     * Background thread method to load and organize captures for a specific trip
+     * Convert a page of a trip's media (captures plus schedule and expense
+     * images) to captures for the album
      */
-    private List<AlbumSection> loadTripDataInBackground(Trip trip) {
-        List<AlbumSection> sections = new ArrayList<>();
-        List<Capture> captures = databaseHelper.getCapturesForTripOrdered(trip.getTripId());
-
-        // Add images from Schedules
-        List<com.example.voyagerbuds.models.ScheduleItem> schedules = databaseHelper
-                .getSchedulesForTrip(trip.getTripId());
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        for (com.example.voyagerbuds.models.ScheduleItem schedule : schedules) {
-            if (schedule.getImagePaths() != null && !schedule.getImagePaths().isEmpty()) {
-                try {
-                    org.json.JSONArray jsonArray = new org.json.JSONArray(schedule.getImagePaths());
-                    long scheduleTime = 0;
-                    try {
-                        Date date = sdf.parse(schedule.getDay());
-                        if (date != null)
-                            scheduleTime = date.getTime();
-                    } catch (ParseException e) {
-                        e.printStackTrace();
-                    }
-
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        String path = jsonArray.getString(i);
-                        Capture c = new Capture();
-                        c.setCaptureId(-1); // Placeholder ID
-                        c.setTripId(trip.getTripId());
-                        c.setUserId(currentUserId);
-                        c.setMediaPath(path);
-                        c.setMediaType("photo");
-                        c.setDescription("From Schedule: " + schedule.getTitle());
-                        c.setCapturedAt(scheduleTime);
-                        captures.add(c);
-                    }
-                } catch (org.json.JSONException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-
-        // Add images from Expenses
-        List<com.example.voyagerbuds.models.Expense> expenses = databaseHelper.getExpensesForTrip(trip.getTripId());
-        for (com.example.voyagerbuds.models.Expense expense : expenses) {
-            if (expense.getImagePaths() != null && !expense.getImagePaths().isEmpty()) {
-                try {
-                    org.json.JSONArray jsonArray = new org.json.JSONArray(expense.getImagePaths());
-                    long expenseTime = expense.getSpentAt() * 1000L;
-
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        String path = jsonArray.getString(i);
-                        Capture c = new Capture();
-                        c.setCaptureId(-1); // Placeholder ID
-                        c.setTripId(trip.getTripId());
-                        c.setUserId(currentUserId);
-                        c.setMediaPath(path);
-                        c.setMediaType("photo");
-                        c.setDescription("From Expense: " + expense.getCategory());
-                        c.setCapturedAt(expenseTime);
-                        captures.add(c);
-                    }
-                } catch (org.json.JSONException e) {
-                    e.printStackTrace();
-                }
+    private List<Capture> toCaptures(Trip trip, List<Media> mediaList) {
+        List<Capture> captures = new ArrayList<>(mediaList.size());
+        for (Media media : mediaList) {
+            Capture c = new Capture();
+            c.setTripId(trip.getTripId());
+            c.setUserId(currentUserId);
+            c.setMediaPath(media.getPath());
+            c.setMediaType(media.getMediaType());
+            c.setCapturedAt(media.getTakenAt());
+            if (media.getOwnerType() == Media.OWNER_CAPTURE) {
+                c.setCaptureId(media.getOwnerId());
+                c.setDescription(media.getCaption());
+            } else {
+                c.setCaptureId(-1); // Placeholder ID
+                c.setDescription((media.getOwnerType() == Media.OWNER_SCHEDULE ? "From Schedule: " : "From Expense: ")
+                        + media.getCaption());
             }
+            captures.add(c);
         }
-
-        android.util.Log.d("AlbumFragment",
-                "Trip '" + trip.getTripName() + "' has " + captures.size() + " items");
-
-        if (!captures.isEmpty()) {
-            List<AlbumDay> days = organizeCapturesByDay(trip, captures);
-            AlbumSection section = new AlbumSection(trip, days);
-            sections.add(section);
-        }
-
-        return sections;
+        return captures;
     }
 
     /**
@@ -436,78 +408,58 @@ public class AlbumFragment extends Fragment {
     private List<AlbumDay> organizeCapturesByDay(Trip trip, List<Capture> captures) {
         List<AlbumDay> days = new ArrayList<>();
 
-        try {
-            // Parse trip dates
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date tripStartDate = dateFormat.parse(trip.getStartDate());
-
-            if (tripStartDate == null) {
-                // Fallback: group all captures in one day
-                AlbumDay singleDay = new AlbumDay("All Captures", System.currentTimeMillis(), captures);
-                days.add(singleDay);
-                return days;
-            }
-
-            // Get user's timezone
-            TimeZone userTimeZone = TimeZone.getDefault();
-            Calendar tripStartCal = Calendar.getInstance(userTimeZone);
-            tripStartCal.setTime(tripStartDate);
-            tripStartCal.set(Calendar.HOUR_OF_DAY, 0);
-            tripStartCal.set(Calendar.MINUTE, 0);
-            tripStartCal.set(Calendar.SECOND, 0);
-            tripStartCal.set(Calendar.MILLISECOND, 0);
+        long tripStartDay = trip.getStartEpochDay();
+        if (tripStartDay == com.example.voyagerbuds.utils.DateUtils.NO_EPOCH_DAY) {
+            // Fallback: group all captures in one day
+            AlbumDay singleDay = new AlbumDay("All Captures", System.currentTimeMillis(), captures);
+            days.add(singleDay);
+            return days;
+        }
 
-            // Group captures by day
-            Map<Integer, List<Capture>> capturesByDay = new HashMap<>();
+        // Get user's timezone
+        ZoneId userZone = ZoneId.systemDefault();
 
-            for (Capture capture : captures) {
-                long capturedTimestamp = capture.getCapturedAt();
+        // Group captures by day
+        Map<Integer, List<Capture>> capturesByDay = new HashMap<>();
 
-                // Convert captured timestamp to user's timezone
-                Calendar captureCal = Calendar.getInstance(userTimeZone);
-                captureCal.setTimeInMillis(capturedTimestamp);
+        for (Capture capture : captures) {
+            // Convert captured timestamp to a calendar day in the user's timezone
+            long captureDay = Instant.ofEpochMilli(capture.getCapturedAt()).atZone(userZone).toLocalDate()
+                    .toEpochDay();
 
-                // Calculate day number relative to trip start
-                long diffInMillis = captureCal.getTimeInMillis() - tripStartCal.getTimeInMillis();
-                int dayNumber = (int) (diffInMillis / (1000 * 60 * 60 * 24)) + 1;
+            // Calculate day number relative to trip start
+            int dayNumber = (int) (captureDay - tripStartDay) + 1;
 
-                // Ensure day number is at least 1
-                if (dayNumber < 1)
-                    dayNumber = 1;
+            // Ensure day number is at least 1
+            if (dayNumber < 1)
+                dayNumber = 1;
 
-                if (!capturesByDay.containsKey(dayNumber)) {
-                    capturesByDay.put(dayNumber, new ArrayList<>());
-                }
-                capturesByDay.get(dayNumber).add(capture);
+            if (!capturesByDay.containsKey(dayNumber)) {
+                capturesByDay.put(dayNumber, new ArrayList<>());
             }
+            capturesByDay.get(dayNumber).add(capture);
+        }
 
-            // Create AlbumDay objects
-            List<Integer> dayNumbers = new ArrayList<>(capturesByDay.keySet());
-            java.util.Collections.sort(dayNumbers);
-
-            SimpleDateFormat displayFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
+        // Create AlbumDay objects
+        List<Integer> dayNumbers = new ArrayList<>(capturesByDay.keySet());
+        java.util.Collections.sort(dayNumbers);
 
-            for (int dayNumber : dayNumbers) {
-                List<Capture> dayCaptures = capturesByDay.get(dayNumber);
+        SimpleDateFormat displayFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
 
-                // Calculate the actual date for this day
-                Calendar dayCal = (Calendar) tripStartCal.clone();
-                dayCal.add(Calendar.DAY_OF_MONTH, dayNumber - 1);
+        for (int dayNumber : dayNumbers) {
+            List<Capture> dayCaptures = capturesByDay.get(dayNumber);
 
-                String dateLabel = "Day " + dayNumber + " - " + displayFormat.format(dayCal.getTime());
+            // Calculate the actual date for this day
+            long dayMillis = LocalDate.ofEpochDay(tripStartDay + dayNumber - 1).atStartOfDay(userZone).toInstant()
+                    .toEpochMilli();
 
-                // Sort captures within the day by time
-                dayCaptures.sort((c1, c2) -> Long.compare(c1.getCapturedAt(), c2.getCapturedAt()));
+            String dateLabel = "Day " + dayNumber + " - " + displayFormat.format(new Date(dayMillis));
 
-                AlbumDay albumDay = new AlbumDay(dateLabel, dayCal.getTimeInMillis(), dayCaptures);
-                days.add(albumDay);
-            }
+            // Sort captures within the day by time
+            dayCaptures.sort((c1, c2) -> Long.compare(c1.getCapturedAt(), c2.getCapturedAt()));
 
-        } catch (ParseException e) {
-            e.printStackTrace();
-            // Fallback: group all captures in one day
-            AlbumDay singleDay = new AlbumDay("All Captures", System.currentTimeMillis(), captures);
-            days.add(singleDay);
+            AlbumDay albumDay = new AlbumDay(dateLabel, dayMillis, dayCaptures);
+            days.add(albumDay);
         }
 
         return days;
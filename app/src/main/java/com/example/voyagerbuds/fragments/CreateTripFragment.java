@@ -23,12 +23,11 @@ import com.example.voyagerbuds.fragments.createtrip.TripDatesFragment;
 import com.example.voyagerbuds.fragments.createtrip.TripDestinationFragment;
 import com.example.voyagerbuds.fragments.createtrip.TripNameFragment;
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.utils.AppExecutors;
 import com.example.voyagerbuds.utils.ImageRandomizer;
 
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class CreateTripFragment extends Fragment {
 
@@ -67,7 +66,7 @@ public class CreateTripFragment extends Fragment {
             @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_create_trip, container, false);
 
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
         progressBar = view.findViewById(R.id.progress_bar);
         tvProgress = view.findViewById(R.id.tv_progress);
 
@@ -156,10 +155,11 @@ public class CreateTripFragment extends Fragment {
         if (progressBar != null)
             progressBar.setIndeterminate(true);
 
-        ExecutorService executor = Executors.newSingleThreadExecutor();
         Handler handler = new Handler(Looper.getMainLooper());
 
-        executor.execute(() -> {
+        // Geocode on the shared network pool; not tied to the view so the save
+        // still completes if the user leaves
+        AppExecutors.network().execute(() -> {
             double lat = 0.0;
             double lon = 0.0;
 
@@ -19,7 +19,9 @@ import androidx.appcompat.widget.SwitchCompat;
 
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.database.DatabaseHelper;
-import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.database.InvalidationTracker;
+import com.example.voyagerbuds.database.ObservableQuery;
+import com.example.voyagerbuds.models.DashboardSummary;
 import com.example.voyagerbuds.utils.UserSessionManager;
 import com.example.voyagerbuds.utils.ImageRandomizer;
 import com.example.voyagerbuds.utils.CurrencyHelper;
@@ -27,12 +29,10 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * DashboardFragment displays travel analytics and statistics.
@@ -41,8 +41,12 @@ import java.util.Set;
 public class DashboardFragment extends Fragment {
 
     private DatabaseHelper databaseHelper;
+
     private int currentUserId = -1;
 
+    // Trip and expense statistics, re-read whenever a trip or expense changes
+    private ObservableQuery<DashboardSummary> summaryQuery;
+
     // UI Components - Trip Statistics
     private TextView tvTotalTrips;
     private TextView tvPlacesVisited;
@@ -67,7 +71,7 @@ public class DashboardFragment extends Fragment {
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
 
         // Get current user ID from session manager
         currentUserId = UserSessionManager.getCurrentUserId(requireContext());
@@ -109,6 +113,13 @@ public class DashboardFragment extends Fragment {
             updateEmergencyDescription(isChecked);
         });
 
+        // Load trip and expense statistics from the summary table, which triggers keep
+        // up to date on every trip and expense write
+        summaryQuery = new ObservableQuery<>(databaseHelper, InvalidationTracker.ANY_TRIP,
+                () -> databaseHelper.getDashboardSummary(currentUserId), this::showSummary,
+                InvalidationTracker.TRIPS, InvalidationTracker.EXPENSES);
+        summaryQuery.start();
+
         // Load dashboard data
         loadDashboardData();
     }
@@ -122,50 +133,38 @@ public class DashboardFragment extends Fragment {
         loadDashboardData();
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (summaryQuery != null) {
+            summaryQuery.stop();
+        }
+    }
+
     // ======================== Data Loading Methods ========================
 
     private void loadDashboardData() {
-        loadTripStatistics();
-        loadExpenseStatistics();
         loadLastActivityTime();
         loadEmergencyAlertState();
     }
 
+    private void showSummary(DashboardSummary summary) {
+        loadTripStatistics(summary);
+        loadExpenseStatistics(summary);
+    }
+
     /**
-     * Load and display trip statistics (Total Trips, Places Visited, Most Visited)
+     * Display trip statistics (Total Trips, Places Visited, Most Visited)
      */
-    private void loadTripStatistics() {
-        if (currentUserId == -1) {
-            tvTotalTrips.setText("0");
-            tvPlacesVisited.setText("0");
-            layoutMostVisitedContainer.removeAllViews();
-            return;
-        }
-
-        // Get all trips for current user
-        List<Trip> trips = databaseHelper.getAllTrips(currentUserId);
-
-        // Total trips count
-        int totalTrips = trips.size();
-        tvTotalTrips.setText(String.valueOf(totalTrips));
-
-        // Count unique destinations (places visited) and find most visited
-        Set<String> uniqueDestinations = new HashSet<>();
-        Map<String, Integer> destinationCounts = new HashMap<>();
-
-        for (Trip trip : trips) {
-            String dest = trip.getDestination();
-            if (dest != null && !dest.isEmpty()) {
-                uniqueDestinations.add(dest);
-                destinationCounts.put(dest, destinationCounts.getOrDefault(dest, 0) + 1);
-            }
-        }
+    private void loadTripStatistics(DashboardSummary summary) {
+        tvTotalTrips.setText(String.valueOf(summary.getTripCount()));
 
-        int placesVisited = uniqueDestinations.size();
-        tvPlacesVisited.setText(String.valueOf(placesVisited));
+        // Places visited are the distinct destinations
+        Map<String, Integer> destinationCounts = summary.getVisitsByDestination();
+        tvPlacesVisited.setText(String.valueOf(destinationCounts.size()));
 
         // Find top 3 most visited places
-        List<Map.Entry<String, Integer>> sortedDestinations = new java.util.ArrayList<>(destinationCounts.entrySet());
+        List<Map.Entry<String, Integer>> sortedDestinations = new ArrayList<>(destinationCounts.entrySet());
         Collections.sort(sortedDestinations, (e1, e2) -> e2.getValue().compareTo(e1.getValue()));
 
         layoutMostVisitedContainer.removeAllViews();
@@ -269,54 +268,13 @@ public class DashboardFragment extends Fragment {
     }
 
     /**
-     * Load and display expense statistics
+     * Display expense statistics
      */
-    private void loadExpenseStatistics() {
-        if (currentUserId == -1) {
-            tvTotalExpenses.setText(CurrencyHelper.formatAmountByLanguage(requireContext(), 0, "USD") + " / " +
-                    CurrencyHelper.formatAmountByLanguage(requireContext(), 0, "USD"));
-            return;
-        }
-
-        List<Trip> trips = databaseHelper.getAllTrips(currentUserId);
-
-        // Always aggregate in USD for consistent calculations
-        double grandTotalSpentUSD = 0;
-        double grandTotalBudgetUSD = 0;
-
-        for (Trip trip : trips) {
-            String tripCurrency = trip.getBudgetCurrency();
-            if (tripCurrency == null || tripCurrency.isEmpty())
-                tripCurrency = "USD";
-
-            // Convert budget to USD
-            double budgetInUSD = CurrencyHelper.convertToUSD(requireContext(), trip.getBudget(), tripCurrency);
-            grandTotalBudgetUSD += budgetInUSD;
-
-            android.util.Log.d("DashboardFragment", "Trip: " + trip.getDestination() +
-                    ", Budget: " + trip.getBudget() + " " + tripCurrency +
-                    " -> " + budgetInUSD + " USD");
-
-            List<com.example.voyagerbuds.models.Expense> expenses = databaseHelper.getExpensesForTrip(trip.getTripId());
-
-            for (com.example.voyagerbuds.models.Expense expense : expenses) {
-                String currency = expense.getCurrency();
-                if (currency == null || currency.isEmpty()) {
-                    currency = tripCurrency;
-                }
-
-                // Convert expense to USD
-                double expenseInUSD = CurrencyHelper.convertToUSD(requireContext(), expense.getAmount(), currency);
-                grandTotalSpentUSD += expenseInUSD;
-
-                android.util.Log.d("DashboardFragment", "Expense: " + expense.getCategory() +
-                        ", Amount: " + expense.getAmount() + " " + currency +
-                        " -> " + expenseInUSD + " USD");
-            }
-        }
-
-        android.util.Log.d("DashboardFragment", "Total Spent USD: " + grandTotalSpentUSD +
-                ", Total Budget USD: " + grandTotalBudgetUSD);
+    private void loadExpenseStatistics(DashboardSummary summary) {
+        // Totals are kept per currency and converted to USD here, since rates
+        // change after the amounts are written
+        double grandTotalSpentUSD = sumInUSD(summary.getSpentByCurrency());
+        double grandTotalBudgetUSD = sumInUSD(summary.getBudgetByCurrency());
 
         // Display in USD, then formatAmountByLanguage will convert to user's preferred
         // currency based on language
@@ -325,6 +283,25 @@ public class DashboardFragment extends Fragment {
                         CurrencyHelper.formatAmountByLanguage(requireContext(), grandTotalBudgetUSD, "USD"));
     }
 
+    /**
+     * Convert per-currency totals to USD in one batch and add them up
+     */
+    private double sumInUSD(Map<String, Double> totalsByCurrency) {
+        double[] values = new double[totalsByCurrency.size()];
+        String[] currencies = new String[totalsByCurrency.size()];
+        int i = 0;
+        for (Map.Entry<String, Double> entry : totalsByCurrency.entrySet()) {
+            values[i] = entry.getValue();
+            currencies[i] = entry.getKey();
+            i++;
+        }
+        double total = 0;
+        for (double value : CurrencyHelper.convert(requireContext(), values, currencies, "USD")) {
+            total += value;
+        }
+        return total;
+    }
+
     /**
      * Update a progress bar and cost text with percentage calculation
      * (Unused but kept for reference if needed later)
@@ -410,11 +387,7 @@ public class DashboardFragment extends Fragment {
      * Update and save current activity timestamp to SharedPreferences
      */
     private void updateLastActivityTime() {
-        android.content.SharedPreferences prefs = requireContext().getSharedPreferences("app_prefs",
-                android.content.Context.MODE_PRIVATE);
-        android.content.SharedPreferences.Editor editor = prefs.edit();
-        editor.putLong("last_activity_time", System.currentTimeMillis());
-        editor.apply();
+        com.example.voyagerbuds.services.EmergencyDeadlineScheduler.recordActivity(requireContext());
 
         // Refresh the display
         loadLastActivityTime();
@@ -438,6 +411,7 @@ public class DashboardFragment extends Fragment {
         android.content.SharedPreferences.Editor editor = prefs.edit();
         editor.putBoolean("emergency_alert_enabled", isEnabled);
         editor.apply();
+        com.example.voyagerbuds.services.EmergencyDeadlineScheduler.schedule(requireContext(), true);
     }
 
     /**
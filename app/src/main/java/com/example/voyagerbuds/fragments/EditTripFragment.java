@@ -29,6 +29,7 @@ import com.bumptech.glide.request.RequestOptions;
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.database.DatabaseHelper;
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.utils.AppExecutors;
 import com.example.voyagerbuds.utils.UserSessionManager;
 import com.example.voyagerbuds.utils.ImageRandomizer;
 import com.google.android.material.textfield.TextInputEditText;
@@ -37,8 +38,6 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class EditTripFragment extends Fragment {
 
@@ -72,7 +71,7 @@ public class EditTripFragment extends Fragment {
         if (getArguments() != null) {
             tripId = getArguments().getLong(ARG_TRIP_ID);
         }
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
 
         // Initialize image picker
         pickImageLauncher = registerForActivityResult(new ActivityResultContracts.GetContent(), uri -> {
@@ -294,10 +293,11 @@ public class EditTripFragment extends Fragment {
         btnSave.setEnabled(false);
         btnSave.setText(R.string.saving);
 
-        ExecutorService executor = Executors.newSingleThreadExecutor();
         Handler handler = new Handler(Looper.getMainLooper());
 
-        executor.execute(() -> {
+        // Geocode on the shared network pool; not tied to the view so the save
+        // still completes if the user leaves
+        AppExecutors.network().execute(() -> {
             double lat = trip.getMapLatitude();
             double lon = trip.getMapLongitude();
 
@@ -58,7 +58,7 @@ public class FullImageFragment extends Fragment {
             captures = (List<Capture>) getArguments().getSerializable(ARG_CAPTURES);
             startPosition = getArguments().getInt(ARG_POSITION);
         }
-        databaseHelper = new DatabaseHelper(requireContext());
+        databaseHelper = DatabaseHelper.getInstance(requireContext());
     }
 
     @Nullable
@@ -45,6 +45,9 @@ import com.example.voyagerbuds.activities.HomeActivity;
 import com.example.voyagerbuds.adapters.TripAdapter;
 import com.example.voyagerbuds.adapters.TripCardAdapter;
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.InvalidationTracker;
+import com.example.voyagerbuds.database.ObservableQuery;
+import com.example.voyagerbuds.database.TripRepository;
 import com.example.voyagerbuds.models.Trip;
 
 import java.text.ParseException;
@@ -60,7 +63,9 @@ public class HomeFragment extends Fragment
     // private RecyclerView recyclerViewTrips; // Removed
     // private TripAdapter tripAdapter; // Removed
     private DatabaseHelper databaseHelper;
+    private TripRepository tripRepository;
     private List<Trip> tripList;
+    private ObservableQuery<List<Trip>> tripsQuery;
     // private List<Trip> filteredTripList; // Removed, using specific lists
     private View emptyStateView;
     private ImageView emptyLogo;
@@ -105,7 +110,8 @@ public class HomeFragment extends Fragment
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
+        tripRepository = TripRepository.getInstance(getContext());
         // location fetching removed to avoid background geocoding
     }
 
@@ -142,6 +148,20 @@ public class HomeFragment extends Fragment
             });
         }
 
+        // Initialize search icon
+        ImageView searchIcon = view.findViewById(R.id.search_icon);
+        if (searchIcon != null) {
+            searchIcon.setOnClickListener(v -> getParentFragmentManager().beginTransaction()
+                    .setCustomAnimations(
+                            R.anim.slide_in_right,
+                            R.anim.slide_out_left,
+                            R.anim.slide_in_left,
+                            R.anim.slide_out_right)
+                    .replace(R.id.content_container, new SearchFragment())
+                    .addToBackStack(null)
+                    .commit());
+        }
+
         // Initialize profile icon
         ImageView profileIcon = view.findViewById(R.id.profile_icon);
         if (profileIcon != null) {
@@ -177,8 +197,13 @@ public class HomeFragment extends Fragment
         pastTripAdapter = new TripCardAdapter(getContext(), pastTripList, this);
         recyclerViewPastTrips.setAdapter(pastTripAdapter);
 
-        // Load trips
-        loadTrips();
+        // Load trips, re-querying whenever a trip is added, edited or deleted, or an
+        // expense changes the hero card's total
+        int userId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
+        tripsQuery = new ObservableQuery<>(databaseHelper, InvalidationTracker.ANY_TRIP,
+                () -> userId == -1 ? new ArrayList<>() : tripRepository.getTrips(userId), this::showTrips,
+                InvalidationTracker.TRIPS, InvalidationTracker.EXPENSES);
+        tripsQuery.start();
 
         // Initialize connectivity manager and register network callback for updates
         if (connectivityManager == null) {
@@ -245,7 +270,9 @@ public class HomeFragment extends Fragment
                 @Override
                 public void onReceive(Context context, Intent intent) {
                     // Re-evaluate trips when system date/time changes
-                    loadTrips();
+                    if (tripsQuery != null) {
+                        tripsQuery.refresh();
+                    }
                 }
             };
         }
@@ -257,36 +284,29 @@ public class HomeFragment extends Fragment
             requireContext().registerReceiver(dateChangeReceiver, filter);
         } catch (Exception ignored) {
         }
-
-        loadTrips();
     }
 
-    private void loadTrips() {
-        // Get the current logged-in user's ID
-        int userId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
-        if (userId == -1) {
-            // No user logged in, show empty list
-            tripList = new ArrayList<>();
-            upcomingTripList.clear();
-            pastTripList.clear();
-            updateTripDisplay(null);
-            return;
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (tripsQuery != null) {
+            tripsQuery.stop();
         }
-        tripList = databaseHelper.getAllTrips(userId);
+    }
+
+    private void showTrips(List<Trip> trips) {
+        // Empty when no user is logged in
+        tripList = trips;
 
         // Sort by start_date ascending so earliest upcoming trip appears first
         Collections.sort(tripList, new Comparator<Trip>() {
             @Override
             public int compare(Trip o1, Trip o2) {
-                try {
-                    java.time.LocalDate d1 = DateUtils.parseDbDateToLocalDate(o1.getStartDate());
-                    java.time.LocalDate d2 = DateUtils.parseDbDateToLocalDate(o2.getStartDate());
-                    if (d1 == null || d2 == null)
-                        return 0;
-                    return d1.compareTo(d2);
-                } catch (Exception e) {
+                long d1 = o1.getStartEpochDay();
+                long d2 = o2.getStartEpochDay();
+                if (d1 == DateUtils.NO_EPOCH_DAY || d2 == DateUtils.NO_EPOCH_DAY)
                     return 0;
-                }
+                return Long.compare(d1, d2);
             }
         });
 
@@ -295,29 +315,25 @@ public class HomeFragment extends Fragment
         pastTripList.clear();
         Trip currentTrip = null;
 
-        java.time.LocalDate currentDate = DateUtils.todayLocalDate();
+        long today = DateUtils.todayEpochDay();
 
         for (Trip trip : tripList) {
-            try {
-                java.time.LocalDate startDate = DateUtils.parseDbDateToLocalDate(trip.getStartDate());
-                java.time.LocalDate endDate = DateUtils.parseDbDateToLocalDate(trip.getEndDate());
-
-                if (startDate != null && endDate != null) {
-                    if (!currentDate.isBefore(startDate) && !currentDate.isAfter(endDate)) {
-                        // Current Trip
-                        if (currentTrip == null) {
-                            currentTrip = trip;
-                        }
-                    } else if (currentDate.isBefore(startDate)) {
-                        // Upcoming Trip
-                        upcomingTripList.add(trip);
-                    } else {
-                        // Past Trip
-                        pastTripList.add(trip);
+            long startDay = trip.getStartEpochDay();
+            long endDay = trip.getEndEpochDay();
+
+            if (startDay != DateUtils.NO_EPOCH_DAY && endDay != DateUtils.NO_EPOCH_DAY) {
+                if (today >= startDay && today <= endDay) {
+                    // Current Trip
+                    if (currentTrip == null) {
+                        currentTrip = trip;
                     }
+                } else if (today < startDay) {
+                    // Upcoming Trip
+                    upcomingTripList.add(trip);
+                } else {
+                    // Past Trip
+                    pastTripList.add(trip);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
         }
 
@@ -325,15 +341,11 @@ public class HomeFragment extends Fragment
         Collections.sort(upcomingTripList, new Comparator<Trip>() {
             @Override
             public int compare(Trip o1, Trip o2) {
-                try {
-                    java.time.LocalDate d1 = DateUtils.parseDbDateToLocalDate(o1.getStartDate());
-                    java.time.LocalDate d2 = DateUtils.parseDbDateToLocalDate(o2.getStartDate());
-                    if (d1 == null || d2 == null)
-                        return 0;
-                    return d1.compareTo(d2);
-                } catch (Exception e) {
+                long d1 = o1.getStartEpochDay();
+                long d2 = o2.getStartEpochDay();
+                if (d1 == DateUtils.NO_EPOCH_DAY || d2 == DateUtils.NO_EPOCH_DAY)
                     return 0;
-                }
+                return Long.compare(d1, d2);
             }
         });
 
@@ -341,15 +353,11 @@ public class HomeFragment extends Fragment
         Collections.sort(pastTripList, new Comparator<Trip>() {
             @Override
             public int compare(Trip o1, Trip o2) {
-                try {
-                    java.time.LocalDate d1 = DateUtils.parseDbDateToLocalDate(o1.getStartDate());
-                    java.time.LocalDate d2 = DateUtils.parseDbDateToLocalDate(o2.getStartDate());
-                    if (d1 == null || d2 == null)
-                        return 0;
-                    return d2.compareTo(d1);
-                } catch (Exception e) {
+                long d1 = o1.getStartEpochDay();
+                long d2 = o2.getStartEpochDay();
+                if (d1 == DateUtils.NO_EPOCH_DAY || d2 == DateUtils.NO_EPOCH_DAY)
                     return 0;
-                }
+                return Long.compare(d2, d1);
             }
         });
 
@@ -402,23 +410,7 @@ public class HomeFragment extends Fragment
         int userId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
         if (userId == -1)
             return null;
-        List<Trip> allTrips = databaseHelper.getAllTrips(userId);
-        java.time.LocalDate currentDate = DateUtils.todayLocalDate();
-
-        for (Trip trip : allTrips) {
-            try {
-                java.time.LocalDate startDate = DateUtils.parseDbDateToLocalDate(trip.getStartDate());
-                java.time.LocalDate endDate = DateUtils.parseDbDateToLocalDate(trip.getEndDate());
-                if (startDate != null && endDate != null) {
-                    if (!currentDate.isBefore(startDate) && !currentDate.isAfter(endDate)) {
-                        return trip;
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-        return null;
+        return databaseHelper.getTripCoveringDay(userId, DateUtils.todayEpochDay());
     }
 
     private void updateTripDisplay(Trip currentTrip) {
@@ -578,7 +570,7 @@ public class HomeFragment extends Fragment
 
         // Set total expenses
         if (tvHeroTripExpenses != null) {
-            java.util.Map<String, Double> totalsByCurrency = databaseHelper
+            java.util.Map<String, Double> totalsByCurrency = tripRepository
                     .getTotalExpensesByCurrency(trip.getTripId());
 
             if (totalsByCurrency.isEmpty()) {
@@ -609,18 +601,7 @@ public class HomeFragment extends Fragment
     }
 
     private boolean isCurrentTrip(Trip trip) {
-        try {
-            java.time.LocalDate currentDate = DateUtils.todayLocalDate();
-            java.time.LocalDate startDate = DateUtils.parseDbDateToLocalDate(trip.getStartDate());
-            java.time.LocalDate endDate = DateUtils.parseDbDateToLocalDate(trip.getEndDate());
-
-            if (startDate != null && endDate != null) {
-                return !currentDate.isBefore(startDate) && !currentDate.isAfter(endDate);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return false;
+        return trip.coversEpochDay(DateUtils.todayEpochDay());
     }
 
     private String formatTripDates(String startDateStr, String endDateStr) {
@@ -61,7 +61,7 @@ public class JoinGroupFragment extends Fragment {
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
 
         // Get current user ID from session manager
         currentUserId = UserSessionManager.getCurrentUserId(requireContext());
@@ -40,7 +40,10 @@ import java.util.List;
 import java.util.Locale;
 
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.TripRepository;
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.TaskScope;
 import android.widget.LinearLayout;
 
 import org.osmdroid.events.MapEventsReceiver;
@@ -56,10 +59,14 @@ public class MapFragment extends Fragment {
     private FloatingActionButton fabMyLocation;
     private View loadingContainer;
     private DatabaseHelper databaseHelper;
+    private TripRepository tripRepository;
     private ImageView btnBackFromLocation;
     private TextView tvCurrentLocation;
     private boolean isFromSchedule = false;
 
+    // Reverse geocoding, cancelled when the view is destroyed
+    private TaskScope viewTasks;
+
     public MapFragment() {
         // Required empty public constructor
     }
@@ -77,7 +84,8 @@ public class MapFragment extends Fragment {
         initializeVietnamLocations();
 
         // Initialize database helper
-        databaseHelper = new DatabaseHelper(requireContext());
+        databaseHelper = DatabaseHelper.getInstance(requireContext());
+        tripRepository = TripRepository.getInstance(requireContext());
 
         // Initialize location client
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(requireActivity());
@@ -145,6 +153,7 @@ public class MapFragment extends Fragment {
             @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_map, container, false);
+        viewTasks = AppExecutors.scope(getViewLifecycleOwner());
 
         mapView = view.findViewById(R.id.map);
         fabMyLocation = view.findViewById(R.id.fab_my_location);
@@ -414,7 +423,7 @@ public class MapFragment extends Fragment {
         int userId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
         if (userId == -1)
             return;
-        List<Trip> trips = databaseHelper.getAllTrips(userId);
+        List<Trip> trips = tripRepository.getTrips(userId);
 
         for (Trip trip : trips) {
             if (trip.getMapLatitude() != 0.0 && trip.getMapLongitude() != 0.0) {
@@ -565,7 +574,7 @@ public class MapFragment extends Fragment {
         if (isFromSchedule || tvCurrentLocation == null)
             return;
 
-        new Thread(() -> {
+        viewTasks.execute(AppExecutors.Pool.NETWORK, () -> {
             Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
             try {
                 List<Address> addresses = geocoder.getFromLocation(lat, lng, 1);
@@ -591,7 +600,7 @@ public class MapFragment extends Fragment {
 
                     final String finalText = addressText;
                     try {
-                        requireActivity().runOnUiThread(() -> {
+                        viewTasks.post(() -> {
                             if (tvCurrentLocation != null)
                                 tvCurrentLocation.setText(finalText);
                         });
@@ -601,7 +610,7 @@ public class MapFragment extends Fragment {
                 } else {
                     final String finalText = getString(R.string.unknown_location);
                     try {
-                        requireActivity().runOnUiThread(() -> {
+                        viewTasks.post(() -> {
                             if (tvCurrentLocation != null)
                                 tvCurrentLocation.setText(finalText);
                         });
@@ -613,7 +622,7 @@ public class MapFragment extends Fragment {
                 e.printStackTrace();
                 final String finalText = getString(R.string.unknown_location);
                 try {
-                    requireActivity().runOnUiThread(() -> {
+                    viewTasks.post(() -> {
                         if (tvCurrentLocation != null)
                             tvCurrentLocation.setText(finalText);
                     });
@@ -621,6 +630,6 @@ public class MapFragment extends Fragment {
                     ex.printStackTrace();
                 }
             }
-        }).start();
+        });
     }
 }
\ No newline at end of file
@@ -183,7 +183,7 @@ public class ProfileFragment extends Fragment {
           }
 
           // Show a restore preview first (counts of local vs remote data)
-          DatabaseHelper dbHelper = new DatabaseHelper(requireContext());
+          DatabaseHelper dbHelper = DatabaseHelper.getInstance(requireContext());
           android.app.AlertDialog progress = new android.app.AlertDialog.Builder(requireContext())
               .setTitle(getString(R.string.fetching_backup_preview_title))
               .setMessage(getString(R.string.fetching_backup_preview_message))
@@ -203,10 +203,11 @@ public class ProfileFragment extends Fragment {
                   // Compute local counts
                   int localUserId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(
                       requireContext());
-                  int localTrips = dbHelper.getAllTrips(localUserId).size();
-                  int localSchedules = dbHelper.getTotalSchedulesForUser(localUserId);
-                  int localExpenses = dbHelper.getTotalExpensesForUser(localUserId);
-                  int localCaptures = dbHelper.getTotalCapturesForUser(localUserId);
+                  com.example.voyagerbuds.models.UserStats localStats = dbHelper.getUserStats(localUserId);
+                  int localTrips = localStats.getTripCount();
+                  int localSchedules = localStats.getScheduleCount();
+                  int localExpenses = localStats.getExpenseCount();
+                  int localCaptures = localStats.getCaptureCount();
 
                   // Inflate a custom preview dialog with a UX-friendly view
                   View dialogView = LayoutInflater.from(requireContext())
@@ -553,7 +554,7 @@ public class ProfileFragment extends Fragment {
             return;
           }
 
-          DatabaseHelper dbHelper = new DatabaseHelper(requireContext());
+          DatabaseHelper dbHelper = DatabaseHelper.getInstance(requireContext());
 
           // First, check if there's existing backup data on cloud
           android.app.AlertDialog checkProgress = new android.app.AlertDialog.Builder(requireContext())
@@ -573,41 +574,17 @@ public class ProfileFragment extends Fragment {
                     com.example.voyagerbuds.firebase.FirebaseBackupManager.BackupPreview preview) {
                   checkProgress.dismiss();
 
-                  // Get local data with trip details
-                  int localUserId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
-                  java.util.List<com.example.voyagerbuds.models.Trip> localTrips = dbHelper.getAllTrips(localUserId);
-
-                  // Build detailed local trip list
-                  StringBuilder localDetails = new StringBuilder();
-                  for (com.example.voyagerbuds.models.Trip trip : localTrips) {
-                    int schedules = dbHelper.getSchedulesForTrip(trip.getTripId()).size();
-                    int expenses = dbHelper.getExpensesForTrip(trip.getTripId()).size();
-                    int captures = dbHelper.getCapturesForTrip(trip.getTripId()).size();
-
-                    localDetails.append("• ").append(trip.getDestination()).append("\n  ");
-                    localDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_schedules, schedules, schedules)).append(", ");
-                    localDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_expenses, expenses, expenses)).append(", ");
-                    localDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_captures, captures, captures)).append("\n");
-                  }
+                  String localDetails = buildLocalTripDetails(dbHelper);
 
                   // Build detailed cloud trip list
                   StringBuilder cloudDetails = new StringBuilder();
                   for (com.example.voyagerbuds.firebase.FirebaseBackupManager.TripSummary ts : preview.trips) {
-                    cloudDetails.append("• ").append(ts.tripName).append("\n  ");
-                    cloudDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_schedules, ts.scheduleCount, ts.scheduleCount)).append(", ");
-                    cloudDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_expenses, ts.expenseCount, ts.expenseCount)).append(", ");
-                    cloudDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_captures, ts.captureCount, ts.captureCount)).append("\n");
+                    appendTripDetails(cloudDetails, ts.tripName, ts.scheduleCount, ts.expenseCount, ts.captureCount);
                   }
 
                   String message = getString(R.string.backup_cloud_check_message_detailed,
                       cloudDetails.toString().trim(),
-                      localDetails.toString().trim());
+                      localDetails);
 
                   new android.app.AlertDialog.Builder(requireContext())
                       .setTitle(getString(R.string.backup_cloud_check_title))
@@ -624,29 +601,12 @@ public class ProfileFragment extends Fragment {
                   checkProgress.dismiss();
 
                   // No cloud data found or error - show confirmation to create new backup
-                  int localUserId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
-                  java.util.List<com.example.voyagerbuds.models.Trip> localTrips = dbHelper.getAllTrips(localUserId);
-
-                  // Build detailed local trip list
-                  StringBuilder localDetails = new StringBuilder();
-                  for (com.example.voyagerbuds.models.Trip trip : localTrips) {
-                    int schedules = dbHelper.getSchedulesForTrip(trip.getTripId()).size();
-                    int expenses = dbHelper.getExpensesForTrip(trip.getTripId()).size();
-                    int captures = dbHelper.getCapturesForTrip(trip.getTripId()).size();
-
-                    localDetails.append("• ").append(trip.getDestination()).append("\n  ");
-                    localDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_schedules, schedules, schedules)).append(", ");
-                    localDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_expenses, expenses, expenses)).append(", ");
-                    localDetails.append(requireContext().getResources().getQuantityString(
-                        R.plurals.n_captures, captures, captures)).append("\n");
-                  }
+                  String localDetails = buildLocalTripDetails(dbHelper);
 
                   new android.app.AlertDialog.Builder(requireContext())
                       .setTitle(getString(R.string.backup_no_cloud_data_title))
                       .setMessage(String.format(getString(R.string.backup_no_cloud_data_message),
-                          localDetails.toString().trim()))
+                          localDetails))
                       .setPositiveButton(android.R.string.ok, (d, w) -> {
                         performBackup(dbHelper);
                       })
@@ -657,6 +617,38 @@ public class ProfileFragment extends Fragment {
         });
   }
 
+  /**
+   * Lists the current user's local trips with their schedule, expense and
+   * capture counts, which come from one grouped query instead of loading every
+   * row of each trip.
+   */
+  private String buildLocalTripDetails(DatabaseHelper dbHelper) {
+    int localUserId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
+    java.util.Map<Integer, com.example.voyagerbuds.models.TripCounts> countsByTrip = dbHelper
+        .getTripCounts(localUserId);
+    com.example.voyagerbuds.models.TripCounts none = new com.example.voyagerbuds.models.TripCounts();
+
+    StringBuilder localDetails = new StringBuilder();
+    for (com.example.voyagerbuds.models.Trip trip : dbHelper.getAllTrips(localUserId)) {
+      com.example.voyagerbuds.models.TripCounts counts = countsByTrip.get(trip.getTripId());
+      if (counts == null) {
+        counts = none;
+      }
+      appendTripDetails(localDetails, trip.getDestination(), counts.getScheduleCount(),
+          counts.getExpenseCount(), counts.getCaptureCount());
+    }
+    return localDetails.toString().trim();
+  }
+
+  private void appendTripDetails(StringBuilder details, String tripName, int schedules, int expenses,
+      int captures) {
+    android.content.res.Resources res = requireContext().getResources();
+    details.append("• ").append(tripName).append("\n  ");
+    details.append(res.getQuantityString(R.plurals.n_schedules, schedules, schedules)).append(", ");
+    details.append(res.getQuantityString(R.plurals.n_expenses, expenses, expenses)).append(", ");
+    details.append(res.getQuantityString(R.plurals.n_captures, captures, captures)).append("\n");
+  }
+
   private void performBackup(DatabaseHelper dbHelper) {
     android.app.AlertDialog progress = new android.app.AlertDialog.Builder(requireContext())
         .setTitle(getString(R.string.backing_up_title))
@@ -863,6 +855,7 @@ public class ProfileFragment extends Fragment {
       SharedPreferences.Editor editor = prefs.edit();
       editor.putInt("emergency_timeout_index", selectedTimeoutIndex);
       editor.apply();
+      com.example.voyagerbuds.services.EmergencyDeadlineScheduler.schedule(requireContext(), true);
 
       android.widget.Toast.makeText(requireContext(), getString(R.string.settings_saved),
           android.widget.Toast.LENGTH_SHORT).show();
@@ -1013,6 +1006,7 @@ public class ProfileFragment extends Fragment {
     SharedPreferences.Editor editor = prefs.edit();
     editor.putString("emergency_contacts", jsonArray.toString());
     editor.apply();
+    com.example.voyagerbuds.services.EmergencyDeadlineScheduler.schedule(requireContext(), false);
   }
 
   // Adapter for emergency contacts
@@ -33,9 +33,11 @@ import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.adapters.ScheduleAdapter;
 import com.example.voyagerbuds.adapters.ScheduleDayAdapter;
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.TripRepository;
 import com.example.voyagerbuds.models.ScheduleDayGroup;
 import com.example.voyagerbuds.models.ScheduleItem;
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.services.ImageService;
 
 import java.io.IOException;
 import java.text.ParseException;
@@ -84,16 +86,13 @@ public class ScheduleFragment extends Fragment {
     private ScheduleDayAdapter dayAdapter;
     private ExpenseDateAdapter dateAdapter;
     private DatabaseHelper databaseHelper;
+    private TripRepository tripRepository;
     private final List<Trip> trips = new ArrayList<>();
     private Trip selectedTrip;
     private String selectedDate = null;
     private List<String> tripDates = new ArrayList<>();
     private List<Date> dateList = new ArrayList<>();
 
-    private java.util.concurrent.ExecutorService executorService = java.util.concurrent.Executors
-            .newSingleThreadExecutor();
-    private android.os.Handler mainHandler = new android.os.Handler(android.os.Looper.getMainLooper());
-
     public ScheduleFragment() {
         // Required empty public constructor
     }
@@ -142,7 +141,8 @@ public class ScheduleFragment extends Fragment {
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_schedule, container, false);
-        databaseHelper = new DatabaseHelper(requireContext());
+        databaseHelper = DatabaseHelper.getInstance(requireContext());
+        tripRepository = TripRepository.getInstance(requireContext());
 
         tvScheduleTitle = view.findViewById(R.id.tv_schedule_title);
         // ivScheduleMenu = view.findViewById(R.id.iv_schedule_menu);
@@ -198,7 +198,7 @@ public class ScheduleFragment extends Fragment {
         trips.clear();
         int userId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
         if (userId != -1) {
-            trips.addAll(databaseHelper.getAllTrips(userId));
+            trips.addAll(tripRepository.getTrips(userId));
         }
 
         // Sort trips by start date in ascending order (earliest upcoming trips first)
@@ -863,54 +863,38 @@ public class ScheduleFragment extends Fragment {
 
         loadingContainer.setVisibility(View.VISIBLE);
 
-        executorService.execute(() -> {
-            android.graphics.Bitmap bitmap = null;
-            try {
-                android.net.Uri uri;
-                if (imagePath.startsWith("content://") || imagePath.startsWith("file://")) {
-                    uri = android.net.Uri.parse(imagePath);
-                } else {
-                    uri = android.net.Uri.fromFile(new java.io.File(imagePath));
-                }
-
-                android.util.DisplayMetrics metrics = getResources().getDisplayMetrics();
-                int reqWidth = metrics.widthPixels;
-                int reqHeight = metrics.heightPixels;
-
-                android.graphics.BitmapFactory.Options options = new android.graphics.BitmapFactory.Options();
-                options.inJustDecodeBounds = true;
-                java.io.InputStream input = requireContext().getContentResolver().openInputStream(uri);
-                android.graphics.BitmapFactory.decodeStream(input, null, options);
-                if (input != null)
-                    input.close();
+        ImageService imageService = ImageService.getInstance(requireContext());
+        android.graphics.Bitmap[] shownBitmap = new android.graphics.Bitmap[1];
+        boolean[] dismissed = new boolean[1];
 
-                options.inSampleSize = com.example.voyagerbuds.utils.ImageUtils.calculateInSampleSize(options, reqWidth,
-                        reqHeight);
-                options.inJustDecodeBounds = false;
+        btnClose.setOnClickListener(v -> fullImageDialog.dismiss());
+        btnRotate.setOnClickListener(v -> ivFullImage.rotate());
+        fullImageDialog.setOnDismissListener(dialog -> {
+            dismissed[0] = true;
+            ivFullImage.setImageBitmap(null);
+            imageService.release(shownBitmap[0]);
+            shownBitmap[0] = null;
+        });
 
-                input = requireContext().getContentResolver().openInputStream(uri);
-                bitmap = android.graphics.BitmapFactory.decodeStream(input, null, options);
-                if (input != null)
-                    input.close();
+        fullImageDialog.show();
 
-            } catch (Exception e) {
-                e.printStackTrace();
+        imageService.loadImage(imagePath, new ImageService.ImageLoadCallback() {
+            @Override
+            public void onImageLoaded(android.graphics.Bitmap bitmap) {
+                if (dismissed[0]) {
+                    imageService.release(bitmap);
+                    return;
+                }
+                shownBitmap[0] = bitmap;
+                loadingContainer.setVisibility(View.GONE);
+                ivFullImage.setImageBitmap(bitmap);
             }
 
-            final android.graphics.Bitmap finalBitmap = bitmap;
-            mainHandler.post(() -> {
+            @Override
+            public void onError(Exception e) {
                 loadingContainer.setVisibility(View.GONE);
-                if (finalBitmap != null) {
-                    ivFullImage.setImageBitmap(finalBitmap);
-                } else {
-                    ivFullImage.setImageResource(android.R.drawable.ic_menu_report_image);
-                }
-            });
+                ivFullImage.setImageResource(android.R.drawable.ic_menu_report_image);
+            }
         });
-
-        btnClose.setOnClickListener(v -> fullImageDialog.dismiss());
-        btnRotate.setOnClickListener(v -> ivFullImage.rotate());
-
-        fullImageDialog.show();
     }
 }
@@ -0,0 +1,207 @@
+package com.example.voyagerbuds.fragments;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.inputmethod.InputMethodManager;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.voyagerbuds.R;
+import com.example.voyagerbuds.adapters.SearchResultAdapter;
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.models.SearchResult;
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.TaskScope;
+import com.example.voyagerbuds.utils.UserSessionManager;
+import com.google.android.material.appbar.MaterialToolbar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over the user's trips, schedules, expenses and captures.
+ * Results update as the user types and load page by page while scrolling.
+ */
+public class SearchFragment extends Fragment implements SearchResultAdapter.OnResultClickListener {
+
+    private static final int PAGE_SIZE = 30;
+    // Wait for a pause in typing before querying
+    private static final long DEBOUNCE_MS = 150;
+    // Load the next page once the last visible item is this close to the end
+    private static final int PREFETCH_DISTANCE = 10;
+
+    private DatabaseHelper databaseHelper;
+    private int userId;
+    private EditText etSearch;
+    private RecyclerView recyclerView;
+    private TextView tvEmptyState;
+    private SearchResultAdapter adapter;
+
+    // Background work, cancelled when the view is destroyed
+    private TaskScope viewTasks;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::startSearch;
+
+    // Bumped on every new query so results of stale queries are dropped
+    private int queryGeneration = 0;
+    private String currentQuery = "";
+    private int loadedCount = 0;
+    private boolean isLoadingPage = false;
+    private boolean hasMore = false;
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        databaseHelper = DatabaseHelper.getInstance(requireContext());
+        userId = UserSessionManager.getCurrentUserId(requireContext());
+    }
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+            @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_search, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        viewTasks = AppExecutors.scope(getViewLifecycleOwner());
+
+        MaterialToolbar toolbar = view.findViewById(R.id.toolbar);
+        etSearch = view.findViewById(R.id.et_search);
+        recyclerView = view.findViewById(R.id.recycler_view_results);
+        tvEmptyState = view.findViewById(R.id.tv_empty_state);
+
+        toolbar.setNavigationOnClickListener(v -> requireActivity().onBackPressed());
+
+        // The view is rebuilt when coming back from a result; the restored text
+        // runs the query again
+        currentQuery = "";
+
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        adapter = new SearchResultAdapter(new ArrayList<>(), this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy > 0 && hasMore && !isLoadingPage
+                        && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount()
+                                - PREFETCH_DISTANCE) {
+                    rv.post(SearchFragment.this::loadNextPage);
+                }
+            }
+        });
+
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mainHandler.removeCallbacks(searchRunnable);
+                mainHandler.postDelayed(searchRunnable, DEBOUNCE_MS);
+            }
+        });
+
+        etSearch.requestFocus();
+        InputMethodManager imm = (InputMethodManager) requireContext()
+                .getSystemService(Context.INPUT_METHOD_SERVICE);
+        if (imm != null) {
+            imm.showSoftInput(etSearch, InputMethodManager.SHOW_IMPLICIT);
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        mainHandler.removeCallbacks(searchRunnable);
+    }
+
+    private void startSearch() {
+        if (etSearch == null) {
+            return;
+        }
+        String query = etSearch.getText().toString().trim();
+        if (query.equals(currentQuery)) {
+            return;
+        }
+        currentQuery = query;
+        queryGeneration++;
+        loadedCount = 0;
+        hasMore = false;
+        isLoadingPage = false;
+
+        if (query.isEmpty()) {
+            adapter.setResults(new ArrayList<>());
+            tvEmptyState.setVisibility(View.GONE);
+            return;
+        }
+        loadPage(true);
+    }
+
+    private void loadNextPage() {
+        if (hasMore && !isLoadingPage) {
+            loadPage(false);
+        }
+    }
+
+    private void loadPage(boolean firstPage) {
+        isLoadingPage = true;
+        final int generation = queryGeneration;
+        final String query = currentQuery;
+        final int offset = loadedCount;
+
+        viewTasks.execute(AppExecutors.Pool.DB, () -> {
+            List<SearchResult> page = databaseHelper.search(userId, query, offset, PAGE_SIZE);
+            viewTasks.post(() -> {
+                if (!isAdded() || generation != queryGeneration) {
+                    return;
+                }
+                isLoadingPage = false;
+                loadedCount += page.size();
+                hasMore = page.size() == PAGE_SIZE;
+                if (firstPage) {
+                    adapter.setResults(page);
+                    recyclerView.scrollToPosition(0);
+                } else {
+                    adapter.appendResults(page);
+                }
+                tvEmptyState.setVisibility(adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
+            });
+        });
+    }
+
+    @Override
+    public void onResultClick(SearchResult result) {
+        TripDetailFragment fragment = TripDetailFragment.newInstance(result.getTripId());
+        getParentFragmentManager().beginTransaction()
+                .setCustomAnimations(
+                        R.anim.slide_in_right,
+                        R.anim.slide_out_left,
+                        R.anim.slide_in_left,
+                        R.anim.slide_out_right)
+                .replace(R.id.content_container, fragment)
+                .addToBackStack(null)
+                .commit();
+    }
+}
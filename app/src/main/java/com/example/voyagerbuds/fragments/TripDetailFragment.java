@@ -43,7 +43,6 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -53,9 +52,17 @@ import com.example.voyagerbuds.adapters.ScheduleAdapter;
 import com.example.voyagerbuds.adapters.ScheduleDayAdapter;
 import com.example.voyagerbuds.adapters.ScheduleImageAdapter;
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.InvalidationTracker;
+import com.example.voyagerbuds.database.ObservableQuery;
+import com.example.voyagerbuds.database.TripRepository;
+import com.example.voyagerbuds.models.BudgetLedger;
+import com.example.voyagerbuds.models.Media;
 import com.example.voyagerbuds.models.ScheduleDayGroup;
 import com.example.voyagerbuds.models.ScheduleItem;
 import com.example.voyagerbuds.models.Trip;
+import com.example.voyagerbuds.services.ImageRotationService;
+import com.example.voyagerbuds.services.ImageService;
+import com.example.voyagerbuds.services.ThumbnailStore;
 import com.example.voyagerbuds.utils.DateUtils;
 import com.example.voyagerbuds.fragments.TripGalleryFragment;
 import com.example.voyagerbuds.utils.ImageUtils;
@@ -64,6 +71,7 @@ import com.example.voyagerbuds.utils.ImageRandomizer;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.signature.ObjectKey;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
@@ -88,10 +96,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import com.example.voyagerbuds.adapters.ExpenseAdapter;
 import com.example.voyagerbuds.adapters.ExpenseDateAdapter;
@@ -110,6 +120,7 @@ public class TripDetailFragment extends Fragment {
 
     private long tripId;
     private DatabaseHelper databaseHelper;
+    private TripRepository tripRepository;
     private Trip trip;
     private EditText etLocationRef; // Reference to update location from callback
     private Double selectedLatitude; // Store selected location coordinates
@@ -153,9 +164,23 @@ public class TripDetailFragment extends Fragment {
     private int lastTabPosition = 0;
     private RecyclerView currentDialogRvImages; // Reference to currently open dialog's image recycler
 
-    private java.util.concurrent.ExecutorService executorService = java.util.concurrent.Executors
-            .newSingleThreadExecutor();
-    private android.os.Handler mainHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+    // Reads and image work, cancelled when the view is destroyed. Writes go to
+    // the shared DB pool so leaving the screen never drops them.
+    private com.example.voyagerbuds.utils.TaskScope viewTasks;
+
+    // Each list re-queries only when its own table changes for this trip
+    private ObservableQuery<List<ScheduleItem>> schedulesQuery;
+    private ObservableQuery<List<Expense>> expensesQuery;
+    private ObservableQuery<BudgetLedger> budgetQuery;
+    private ObservableQuery<List<Media>> galleryPreviewQuery;
+    // Paths shown in the gallery preview; it reloads when one of their
+    // thumbnails becomes ready
+    private final Set<String> previewPaths = new HashSet<>();
+    private final ThumbnailStore.Listener thumbnailListener = path -> {
+        if (previewPaths.contains(path) && galleryPreviewQuery != null) {
+            galleryPreviewQuery.refresh();
+        }
+    };
 
     public static TripDetailFragment newInstance(long tripId) {
         TripDetailFragment fragment = new TripDetailFragment();
@@ -171,7 +196,8 @@ public class TripDetailFragment extends Fragment {
         if (getArguments() != null) {
             tripId = getArguments().getLong(ARG_TRIP_ID);
         }
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
+        tripRepository = TripRepository.getInstance(getContext());
 
         // Initialize location picker launcher
         locationPickerLauncher = registerForActivityResult(
@@ -229,6 +255,7 @@ public class TripDetailFragment extends Fragment {
             Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_trip_detail, container, false);
         rootView = view; // Store for later use
+        viewTasks = com.example.voyagerbuds.utils.AppExecutors.scope(getViewLifecycleOwner());
 
         // Initialize Views
         MaterialToolbar toolbar = view.findViewById(R.id.toolbar);
@@ -363,7 +390,10 @@ public class TripDetailFragment extends Fragment {
         fabAddSchedule.setOnClickListener(v -> showAddEditDialog(null));
 
         // Load Schedules
-        loadSchedules();
+        schedulesQuery = new ObservableQuery<>(databaseHelper, (int) tripId,
+                () -> databaseHelper.getSchedulesForTrip((int) tripId), this::showSchedules,
+                InvalidationTracker.SCHEDULES);
+        schedulesQuery.start();
 
         // Handle Tabs
         tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
@@ -437,6 +467,24 @@ public class TripDetailFragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (schedulesQuery != null) {
+            schedulesQuery.stop();
+        }
+        if (expensesQuery != null) {
+            expensesQuery.stop();
+        }
+        if (budgetQuery != null) {
+            budgetQuery.stop();
+        }
+        if (galleryPreviewQuery != null) {
+            galleryPreviewQuery.stop();
+        }
+        ThumbnailStore.getInstance(requireContext()).removeListener(thumbnailListener);
+    }
+
     private void loadGalleryPreview(View view) {
         if (view == null || !isAdded() || getContext() == null) {
             return;
@@ -460,109 +508,73 @@ public class TripDetailFragment extends Fragment {
                     .commit();
         });
 
-        executorService.execute(() -> {
-            List<ScheduleItem> schedules = databaseHelper.getSchedulesForTrip((int) tripId);
-            List<Expense> expenses = databaseHelper.getExpensesForTrip((int) tripId);
-            List<com.example.voyagerbuds.models.Capture> captures = databaseHelper
-                    .getCapturesForTripOrdered((int) tripId);
-            List<String> allImages = new ArrayList<>();
-
-            // Add images from schedules
-            for (ScheduleItem schedule : schedules) {
-                if (schedule.getImagePaths() != null && !schedule.getImagePaths().isEmpty()) {
-                    try {
-                        JSONArray jsonArray = new JSONArray(schedule.getImagePaths());
-                        for (int i = 0; i < jsonArray.length(); i++) {
-                            allImages.add(jsonArray.getString(i));
-                        }
-                    } catch (JSONException e) {
-                        e.printStackTrace();
-                    }
-                }
+        galleryPreviewQuery = new ObservableQuery<>(databaseHelper, (int) tripId, () -> {
+            // Newest five images across schedules, expenses and captures
+            return databaseHelper.getLatestMediaForTrip((int) tripId, 5);
+        }, previewImages -> {
+            // Check if fragment is still valid
+            if (!isAdded() || getContext() == null) {
+                return;
             }
 
-            // Add images from expenses
-            for (Expense expense : expenses) {
-                if (expense.getImagePaths() != null && !expense.getImagePaths().isEmpty()) {
-                    try {
-                        JSONArray jsonArray = new JSONArray(expense.getImagePaths());
-                        for (int i = 0; i < jsonArray.length(); i++) {
-                            allImages.add(jsonArray.getString(i));
-                        }
-                    } catch (JSONException e) {
-                        e.printStackTrace();
+            llGalleryPreview.removeAllViews();
+            previewPaths.clear();
+            if (previewImages.isEmpty()) {
+                llGalleryPreview.addView(tvEmptyGallery);
+                tvEmptyGallery.setVisibility(View.VISIBLE);
+            } else {
+                tvEmptyGallery.setVisibility(View.GONE);
+                for (Media media : previewImages) {
+                    String path = media.getPath();
+                    previewPaths.add(path);
+                    android.widget.ImageView imageView = new android.widget.ImageView(getContext());
+                    android.widget.LinearLayout.LayoutParams params = new android.widget.LinearLayout.LayoutParams(
+                            (int) (120 * getResources().getDisplayMetrics().density),
+                            (int) (160 * getResources().getDisplayMetrics().density));
+                    params.setMargins(0, 0, (int) (12 * getResources().getDisplayMetrics().density), 0);
+                    imageView.setLayoutParams(params);
+                    imageView.setScaleType(android.widget.ImageView.ScaleType.CENTER_CROP);
+                    imageView.setBackgroundResource(R.drawable.rounded_corner_bg);
+                    imageView.setClipToOutline(true);
+
+                    // Use Glide for better image loading, from the stored
+                    // thumbnail when there is one (photos only)
+                    ThumbnailStore thumbnails = ThumbnailStore.getInstance(requireContext());
+                    File thumbnail = "video".equals(media.getMediaType()) ? null
+                            : thumbnails.peek(path, ThumbnailStore.SIZE_PREVIEW);
+                    Uri uri;
+                    if (thumbnail != null) {
+                        uri = Uri.fromFile(thumbnail);
+                    } else if (path.startsWith("content://") || path.startsWith("file://")) {
+                        uri = Uri.parse(path);
+                    } else {
+                        uri = Uri.fromFile(new File(path));
                     }
-                }
-            }
-
-            // Add images from captures
-            for (com.example.voyagerbuds.models.Capture capture : captures) {
-                if (capture.getMediaPath() != null && !capture.getMediaPath().isEmpty()) {
-                    allImages.add(capture.getMediaPath());
-                }
-            }
-
-            Collections.reverse(allImages);
-            List<String> previewImages = allImages.subList(0, Math.min(allImages.size(), 5));
-
-            mainHandler.post(() -> {
-                // Check if fragment is still valid
-                if (!isAdded() || getContext() == null || llGalleryPreview == null || tvEmptyGallery == null) {
-                    return;
-                }
+                    // A photo rotated in place must not be served from Glide's caches
+                    long version = thumbnail != null ? 0 : thumbnails.originalModified(path);
 
-                llGalleryPreview.removeAllViews();
-                if (previewImages.isEmpty()) {
-                    llGalleryPreview.addView(tvEmptyGallery);
-                    tvEmptyGallery.setVisibility(View.VISIBLE);
-                } else {
-                    tvEmptyGallery.setVisibility(View.GONE);
-                    for (String path : previewImages) {
-                        android.widget.ImageView imageView = new android.widget.ImageView(getContext());
-                        android.widget.LinearLayout.LayoutParams params = new android.widget.LinearLayout.LayoutParams(
-                                (int) (120 * getResources().getDisplayMetrics().density),
-                                (int) (160 * getResources().getDisplayMetrics().density));
-                        params.setMargins(0, 0, (int) (12 * getResources().getDisplayMetrics().density), 0);
-                        imageView.setLayoutParams(params);
-                        imageView.setScaleType(android.widget.ImageView.ScaleType.CENTER_CROP);
-                        imageView.setBackgroundResource(R.drawable.rounded_corner_bg);
-                        imageView.setClipToOutline(true);
-
-                        // Use Glide for better image loading
-                        Uri uri;
-                        if (path.startsWith("content://") || path.startsWith("file://")) {
-                            uri = Uri.parse(path);
-                        } else {
-                            uri = Uri.fromFile(new File(path));
-                        }
-
-                        Glide.with(requireContext())
-                                .load(uri)
-                                .centerCrop()
-                                .placeholder(R.drawable.ic_photo)
-                                .error(R.drawable.ic_photo)
-                                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                                .into(imageView);
+                    Glide.with(requireContext())
+                            .load(uri)
+                            .centerCrop()
+                            .placeholder(R.drawable.ic_photo)
+                            .error(R.drawable.ic_photo)
+                            .diskCacheStrategy(DiskCacheStrategy.ALL)
+                            .signature(new ObjectKey(version))
+                            .into(imageView);
 
-                        imageView.setOnClickListener(v -> {
-                            showFullImageDialog(path);
-                        });
+                    imageView.setOnClickListener(v -> {
+                        showFullImageDialog(path);
+                    });
 
-                        llGalleryPreview.addView(imageView);
-                    }
+                    llGalleryPreview.addView(imageView);
                 }
-            });
-        });
-    }
-
-    private void notifyGalleryRefresh() {
-        // Send broadcast to notify TripGalleryFragment to refresh
-        Intent intent = new Intent(TripGalleryFragment.ACTION_GALLERY_REFRESH);
-        LocalBroadcastManager.getInstance(requireContext()).sendBroadcast(intent);
+            }
+        }, InvalidationTracker.MEDIA);
+        galleryPreviewQuery.start();
+        ThumbnailStore.getInstance(requireContext()).addListener(thumbnailListener);
     }
 
-    private void loadSchedules() {
-        List<ScheduleItem> scheduleItems = databaseHelper.getSchedulesForTrip((int) tripId);
+    private void showSchedules(List<ScheduleItem> scheduleItems) {
         if (scheduleItems.isEmpty()) {
             tvEmptyState.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
@@ -789,25 +801,20 @@ public class TripDetailFragment extends Fragment {
                 newItem.setCreatedAt(System.currentTimeMillis());
                 newItem.setUpdatedAt(System.currentTimeMillis());
 
-                executorService.execute(() -> {
+                com.example.voyagerbuds.utils.AppExecutors.db().execute(() -> {
                     try {
                         long id = databaseHelper.addSchedule(newItem);
                         newItem.setId((int) id);
-                        com.example.voyagerbuds.utils.NotificationHelper.scheduleNotification(requireContext(),
-                                newItem);
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
                             Toast.makeText(getContext(), R.string.schedule_added, Toast.LENGTH_SHORT).show();
-                            loadSchedules();
-                            loadGalleryPreview(rootView);
-                            notifyGalleryRefresh();
                             hasUnsavedChanges[0] = false;
                             bottomSheetDialog.dismiss();
                         });
                     } catch (Exception e) {
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
@@ -829,24 +836,19 @@ public class TripDetailFragment extends Fragment {
                 editing.setNotifyBeforeMinutes(notifyBeforeMinutes);
                 editing.setUpdatedAt(System.currentTimeMillis());
 
-                executorService.execute(() -> {
+                com.example.voyagerbuds.utils.AppExecutors.db().execute(() -> {
                     try {
                         databaseHelper.updateSchedule(editing);
-                        com.example.voyagerbuds.utils.NotificationHelper.scheduleNotification(requireContext(),
-                                editing);
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
                             Toast.makeText(getContext(), R.string.schedule_updated, Toast.LENGTH_SHORT).show();
-                            loadSchedules();
-                            loadGalleryPreview(rootView);
-                            notifyGalleryRefresh();
                             hasUnsavedChanges[0] = false;
                             bottomSheetDialog.dismiss();
                         });
                     } catch (Exception e) {
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
@@ -1040,12 +1042,8 @@ public class TripDetailFragment extends Fragment {
                 .setTitle(R.string.schedule_delete_title)
                 .setMessage(R.string.schedule_delete_confirm)
                 .setPositiveButton(R.string.delete, (dialog, which) -> {
-                    com.example.voyagerbuds.utils.NotificationHelper.cancelNotification(requireContext(), item.getId());
                     databaseHelper.deleteSchedule(item.getId());
                     Toast.makeText(getContext(), R.string.schedule_deleted, Toast.LENGTH_SHORT).show();
-                    loadSchedules();
-                    loadGalleryPreview(rootView);
-                    notifyGalleryRefresh();
                 })
                 .setNegativeButton(R.string.cancel, null)
                 .show();
@@ -1144,7 +1142,7 @@ public class TripDetailFragment extends Fragment {
         if (!isAdded())
             return;
 
-        new Thread(() -> {
+        viewTasks.execute(com.example.voyagerbuds.utils.AppExecutors.Pool.NETWORK, () -> {
             try {
                 Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
                 List<Address> addresses = geocoder.getFromLocationName(query, 5);
@@ -1167,7 +1165,7 @@ public class TripDetailFragment extends Fragment {
                     }
 
                     if (isAdded()) {
-                        requireActivity().runOnUiThread(() -> {
+                        viewTasks.post(() -> {
                             if (suggestions.isEmpty())
                                 return;
 
@@ -1204,7 +1202,7 @@ public class TripDetailFragment extends Fragment {
             } catch (Exception e) {
                 android.util.Log.e("TripDetail", "Error searching location", e);
             }
-        }).start();
+        });
     }
 
     private String formatAddressForDisplay(Address address) {
@@ -1631,99 +1629,57 @@ public class TripDetailFragment extends Fragment {
 
         loadingContainer.setVisibility(View.VISIBLE);
 
-        executorService.execute(() -> {
-            android.graphics.Bitmap bitmap = null;
-            try {
-                android.net.Uri uri;
-                if (imagePath.startsWith("content://") || imagePath.startsWith("file://")) {
-                    uri = android.net.Uri.parse(imagePath);
-                } else {
-                    uri = android.net.Uri.fromFile(new java.io.File(imagePath));
-                }
+        ImageService imageService = ImageService.getInstance(requireContext());
+        android.graphics.Bitmap[] shownBitmap = new android.graphics.Bitmap[1];
+        boolean[] dismissed = new boolean[1];
 
-                android.util.DisplayMetrics metrics = getResources().getDisplayMetrics();
-                int reqWidth = metrics.widthPixels;
-                int reqHeight = metrics.heightPixels;
-
-                android.graphics.BitmapFactory.Options options = new android.graphics.BitmapFactory.Options();
-                options.inJustDecodeBounds = true;
-                java.io.InputStream input = requireContext().getContentResolver().openInputStream(uri);
-                android.graphics.BitmapFactory.decodeStream(input, null, options);
-                if (input != null)
-                    input.close();
-
-                options.inSampleSize = com.example.voyagerbuds.utils.ImageUtils.calculateInSampleSize(options, reqWidth,
-                        reqHeight);
-                options.inJustDecodeBounds = false;
+        btnClose.setOnClickListener(v -> fullImageDialog.dismiss());
+        btnRotate.setOnClickListener(v -> ivFullImage.rotate());
+        fullImageDialog.setOnDismissListener(dialog -> {
+            dismissed[0] = true;
+            ivFullImage.setImageBitmap(null);
+            imageService.release(shownBitmap[0]);
+            shownBitmap[0] = null;
+        });
 
-                input = requireContext().getContentResolver().openInputStream(uri);
-                bitmap = android.graphics.BitmapFactory.decodeStream(input, null, options);
-                if (input != null)
-                    input.close();
+        fullImageDialog.show();
 
-            } catch (Exception e) {
-                e.printStackTrace();
+        imageService.loadImage(imagePath, new ImageService.ImageLoadCallback() {
+            @Override
+            public void onImageLoaded(android.graphics.Bitmap bitmap) {
+                if (dismissed[0]) {
+                    imageService.release(bitmap);
+                    return;
+                }
+                shownBitmap[0] = bitmap;
+                loadingContainer.setVisibility(View.GONE);
+                ivFullImage.setImageBitmap(bitmap);
             }
 
-            final android.graphics.Bitmap finalBitmap = bitmap;
-            mainHandler.post(() -> {
+            @Override
+            public void onError(Exception e) {
                 loadingContainer.setVisibility(View.GONE);
-                if (finalBitmap != null) {
-                    ivFullImage.setImageBitmap(finalBitmap);
-                } else {
-                    ivFullImage.setImageResource(android.R.drawable.ic_menu_report_image);
-                }
-            });
+                ivFullImage.setImageResource(android.R.drawable.ic_menu_report_image);
+            }
         });
-
-        btnClose.setOnClickListener(v -> fullImageDialog.dismiss());
-        btnRotate.setOnClickListener(v -> ivFullImage.rotate());
-
-        fullImageDialog.show();
     }
 
     private void rotateImage(int position, String imagePath) {
-        executorService.execute(() -> {
+        ImageRotationService rotationService = new ImageRotationService(requireContext());
+        viewTasks.execute(com.example.voyagerbuds.utils.AppExecutors.Pool.DISK_IO, () -> {
             try {
-                android.net.Uri uri;
-                if (imagePath.startsWith("content://") || imagePath.startsWith("file://")) {
-                    uri = android.net.Uri.parse(imagePath);
-                } else {
-                    uri = android.net.Uri.fromFile(new java.io.File(imagePath));
-                }
-
-                android.graphics.Bitmap bitmap = android.graphics.BitmapFactory.decodeStream(
-                        requireContext().getContentResolver().openInputStream(uri));
+                // Only the EXIF orientation changes, the pixels are left as they are
+                String newPath = rotationService.rotateSync(imagePath, 90);
 
-                if (bitmap != null) {
-                    android.graphics.Matrix matrix = new android.graphics.Matrix();
-                    matrix.postRotate(90);
-                    android.graphics.Bitmap rotatedBitmap = android.graphics.Bitmap.createBitmap(
-                            bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-
-                    // Save rotated bitmap to a new file
-                    String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-                    String imageFileName = "ROTATED_" + timeStamp + "_";
-                    File storageDir = requireContext().getExternalFilesDir(Environment.DIRECTORY_PICTURES);
-                    File rotatedFile = File.createTempFile(imageFileName, ".jpg", storageDir);
-
-                    java.io.FileOutputStream out = new java.io.FileOutputStream(rotatedFile);
-                    rotatedBitmap.compress(android.graphics.Bitmap.CompressFormat.JPEG, 100, out);
-                    out.flush();
-                    out.close();
-
-                    String newPath = Uri.fromFile(rotatedFile).toString();
-
-                    mainHandler.post(() -> {
-                        if (position >= 0 && position < tempImagePaths.size()) {
-                            tempImagePaths.set(position, newPath);
-                            tempImageAdapter.notifyItemChanged(position);
-                        }
-                    });
-                }
+                viewTasks.post(() -> {
+                    if (position >= 0 && position < tempImagePaths.size()) {
+                        tempImagePaths.set(position, newPath);
+                        tempImageAdapter.notifyItemChanged(position);
+                    }
+                });
             } catch (Exception e) {
                 e.printStackTrace();
-                mainHandler
+                viewTasks
                         .post(() -> Toast.makeText(getContext(), "Failed to rotate image", Toast.LENGTH_SHORT).show());
             }
         });
@@ -1798,25 +1754,21 @@ public class TripDetailFragment extends Fragment {
         });
         rvExpenses.setAdapter(expenseAdapter);
 
-        loadExpenses();
-    }
-
-    private void loadExpenses() {
-        executorService.execute(() -> {
-            allExpenses = databaseHelper.getExpensesForTrip((int) tripId);
+        expensesQuery = new ObservableQuery<>(databaseHelper, (int) tripId,
+                () -> databaseHelper.getExpensesForTrip((int) tripId), this::showExpenses,
+                InvalidationTracker.EXPENSES);
+        expensesQuery.start();
 
-            // Calculate totals
-            double totalSpent = 0;
-            for (Expense e : allExpenses) {
-                totalSpent += e.getAmount();
-            }
+        // Budget figures come from the trip's ledger rather than summing the list
+        budgetQuery = new ObservableQuery<>(databaseHelper, (int) tripId,
+                () -> tripRepository.getBudgetLedger((int) tripId), ledger -> updateBudgetUI(ledger.getTotal()),
+                InvalidationTracker.EXPENSES);
+        budgetQuery.start();
+    }
 
-            double finalTotalSpent = totalSpent;
-            mainHandler.post(() -> {
-                updateExpenseList();
-                updateBudgetUI(finalTotalSpent);
-            });
-        });
+    private void showExpenses(List<Expense> expenses) {
+        allExpenses = expenses;
+        updateExpenseList();
     }
 
     private void updateBudgetUI(double totalSpent) {
@@ -2032,13 +1984,10 @@ public class TripDetailFragment extends Fragment {
                 .setTitle(R.string.delete_expense_title)
                 .setMessage(R.string.delete_expense_confirm)
                 .setPositiveButton(R.string.delete, (dialog, which) -> {
-                    executorService.execute(() -> {
+                    com.example.voyagerbuds.utils.AppExecutors.db().execute(() -> {
                         databaseHelper.deleteExpense(expense.getExpenseId());
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             Toast.makeText(getContext(), R.string.expense_deleted, Toast.LENGTH_SHORT).show();
-                            loadExpenses();
-                            loadGalleryPreview(rootView);
-                            notifyGalleryRefresh();
                         });
                     });
                 })
@@ -2346,22 +2295,19 @@ public class TripDetailFragment extends Fragment {
                 expense.setSpentAt(spentAt);
                 expense.setImagePaths(imagesArray.toString());
 
-                executorService.execute(() -> {
+                com.example.voyagerbuds.utils.AppExecutors.db().execute(() -> {
                     try {
                         databaseHelper.addExpense(expense);
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
                             hasUnsavedChanges[0] = false;
                             bottomSheetDialog.dismiss();
-                            loadExpenses();
-                            loadGalleryPreview(rootView);
-                            notifyGalleryRefresh();
                             Toast.makeText(getContext(), R.string.expense_added, Toast.LENGTH_SHORT).show();
                         });
                     } catch (Exception e) {
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
@@ -2379,22 +2325,19 @@ public class TripDetailFragment extends Fragment {
                 editing.setSpentAt(spentAt);
                 editing.setImagePaths(imagesArray.toString());
 
-                executorService.execute(() -> {
+                com.example.voyagerbuds.utils.AppExecutors.db().execute(() -> {
                     try {
                         databaseHelper.updateExpense(editing);
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
                             hasUnsavedChanges[0] = false;
                             bottomSheetDialog.dismiss();
-                            loadExpenses();
-                            loadGalleryPreview(rootView);
-                            notifyGalleryRefresh();
                             Toast.makeText(getContext(), R.string.expense_updated, Toast.LENGTH_SHORT).show();
                         });
                     } catch (Exception e) {
-                        mainHandler.post(() -> {
+                        viewTasks.post(() -> {
                             if (loadingView != null)
                                 loadingView.setVisibility(View.GONE);
                             btnSave.setEnabled(true);
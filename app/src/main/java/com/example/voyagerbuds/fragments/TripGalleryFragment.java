@@ -1,10 +1,8 @@
 package com.example.voyagerbuds.fragments;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -15,14 +13,16 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.adapters.GalleryAdapter;
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.InvalidationTracker;
+import com.example.voyagerbuds.database.MediaPagingSource;
 import com.example.voyagerbuds.models.GalleryItem;
+import com.example.voyagerbuds.models.Media;
 import com.example.voyagerbuds.models.ScheduleItem;
 import com.example.voyagerbuds.models.Expense;
 import com.google.android.material.appbar.MaterialToolbar;
@@ -34,11 +34,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnItemClickListener {
 
     private static final String ARG_TRIP_ID = "trip_id";
-    public static final String ACTION_GALLERY_REFRESH = "com.example.voyagerbuds.GALLERY_REFRESH";
+    // Load the next page once the last visible item is this close to the end
+    private static final int PREFETCH_DISTANCE = 30;
 
     private int tripId;
     private DatabaseHelper databaseHelper;
@@ -49,7 +51,29 @@ public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnIt
     private boolean isSelectionMode = false;
     private MaterialToolbar toolbar;
     private TextView tvEmptyState;
-    private BroadcastReceiver galleryRefreshReceiver;
+
+    // Reload when this trip's media changes; a burst of writes (e.g. a
+    // multi-delete) is folded into one reload
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean reloadPosted = new AtomicBoolean(false);
+    private final InvalidationTracker.Observer mediaObserver = (table, changedTripId) -> {
+        if (InvalidationTracker.MEDIA.equals(table) && InvalidationTracker.matches(tripId, changedTripId)
+                && reloadPosted.compareAndSet(false, true)) {
+            mainHandler.post(() -> {
+                reloadPosted.set(false);
+                if (getView() != null) {
+                    loadGalleryItems();
+                }
+            });
+        }
+    };
+
+    // Media is streamed page by page in taken_at order
+    private MediaPagingSource mediaPager;
+    private String lastDayLabel = "";
+    private boolean isLoadingPage = false;
+    private final java.text.SimpleDateFormat dayFormat = new java.text.SimpleDateFormat("yyyy-MM-dd",
+            java.util.Locale.getDefault());
 
     public static TripGalleryFragment newInstance(int tripId) {
         TripGalleryFragment fragment = new TripGalleryFragment();
@@ -65,7 +89,7 @@ public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnIt
         if (getArguments() != null) {
             tripId = getArguments().getInt(ARG_TRIP_ID);
         }
-        databaseHelper = new DatabaseHelper(requireContext());
+        databaseHelper = DatabaseHelper.getInstance(requireContext());
     }
 
     @Nullable
@@ -88,35 +112,13 @@ public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnIt
 
         setupRecyclerView();
         loadGalleryItems();
+        databaseHelper.getInvalidationTracker().addObserver(mediaObserver);
     }
 
     @Override
-    public void onResume() {
-        super.onResume();
-
-        // Register broadcast receiver
-        galleryRefreshReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                loadGalleryItems();
-            }
-        };
-        LocalBroadcastManager.getInstance(requireContext())
-                .registerReceiver(galleryRefreshReceiver, new IntentFilter(ACTION_GALLERY_REFRESH));
-
-        // Reload gallery items when returning to this fragment
-        loadGalleryItems();
-    }
-
-    @Override
-    public void onPause() {
-        super.onPause();
-
-        // Unregister broadcast receiver
-        if (galleryRefreshReceiver != null) {
-            LocalBroadcastManager.getInstance(requireContext())
-                    .unregisterReceiver(galleryRefreshReceiver);
-        }
+    public void onDestroyView() {
+        super.onDestroyView();
+        databaseHelper.getInvalidationTracker().removeObserver(mediaObserver);
     }
 
     private void setupRecyclerView() {
@@ -127,10 +129,29 @@ public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnIt
 
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || isLoadingPage || mediaPager == null || !mediaPager.hasMore()) {
+                    return;
+                }
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    isLoadingPage = true;
+                    // Post so the adapter is not modified inside a scroll callback
+                    rv.post(() -> {
+                        loadNextMediaPage();
+                        isLoadingPage = false;
+                    });
+                }
+            }
+        });
     }
 
     private void loadGalleryItems() {
         galleryItems.clear();
+        lastDayLabel = "";
+        mediaPager = null;
+        adapter.updateItems(galleryItems);
 
         if (tripId == -1) {
             Toast.makeText(requireContext(), "No current trip selected", Toast.LENGTH_SHORT).show();
@@ -142,84 +163,12 @@ public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnIt
 
         android.util.Log.d("TripGalleryFragment", "Loading gallery for trip ID: " + tripId);
 
-        List<ScheduleItem> schedules = databaseHelper.getSchedulesForTrip(tripId);
-        List<com.example.voyagerbuds.models.Expense> expenses = databaseHelper.getExpensesForTrip(tripId);
-        List<com.example.voyagerbuds.models.Capture> captures = databaseHelper.getCapturesForTripOrdered(tripId);
-
-        android.util.Log.d("TripGalleryFragment", "Found: " + schedules.size() + " schedules, " +
-                expenses.size() + " expenses, " + captures.size() + " captures");
-
-        List<GalleryItem> allImages = new ArrayList<>();
-
-        // Add images from schedules
-        for (ScheduleItem schedule : schedules) {
-            if (schedule.getImagePaths() != null && !schedule.getImagePaths().isEmpty()) {
-                try {
-                    JSONArray jsonArray = new JSONArray(schedule.getImagePaths());
-                    String dateStr = schedule.getDay(); // Using day as label
-                    long dateMillis = 0;
-                    try {
-                        java.util.Date d = new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault())
-                                .parse(dateStr);
-                        if (d != null)
-                            dateMillis = d.getTime();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        String path = jsonArray.getString(i);
-                        allImages.add(new GalleryItem(path, schedule.getId(), 0, dateStr, dateMillis));
-                    }
-                } catch (JSONException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-
-        // Add images from expenses
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault());
-        for (com.example.voyagerbuds.models.Expense expense : expenses) {
-            if (expense.getImagePaths() != null && !expense.getImagePaths().isEmpty()) {
-                try {
-                    JSONArray jsonArray = new JSONArray(expense.getImagePaths());
-                    long dateMillis = expense.getSpentAt() * 1000L;
-                    String dateStr = sdf.format(new java.util.Date(dateMillis));
-
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        String path = jsonArray.getString(i);
-                        allImages.add(new GalleryItem(path, expense.getExpenseId(), 1, dateStr, dateMillis));
-                    }
-                } catch (JSONException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-
-        // Add images from captures
-        for (com.example.voyagerbuds.models.Capture capture : captures) {
-            if (capture.getMediaPath() != null && !capture.getMediaPath().isEmpty()) {
-                long dateMillis = capture.getCapturedAt();
-                String dateStr = sdf.format(new java.util.Date(dateMillis));
-                allImages.add(new GalleryItem(capture.getMediaPath(), capture.getCaptureId(), 2, dateStr, dateMillis));
-            }
-        }
-
-        // Sort by date
-        java.util.Collections.sort(allImages, (a, b) -> a.getDayLabel().compareTo(b.getDayLabel()));
-
-        // Group by Day
-        String currentDay = "";
-        for (GalleryItem item : allImages) {
-            if (!item.getDayLabel().equals(currentDay)) {
-                currentDay = item.getDayLabel();
-                galleryItems.add(currentDay);
-            }
-            galleryItems.add(item);
-        }
+        // Schedule, expense and capture images come from one indexed query, paged in as
+        // the user scrolls
+        mediaPager = new MediaPagingSource(databaseHelper, tripId);
+        loadNextMediaPage();
 
         android.util.Log.d("TripGalleryFragment", "Total gallery items (with headers): " + galleryItems.size());
-        android.util.Log.d("TripGalleryFragment", "Total images: " + allImages.size());
 
         if (galleryItems.isEmpty()) {
             android.util.Log.d("TripGalleryFragment", "Showing empty state");
@@ -229,10 +178,33 @@ public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnIt
             android.util.Log.d("TripGalleryFragment", "Showing gallery with " + galleryItems.size() + " items");
             tvEmptyState.setVisibility(View.GONE);
             recyclerView.setVisibility(View.VISIBLE);
-            adapter.updateItems(galleryItems);
         }
     }
 
+    /**
+     * Load the next page of media and append it to the grid, adding a day
+     * header whenever the day changes
+     */
+    private void loadNextMediaPage() {
+        if (mediaPager == null) {
+            return;
+        }
+        List<Media> page = mediaPager.loadNextPage();
+
+        // Group by Day
+        List<Object> rows = new ArrayList<>();
+        for (Media media : page) {
+            String dateStr = dayFormat.format(new java.util.Date(media.getTakenAt()));
+            if (!dateStr.equals(lastDayLabel)) {
+                lastDayLabel = dateStr;
+                rows.add(lastDayLabel);
+            }
+            rows.add(new GalleryItem(media.getPath(), media.getOwnerId(), media.getOwnerType(), dateStr,
+                    media.getTakenAt(), media.getMediaType()));
+        }
+        adapter.appendItems(rows);
+    }
+
     @Override
     public void onItemClick(GalleryItem item, int position) {
         if (isSelectionMode) {
@@ -406,7 +378,6 @@ public class TripGalleryFragment extends Fragment implements GalleryAdapter.OnIt
         }
 
         stopSelectionMode();
-        loadGalleryItems();
         Toast.makeText(requireContext(), "Items deleted", Toast.LENGTH_SHORT).show();
     }
 }
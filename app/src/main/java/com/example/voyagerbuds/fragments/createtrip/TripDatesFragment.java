@@ -17,8 +17,10 @@ import androidx.fragment.app.Fragment;
 
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.TripRepository;
 import com.example.voyagerbuds.models.Trip;
 import com.example.voyagerbuds.utils.BookedDateDecorator;
+import com.example.voyagerbuds.utils.DateRangeIndex;
 import com.example.voyagerbuds.utils.DateValidatorBlockTrips;
 import com.example.voyagerbuds.utils.UserSessionManager;
 import com.google.android.material.datepicker.CalendarConstraints;
@@ -47,6 +49,7 @@ public class TripDatesFragment extends Fragment {
     private OnTripDatesEnteredListener listener;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
     private DatabaseHelper databaseHelper;
+    private TripRepository tripRepository;
 
     public interface OnTripDatesEnteredListener {
         void onTripDatesEntered(String startDate, String endDate);
@@ -64,7 +67,8 @@ public class TripDatesFragment extends Fragment {
             @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_trip_dates, container, false);
 
-        databaseHelper = new DatabaseHelper(getContext());
+        databaseHelper = DatabaseHelper.getInstance(getContext());
+        tripRepository = TripRepository.getInstance(getContext());
 
         etStartDate = view.findViewById(R.id.et_start_date);
         etEndDate = view.findViewById(R.id.et_end_date);
@@ -111,7 +115,7 @@ public class TripDatesFragment extends Fragment {
         validators.add(DateValidatorPointForward.now());
 
         // We still block the dates so they are unselectable
-        List<Long> blockedRanges = getBlockedDateRanges();
+        DateRangeIndex blockedRanges = getBlockedDateRanges();
         validators.add(new DateValidatorBlockTrips(blockedRanges));
 
         constraintsBuilder.setValidator(CompositeDateValidator.allOf(validators));
@@ -143,12 +147,18 @@ public class TripDatesFragment extends Fragment {
         picker.show(getParentFragmentManager(), "date_picker");
     }
 
-    private List<Long> getBlockedDateRanges() {
-        List<Long> ranges = new ArrayList<>();
+    /**
+     * Date ranges of the user's trips, merged and sorted for the picker's
+     * validator and decorator to share
+     */
+    private DateRangeIndex getBlockedDateRanges() {
         int userId = com.example.voyagerbuds.utils.UserSessionManager.getCurrentUserId(requireContext());
         if (userId == -1)
-            return ranges;
-        List<Trip> trips = databaseHelper.getAllTrips(userId);
+            return new DateRangeIndex(new long[0], new long[0], 0);
+        List<Trip> trips = tripRepository.getTrips(userId);
+        long[] starts = new long[trips.size()];
+        long[] ends = new long[trips.size()];
+        int count = 0;
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
         sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
 
@@ -162,14 +172,15 @@ public class TripDatesFragment extends Fragment {
                 Date start = sdf.parse(trip.getStartDate());
                 Date end = sdf.parse(trip.getEndDate());
                 if (start != null && end != null) {
-                    ranges.add(start.getTime());
-                    ranges.add(end.getTime());
+                    starts[count] = start.getTime();
+                    ends[count] = end.getTime();
+                    count++;
                 }
             } catch (ParseException e) {
                 e.printStackTrace();
             }
         }
-        return ranges;
+        return new DateRangeIndex(starts, ends, count);
     }
 
     private boolean validateInput(String startDate, String endDate) {
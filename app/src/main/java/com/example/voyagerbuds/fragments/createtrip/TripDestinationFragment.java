@@ -24,6 +24,8 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.voyagerbuds.R;
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.TaskScope;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -33,8 +35,6 @@ import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -52,7 +52,8 @@ public class TripDestinationFragment extends Fragment {
     private String initialBudget;
     private String initialCurrency;
 
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    // Suggestion requests, cancelled when the view is destroyed
+    private TaskScope viewTasks;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private ArrayAdapter<String> suggestionAdapter;
     private Runnable searchRunnable;
@@ -73,6 +74,7 @@ public class TripDestinationFragment extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_trip_destination, container, false);
+        viewTasks = AppExecutors.scope(getViewLifecycleOwner());
 
         etDestination = view.findViewById(R.id.et_destination);
         etNotes = view.findViewById(R.id.et_notes);
@@ -193,7 +195,7 @@ public class TripDestinationFragment extends Fragment {
     }
 
     private void fetchSuggestions(String query) {
-        executorService.execute(() -> {
+        viewTasks.execute(AppExecutors.Pool.NETWORK, () -> {
             List<String> suggestions = new ArrayList<>();
             HttpURLConnection connection = null;
             try {
@@ -227,7 +229,7 @@ public class TripDestinationFragment extends Fragment {
                 }
             }
 
-            mainHandler.post(() -> {
+            viewTasks.post(() -> {
                 if (getContext() != null && !suggestions.isEmpty()) {
                     suggestionAdapter.clear();
                     suggestionAdapter.addAll(suggestions);
@@ -0,0 +1,113 @@
+package com.example.voyagerbuds.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BudgetLedger holds a trip's running expense aggregates, read from the
+ * ExpenseLedger summary table instead of rescanning every expense
+ */
+public class BudgetLedger {
+    public static final String UNCATEGORIZED = "Uncategorized";
+
+    private double total;
+    private int expenseCount;
+    private double highestAmount;
+    private int highestExpenseId = -1;
+    // Spend of expenses saved without a currency
+    private double noCurrencyTotal;
+    private final Map<String, Double> totalsByCategory = new HashMap<>();
+    private final Map<String, Double> totalsByCurrency = new HashMap<>();
+
+    /**
+     * Sum of all expense amounts, regardless of currency
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    public void setTotal(double total) {
+        this.total = total;
+    }
+
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(int expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public double getAverageAmount() {
+        return expenseCount == 0 ? 0.0 : total / expenseCount;
+    }
+
+    public double getHighestAmount() {
+        return highestAmount;
+    }
+
+    /**
+     * ID of the expense with the highest amount, or -1 if there are none
+     */
+    public int getHighestExpenseId() {
+        return highestExpenseId;
+    }
+
+    public void setHighest(int expenseId, double amount) {
+        this.highestExpenseId = expenseId;
+        this.highestAmount = amount;
+    }
+
+    public double getNoCurrencyTotal() {
+        return noCurrencyTotal;
+    }
+
+    public void setNoCurrencyTotal(double noCurrencyTotal) {
+        this.noCurrencyTotal = noCurrencyTotal;
+    }
+
+    /**
+     * Total expense amount per category; expenses without one are under
+     * {@link #UNCATEGORIZED}
+     */
+    public Map<String, Double> getTotalsByCategory() {
+        return totalsByCategory;
+    }
+
+    /**
+     * Total expense amount per currency code
+     */
+    public Map<String, Double> getTotalsByCurrency() {
+        return totalsByCurrency;
+    }
+
+    /**
+     * Category with the highest total, or null if there are no expenses
+     */
+    public String getMostExpensiveCategory() {
+        String mostExpensive = null;
+        double highestTotal = 0.0;
+        for (Map.Entry<String, Double> entry : totalsByCategory.entrySet()) {
+            if (entry.getValue() > highestTotal) {
+                highestTotal = entry.getValue();
+                mostExpensive = entry.getKey();
+            }
+        }
+        return mostExpensive;
+    }
+
+    public double getRemaining(double budget) {
+        return budget - total;
+    }
+
+    public boolean isOverBudget(double budget) {
+        return total > budget;
+    }
+
+    /**
+     * Percentage of the budget spent (0-100+), or 0 without a budget
+     */
+    public double getUtilization(double budget) {
+        return budget <= 0 ? 0.0 : (total / budget) * 100;
+    }
+}
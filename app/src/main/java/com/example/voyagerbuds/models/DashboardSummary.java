@@ -0,0 +1,45 @@
+package com.example.voyagerbuds.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DashboardSummary holds a user's trip count, destination visit counts and
+ * budget and spend per currency, read from the DashboardSummary table
+ */
+public class DashboardSummary {
+    private int tripCount;
+    private final Map<String, Integer> visitsByDestination = new HashMap<>();
+    private final Map<String, Double> budgetByCurrency = new HashMap<>();
+    private final Map<String, Double> spentByCurrency = new HashMap<>();
+
+    public int getTripCount() {
+        return tripCount;
+    }
+
+    public void setTripCount(int tripCount) {
+        this.tripCount = tripCount;
+    }
+
+    /**
+     * Number of trips per destination
+     */
+    public Map<String, Integer> getVisitsByDestination() {
+        return visitsByDestination;
+    }
+
+    /**
+     * Total trip budget per currency code
+     */
+    public Map<String, Double> getBudgetByCurrency() {
+        return budgetByCurrency;
+    }
+
+    /**
+     * Total expense amount per currency code; expenses without a currency
+     * count in their trip's currency
+     */
+    public Map<String, Double> getSpentByCurrency() {
+        return spentByCurrency;
+    }
+}
@@ -4,6 +4,7 @@ public class GalleryItem {
     private String imagePath;
     private int itemId; // Can be scheduleId or expenseId
     private int itemType; // 0 = schedule, 1 = expense
+    private String mediaType; // "photo" or "video", null when unknown
     private long date;
     private String dayLabel;
     private boolean isSelected;
@@ -13,7 +14,12 @@ public class GalleryItem {
     }
 
     public GalleryItem(String imagePath, int itemId, int itemType, String dayLabel, long date) {
+        this(imagePath, itemId, itemType, dayLabel, date, null);
+    }
+
+    public GalleryItem(String imagePath, int itemId, int itemType, String dayLabel, long date, String mediaType) {
         this.imagePath = imagePath;
+        this.mediaType = mediaType;
         this.itemId = itemId;
         this.itemType = itemType;
         this.date = date;
@@ -37,6 +43,10 @@ public class GalleryItem {
         return itemType;
     }
 
+    public String getMediaType() {
+        return mediaType;
+    }
+
     public long getDate() {
         return date;
     }
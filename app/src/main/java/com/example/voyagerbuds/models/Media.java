@@ -0,0 +1,90 @@
+package com.example.voyagerbuds.models;
+
+/**
+ * Media model represents one image or video attached to a trip, whether it
+ * belongs to a schedule item, an expense or a capture.
+ * Rows are derived from the owners' image_paths / media_path columns so
+ * galleries can be read without parsing JSON.
+ */
+public class Media {
+    // Owner types, matching GalleryItem item types
+    public static final int OWNER_SCHEDULE = 0;
+    public static final int OWNER_EXPENSE = 1;
+    public static final int OWNER_CAPTURE = 2;
+
+    private int mediaId;
+    private int ownerType;
+    private int ownerId;
+    private int tripId;
+    private String path;
+    private String mediaType; // "photo" or "video"
+    private String caption; // Schedule title, expense category or capture description
+    private long takenAt; // Timestamp used for ordering, in milliseconds
+
+    public Media() {
+    }
+
+    public int getMediaId() {
+        return mediaId;
+    }
+
+    public void setMediaId(int mediaId) {
+        this.mediaId = mediaId;
+    }
+
+    public int getOwnerType() {
+        return ownerType;
+    }
+
+    public void setOwnerType(int ownerType) {
+        this.ownerType = ownerType;
+    }
+
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(int ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public int getTripId() {
+        return tripId;
+    }
+
+    public void setTripId(int tripId) {
+        this.tripId = tripId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getCaption() {
+        return caption;
+    }
+
+    public void setCaption(String caption) {
+        this.caption = caption;
+    }
+
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(long takenAt) {
+        this.takenAt = takenAt;
+    }
+}
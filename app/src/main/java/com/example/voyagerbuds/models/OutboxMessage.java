@@ -0,0 +1,81 @@
+package com.example.voyagerbuds.models;
+
+/**
+ * OutboxMessage is an email waiting in the outbox to be sent, kept in the
+ * database so it survives the app being killed before it goes out.
+ */
+public class OutboxMessage {
+    private long messageId;
+    private String recipient;
+    private String subject;
+    private String body;
+    private int attempts; // Failed send attempts so far
+    private String lastError;
+    private long createdAt;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String recipient, String subject, String body) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(long messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.voyagerbuds.models;
 
+import com.example.voyagerbuds.utils.DateUtils;
+
 import java.io.Serializable;
 
 public class ScheduleItem implements Serializable {
@@ -20,6 +22,10 @@ public class ScheduleItem implements Serializable {
     private int notifyBeforeMinutes; // 0 means no notification
     private long createdAt;
     private long updatedAt;
+    // Integer forms of day/startTime/endTime, derived on first use
+    private Long epochDay;
+    private Integer startMinute;
+    private Integer endMinute;
 
     public ScheduleItem() {
     }
@@ -46,6 +52,7 @@ public class ScheduleItem implements Serializable {
 
     public void setDay(String day) {
         this.day = day;
+        this.epochDay = null;
     }
 
     public String getStartTime() {
@@ -54,6 +61,7 @@ public class ScheduleItem implements Serializable {
 
     public void setStartTime(String startTime) {
         this.startTime = startTime;
+        this.startMinute = null;
     }
 
     public String getEndTime() {
@@ -62,6 +70,50 @@ public class ScheduleItem implements Serializable {
 
     public void setEndTime(String endTime) {
         this.endTime = endTime;
+        this.endMinute = null;
+    }
+
+    /**
+     * Day as days since 1970-01-01, or DateUtils.NO_EPOCH_DAY when the day is
+     * not a yyyy-MM-dd date
+     */
+    public long getEpochDay() {
+        if (epochDay == null) {
+            epochDay = DateUtils.toEpochDay(day);
+        }
+        return epochDay;
+    }
+
+    public void setEpochDay(long epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    /**
+     * Start time as minutes since midnight, or DateUtils.NO_MINUTE
+     */
+    public int getStartMinute() {
+        if (startMinute == null) {
+            startMinute = DateUtils.toMinuteOfDay(startTime);
+        }
+        return startMinute;
+    }
+
+    public void setStartMinute(int startMinute) {
+        this.startMinute = startMinute;
+    }
+
+    /**
+     * End time as minutes since midnight, or DateUtils.NO_MINUTE
+     */
+    public int getEndMinute() {
+        if (endMinute == null) {
+            endMinute = DateUtils.toMinuteOfDay(endTime);
+        }
+        return endMinute;
+    }
+
+    public void setEndMinute(int endMinute) {
+        this.endMinute = endMinute;
     }
 
     public String getTitle() {
@@ -0,0 +1,86 @@
+package com.example.voyagerbuds.models;
+
+/**
+ * SearchResult model represents one full-text search hit: a trip, schedule
+ * item, expense or capture matching the query.
+ * Title and snippet carry {@link #MATCH_START} / {@link #MATCH_END} around
+ * the matched terms so the UI can highlight them.
+ */
+public class SearchResult {
+    // Result types
+    public static final int TYPE_TRIP = 0;
+    public static final int TYPE_SCHEDULE = 1;
+    public static final int TYPE_EXPENSE = 2;
+    public static final int TYPE_CAPTURE = 3;
+
+    // Highlight markers around matched terms
+    public static final String MATCH_START = "\u0001";
+    public static final String MATCH_END = "\u0002";
+
+    private int type;
+    private int ownerId; // tripId, scheduleId, expenseId or captureId depending on type
+    private int tripId;
+    private String title;
+    private String snippet;
+    private String tripName;
+    private double score;
+
+    public SearchResult() {
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public void setType(int type) {
+        this.type = type;
+    }
+
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(int ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public int getTripId() {
+        return tripId;
+    }
+
+    public void setTripId(int tripId) {
+        this.tripId = tripId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    public String getTripName() {
+        return tripName;
+    }
+
+    public void setTripName(String tripName) {
+        this.tripName = tripName;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.voyagerbuds.models;
 
+import com.example.voyagerbuds.utils.DateUtils;
+
 import java.io.Serializable;
 
 public class Trip implements Serializable {
@@ -22,6 +24,9 @@ public class Trip implements Serializable {
     private double budget;
     private String budgetCurrency;
     private String participants;
+    // Integer forms of startDate/endDate (days since epoch), derived on first use
+    private Long startEpochDay;
+    private Long endEpochDay;
 
     public Trip() {
     }
@@ -83,6 +88,7 @@ public class Trip implements Serializable {
 
     public void setStartDate(String startDate) {
         this.startDate = startDate;
+        this.startEpochDay = null;
     }
 
     public String getEndDate() {
@@ -91,6 +97,45 @@ public class Trip implements Serializable {
 
     public void setEndDate(String endDate) {
         this.endDate = endDate;
+        this.endEpochDay = null;
+    }
+
+    /**
+     * Start date as days since 1970-01-01, or DateUtils.NO_EPOCH_DAY if unset
+     */
+    public long getStartEpochDay() {
+        if (startEpochDay == null) {
+            startEpochDay = DateUtils.toEpochDay(startDate);
+        }
+        return startEpochDay;
+    }
+
+    public void setStartEpochDay(long startEpochDay) {
+        this.startEpochDay = startEpochDay;
+    }
+
+    /**
+     * End date as days since 1970-01-01, or DateUtils.NO_EPOCH_DAY if unset
+     */
+    public long getEndEpochDay() {
+        if (endEpochDay == null) {
+            endEpochDay = DateUtils.toEpochDay(endDate);
+        }
+        return endEpochDay;
+    }
+
+    public void setEndEpochDay(long endEpochDay) {
+        this.endEpochDay = endEpochDay;
+    }
+
+    /**
+     * Whether the given epoch day falls within this trip, inclusive
+     */
+    public boolean coversEpochDay(long epochDay) {
+        long start = getStartEpochDay();
+        long end = getEndEpochDay();
+        return start != DateUtils.NO_EPOCH_DAY && end != DateUtils.NO_EPOCH_DAY && epochDay >= start
+                && epochDay <= end;
     }
 
     public String getDestination() {
@@ -0,0 +1,35 @@
+package com.example.voyagerbuds.models;
+
+/**
+ * TripCounts holds the number of schedules, expenses and captures of one trip
+ * Used for backup/restore comparisons without loading every row
+ */
+public class TripCounts {
+    private int scheduleCount;
+    private int expenseCount;
+    private int captureCount;
+
+    public int getScheduleCount() {
+        return scheduleCount;
+    }
+
+    public void setScheduleCount(int scheduleCount) {
+        this.scheduleCount = scheduleCount;
+    }
+
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(int expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public int getCaptureCount() {
+        return captureCount;
+    }
+
+    public void setCaptureCount(int captureCount) {
+        this.captureCount = captureCount;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.voyagerbuds.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * UserStats holds aggregate counts for a user's local data
+ * Used for backup/restore comparisons without loading every row
+ */
+public class UserStats {
+    private int tripCount;
+    private int scheduleCount;
+    private int expenseCount;
+    private int captureCount;
+    private final Map<String, Double> spendByCurrency = new HashMap<>();
+
+    public int getTripCount() {
+        return tripCount;
+    }
+
+    public void setTripCount(int tripCount) {
+        this.tripCount = tripCount;
+    }
+
+    public int getScheduleCount() {
+        return scheduleCount;
+    }
+
+    public void setScheduleCount(int scheduleCount) {
+        this.scheduleCount = scheduleCount;
+    }
+
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(int expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public int getCaptureCount() {
+        return captureCount;
+    }
+
+    public void setCaptureCount(int captureCount) {
+        this.captureCount = captureCount;
+    }
+
+    /**
+     * Total expense amount per currency code
+     */
+    public Map<String, Double> getSpendByCurrency() {
+        return spendByCurrency;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.voyagerbuds.receivers;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.example.voyagerbuds.services.AlarmRefreshWorker;
+
+/**
+ * Re-arms schedule reminders after a reboot, which clears every alarm, and
+ * after a time zone change, which moves their local trigger times.
+ */
+public class AlarmRefreshReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "AlarmRefreshReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action) || Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            Log.d(TAG, "Refreshing alarms after " + action);
+            WorkManager.getInstance(context).enqueueUniqueWork(
+                    "AlarmRefreshNow",
+                    ExistingWorkPolicy.REPLACE,
+                    OneTimeWorkRequest.from(AlarmRefreshWorker.class));
+        }
+    }
+}
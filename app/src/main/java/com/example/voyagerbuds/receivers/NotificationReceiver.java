@@ -15,6 +15,10 @@ import androidx.preference.PreferenceManager;
 
 import com.example.voyagerbuds.R;
 import com.example.voyagerbuds.activities.HomeActivity;
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.models.ScheduleItem;
+import com.example.voyagerbuds.services.AlarmReconciler;
+import com.example.voyagerbuds.utils.AppExecutors;
 
 public class NotificationReceiver extends BroadcastReceiver {
 
@@ -33,10 +37,33 @@ public class NotificationReceiver extends BroadcastReceiver {
             return;
         }
 
-        String title = intent.getStringExtra(EXTRA_TITLE);
-        String message = intent.getStringExtra(EXTRA_MESSAGE);
         int scheduleId = intent.getIntExtra(EXTRA_SCHEDULE_ID, -1);
+        PendingResult pendingResult = goAsync();
+        AppExecutors.db().execute(() -> {
+            try {
+                // Read the schedule as it is now; the extras are from when the
+                // alarm was armed and are only used if it cannot be read
+                String title = intent.getStringExtra(EXTRA_TITLE);
+                String message = intent.getStringExtra(EXTRA_MESSAGE);
+                if (scheduleId != -1) {
+                    ScheduleItem item = DatabaseHelper.getInstance(context).getScheduleById(scheduleId);
+                    if (item == null || item.getNotifyBeforeMinutes() <= 0) {
+                        // Deleted or reminder turned off after the alarm was armed
+                        return;
+                    }
+                    title = "Upcoming Event: " + item.getTitle();
+                    message = "Event starts at " + item.getStartTime();
+                }
+                showNotification(context, scheduleId, title, message);
+            } finally {
+                // Forget the fired alarm and arm the next ones in the window
+                AlarmReconciler.getInstance(context).requestReconcile(false);
+                pendingResult.finish();
+            }
+        });
+    }
 
+    private void showNotification(Context context, int scheduleId, String title, String message) {
         createNotificationChannel(context);
 
         Intent openAppIntent = new Intent(context, HomeActivity.class);
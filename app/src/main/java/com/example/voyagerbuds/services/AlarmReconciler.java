@@ -0,0 +1,157 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.InvalidationTracker;
+import com.example.voyagerbuds.database.dao.AlarmRegistryDao;
+import com.example.voyagerbuds.models.ScheduleItem;
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.NotificationHelper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the schedule reminders armed with AlarmManager in line with the
+ * database. Only reminders due within the next {@link #WINDOW_MILLIS} are
+ * armed; later ones are picked up by {@link AlarmRefreshWorker} as the window
+ * moves. Armed alarms are recorded in the AlarmRegistry table, so each pass
+ * compares what should be armed with what is, and only registers or cancels
+ * the alarms that differ.
+ * Passes run after every schedule write, and after trip deletes and restores
+ * since they also write schedules.
+ */
+public class AlarmReconciler {
+    private static final String TAG = "AlarmReconciler";
+
+    // Reminders further ahead than this are left for a later pass
+    public static final long WINDOW_MILLIS = TimeUnit.HOURS.toMillis(48);
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private static AlarmReconciler instance;
+
+    private final Context context;
+    private final DatabaseHelper databaseHelper;
+    // Passes run one at a time; requests made while one is queued join it
+    private final Executor executor = AppExecutors.serial(AppExecutors.Pool.DB);
+    private final AtomicBoolean passQueued = new AtomicBoolean(false);
+    private volatile boolean verifyQueued = false;
+
+    public static synchronized AlarmReconciler getInstance(Context context) {
+        if (instance == null) {
+            instance = new AlarmReconciler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AlarmReconciler(Context context) {
+        this.context = context;
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        databaseHelper.getInvalidationTracker().addObserver((table, tripId) -> {
+            if (InvalidationTracker.SCHEDULES.equals(table)) {
+                requestReconcile(false);
+            }
+        });
+    }
+
+    /**
+     * Queue a reconcile pass on a background thread
+     *
+     * @param verify Also check that the system still holds every alarm the
+     *               registry lists, which it does not after a reboot or force
+     *               stop. Costs one system call per armed alarm.
+     */
+    public void requestReconcile(boolean verify) {
+        if (verify) {
+            verifyQueued = true;
+        }
+        if (passQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                passQueued.set(false);
+                boolean verifyPass = verifyQueued;
+                verifyQueued = false;
+                reconcile(verifyPass);
+            });
+        }
+    }
+
+    /**
+     * Arm and cancel alarms so that exactly the reminders due within the
+     * window are armed. Runs on the calling thread, which must not be the main
+     * thread.
+     *
+     * @param verify See {@link #requestReconcile(boolean)}
+     */
+    public synchronized void reconcile(boolean verify) {
+        long now = System.currentTimeMillis();
+        long windowEnd = now + WINDOW_MILLIS;
+
+        // Reminders that should be armed. The query works in local minutes;
+        // a day of slack either side covers DST shifts, and the exact check
+        // is done on the trigger time.
+        LocalDateTime localNow = LocalDateTime.now();
+        long nowMinute = localNow.toLocalDate().toEpochDay() * MINUTES_PER_DAY
+                + localNow.toLocalTime().toSecondOfDay() / 60;
+        List<ScheduleItem> candidates = databaseHelper.getScheduleDao().getRemindersBetween(
+                nowMinute - MINUTES_PER_DAY, nowMinute + TimeUnit.MILLISECONDS.toMinutes(WINDOW_MILLIS)
+                        + MINUTES_PER_DAY);
+        Map<Integer, ScheduleItem> wanted = new HashMap<>();
+        Map<Integer, Long> wantedTriggers = new HashMap<>();
+        for (ScheduleItem item : candidates) {
+            long triggerAt = NotificationHelper.getTriggerAtMillis(item);
+            if (triggerAt > now && triggerAt <= windowEnd) {
+                wanted.put(item.getId(), item);
+                wantedTriggers.put(item.getId(), triggerAt);
+            }
+        }
+
+        AlarmRegistryDao registry = databaseHelper.getAlarmRegistryDao();
+        Map<Integer, Long> armed = registry.getAll();
+        Map<Integer, Long> registered = new HashMap<>();
+        List<Integer> removed = new ArrayList<>();
+        int cancelled = 0;
+        int kept = 0;
+
+        for (Map.Entry<Integer, Long> alarm : armed.entrySet()) {
+            int scheduleId = alarm.getKey();
+            Long triggerAt = wantedTriggers.get(scheduleId);
+            if (alarm.getValue() <= now) {
+                // Already fired; forget it and arm again below if it was moved
+                removed.add(scheduleId);
+            } else if (triggerAt == null) {
+                NotificationHelper.cancelAlarm(context, scheduleId);
+                removed.add(scheduleId);
+                cancelled++;
+            } else if (triggerAt.longValue() == alarm.getValue()
+                    && (!verify || NotificationHelper.isAlarmRegistered(context, scheduleId))) {
+                // Armed for the right time; the receiver reads the current
+                // title, so nothing to do
+                wanted.remove(scheduleId);
+                kept++;
+            }
+        }
+
+        // Whatever is left is missing or armed for the wrong time
+        for (ScheduleItem item : wanted.values()) {
+            long triggerAt = wantedTriggers.get(item.getId());
+            if (NotificationHelper.registerAlarm(context, item, triggerAt)) {
+                registered.put(item.getId(), triggerAt);
+            }
+        }
+        removed.removeAll(registered.keySet());
+        registry.apply(registered, removed);
+
+        if (!registered.isEmpty() || cancelled > 0) {
+            Log.d(TAG, "Armed " + registered.size() + ", cancelled " + cancelled + ", kept " + kept);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Periodic pass of {@link AlarmReconciler}. Arms reminders that have moved
+ * into the window since the last pass, and re-arms any the system dropped
+ * after a reboot or force stop.
+ */
+public class AlarmRefreshWorker extends Worker {
+
+    public AlarmRefreshWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        AlarmReconciler.getInstance(getApplicationContext()).reconcile(true);
+        return Result.success();
+    }
+}
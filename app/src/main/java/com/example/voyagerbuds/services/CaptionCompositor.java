@@ -0,0 +1,264 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.voyagerbuds.R;
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.ImageUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Draws a caption onto a photo and saves the result, within a bounded amount
+ * of memory. The photo is decoded with a power-of-two sample that leaves its
+ * long edge under 1.5 times the output size, then drawn upright into the
+ * output bitmap in one pass. So at most the decode (up to 2.25 times the
+ * output's pixels) and the output exist at once, whatever the camera
+ * resolution. A photo whose sampled long edge falls a little short of the
+ * output size is saved at that size rather than scaled up.
+ */
+public class CaptionCompositor {
+    // Longest edge of the saved image, in pixels
+    public static final int DEFAULT_MAX_OUTPUT_SIZE = 4096;
+    // Smallest sampled long edge accepted, as a fraction of the output size
+    private static final float MIN_SAMPLED_FRACTION = 0.75f;
+    private static final int JPEG_QUALITY = 95;
+
+    private final Context context;
+    private final int maxOutputSize;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Callback interface for composing results, called on the main thread
+     */
+    public interface Callback {
+        void onProgress(int percent);
+
+        void onComplete(String outputPath);
+
+        void onError(Exception e);
+    }
+
+    public CaptionCompositor(Context context) {
+        this(context, DEFAULT_MAX_OUTPUT_SIZE);
+    }
+
+    /**
+     * @param context       Context for reading and writing the image
+     * @param maxOutputSize Longest edge of the saved image, in pixels
+     */
+    public CaptionCompositor(Context context, int maxOutputSize) {
+        this.context = context.getApplicationContext();
+        this.maxOutputSize = maxOutputSize;
+    }
+
+    /**
+     * Draw a caption onto an image in the background. A content URI is
+     * overwritten in place; a file path gets a "_with_caption" copy.
+     *
+     * @param imagePath The path or URI of the image
+     * @param caption   The caption text
+     * @param callback  Callback for progress and the path of the result
+     */
+    public void compose(String imagePath, String caption, Callback callback) {
+        AppExecutors.cpu().execute(() -> {
+            try {
+                String outputPath = composeSync(imagePath, caption,
+                        percent -> mainHandler.post(() -> callback.onProgress(percent)));
+                mainHandler.post(() -> callback.onComplete(outputPath));
+            } catch (Exception | OutOfMemoryError e) {
+                Exception error = e instanceof Exception ? (Exception) e : new IOException(e);
+                mainHandler.post(() -> callback.onError(error));
+            }
+        });
+    }
+
+    /**
+     * Progress listener for {@link #composeSync}, called on the composing
+     * thread
+     */
+    public interface ProgressListener {
+        void onProgress(int percent);
+    }
+
+    /**
+     * Draw a caption onto an image (blocking call, use in background thread)
+     *
+     * @return Path or URI of the captioned image
+     */
+    public String composeSync(String imagePath, String caption, ProgressListener progress) throws IOException {
+        Uri uri = imagePath.startsWith("content://") || imagePath.startsWith("file://")
+                ? Uri.parse(imagePath)
+                : Uri.fromFile(new File(imagePath));
+        progress.onProgress(0);
+
+        // Read the size only, then decode sampled down to about the output size
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream input = context.getContentResolver().openInputStream(uri)) {
+            BitmapFactory.decodeStream(input, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Cannot read image " + imagePath);
+        }
+        int degrees = ImageUtils.getRotationDegrees(context, uri);
+        boolean sideways = degrees == 90 || degrees == 270;
+
+        options.inSampleSize = sampleSize(Math.max(options.outWidth, options.outHeight));
+        options.inJustDecodeBounds = false;
+        // Drawn on directly when it needs neither rotating nor scaling
+        options.inMutable = true;
+        Bitmap decoded;
+        try (InputStream input = context.getContentResolver().openInputStream(uri)) {
+            decoded = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Cannot decode image " + imagePath);
+        }
+        progress.onProgress(40);
+
+        int uprightWidth = sideways ? decoded.getHeight() : decoded.getWidth();
+        int uprightHeight = sideways ? decoded.getWidth() : decoded.getHeight();
+        float outputScale = Math.min(1f, (float) maxOutputSize / Math.max(uprightWidth, uprightHeight));
+        int width = Math.max(1, Math.round(uprightWidth * outputScale));
+        int height = Math.max(1, Math.round(uprightHeight * outputScale));
+
+        Bitmap output;
+        if (degrees == 0 && decoded.getWidth() == width && decoded.getHeight() == height && decoded.isMutable()) {
+            output = decoded;
+        } else {
+            // Rotate and scale while drawing, instead of through intermediate copies
+            output = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            Matrix matrix = new Matrix();
+            matrix.postRotate(degrees);
+            switch (degrees) {
+                case 90:
+                    matrix.postTranslate(decoded.getHeight(), 0);
+                    break;
+                case 180:
+                    matrix.postTranslate(decoded.getWidth(), decoded.getHeight());
+                    break;
+                case 270:
+                    matrix.postTranslate(0, decoded.getWidth());
+                    break;
+            }
+            matrix.postScale((float) width / (sideways ? decoded.getHeight() : decoded.getWidth()),
+                    (float) height / (sideways ? decoded.getWidth() : decoded.getHeight()));
+            new Canvas(output).drawBitmap(decoded, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+            decoded.recycle();
+        }
+        progress.onProgress(60);
+
+        drawCaption(new Canvas(output), width, height, caption);
+        progress.onProgress(70);
+
+        try {
+            String outputPath = write(imagePath, uri, output);
+            progress.onProgress(100);
+            return outputPath;
+        } finally {
+            output.recycle();
+        }
+    }
+
+    /**
+     * Largest power-of-two sample that keeps the long edge at least
+     * {@link #MIN_SAMPLED_FRACTION} of the output size, so the decode is never
+     * more than 1.5 times the output size along each edge
+     */
+    int sampleSize(int longEdge) {
+        int sample = 1;
+        while (longEdge / (sample * 2) >= maxOutputSize * MIN_SAMPLED_FRACTION) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private void drawCaption(Canvas canvas, int width, int height, String caption) {
+        // Scale values proportionally to image width
+        // Padding ~12dp (0.04 of width)
+        int padding = (int) (width * 0.04f);
+        // Bottom margin ~24dp (0.04 of height)
+        int bottomMargin = (int) (height * 0.04f);
+
+        // Text size proportional to image width (14sp on ~360dp width = ~4.5%)
+        float textSize = width * 0.045f;
+        // Setup text paint
+        TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(textSize);
+        textPaint.setTextAlign(Paint.Align.LEFT); // Required for StaticLayout alignment
+
+        // Calculate max text width (e.g., 80% of image width to leave margins)
+        int maxTextWidth = (int) (width * 0.8f);
+
+        // Create StaticLayout with max width to determine line breaks
+        StaticLayout textLayout = StaticLayout.Builder.obtain(caption, 0, caption.length(), textPaint, maxTextWidth)
+                .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                .setIncludePad(false)
+                .build();
+
+        // Calculate actual text width by finding the widest line
+        float maxLineWidth = 0;
+        for (int i = 0; i < textLayout.getLineCount(); i++) {
+            maxLineWidth = Math.max(maxLineWidth, textLayout.getLineWidth(i));
+        }
+
+        // Background is the text plus padding, fully rounded, centered near the bottom
+        int bgWidth = (int) (maxLineWidth + (padding * 2));
+        int bgHeight = textLayout.getHeight() + (padding * 2);
+        float cornerRadius = bgHeight / 2f;
+        int bgLeft = (width - bgWidth) / 2;
+        int bgTop = height - bottomMargin - bgHeight;
+
+        Paint bgPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        bgPaint.setColor(ContextCompat.getColor(context, R.color.caption_background));
+        canvas.drawRoundRect(new RectF(bgLeft, bgTop, bgLeft + bgWidth, bgTop + bgHeight),
+                cornerRadius, cornerRadius, bgPaint);
+
+        // The layout centers each line within maxTextWidth, so center that box
+        canvas.save();
+        canvas.translate((width - maxTextWidth) / 2f, bgTop + padding);
+        textLayout.draw(canvas);
+        canvas.restore();
+    }
+
+    private String write(String imagePath, Uri uri, Bitmap bitmap) throws IOException {
+        if (imagePath.startsWith("content://")) {
+            // Update the existing URI content
+            try (OutputStream out = context.getContentResolver().openOutputStream(uri, "wt")) {
+                if (out == null) {
+                    throw new IOException("Cannot write " + imagePath);
+                }
+                bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+            return imagePath; // Keep the same URI
+        }
+
+        // For file path, create new file
+        String newPath = imagePath.replace(".jpg", "_with_caption.jpg");
+        try (OutputStream out = new FileOutputStream(newPath)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        }
+        return newPath;
+    }
+}
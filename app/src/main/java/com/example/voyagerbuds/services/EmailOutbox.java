@@ -0,0 +1,66 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.models.OutboxMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues emails in the Outbox table and has {@link EmailOutboxWorker} send
+ * them once there is a network. Failed sends are retried with exponential
+ * backoff, so an email is not lost when the first try fails or the app is
+ * killed before it goes out.
+ */
+public final class EmailOutbox {
+
+    private static final String WORK_NAME = "EmailOutboxWork";
+    // First retry delay; doubles with every failed attempt
+    private static final long INITIAL_BACKOFF_SECONDS = 30;
+    // Messages are dropped after this many failed attempts; the seven waits
+    // between them add up to about 64 minutes
+    static final int MAX_ATTEMPTS = 8;
+
+    private EmailOutbox() {
+    }
+
+    /**
+     * Queue one message per recipient and start sending. Writes to the
+     * database, so call it off the main thread.
+     */
+    public static void send(Context context, List<String> recipients, String subject, String body) {
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (String recipient : recipients) {
+            messages.add(new OutboxMessage(recipient, subject, body));
+        }
+        DatabaseHelper.getInstance(context).getOutboxDao().insertAll(messages);
+        schedule(context);
+    }
+
+    /**
+     * Start sending queued messages. The run is appended after any send that
+     * is queued, backing off or running, since a running send may already
+     * have found the table empty. A send waiting on its backoff still goes
+     * first, and as the worker drains the whole table, the appended run
+     * usually finds nothing left.
+     */
+    public static void schedule(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(EmailOutboxWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.dao.OutboxDao;
+import com.example.voyagerbuds.models.OutboxMessage;
+import com.example.voyagerbuds.utils.EmailSender;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.mail.Address;
+import javax.mail.SendFailedException;
+import javax.mail.internet.AddressException;
+
+/**
+ * Sends the messages queued by {@link EmailOutbox} in batches over reused
+ * SMTP connections. Messages that can never be sent, because their recipient
+ * is not a valid address, are dropped straight away; WorkManager retries with
+ * backoff while any other message fails.
+ */
+public class EmailOutboxWorker extends Worker {
+
+    private static final String TAG = "EmailOutboxWorker";
+    private static final int BATCH_SIZE = 20;
+
+    public EmailOutboxWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        OutboxDao outboxDao = DatabaseHelper.getInstance(getApplicationContext()).getOutboxDao();
+
+        while (!isStopped()) {
+            List<OutboxMessage> batch = outboxDao.getPending(BATCH_SIZE);
+            if (batch.isEmpty()) {
+                return Result.success();
+            }
+
+            Map<Long, Exception> errors = EmailSender.sendBatch(batch);
+            boolean retry = false;
+            for (OutboxMessage message : batch) {
+                Exception error = errors.get(message.getMessageId());
+                if (error == null) {
+                    Log.i(TAG, "Email sent to: " + message.getRecipient());
+                    outboxDao.delete(message.getMessageId());
+                } else if (isPermanent(error)) {
+                    Log.e(TAG, "Dropping email to invalid address: " + message.getRecipient(), error);
+                    outboxDao.delete(message.getMessageId());
+                } else if (message.getAttempts() + 1 >= EmailOutbox.MAX_ATTEMPTS) {
+                    Log.e(TAG, "Giving up on email to: " + message.getRecipient(), error);
+                    outboxDao.delete(message.getMessageId());
+                } else {
+                    outboxDao.recordFailure(message.getMessageId(), String.valueOf(error.getMessage()));
+                    retry = true;
+                }
+            }
+            if (retry) {
+                // Failed messages stay first in the queue, so wait before the
+                // next batch rather than sending them again straight away
+                return Result.retry();
+            }
+        }
+        return Result.retry();
+    }
+
+    /**
+     * Whether sending again cannot help: the recipient does not parse, or the
+     * server rejected every address of the message.
+     */
+    static boolean isPermanent(Exception error) {
+        if (error instanceof AddressException) {
+            return true;
+        }
+        if (error instanceof SendFailedException) {
+            SendFailedException failed = (SendFailedException) error;
+            return isEmpty(failed.getValidSentAddresses()) && isEmpty(failed.getValidUnsentAddresses())
+                    && !isEmpty(failed.getInvalidAddresses());
+        }
+        return false;
+    }
+
+    private static boolean isEmpty(Address[] addresses) {
+        return addresses == null || addresses.length == 0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the emergency inactivity check for the moment it is due instead
+ * of polling for it. The deadline is the last activity plus the chosen
+ * timeout, so one one-shot work chain is kept for it and replaced when
+ * activity or a settings change moves it. The chain fetches the location
+ * shortly before the deadline, then runs {@link EmergencyCheckWorker} at it.
+ */
+public final class EmergencyDeadlineScheduler {
+
+    private static final String TAG = "EmergencyDeadline";
+    static final String PREFS_NAME = "app_prefs";
+    static final String KEY_LAST_ACTIVITY = "last_activity_time";
+    static final String KEY_ALERT_ENABLED = "emergency_alert_enabled";
+    static final String KEY_TIMEOUT_INDEX = "emergency_timeout_index";
+    static final String KEY_EMERGENCY_CONTACTS = "emergency_contacts";
+    static final String KEY_LAST_ALERT_SENT = "last_alert_sent_time";
+    private static final String KEY_SCHEDULED_DEADLINE = "emergency_scheduled_deadline";
+
+    private static final String WORK_NAME = "EmergencyDeadlineWork";
+    // Periodic work used before the check was scheduled by deadline
+    private static final String LEGACY_WORK_NAME = "EmergencyCheckWork";
+
+    // How long before the deadline the location is fetched
+    static final long LOCATION_LEAD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    // Alerts repeat at most this often while the user stays inactive
+    static final long ALERT_REPEAT_MILLIS = TimeUnit.HOURS.toMillis(1);
+    // Activity that moves the deadline by less than this keeps the queued
+    // work; the check sees the newer activity and moves itself
+    private static final long RESCHEDULE_SLACK_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private EmergencyDeadlineScheduler() {
+    }
+
+    /**
+     * Record that the user was active now and push the deadline back
+     */
+    public static void recordActivity(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putLong(KEY_LAST_ACTIVITY, System.currentTimeMillis()).apply();
+        schedule(context, false);
+    }
+
+    /**
+     * Queue the check for the current deadline, or cancel it when alerts are
+     * off or there is nobody to alert. Call after changing any emergency
+     * setting.
+     *
+     * @param force Replace the queued check even if its deadline is close to
+     *              the new one
+     */
+    public static void schedule(Context context, boolean force) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        WorkManager workManager = WorkManager.getInstance(context);
+
+        if (!prefs.getBoolean(KEY_ALERT_ENABLED, true) || !hasContacts(prefs)) {
+            if (prefs.contains(KEY_SCHEDULED_DEADLINE)) {
+                workManager.cancelUniqueWork(WORK_NAME);
+                prefs.edit().remove(KEY_SCHEDULED_DEADLINE).apply();
+            }
+            return;
+        }
+        if (!prefs.contains(KEY_LAST_ACTIVITY)) {
+            prefs.edit().putLong(KEY_LAST_ACTIVITY, System.currentTimeMillis()).apply();
+        }
+
+        long deadline = getDeadline(prefs);
+        long scheduled = prefs.getLong(KEY_SCHEDULED_DEADLINE, 0);
+        if (!force && scheduled > 0 && deadline >= scheduled && deadline - scheduled < RESCHEDULE_SLACK_MILLIS) {
+            return;
+        }
+
+        long delay = Math.max(0, deadline - System.currentTimeMillis());
+        OneTimeWorkRequest locationRequest = new OneTimeWorkRequest.Builder(EmergencyLocationWorker.class)
+                .setInitialDelay(Math.max(0, delay - LOCATION_LEAD_MILLIS), TimeUnit.MILLISECONDS)
+                .build();
+        OneTimeWorkRequest checkRequest = new OneTimeWorkRequest.Builder(EmergencyCheckWorker.class)
+                .setInitialDelay(Math.min(delay, LOCATION_LEAD_MILLIS), TimeUnit.MILLISECONDS)
+                .build();
+        workManager.beginUniqueWork(WORK_NAME, ExistingWorkPolicy.REPLACE, locationRequest)
+                .then(checkRequest)
+                .enqueue();
+        prefs.edit().putLong(KEY_SCHEDULED_DEADLINE, deadline).apply();
+        Log.d(TAG, "Emergency check scheduled in " + TimeUnit.MILLISECONDS.toMinutes(delay) + " min");
+    }
+
+    /**
+     * Stop the periodic check that older versions enqueued
+     */
+    public static void cancelLegacyPolling(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(LEGACY_WORK_NAME);
+    }
+
+    /**
+     * Time the check is due: the timeout after the last activity, and not
+     * sooner than {@link #ALERT_REPEAT_MILLIS} after the last alert
+     */
+    static long getDeadline(SharedPreferences prefs) {
+        long lastActivity = prefs.getLong(KEY_LAST_ACTIVITY, System.currentTimeMillis());
+        long timeoutMillis = getTimeoutMillis(prefs.getInt(KEY_TIMEOUT_INDEX, 1)); // Default 24h
+        long lastAlertSent = prefs.getLong(KEY_LAST_ALERT_SENT, 0);
+        return Math.max(lastActivity + timeoutMillis, lastAlertSent + ALERT_REPEAT_MILLIS);
+    }
+
+    static long getTimeoutMillis(int index) {
+        switch (index) {
+            case 0:
+                return TimeUnit.HOURS.toMillis(12);
+            case 1:
+                return TimeUnit.HOURS.toMillis(24);
+            case 2:
+                return TimeUnit.HOURS.toMillis(48);
+            case 3:
+                return TimeUnit.HOURS.toMillis(72);
+            default:
+                return TimeUnit.HOURS.toMillis(24);
+        }
+    }
+
+    private static boolean hasContacts(SharedPreferences prefs) {
+        try {
+            return new org.json.JSONArray(prefs.getString(KEY_EMERGENCY_CONTACTS, "[]")).length() > 0;
+        } catch (org.json.JSONException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.voyagerbuds.services;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.ActivityCompat;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches the location shortly before the emergency deadline and stores it,
+ * so {@link EmergencyCheckWorker} can send the alert without waiting on it.
+ * Always succeeds, so the check that follows it runs regardless.
+ */
+public class EmergencyLocationWorker extends Worker {
+
+    private static final String TAG = "EmergencyLocationWorker";
+    private static final String KEY_LOCATION = "emergency_location";
+    private static final String KEY_LOCATION_TIME = "emergency_location_time";
+
+    public EmergencyLocationWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        if (!hasLocationPermission(context)) {
+            return Result.success();
+        }
+
+        FusedLocationProviderClient fusedLocationClient = LocationServices.getFusedLocationProviderClient(context);
+        Location location = null;
+        try {
+            // A fresh fix, with the whole lead time before the deadline to get it
+            location = Tasks.await(fusedLocationClient.getCurrentLocation(
+                    Priority.PRIORITY_BALANCED_POWER_ACCURACY, null), 30, TimeUnit.SECONDS);
+            if (location == null) {
+                location = Tasks.await(fusedLocationClient.getLastLocation(), 5, TimeUnit.SECONDS);
+            }
+        } catch (ExecutionException | InterruptedException | TimeoutException | SecurityException e) {
+            Log.e(TAG, "Failed to get location", e);
+        }
+
+        if (location != null) {
+            context.getSharedPreferences(EmergencyDeadlineScheduler.PREFS_NAME, Context.MODE_PRIVATE).edit()
+                    .putString(KEY_LOCATION, describe(location))
+                    .putLong(KEY_LOCATION_TIME, System.currentTimeMillis())
+                    .apply();
+        }
+        return Result.success();
+    }
+
+    /**
+     * Location stored by the last run, or null if there is none fetched
+     * within {@code maxAgeMillis}
+     */
+    static String getStoredLocation(SharedPreferences prefs, long maxAgeMillis) {
+        long fetchedAt = prefs.getLong(KEY_LOCATION_TIME, 0);
+        if (System.currentTimeMillis() - fetchedAt > maxAgeMillis) {
+            return null;
+        }
+        return prefs.getString(KEY_LOCATION, null);
+    }
+
+    static boolean hasLocationPermission(Context context) {
+        return ActivityCompat.checkSelfPermission(context,
+                Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED ||
+                ActivityCompat.checkSelfPermission(context,
+                        Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Coordinates and a Google Maps link, as put in the alert email
+     */
+    static String describe(Location location) {
+        return "Lat: " + location.getLatitude() + ", Lon: " + location.getLongitude()
+                + "\nMap: https://www.google.com/maps/search/?api=1&query="
+                + location.getLatitude() + "," + location.getLongitude();
+    }
+}
@@ -3,6 +3,8 @@ package com.example.voyagerbuds.services;
 import android.content.Context;
 
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.TripRepository;
+import com.example.voyagerbuds.models.BudgetLedger;
 import com.example.voyagerbuds.models.Expense;
 
 import java.util.ArrayList;
@@ -13,12 +15,16 @@ import java.util.Map;
 /**
  * Service class for handling Expense-related business logic.
  * Provides expense management, categorization, and analytics.
+ * Totals and analytics are read from the trip's BudgetLedger, which is kept up
+ * to date on every expense write.
  */
 public class ExpenseService {
     private final DatabaseHelper databaseHelper;
+    private final TripRepository tripRepository;
 
     public ExpenseService(Context context) {
-        this.databaseHelper = new DatabaseHelper(context);
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        this.tripRepository = TripRepository.getInstance(context);
     }
 
     /**
@@ -71,7 +77,17 @@ public class ExpenseService {
      * @return Total expense amount
      */
     public double getTotalExpenses(int tripId) {
-        return databaseHelper.getTotalExpensesForTrip(tripId);
+        return tripRepository.getTotalExpenses(tripId);
+    }
+
+    /**
+     * Get a trip's budget ledger
+     * 
+     * @param tripId The trip ID
+     * @return Expense totals by category and currency, count and highest expense
+     */
+    public BudgetLedger getBudgetLedger(int tripId) {
+        return tripRepository.getBudgetLedger(tripId);
     }
 
     /**
@@ -87,7 +103,7 @@ public class ExpenseService {
         for (Expense expense : allExpenses) {
             String category = expense.getCategory();
             if (category == null || category.isEmpty()) {
-                category = "Uncategorized";
+                category = BudgetLedger.UNCATEGORIZED;
             }
 
             if (!categoryMap.containsKey(category)) {
@@ -106,20 +122,7 @@ public class ExpenseService {
      * @return Map of category to total amount
      */
     public Map<String, Double> getTotalsByCategory(int tripId) {
-        List<Expense> allExpenses = getExpensesForTrip(tripId);
-        Map<String, Double> totals = new HashMap<>();
-
-        for (Expense expense : allExpenses) {
-            String category = expense.getCategory();
-            if (category == null || category.isEmpty()) {
-                category = "Uncategorized";
-            }
-
-            double currentTotal = totals.getOrDefault(category, 0.0);
-            totals.put(category, currentTotal + expense.getAmount());
-        }
-
-        return totals;
+        return new HashMap<>(getBudgetLedger(tripId).getTotalsByCategory());
     }
 
     /**
@@ -152,18 +155,11 @@ public class ExpenseService {
      * @return The expense with the highest amount, or null if no expenses
      */
     public Expense getHighestExpense(int tripId) {
-        List<Expense> expenses = getExpensesForTrip(tripId);
-        if (expenses.isEmpty()) {
+        int expenseId = getBudgetLedger(tripId).getHighestExpenseId();
+        if (expenseId == -1) {
             return null;
         }
-
-        Expense highest = expenses.get(0);
-        for (Expense expense : expenses) {
-            if (expense.getAmount() > highest.getAmount()) {
-                highest = expense;
-            }
-        }
-        return highest;
+        return databaseHelper.getExpenseById(expenseId);
     }
 
     /**
@@ -173,13 +169,7 @@ public class ExpenseService {
      * @return Average expense amount
      */
     public double getAverageExpense(int tripId) {
-        List<Expense> expenses = getExpensesForTrip(tripId);
-        if (expenses.isEmpty()) {
-            return 0.0;
-        }
-
-        double total = getTotalExpenses(tripId);
-        return total / expenses.size();
+        return getBudgetLedger(tripId).getAverageAmount();
     }
 
     /**
@@ -189,22 +179,7 @@ public class ExpenseService {
      * @return Category name with highest total, or null if no expenses
      */
     public String getMostExpensiveCategory(int tripId) {
-        Map<String, Double> totals = getTotalsByCategory(tripId);
-        if (totals.isEmpty()) {
-            return null;
-        }
-
-        String mostExpensive = null;
-        double highestTotal = 0.0;
-
-        for (Map.Entry<String, Double> entry : totals.entrySet()) {
-            if (entry.getValue() > highestTotal) {
-                highestTotal = entry.getValue();
-                mostExpensive = entry.getKey();
-            }
-        }
-
-        return mostExpensive;
+        return getBudgetLedger(tripId).getMostExpensiveCategory();
     }
 
     /**
@@ -241,8 +216,7 @@ public class ExpenseService {
      * @return true if expenses exceed budget
      */
     public boolean isOverBudget(int tripId, double budget) {
-        double total = getTotalExpenses(tripId);
-        return total > budget;
+        return getBudgetLedger(tripId).isOverBudget(budget);
     }
 
     /**
@@ -253,7 +227,6 @@ public class ExpenseService {
      * @return Remaining budget amount
      */
     public double getRemainingBudget(int tripId, double budget) {
-        double total = getTotalExpenses(tripId);
-        return budget - total;
+        return getBudgetLedger(tripId).getRemaining(budget);
     }
 }
@@ -6,11 +6,12 @@ import android.location.Geocoder;
 import android.os.Handler;
 import android.os.Looper;
 
+import com.example.voyagerbuds.utils.AppExecutors;
+
 import java.io.IOException;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 /**
  * Service class for handling Geocoding operations.
@@ -18,12 +19,12 @@ import java.util.concurrent.Executors;
  */
 public class GeocodeService {
     private final Context context;
-    private final ExecutorService executorService;
+    private final Executor executor;
     private final Handler mainHandler;
 
     public GeocodeService(Context context) {
         this.context = context;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executor = AppExecutors.serial(AppExecutors.Pool.NETWORK); // One request at a time
         this.mainHandler = new Handler(Looper.getMainLooper());
     }
 
@@ -52,7 +53,7 @@ public class GeocodeService {
      * @param callback     Callback for results
      */
     public void getCoordinatesFromLocationName(String locationName, GeocodeCallback callback) {
-        executorService.execute(() -> {
+        executor.execute(() -> {
             try {
                 Geocoder geocoder = new Geocoder(context, Locale.getDefault());
                 List<Address> addresses = geocoder.getFromLocationName(locationName, 1);
@@ -89,7 +90,7 @@ public class GeocodeService {
      */
     public void getAddressFromCoordinates(double latitude, double longitude,
             ReverseGeocodeCallback callback) {
-        executorService.execute(() -> {
+        executor.execute(() -> {
             try {
                 Geocoder geocoder = new Geocoder(context, Locale.getDefault());
                 List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
@@ -203,12 +204,4 @@ public class GeocodeService {
     public boolean isGeocodingAvailable() {
         return Geocoder.isPresent();
     }
-
-    /**
-     * Shutdown the executor service
-     * Call this when the service is no longer needed
-     */
-    public void shutdown() {
-        executorService.shutdown();
-    }
 }
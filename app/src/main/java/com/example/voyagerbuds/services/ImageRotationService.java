@@ -0,0 +1,128 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Environment;
+import android.os.ParcelFileDescriptor;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Rotates photos by rewriting their EXIF orientation tag, so the pixels are
+ * never decoded or re-encoded. Photos the app owns are rotated in place;
+ * photos from other apps are first copied byte for byte into the app's
+ * pictures directory. The cached decodes and thumbnails of the rotated path
+ * are dropped afterwards; Glide loads of the original are keyed by its
+ * modification time ({@link ThumbnailStore#originalModified}), which the
+ * rewrite changes.
+ */
+public class ImageRotationService {
+    private final Context context;
+
+    public ImageRotationService(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Rotate a photo clockwise (blocking call, use in background thread)
+     *
+     * @param imagePath The path or URI of the photo
+     * @param degrees   Clockwise rotation, a multiple of 90
+     * @return Path or URI of the rotated photo; the same as {@code imagePath}
+     *         unless the photo belongs to another app
+     * @throws IOException If the photo cannot be read, or its format cannot
+     *                     hold an orientation tag
+     */
+    public String rotateSync(String imagePath, int degrees) throws IOException {
+        String rotatedPath = isOwnImage(imagePath) ? imagePath : copyToOwnStorage(imagePath);
+
+        try {
+            if (rotatedPath.startsWith("content://")) {
+                // Our own FileProvider URI, written through a seekable descriptor
+                try (ParcelFileDescriptor pfd = context.getContentResolver()
+                        .openFileDescriptor(Uri.parse(rotatedPath), "rw")) {
+                    if (pfd == null) {
+                        throw new IOException("Cannot open " + rotatedPath);
+                    }
+                    ExifInterface exif = new ExifInterface(pfd.getFileDescriptor());
+                    exif.rotate(degrees);
+                    exif.saveAttributes();
+                }
+            } else {
+                ExifInterface exif = new ExifInterface(toFile(rotatedPath).getPath());
+                exif.rotate(degrees);
+                exif.saveAttributes();
+            }
+        } catch (IOException e) {
+            if (!rotatedPath.equals(imagePath)) {
+                toFile(rotatedPath).delete();
+            }
+            throw e;
+        }
+
+        ImageService.getInstance(context).invalidate(rotatedPath);
+        ThumbnailStore.getInstance(context).invalidate(rotatedPath);
+        return rotatedPath;
+    }
+
+    /**
+     * Whether a photo is stored by this app, so it may be changed in place
+     */
+    private boolean isOwnImage(String imagePath) {
+        if (imagePath.startsWith("content://")) {
+            return (context.getPackageName() + ".fileprovider").equals(Uri.parse(imagePath).getAuthority());
+        }
+        try {
+            String path = toFile(imagePath).getCanonicalPath();
+            File externalDir = context.getExternalFilesDir(null);
+            return path.startsWith(context.getFilesDir().getParentFile().getCanonicalPath() + File.separator)
+                    || (externalDir != null
+                            && path.startsWith(externalDir.getParentFile().getCanonicalPath() + File.separator));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copy a photo unchanged into the app's pictures directory
+     *
+     * @return URI of the copy
+     */
+    private String copyToOwnStorage(String imagePath) throws IOException {
+        Uri uri = imagePath.startsWith("content://") || imagePath.startsWith("file://")
+                ? Uri.parse(imagePath)
+                : Uri.fromFile(new File(imagePath));
+        String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
+        File storageDir = context.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
+        File copy = File.createTempFile("ROTATED_" + timeStamp + "_", ".jpg", storageDir);
+
+        try (InputStream in = context.getContentResolver().openInputStream(uri);
+                OutputStream out = new FileOutputStream(copy)) {
+            if (in == null) {
+                throw new IOException("Cannot read " + imagePath);
+            }
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            copy.delete();
+            throw e;
+        }
+        return Uri.fromFile(copy).toString();
+    }
+
+    private static File toFile(String imagePath) {
+        return new File(imagePath.startsWith("file://") ? Uri.parse(imagePath).getPath() : imagePath);
+    }
+}
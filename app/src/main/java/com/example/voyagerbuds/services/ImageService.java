@@ -3,30 +3,83 @@ package com.example.voyagerbuds.services;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.LruCache;
 
+import com.example.voyagerbuds.utils.AppExecutors;
 import com.example.voyagerbuds.utils.ImageUtils;
 
 import java.io.File;
 import java.io.InputStream;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Service class for handling Image-related operations.
  * Provides async image loading, processing, and caching.
+ * <p>
+ * Decoded images are kept in a memory cache keyed by path and requested size,
+ * and concurrent requests for the same image share one decode. Bitmaps that
+ * have left the cache and are no longer shown are kept for reuse as
+ * {@code inBitmap}, so callers must hand every loaded bitmap back with
+ * {@link #release} once they stop showing it.
  */
 public class ImageService {
+    private static ImageService instance;
+
     private final Context context;
-    private final ExecutorService executorService;
+    private final Executor executor;
     private final Handler mainHandler;
 
-    public ImageService(Context context) {
+    // Decoded images by "path@widthxheight", sized in KB
+    private final LruCache<String, Bitmap> memoryCache;
+    // Callbacks waiting on a decode in progress, by cache key
+    private final Map<String, List<ImageLoadCallback>> inFlight = new HashMap<>();
+    // Bitmaps handed to callers and not yet released, with their holder count
+    private final Map<Bitmap, Integer> holders = new WeakHashMap<>();
+    // Bitmaps that left the cache while still held, reusable once released
+    private final Set<Bitmap> evictedWhileHeld = Collections.newSetFromMap(new WeakHashMap<>());
+    // Bitmaps neither cached nor shown, for inBitmap reuse
+    private final List<Bitmap> reusable = new ArrayList<>();
+    private final long maxReusableBytes;
+    private long reusableBytes = 0;
+
+    public static synchronized ImageService getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageService(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ImageService(Context context) {
         this.context = context;
-        this.executorService = Executors.newFixedThreadPool(3); // Multiple threads for parallel loading
+        this.executor = AppExecutors.diskIO(); // Shared pool, loads run in parallel
         this.mainHandler = new Handler(Looper.getMainLooper());
+
+        // An eighth of the heap for the cache, half that again for reuse
+        int cacheSizeKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        this.maxReusableBytes = cacheSizeKb * 1024L / 2;
+        this.memoryCache = new LruCache<String, Bitmap>(cacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount() / 1024;
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                onRemovedFromCache(oldValue);
+            }
+        };
     }
 
     /**
@@ -39,31 +92,67 @@ public class ImageService {
     }
 
     /**
-     * Load an image asynchronously from a URI or file path
+     * Load an image asynchronously from a URI or file path. Results are
+     * delivered on the main thread, straight away when the image is cached
+     * and this is called on the main thread.
      * 
      * @param imagePath The path or URI of the image
      * @param reqWidth  Required width for scaling
      * @param reqHeight Required height for scaling
-     * @param callback  Callback for results
+     * @param callback  Callback for results; the bitmap must be passed to
+     *                  {@link #release} once it is no longer shown
      */
     public void loadImage(String imagePath, int reqWidth, int reqHeight, ImageLoadCallback callback) {
-        executorService.execute(() -> {
-            try {
-                Uri uri = parseImageUri(imagePath);
-                Bitmap bitmap = loadBitmapFromUri(uri, reqWidth, reqHeight);
+        String key = imagePath + "@" + reqWidth + "x" + reqHeight;
+        Bitmap cached;
+        synchronized (this) {
+            cached = memoryCache.get(key);
+            if (cached != null) {
+                acquire(cached);
+            } else {
+                List<ImageLoadCallback> waiting = inFlight.get(key);
+                if (waiting != null) {
+                    waiting.add(callback);
+                    return;
+                }
+                waiting = new ArrayList<>();
+                waiting.add(callback);
+                inFlight.put(key, waiting);
+            }
+        }
+        if (cached != null) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                callback.onImageLoaded(cached);
+            } else {
+                mainHandler.post(() -> callback.onImageLoaded(cached));
+            }
+            return;
+        }
 
+        executor.execute(() -> {
+            Bitmap bitmap = decodeBitmapSync(imagePath, reqWidth, reqHeight);
+
+            List<ImageLoadCallback> waiting;
+            synchronized (this) {
+                waiting = inFlight.remove(key);
                 if (bitmap != null) {
-                    // Rotate if needed based on EXIF data
-                    bitmap = ImageUtils.rotateImageIfRequired(context, bitmap, uri);
-                    Bitmap finalBitmap = bitmap;
-                    mainHandler.post(() -> callback.onImageLoaded(finalBitmap));
-                } else {
-                    mainHandler.post(() -> callback.onError(
-                            new Exception("Failed to load bitmap")));
+                    // Held for every waiting caller before the cache may evict it
+                    for (int i = 0; i < waiting.size(); i++) {
+                        acquire(bitmap);
+                    }
+                    memoryCache.put(key, bitmap);
                 }
-            } catch (Exception e) {
-                mainHandler.post(() -> callback.onError(e));
             }
+
+            mainHandler.post(() -> {
+                for (ImageLoadCallback waitingCallback : waiting) {
+                    if (bitmap != null) {
+                        waitingCallback.onImageLoaded(bitmap);
+                    } else {
+                        waitingCallback.onError(new Exception("Failed to load bitmap"));
+                    }
+                }
+            });
         });
     }
 
@@ -90,6 +179,98 @@ public class ImageService {
         loadImage(imagePath, thumbnailSize, thumbnailSize, callback);
     }
 
+    /**
+     * Hand back a bitmap from {@link #loadImage} that is no longer shown.
+     * Call on the main thread, after the view showing it has been cleared.
+     * 
+     * @param bitmap The bitmap, may be null
+     */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        Integer count = holders.get(bitmap);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            holders.put(bitmap, count - 1);
+            return;
+        }
+        holders.remove(bitmap);
+        if (evictedWhileHeld.remove(bitmap)) {
+            addReusable(bitmap);
+        }
+    }
+
+    /**
+     * Drop every cached size of an image, for when its content or orientation
+     * changed without its path changing
+     * 
+     * @param imagePath The path or URI of the image
+     */
+    public void invalidate(String imagePath) {
+        String prefix = imagePath + "@";
+        for (String key : memoryCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                memoryCache.remove(key);
+            }
+        }
+    }
+
+    private synchronized void acquire(Bitmap bitmap) {
+        Integer count = holders.get(bitmap);
+        holders.put(bitmap, count == null ? 1 : count + 1);
+    }
+
+    private synchronized void onRemovedFromCache(Bitmap bitmap) {
+        if (holders.containsKey(bitmap)) {
+            evictedWhileHeld.add(bitmap);
+        } else {
+            addReusable(bitmap);
+        }
+    }
+
+    private synchronized void addReusable(Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+        reusable.add(bitmap);
+        reusableBytes += bitmap.getAllocationByteCount();
+        // Drop the oldest once over the limit
+        while (reusableBytes > maxReusableBytes && !reusable.isEmpty()) {
+            Bitmap oldest = reusable.remove(0);
+            reusableBytes -= oldest.getAllocationByteCount();
+            oldest.recycle();
+        }
+    }
+
+    /**
+     * Take the smallest reusable bitmap that can hold a decode of the given
+     * size, or null if there is none
+     */
+    private synchronized Bitmap takeReusable(int width, int height) {
+        long needed = (long) width * height * 4; // ARGB_8888
+        Bitmap best = null;
+        for (Bitmap candidate : reusable) {
+            if (candidate.getAllocationByteCount() >= needed
+                    && (best == null || candidate.getAllocationByteCount() < best.getAllocationByteCount())) {
+                best = candidate;
+            }
+        }
+        if (best != null) {
+            Iterator<Bitmap> iterator = reusable.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() == best) {
+                    iterator.remove();
+                    break;
+                }
+            }
+            reusableBytes -= best.getAllocationByteCount();
+        }
+        return best;
+    }
+
     /**
      * Load bitmap from URI synchronously (use with caution, should not be called on
      * main thread)
@@ -109,17 +290,39 @@ public class ImageService {
             BitmapFactory.decodeStream(input, null, options);
             if (input != null)
                 input.close();
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return null;
+            }
 
             // Calculate inSampleSize
             options.inSampleSize = ImageUtils.calculateInSampleSize(options, reqWidth, reqHeight);
 
-            // Decode bitmap with inSampleSize set
+            // Decode bitmap with inSampleSize set, into a reusable bitmap if one fits
             options.inJustDecodeBounds = false;
-            input = context.getContentResolver().openInputStream(uri);
-            Bitmap bitmap = BitmapFactory.decodeStream(input, null, options);
+            options.inMutable = true;
+            int sampledWidth = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+            int sampledHeight = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+            options.inBitmap = takeReusable(sampledWidth, sampledHeight);
+
+            Bitmap bitmap;
+            try {
+                input = context.getContentResolver().openInputStream(uri);
+                bitmap = BitmapFactory.decodeStream(input, null, options);
+            } catch (IllegalArgumentException e) {
+                // The reused bitmap did not fit after all, decode into a new one
+                if (input != null)
+                    input.close();
+                addReusable(options.inBitmap);
+                options.inBitmap = null;
+                input = context.getContentResolver().openInputStream(uri);
+                bitmap = BitmapFactory.decodeStream(input, null, options);
+            }
             if (input != null)
                 input.close();
 
+            if (bitmap == null && options.inBitmap != null) {
+                addReusable(options.inBitmap);
+            }
             return bitmap;
         } catch (Exception e) {
             e.printStackTrace();
@@ -180,7 +383,8 @@ public class ImageService {
     }
 
     /**
-     * Decode bitmap synchronously (blocking call, use in background thread)
+     * Decode bitmap synchronously (blocking call, use in background thread).
+     * The result is not cached and belongs to the caller.
      * 
      * @param imagePath The path or URI of the image
      * @param reqWidth  Required width for scaling
@@ -193,7 +397,18 @@ public class ImageService {
             Bitmap bitmap = loadBitmapFromUri(uri, reqWidth, reqHeight);
 
             if (bitmap != null) {
-                bitmap = ImageUtils.rotateImageIfRequired(context, bitmap, uri);
+                // Rotate if needed based on EXIF data; the unrotated decode is reused
+                int degrees = ImageUtils.getRotationDegrees(context, uri);
+                if (degrees != 0) {
+                    Matrix matrix = new Matrix();
+                    matrix.postRotate(degrees);
+                    Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(),
+                            matrix, true);
+                    if (rotated != bitmap) {
+                        addReusable(bitmap);
+                    }
+                    bitmap = rotated;
+                }
             }
 
             return bitmap;
@@ -228,12 +443,4 @@ public class ImageService {
             return false;
         }
     }
-
-    /**
-     * Shutdown the executor service
-     * Call this when the service is no longer needed
-     */
-    public void shutdown() {
-        executorService.shutdown();
-    }
 }
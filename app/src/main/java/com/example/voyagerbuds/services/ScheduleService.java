@@ -3,14 +3,15 @@ package com.example.voyagerbuds.services;
 import android.content.Context;
 
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.InvalidationTracker;
 import com.example.voyagerbuds.models.ScheduleItem;
-import com.example.voyagerbuds.utils.NotificationHelper;
+import com.example.voyagerbuds.utils.DateUtils;
+import com.example.voyagerbuds.utils.ScheduleIntervalIndex;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -20,14 +21,34 @@ import java.util.Map;
  * Encapsulates database operations and business rules for schedule items.
  */
 public class ScheduleService {
+    // Interval indexes are kept for the most recently checked trips only
+    private static final int MAX_CACHED_TRIPS = 8;
+
+    // Interval indexes by trip, then by day key; shared by all instances and
+    // dropped per trip when its schedules change
+    private static final Map<Integer, Map<String, ScheduleIntervalIndex>> INTERVAL_CACHE =
+            new LinkedHashMap<Integer, Map<String, ScheduleIntervalIndex>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, ScheduleIntervalIndex>> eldest) {
+            return size() > MAX_CACHED_TRIPS;
+        }
+    };
+    private static boolean intervalCacheObserved = false;
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private static long intervalCacheVersion = 0;
+
     private final DatabaseHelper databaseHelper;
     private final Context context;
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm", Locale.getDefault());
 
     public ScheduleService(Context context) {
         this.context = context;
-        this.databaseHelper = new DatabaseHelper(context);
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        synchronized (INTERVAL_CACHE) {
+            if (!intervalCacheObserved) {
+                databaseHelper.getInvalidationTracker().addCacheObserver(ScheduleService::onInvalidated);
+                intervalCacheObserved = true;
+            }
+        }
     }
 
     /**
@@ -49,12 +70,10 @@ public class ScheduleService {
         }
         item.setUpdatedAt(System.currentTimeMillis());
 
+        // AlarmReconciler arms the reminder once the write is published
         long id = databaseHelper.addSchedule(item);
-
-        // Schedule notification if item was added successfully
-        if (id > 0 && item.getNotifyBeforeMinutes() > 0) {
+        if (id > 0) {
             item.setId((int) id);
-            NotificationHelper.scheduleNotification(context, item);
         }
 
         return id;
@@ -96,18 +115,9 @@ public class ScheduleService {
         // Update timestamp
         item.setUpdatedAt(System.currentTimeMillis());
 
-        int result = databaseHelper.updateSchedule(item);
-
-        // Update notification
-        if (result > 0) {
-            if (item.getNotifyBeforeMinutes() > 0) {
-                NotificationHelper.scheduleNotification(context, item);
-            } else {
-                NotificationHelper.cancelNotification(context, item.getId());
-            }
-        }
-
-        return result;
+        // AlarmReconciler moves or cancels the reminder once the write is
+        // published
+        return databaseHelper.updateSchedule(item);
     }
 
     /**
@@ -116,8 +126,7 @@ public class ScheduleService {
      * @param scheduleId The ID of the schedule item to delete
      */
     public void deleteScheduleItem(int scheduleId) {
-        // Cancel notification before deleting
-        NotificationHelper.cancelNotification(context, scheduleId);
+        // AlarmReconciler cancels the reminder once the delete is published
         databaseHelper.deleteSchedule(scheduleId);
     }
 
@@ -139,50 +148,20 @@ public class ScheduleService {
      * @return List of schedule items for that day
      */
     public List<ScheduleItem> getSchedulesForDay(int tripId, String day) {
-        List<ScheduleItem> allSchedules = getSchedulesForTrip(tripId);
-
-        // Filter by day
-        java.util.List<ScheduleItem> daySchedules = new java.util.ArrayList<>();
-        for (ScheduleItem item : allSchedules) {
-            if (day.equals(item.getDay())) {
-                daySchedules.add(item);
-            }
-        }
-
-        return daySchedules;
+        return databaseHelper.getSchedulesForDay(tripId, day);
     }
 
     /**
-     * Schedule notification for a schedule item
-     * 
-     * @param item The schedule item to schedule notification for
-     */
-    public void scheduleNotification(ScheduleItem item) {
-        NotificationHelper.scheduleNotification(context, item);
-    }
-
-    /**
-     * Cancel notification for a schedule item
-     * 
-     * @param scheduleId The schedule ID
-     */
-    public void cancelNotification(int scheduleId) {
-        NotificationHelper.cancelNotification(context, scheduleId);
-    }
-
-    /**
-     * Reschedule all notifications for a trip
-     * Useful after updating trip dates or schedule items
-     * 
-     * @param tripId The trip ID
+     * Bring armed notifications in line with the database. Schedule writes
+     * through DatabaseHelper already do this; only needed after changes made
+     * some other way.
+     * Only reminders due in the next 48 hours are armed, and only those that
+     * changed are registered or cancelled.
+     *
+     * @param tripId The trip ID; every trip's reminders are checked in one pass
      */
     public void rescheduleAllNotifications(int tripId) {
-        List<ScheduleItem> schedules = getSchedulesForTrip(tripId);
-        for (ScheduleItem item : schedules) {
-            if (item.getNotifyBeforeMinutes() > 0) {
-                NotificationHelper.scheduleNotification(context, item);
-            }
-        }
+        AlarmReconciler.getInstance(context).requestReconcile(true);
     }
 
     /**
@@ -256,36 +235,104 @@ public class ScheduleService {
      * @return true if there's an overlap
      */
     public boolean hasTimeOverlap(int tripId, String day, String startTime, String endTime, int excludeItemId) {
-        List<ScheduleItem> daySchedules = getSchedulesForDay(tripId, day);
+        return findConflictingSchedule(tripId, day, startTime, endTime, excludeItemId) != ScheduleIntervalIndex.NONE;
+    }
 
-        try {
-            Date newStart = TIME_FORMAT.parse(startTime);
-            Date newEnd = TIME_FORMAT.parse(endTime);
+    /**
+     * Find a schedule whose time overlaps a time slot
+     *
+     * @param tripId        The trip ID
+     * @param day           The day
+     * @param startTime     Start time
+     * @param endTime       End time
+     * @param excludeItemId Schedule ID to exclude from check (for updates)
+     * @return ID of an overlapping schedule, or ScheduleIntervalIndex.NONE
+     */
+    public int findConflictingSchedule(int tripId, String day, String startTime, String endTime,
+            int excludeItemId) {
+        int newStart = DateUtils.toMinuteOfDay(startTime);
+        int newEnd = DateUtils.toMinuteOfDay(endTime);
 
-            if (newStart == null || newEnd == null) {
-                return false;
-            }
+        if (newStart == DateUtils.NO_MINUTE || newEnd == DateUtils.NO_MINUTE) {
+            return ScheduleIntervalIndex.NONE;
+        }
 
-            for (ScheduleItem item : daySchedules) {
-                if (item.getId() == excludeItemId) {
-                    continue; // Skip the item being updated
-                }
+        return getIntervalIndex(tripId, day).findConflict(newStart, newEnd, excludeItemId);
+    }
+
+    /**
+     * Suggest the earliest free time slot of a day
+     *
+     * @param tripId          The trip ID
+     * @param day             The day
+     * @param fromTime        Earliest start time (HH:mm)
+     * @param durationMinutes Length of the slot
+     * @param excludeItemId   Schedule ID to treat as free (for updates)
+     * @return Start time of the slot (HH:mm), or null if the rest of the day
+     *         has no slot that long
+     */
+    public String suggestNextFreeSlot(int tripId, String day, String fromTime, int durationMinutes,
+            int excludeItemId) {
+        int from = DateUtils.toMinuteOfDay(fromTime);
+        if (from == DateUtils.NO_MINUTE) {
+            return null;
+        }
 
-                Date existingStart = TIME_FORMAT.parse(item.getStartTime());
-                Date existingEnd = TIME_FORMAT.parse(item.getEndTime());
+        ScheduleIntervalIndex index = getIntervalIndex(tripId, day);
+        if (index.contains(excludeItemId)) {
+            index = index.without(excludeItemId);
+        }
+        int start = index.findFreeSlot(from, durationMinutes);
+        if (start == ScheduleIntervalIndex.NONE) {
+            return null;
+        }
+        return String.format(Locale.US, "%02d:%02d", start / 60, start % 60);
+    }
+
+    /**
+     * Get the interval index of a day's schedules, loading it on first use
+     */
+    private ScheduleIntervalIndex getIntervalIndex(int tripId, String day) {
+        long epochDay = DateUtils.toEpochDay(day);
+        String dayKey = epochDay != DateUtils.NO_EPOCH_DAY ? String.valueOf(epochDay) : "text:" + day;
+
+        long version;
+        synchronized (INTERVAL_CACHE) {
+            Map<String, ScheduleIntervalIndex> days = INTERVAL_CACHE.get(tripId);
+            ScheduleIntervalIndex index = days != null ? days.get(dayKey) : null;
+            if (index != null) {
+                return index;
+            }
+            version = intervalCacheVersion;
+        }
 
-                if (existingStart != null && existingEnd != null) {
-                    // Check for overlap: (StartA < EndB) and (EndA > StartB)
-                    if (newStart.before(existingEnd) && newEnd.after(existingStart)) {
-                        return true;
-                    }
+        ScheduleIntervalIndex index = new ScheduleIntervalIndex(
+                databaseHelper.getScheduleTimeRangesForDay(tripId, day));
+        synchronized (INTERVAL_CACHE) {
+            if (version == intervalCacheVersion) {
+                Map<String, ScheduleIntervalIndex> days = INTERVAL_CACHE.get(tripId);
+                if (days == null) {
+                    days = new HashMap<>();
+                    INTERVAL_CACHE.put(tripId, days);
                 }
+                days.put(dayKey, index);
             }
-        } catch (ParseException e) {
-            e.printStackTrace();
         }
+        return index;
+    }
 
-        return false;
+    private static void onInvalidated(String table, int tripId) {
+        if (!InvalidationTracker.SCHEDULES.equals(table)) {
+            return;
+        }
+        synchronized (INTERVAL_CACHE) {
+            intervalCacheVersion++;
+            if (tripId == InvalidationTracker.ANY_TRIP) {
+                INTERVAL_CACHE.clear();
+            } else {
+                INTERVAL_CACHE.remove(tripId);
+            }
+        }
     }
 
     /**
@@ -296,25 +343,18 @@ public class ScheduleService {
      * @return Total hours scheduled
      */
     public double getTotalScheduledHours(int tripId, String day) {
-        List<ScheduleItem> daySchedules = getSchedulesForDay(tripId, day);
-        double totalHours = 0;
-
-        try {
-            for (ScheduleItem item : daySchedules) {
-                Date start = TIME_FORMAT.parse(item.getStartTime());
-                Date end = TIME_FORMAT.parse(item.getEndTime());
-
-                if (start != null && end != null) {
-                    long diffMillis = end.getTime() - start.getTime();
-                    double hours = diffMillis / (1000.0 * 60 * 60);
-                    totalHours += hours;
-                }
+        int totalMinutes = 0;
+
+        for (ScheduleItem item : getSchedulesForDay(tripId, day)) {
+            int start = item.getStartMinute();
+            int end = item.getEndMinute();
+
+            if (start != DateUtils.NO_MINUTE && end != DateUtils.NO_MINUTE) {
+                totalMinutes += end - start;
             }
-        } catch (ParseException e) {
-            e.printStackTrace();
         }
 
-        return totalHours;
+        return totalMinutes / 60.0;
     }
 
     /**
@@ -324,25 +364,19 @@ public class ScheduleService {
      * @return true if currently active
      */
     public boolean isScheduleActive(ScheduleItem item) {
-        try {
-            Date today = new Date();
-            String todayStr = DATE_FORMAT.format(today);
-
-            // Check if it's the right day
-            if (!item.getDay().equals(todayStr)) {
-                return false;
-            }
+        // Check if it's the right day
+        if (item.getEpochDay() != DateUtils.todayEpochDay()) {
+            return false;
+        }
 
-            // Check if current time is between start and end
-            Date start = TIME_FORMAT.parse(item.getStartTime());
-            Date end = TIME_FORMAT.parse(item.getEndTime());
-            Date now = TIME_FORMAT.parse(TIME_FORMAT.format(today));
+        // Check if current time is between start and end
+        int start = item.getStartMinute();
+        int end = item.getEndMinute();
+        LocalTime time = LocalTime.now();
+        int now = time.getHour() * 60 + time.getMinute();
 
-            if (start != null && end != null && now != null) {
-                return !now.before(start) && !now.after(end);
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
+        if (start != DateUtils.NO_MINUTE && end != DateUtils.NO_MINUTE) {
+            return now >= start && now <= end;
         }
 
         return false;
@@ -376,21 +410,17 @@ public class ScheduleService {
         }
 
         // Validate time format and range
-        try {
-            Date start = TIME_FORMAT.parse(item.getStartTime());
-            Date end = TIME_FORMAT.parse(item.getEndTime());
-
-            if (start != null && end != null && !end.after(start)) {
-                return "End time must be after start time";
-            }
-        } catch (ParseException e) {
+        int start = item.getStartMinute();
+        int end = item.getEndMinute();
+        if (start == DateUtils.NO_MINUTE || end == DateUtils.NO_MINUTE) {
             return "Invalid time format. Use HH:mm";
         }
+        if (end <= start) {
+            return "End time must be after start time";
+        }
 
         // Validate date format
-        try {
-            DATE_FORMAT.parse(item.getDay());
-        } catch (ParseException e) {
+        if (item.getEpochDay() == DateUtils.NO_EPOCH_DAY) {
             return "Invalid date format. Use yyyy-MM-dd";
         }
 
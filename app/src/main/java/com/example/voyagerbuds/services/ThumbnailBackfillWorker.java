@@ -0,0 +1,27 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Generates thumbnails for photos added before the {@link ThumbnailStore}
+ * existed, or whose thumbnails were cleared with the cache. Queued at startup
+ * and run when the device is idle enough; photos that already have
+ * thumbnails are skipped.
+ */
+public class ThumbnailBackfillWorker extends Worker {
+
+    public ThumbnailBackfillWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        ThumbnailStore.getInstance(getApplicationContext()).backfill();
+        return Result.success();
+    }
+}
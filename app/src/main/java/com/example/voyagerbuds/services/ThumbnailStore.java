@@ -0,0 +1,460 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.InvalidationTracker;
+import com.example.voyagerbuds.utils.AppExecutors;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Small WebP copies of trip photos, written once to the app cache so grids
+ * and previews do not decode full-size camera JPEGs.
+ * Thumbnails are keyed by source path and modification time, so a photo that
+ * is rewritten gets new ones. They are generated in the background when media
+ * is added to a trip (through the Media invalidations), when a capture is
+ * saved, and for older media by {@link ThumbnailBackfillWorker}. Screens ask
+ * with {@link #peek}, which never touches the disk, and load the original
+ * while a thumbnail is missing; a {@link Listener} is told when it is ready.
+ * The thumbnails already on disk are listed once at startup, so they are
+ * found again after the process restarts.
+ */
+public class ThumbnailStore {
+    private static final String TAG = "ThumbnailStore";
+
+    // Long edge of each thumbnail size, in pixels
+    public static final int SIZE_GRID = 384;
+    public static final int SIZE_PREVIEW = 1024;
+    private static final int[] SIZES = { SIZE_GRID, SIZE_PREVIEW };
+
+    private static final int QUALITY = 80;
+    private static final String DIRECTORY = "thumbnails";
+    // The oldest thumbnails are deleted once the directory grows past this
+    private static final long MAX_CACHE_BYTES = 150L * 1024 * 1024;
+    // Known thumbnail files kept in memory, so peek needs no disk access
+    private static final int MAX_KNOWN = 2000;
+    // Name of the pictures root in res/xml/file_paths.xml
+    private static final String FILE_PROVIDER_PICTURES = "my_images";
+
+    private static ThumbnailStore instance;
+
+    public interface Listener {
+        /**
+         * Called on the main thread once the thumbnails of a photo that
+         * {@link #peek} or {@link #request} missed are ready
+         */
+        void onThumbnailReady(String path);
+    }
+
+    private final Context context;
+    private final File directory;
+    private final ImageService imageService;
+    // One photo at a time, so generating thumbnails never takes over the pool
+    private final Executor executor = AppExecutors.serial(AppExecutors.Pool.DISK_IO);
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // "size:hash" of a source path to the thumbnail file of its current version
+    private final Map<String, File> known = new LinkedHashMap<String, File>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, File> eldest) {
+            return size() > MAX_KNOWN;
+        }
+    };
+    // Paths queued for generation, so repeated requests are dropped
+    private final Set<String> pending = new HashSet<>();
+    private boolean wroteSinceTrim = false;
+
+    public static synchronized ThumbnailStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ThumbnailStore(Context context) {
+        this.context = context;
+        this.directory = new File(context.getCacheDir(), DIRECTORY);
+        this.imageService = ImageService.getInstance(context);
+        // Runs before any generation, which shares the serial executor
+        executor.execute(this::loadKnown);
+        DatabaseHelper.getInstance(context).getInvalidationTracker().addObserver((table, tripId) -> {
+            if (InvalidationTracker.MEDIA.equals(table)) {
+                requestForTrip(tripId);
+            }
+        });
+    }
+
+    /**
+     * Thumbnail file of a photo if one is known to exist, else null. Never
+     * touches the disk, so it is safe to call while binding views; on a miss
+     * the thumbnails are generated in the background for next time.
+     */
+    public File peek(String path, int size) {
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        File thumbnail;
+        synchronized (known) {
+            thumbnail = known.get(size + ":" + hash(path));
+        }
+        if (thumbnail == null) {
+            request(path);
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Generate the thumbnails of a photo in the background if missing
+     */
+    public void request(String path) {
+        synchronized (pending) {
+            if (!pending.add(path)) {
+                return;
+            }
+        }
+        executor.execute(() -> {
+            synchronized (pending) {
+                pending.remove(path);
+            }
+            boolean ready = ensure(path);
+            trimIfNeeded();
+            if (ready) {
+                mainHandler.post(() -> {
+                    for (Listener listener : listeners) {
+                        listener.onThumbnailReady(path);
+                    }
+                });
+            }
+        });
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Generate the missing thumbnails of every photo of a trip, or of every
+     * trip for {@link InvalidationTracker#ANY_TRIP}, in the background
+     */
+    public void requestForTrip(int tripId) {
+        executor.execute(() -> {
+            for (String path : DatabaseHelper.getInstance(context).getMediaDao().getPhotoPaths(tripId)) {
+                if (!isKnown(path)) {
+                    ensure(path);
+                }
+            }
+            trimIfNeeded();
+        });
+    }
+
+    /**
+     * Generate the missing thumbnails of every photo. Blocks; used by
+     * {@link ThumbnailBackfillWorker}.
+     */
+    public void backfill() {
+        for (String path : DatabaseHelper.getInstance(context).getMediaDao().getPhotoPaths(
+                InvalidationTracker.ANY_TRIP)) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (!isKnown(path)) {
+                ensure(path);
+            }
+        }
+        trimIfNeeded();
+    }
+
+    /**
+     * Forget and delete the thumbnails of a photo, for when it changes in a
+     * way its modification time may not show. Blocks.
+     */
+    public synchronized void invalidate(String path) {
+        String hash = hash(path);
+        synchronized (known) {
+            for (int size : SIZES) {
+                known.remove(size + ":" + hash);
+            }
+        }
+        String prefix = hash + "_";
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(prefix));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private boolean isKnown(String path) {
+        String hash = hash(path);
+        synchronized (known) {
+            for (int size : SIZES) {
+                if (!known.containsKey(size + ":" + hash)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Remember the newest version of every thumbnail in the directory, least
+     * recently written first so the newest stay known. Blocks.
+     */
+    private synchronized void loadKnown() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".webp"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        Map<String, Long> versions = new HashMap<>();
+        synchronized (known) {
+            for (File file : files) {
+                // hash_modified_size.webp
+                String[] parts = file.getName().substring(0, file.getName().length() - 5).split("_");
+                if (parts.length != 3) {
+                    continue;
+                }
+                long modified;
+                try {
+                    modified = Long.parseLong(parts[1]);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                String key = parts[2] + ":" + parts[0];
+                Long newest = versions.get(key);
+                if (newest == null || modified >= newest) {
+                    versions.put(key, modified);
+                    known.put(key, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Make sure every thumbnail size of a photo exists, decoding the photo
+     * once for all missing sizes. Blocks; returns whether they all exist.
+     */
+    private synchronized boolean ensure(String path) {
+        long modified = lastModified(path);
+        if (modified < 0) {
+            return false; // Source is gone
+        }
+        String hash = hash(path);
+        File[] files = new File[SIZES.length];
+        boolean missing = false;
+        for (int i = 0; i < SIZES.length; i++) {
+            files[i] = new File(directory, hash + "_" + modified + "_" + SIZES[i] + ".webp");
+            missing |= !files[i].exists();
+        }
+
+        if (missing) {
+            // Largest size first, each smaller one scaled from the previous
+            Bitmap bitmap = imageService.decodeBitmapSync(path, SIZE_PREVIEW, SIZE_PREVIEW);
+            if (bitmap == null) {
+                return false;
+            }
+            if (!directory.exists() && !directory.mkdirs()) {
+                bitmap.recycle();
+                return false;
+            }
+            for (int i = SIZES.length - 1; i >= 0; i--) {
+                Bitmap scaled = scaleDown(bitmap, SIZES[i]);
+                if (scaled != bitmap) {
+                    bitmap.recycle();
+                    bitmap = scaled;
+                }
+                if (!files[i].exists() && !write(bitmap, files[i])) {
+                    bitmap.recycle();
+                    return false;
+                }
+            }
+            bitmap.recycle();
+            wroteSinceTrim = true;
+        }
+
+        synchronized (known) {
+            for (int i = 0; i < SIZES.length; i++) {
+                known.put(SIZES[i] + ":" + hash, files[i]);
+            }
+        }
+        return true;
+    }
+
+    private static Bitmap scaleDown(Bitmap bitmap, int longEdge) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (Math.max(width, height) <= longEdge) {
+            return bitmap;
+        }
+        float scale = (float) longEdge / Math.max(width, height);
+        return Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(width * scale)),
+                Math.max(1, Math.round(height * scale)), true);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean write(Bitmap bitmap, File file) {
+        Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+        // Written under a temporary name so readers never see a partial file
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            if (!bitmap.compress(format, QUALITY, out)) {
+                temp.delete();
+                return false;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing thumbnail " + file.getName(), e);
+            temp.delete();
+            return false;
+        }
+        return temp.renameTo(file);
+    }
+
+    /**
+     * Delete the least recently written thumbnails once the directory is over
+     * its size limit
+     */
+    private synchronized void trimIfNeeded() {
+        if (!wroteSinceTrim) {
+            return;
+        }
+        wroteSinceTrim = false;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_CACHE_BYTES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= MAX_CACHE_BYTES * 3 / 4) {
+                break;
+            }
+            total -= file.length();
+            file.delete();
+        }
+        // Deleted files may still be listed as known
+        synchronized (known) {
+            known.values().removeIf(file -> !file.exists());
+        }
+    }
+
+    /**
+     * Modification time of a photo that the app stores, for use as a Glide
+     * signature when the original is loaded, so a photo rotated in place is
+     * not served from Glide's caches. 0 for other apps' URIs, which are never
+     * changed in place. Only a file stat, no content resolver query.
+     */
+    public long originalModified(String path) {
+        File file = localFile(path);
+        return file != null ? file.lastModified() : 0;
+    }
+
+    /**
+     * Modification time of a photo in epoch millis, 0 if it cannot be told,
+     * or -1 if the photo does not exist
+     */
+    private long lastModified(String path) {
+        File file = localFile(path);
+        if (file != null) {
+            return file.exists() ? file.lastModified() : -1;
+        }
+        try (Cursor cursor = context.getContentResolver().query(Uri.parse(path), null, null, null, null)) {
+            if (cursor == null || !cursor.moveToFirst()) {
+                return -1;
+            }
+            // Documents report millis, MediaStore seconds
+            int documentColumn = cursor.getColumnIndex("last_modified");
+            if (documentColumn != -1 && !cursor.isNull(documentColumn)) {
+                return cursor.getLong(documentColumn);
+            }
+            int mediaColumn = cursor.getColumnIndex("date_modified");
+            if (mediaColumn != -1 && !cursor.isNull(mediaColumn)) {
+                return cursor.getLong(mediaColumn) * 1000;
+            }
+            return 0;
+        } catch (Exception e) {
+            // No longer readable, e.g. permission to the URI was lost
+            return -1;
+        }
+    }
+
+    /**
+     * The file behind a path, file URI or URI of the app's own FileProvider,
+     * or null for any other URI
+     */
+    private File localFile(String path) {
+        if (!path.startsWith("content://")) {
+            return new File(path.startsWith("file://") ? Uri.parse(path).getPath() : path);
+        }
+        // Our FileProvider reports no modification time, so read the file
+        return fileProviderFile(Uri.parse(path));
+    }
+
+    /**
+     * The file behind a URI of the app's own FileProvider, or null for any
+     * other URI. Mirrors res/xml/file_paths.xml.
+     */
+    private File fileProviderFile(Uri uri) {
+        if (!(context.getPackageName() + ".fileprovider").equals(uri.getAuthority())) {
+            return null;
+        }
+        List<String> segments = uri.getPathSegments();
+        File root = context.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
+        if (root == null || segments.size() != 2 || !FILE_PROVIDER_PICTURES.equals(segments.get(0))) {
+            return null;
+        }
+        String name = segments.get(1);
+        return name.equals(".") || name.equals("..") ? null : new File(root, name);
+    }
+
+    private static String hash(String path) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(path.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                // Called on every peek, so no String.format
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(path.hashCode());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.voyagerbuds.services;
 import android.content.Context;
 
 import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.TripRepository;
 import com.example.voyagerbuds.models.Expense;
 import com.example.voyagerbuds.models.Trip;
 
@@ -19,13 +20,15 @@ import java.util.Locale;
  */
 public class TripService {
     private final DatabaseHelper databaseHelper;
+    private final TripRepository tripRepository;
     private final ExpenseService expenseService;
     private final Context context;
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
 
     public TripService(Context context) {
         this.context = context;
-        this.databaseHelper = new DatabaseHelper(context);
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        this.tripRepository = TripRepository.getInstance(context);
         this.expenseService = new ExpenseService(context);
     }
 
@@ -63,7 +66,7 @@ public class TripService {
      * @return List of trips
      */
     public List<Trip> getAllTrips(int userId) {
-        return databaseHelper.getAllTrips(userId);
+        return tripRepository.getTrips(userId);
     }
 
     /**
@@ -145,7 +148,7 @@ public class TripService {
      * @return Total expense amount
      */
     public double getTotalExpenses(int tripId) {
-        return expenseService.getTotalExpenses(tripId);
+        return tripRepository.getTotalExpenses(tripId);
     }
 
     /**
@@ -223,11 +226,10 @@ public class TripService {
      */
     public double getBudgetUtilization(int tripId) {
         Trip trip = getTripById(tripId);
-        if (trip == null || trip.getBudget() <= 0) {
+        if (trip == null) {
             return 0.0;
         }
-        double expenses = getTotalExpenses(tripId);
-        return (expenses / trip.getBudget()) * 100;
+        return expenseService.getBudgetLedger(tripId).getUtilization(trip.getBudget());
     }
 
     /**
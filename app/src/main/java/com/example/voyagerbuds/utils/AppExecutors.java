@@ -0,0 +1,240 @@
+package com.example.voyagerbuds.utils;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * App-wide background thread pools, one per kind of work, so screens share a
+ * fixed number of threads instead of each starting their own.
+ * Each pool has a bounded number of threads and a bounded queue; work that
+ * does not fit waits for an extra overflow thread of the pool, never for the
+ * submitting thread. Idle threads exit after a while. Work tied to a fragment's view should go through a
+ * {@link TaskScope} so it is cancelled when the view is destroyed.
+ */
+public final class AppExecutors {
+    private static final String TAG = "AppExecutors";
+
+    public enum Pool {
+        /** Database reads and writes */
+        DB("db", 2, 128),
+        /** File reads and writes, bitmap decoding from disk */
+        DISK_IO("disk", 3, 128),
+        /** HTTP requests and geocoding */
+        NETWORK("net", 4, 64),
+        /** In-memory computation such as image processing */
+        CPU("cpu", Math.max(2, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4)), 64);
+
+        private final String name;
+        private final int threads;
+        private final int queueCapacity;
+
+        Pool(String name, int threads, int queueCapacity) {
+            this.name = name;
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    // Idle threads exit after this long, so an idle app holds no pool threads
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ThreadPoolExecutor[] EXECUTORS = new ThreadPoolExecutor[Pool.values().length];
+
+    private AppExecutors() {
+    }
+
+    /**
+     * Shared executor for a kind of work
+     */
+    public static Executor get(Pool pool) {
+        return executor(pool);
+    }
+
+    public static Executor db() {
+        return executor(Pool.DB);
+    }
+
+    public static Executor diskIO() {
+        return executor(Pool.DISK_IO);
+    }
+
+    public static Executor network() {
+        return executor(Pool.NETWORK);
+    }
+
+    public static Executor cpu() {
+        return executor(Pool.CPU);
+    }
+
+    /**
+     * Executor that runs its tasks one at a time, in submission order, on a
+     * shared pool; for work that used to have a single thread of its own
+     */
+    public static Executor serial(Pool pool) {
+        return new SerialExecutor(executor(pool));
+    }
+
+    /**
+     * Scope whose tasks are cancelled when the owner is destroyed. Pass a
+     * fragment's {@code getViewLifecycleOwner()} to tie work to its view.
+     */
+    public static TaskScope scope(LifecycleOwner owner) {
+        return new TaskScope(owner);
+    }
+
+    /**
+     * Number of tasks waiting for a thread in a pool
+     */
+    public static int getQueueDepth(Pool pool) {
+        return executor(pool).getQueue().size();
+    }
+
+    /**
+     * Number of threads of a pool currently running a task
+     */
+    public static int getActiveCount(Pool pool) {
+        return executor(pool).getActiveCount();
+    }
+
+    /**
+     * One line per pool with its active threads, queue depth and completed
+     * tasks, for logging
+     */
+    public static String getStats() {
+        StringBuilder stats = new StringBuilder();
+        for (Pool pool : Pool.values()) {
+            ThreadPoolExecutor executor = executor(pool);
+            stats.append(pool.name).append(": active=").append(executor.getActiveCount())
+                    .append('/').append(pool.threads)
+                    .append(" queued=").append(executor.getQueue().size())
+                    .append(" completed=").append(executor.getCompletedTaskCount())
+                    .append('\n');
+        }
+        return stats.toString();
+    }
+
+    private static synchronized ThreadPoolExecutor executor(Pool pool) {
+        ThreadPoolExecutor executor = EXECUTORS[pool.ordinal()];
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(pool.threads, pool.threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(pool.queueCapacity), new PoolThreadFactory(pool.name),
+                    new OverflowWhenFull(pool));
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTORS[pool.ordinal()] = executor;
+        }
+        return executor;
+    }
+
+    /**
+     * Names threads after their pool and runs them at background priority so
+     * they do not compete with the UI thread
+     */
+    private static final class PoolThreadFactory implements ThreadFactory {
+        private final String poolName;
+        private final AtomicInteger count = new AtomicInteger();
+
+        PoolThreadFactory(String poolName) {
+            this.poolName = poolName;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "voyager-" + poolName + "-" + count.incrementAndGet());
+        }
+    }
+
+    /**
+     * A full queue means work is being submitted faster than it can run. The
+     * task then goes to a single overflow thread with an unbounded queue:
+     * running it on the submitter could block the UI thread, or run it inside
+     * a {@link SerialExecutor} that still holds its lock.
+     */
+    private static final class OverflowWhenFull implements RejectedExecutionHandler {
+        private final Pool pool;
+        private ThreadPoolExecutor overflow;
+
+        OverflowWhenFull(Pool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            Log.w(TAG, "Queue full for " + pool.name + " pool, running task on its overflow thread");
+            overflow().execute(task);
+        }
+
+        private synchronized ThreadPoolExecutor overflow() {
+            if (overflow == null) {
+                overflow = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), new PoolThreadFactory(pool.name + "-overflow"));
+                overflow.allowCoreThreadTimeOut(true);
+            }
+            return overflow;
+        }
+    }
+
+    /**
+     * Runs tasks one at a time on another executor
+     */
+    static final class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.offer(() -> {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        /**
+         * Drop the tasks that have not started yet
+         */
+        synchronized void clear() {
+            tasks.clear();
+        }
+
+        /**
+         * Number of tasks that have not started yet
+         */
+        synchronized int getPendingCount() {
+            return tasks.size();
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                executor.execute(active);
+            }
+        }
+    }
+}
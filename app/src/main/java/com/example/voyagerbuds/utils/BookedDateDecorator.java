@@ -14,22 +14,16 @@ import androidx.core.content.ContextCompat;
 import com.example.voyagerbuds.R;
 import com.google.android.material.datepicker.DayViewDecorator;
 
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.List;
-import java.util.TimeZone;
-
 public class BookedDateDecorator extends DayViewDecorator {
 
-    private final List<Long> bookedRanges;
+    private final DateRangeIndex bookedRanges;
 
-    public BookedDateDecorator(List<Long> bookedRanges) {
+    public BookedDateDecorator(DateRangeIndex bookedRanges) {
         this.bookedRanges = bookedRanges;
     }
 
     protected BookedDateDecorator(Parcel in) {
-        bookedRanges = new ArrayList<>();
-        in.readList(bookedRanges, Long.class.getClassLoader());
+        bookedRanges = in.readParcelable(DateRangeIndex.class.getClassLoader());
     }
 
     public static final Creator<BookedDateDecorator> CREATOR = new Creator<BookedDateDecorator>() {
@@ -55,23 +49,7 @@ public class BookedDateDecorator extends DayViewDecorator {
             return null;
         }
 
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        calendar.set(year, month, day, 0, 0, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long date = calendar.getTimeInMillis();
-
-        // Check for past dates (before today)
-        Calendar today = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        today.set(Calendar.HOUR_OF_DAY, 0);
-        today.set(Calendar.MINUTE, 0);
-        today.set(Calendar.SECOND, 0);
-        today.set(Calendar.MILLISECOND, 0);
-
-        if (date < today.getTimeInMillis()) {
-            return ContextCompat.getDrawable(context, R.drawable.ic_underline_red);
-        }
-
-        if (isBooked(date)) {
+        if (isPastOrBooked(year, month, day)) {
             return ContextCompat.getDrawable(context, R.drawable.ic_underline_red);
         }
         return null;
@@ -88,43 +66,21 @@ public class BookedDateDecorator extends DayViewDecorator {
             return null;
         }
 
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        calendar.set(year, month, day, 0, 0, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long date = calendar.getTimeInMillis();
-
-        // Check for past dates (before today)
-        Calendar today = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        today.set(Calendar.HOUR_OF_DAY, 0);
-        today.set(Calendar.MINUTE, 0);
-        today.set(Calendar.SECOND, 0);
-        today.set(Calendar.MILLISECOND, 0);
-
-        if (date < today.getTimeInMillis()) {
-            return ColorStateList.valueOf(Color.RED);
-        }
-
-        if (isBooked(date)) {
+        if (isPastOrBooked(year, month, day)) {
             return ColorStateList.valueOf(Color.RED);
         }
         return null;
     }
 
-    private boolean isBooked(long date) {
-        if (bookedRanges == null)
-            return false;
-
-        // Normalize date to UTC midnight for comparison if needed,
-        // but MaterialDatePicker usually passes UTC midnight timestamps.
-
-        for (int i = 0; i < bookedRanges.size(); i += 2) {
-            long start = bookedRanges.get(i);
-            long end = bookedRanges.get(i + 1);
-            if (date >= start && date <= end) {
-                return true;
-            }
+    // Called for every calendar cell, so it avoids allocating a Calendar
+    private boolean isPastOrBooked(int year, int month, int day) {
+        // Check for past dates (before today, in UTC like the picker)
+        long date = DateRangeIndex.utcDayStart(year, month, day);
+        long now = System.currentTimeMillis();
+        if (date < now - Math.floorMod(now, DateRangeIndex.DAY_MILLIS)) {
+            return true;
         }
-        return false;
+        return bookedRanges != null && bookedRanges.contains(year, month, day);
     }
 
     @Override
@@ -134,6 +90,6 @@ public class BookedDateDecorator extends DayViewDecorator {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeList(bookedRanges);
+        dest.writeParcelable(bookedRanges, flags);
     }
 }
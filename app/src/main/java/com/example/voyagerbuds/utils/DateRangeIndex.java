@@ -0,0 +1,156 @@
+package com.example.voyagerbuds.utils;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.util.SparseIntArray;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, merged set of inclusive date ranges in UTC epoch millis, shared by
+ * the date picker's validator and decorator.
+ * Lookups are a binary search over primitive arrays, and the booked days of a
+ * calendar month are cached as a bitset, so drawing a month costs one search
+ * per day the first time and a bit test afterwards.
+ */
+public class DateRangeIndex implements Parcelable {
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Merged ranges, sorted by start and non-overlapping
+    private final long[] starts;
+    private final long[] ends;
+
+    // Booked days per month (key year * 12 + month), bit (day - 1) set when booked
+    private final SparseIntArray monthMasks = new SparseIntArray();
+
+    /**
+     * @param starts Range starts; ranges may overlap and be in any order
+     * @param ends   Range ends, inclusive; ranges ending before they start are
+     *               ignored
+     * @param count  Number of ranges to read from the arrays
+     */
+    public DateRangeIndex(long[] starts, long[] ends, int count) {
+        long[] sortedStarts = new long[count];
+        long[] sortedEnds = new long[count];
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            if (starts[i] <= ends[i]) {
+                sortedStarts[valid] = starts[i];
+                sortedEnds[valid] = ends[i];
+                valid++;
+            }
+        }
+        // Sorting starts and ends separately pairs them into different ranges
+        // that cover exactly the same dates, which is all a merge needs
+        Arrays.sort(sortedStarts, 0, valid);
+        Arrays.sort(sortedEnds, 0, valid);
+
+        int merged = 0;
+        for (int i = 0; i < valid; i++) {
+            if (merged > 0 && sortedStarts[i] <= sortedEnds[merged - 1] + 1) {
+                sortedEnds[merged - 1] = Math.max(sortedEnds[merged - 1], sortedEnds[i]);
+            } else {
+                sortedStarts[merged] = sortedStarts[i];
+                sortedEnds[merged] = sortedEnds[i];
+                merged++;
+            }
+        }
+        this.starts = Arrays.copyOf(sortedStarts, merged);
+        this.ends = Arrays.copyOf(sortedEnds, merged);
+    }
+
+    protected DateRangeIndex(Parcel in) {
+        // Written already merged, so no need to sort again
+        starts = in.createLongArray();
+        ends = in.createLongArray();
+    }
+
+    public static final Creator<DateRangeIndex> CREATOR = new Creator<DateRangeIndex>() {
+        @Override
+        public DateRangeIndex createFromParcel(Parcel in) {
+            return new DateRangeIndex(in);
+        }
+
+        @Override
+        public DateRangeIndex[] newArray(int size) {
+            return new DateRangeIndex[size];
+        }
+    };
+
+    /**
+     * Whether a date falls inside any range
+     */
+    public boolean contains(long date) {
+        // Last range starting at or before the date
+        int index = Arrays.binarySearch(starts, date);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index >= 0 && date <= ends[index];
+    }
+
+    /**
+     * Whether a calendar day (month 0-based, as in the date picker) falls
+     * inside any range, read from the month's cached bitset
+     */
+    public boolean contains(int year, int month, int day) {
+        int key = year * 12 + month;
+        int mask;
+        int cached = monthMasks.indexOfKey(key);
+        if (cached >= 0) {
+            mask = monthMasks.get(key);
+        } else {
+            mask = buildMonthMask(year, month);
+            monthMasks.put(key, mask);
+        }
+        return (mask & (1 << (day - 1))) != 0;
+    }
+
+    /**
+     * Number of merged ranges
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    private int buildMonthMask(int year, int month) {
+        int mask = 0;
+        long monthStart = utcDayStart(year, month, 1);
+        // Days past the end of the month spill into the next one, but are never
+        // asked for
+        for (int day = 1; day <= 31; day++) {
+            long date = monthStart + (day - 1) * DAY_MILLIS;
+            if (contains(date)) {
+                mask |= 1 << (day - 1);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * UTC midnight of a calendar day in epoch millis (month 0-based), without
+     * allocating a Calendar
+     */
+    public static long utcDayStart(int year, int month, int day) {
+        // Days from civil date, counting years from March so leap days come last
+        int m = month + 1;
+        int y = m <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = (long) era * 146097 + dayOfEra - 719468;
+        return epochDay * DAY_MILLIS;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLongArray(starts);
+        dest.writeLongArray(ends);
+    }
+}
@@ -171,4 +171,41 @@ public class DateUtils {
         return formatLocalDateToDbKey(todayLocalDate());
     }
 
+    // --- Integer date keys stored alongside the text columns
+    // Epoch day used when a date string cannot be parsed
+    public static final long NO_EPOCH_DAY = Long.MIN_VALUE;
+    // Minute of day used when a time string cannot be parsed
+    public static final int NO_MINUTE = -1;
+
+    /**
+     * Convert a database date key (yyyy-MM-dd) to days since 1970-01-01, or
+     * {@link #NO_EPOCH_DAY} if it cannot be parsed
+     */
+    public static long toEpochDay(String dateStr) {
+        LocalDate date = parseDbDateToLocalDate(dateStr);
+        return date == null ? NO_EPOCH_DAY : date.toEpochDay();
+    }
+
+    public static long todayEpochDay() {
+        return todayLocalDate().toEpochDay();
+    }
+
+    /**
+     * Convert a time string (HH:mm or H:mm) to minutes since midnight, or
+     * {@link #NO_MINUTE} if it cannot be parsed
+     */
+    public static int toMinuteOfDay(String timeStr) {
+        if (timeStr == null) return NO_MINUTE;
+        int colon = timeStr.indexOf(':');
+        if (colon <= 0 || colon > 2 || timeStr.length() < colon + 3) return NO_MINUTE;
+        try {
+            int hours = Integer.parseInt(timeStr.substring(0, colon));
+            int minutes = Integer.parseInt(timeStr.substring(colon + 1, colon + 3));
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return NO_MINUTE;
+            return hours * 60 + minutes;
+        } catch (NumberFormatException e) {
+            return NO_MINUTE;
+        }
+    }
+
 }
@@ -5,20 +5,16 @@ import android.os.Parcelable;
 
 import com.google.android.material.datepicker.CalendarConstraints;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class DateValidatorBlockTrips implements CalendarConstraints.DateValidator {
 
-    private final List<Long> blockedRanges; // Stored as start1, end1, start2, end2...
+    private final DateRangeIndex blockedRanges;
 
-    public DateValidatorBlockTrips(List<Long> blockedRanges) {
+    public DateValidatorBlockTrips(DateRangeIndex blockedRanges) {
         this.blockedRanges = blockedRanges;
     }
 
     private DateValidatorBlockTrips(Parcel in) {
-        blockedRanges = new ArrayList<>();
-        in.readList(blockedRanges, Long.class.getClassLoader());
+        blockedRanges = in.readParcelable(DateRangeIndex.class.getClassLoader());
     }
 
     public static final Creator<DateValidatorBlockTrips> CREATOR = new Creator<DateValidatorBlockTrips>() {
@@ -36,16 +32,9 @@ public class DateValidatorBlockTrips implements CalendarConstraints.DateValidato
     @Override
     public boolean isValid(long date) {
         if (blockedRanges == null) return true;
-        
-        for (int i = 0; i < blockedRanges.size(); i += 2) {
-            long start = blockedRanges.get(i);
-            long end = blockedRanges.get(i + 1);
-            // If date is within the range [start, end], it is invalid
-            if (date >= start && date <= end) {
-                return false;
-            }
-        }
-        return true;
+
+        // If date is within any blocked range, it is invalid
+        return !blockedRanges.contains(date);
     }
 
     @Override
@@ -55,6 +44,6 @@ public class DateValidatorBlockTrips implements CalendarConstraints.DateValidato
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeList(blockedRanges);
+        dest.writeParcelable(blockedRanges, flags);
     }
 }
@@ -3,7 +3,16 @@ package com.example.voyagerbuds.utils;
 import android.os.AsyncTask;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
+import com.example.voyagerbuds.models.OutboxMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
 import javax.mail.Authenticator;
 import javax.mail.Message;
@@ -26,6 +35,12 @@ public class EmailSender {
     private static final String SMTP_FROM_EMAIL = com.example.voyagerbuds.BuildConfig.SMTP_FROM_EMAIL;
     private static final String SMTP_FROM_NAME = com.example.voyagerbuds.BuildConfig.SMTP_FROM_NAME;
 
+    // Most SMTP connections a batch opens at once; each one handshakes and
+    // authenticates once and then sends its share of the batch
+    private static final int MAX_CONNECTIONS = 2;
+
+    private static Session session;
+
     public interface EmailCallback {
         void onSuccess();
 
@@ -37,26 +52,125 @@ public class EmailSender {
     }
 
     public static void sendEmailSync(String recipientEmail, String subject, String body) throws Exception {
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", SMTP_HOST);
-        props.put("mail.smtp.port", SMTP_PORT);
-
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(SMTP_USER, SMTP_PASSWORD);
+        Transport.send(buildMessage(recipientEmail, subject, body));
+    }
+
+    /**
+     * Send a batch of messages, reusing up to {@link #MAX_CONNECTIONS}
+     * authenticated connections rather than opening one per message. Blocks
+     * until every message has been tried.
+     *
+     * @return Errors by message ID for the messages that were not sent
+     */
+    public static Map<Long, Exception> sendBatch(List<OutboxMessage> messages) {
+        Map<Long, Exception> errors = new ConcurrentHashMap<>();
+        int connections = Math.min(MAX_CONNECTIONS, messages.size());
+        if (connections == 0) {
+            return errors;
+        }
+
+        List<List<OutboxMessage>> shares = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            shares.add(new ArrayList<>());
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            shares.get(i % connections).add(messages.get(i));
+        }
+
+        // The first share is sent on the calling thread
+        CountDownLatch done = new CountDownLatch(connections - 1);
+        for (int i = 1; i < connections; i++) {
+            List<OutboxMessage> share = shares.get(i);
+            AppExecutors.network().execute(() -> {
+                try {
+                    sendOverOneConnection(share, errors);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        sendOverOneConnection(shares.get(0), errors);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return errors;
+    }
+
+    private static void sendOverOneConnection(List<OutboxMessage> messages, Map<Long, Exception> errors) {
+        Transport transport = null;
+        int next = 0;
+        try {
+            transport = getSession().getTransport("smtp");
+            for (; next < messages.size(); next++) {
+                OutboxMessage outboxMessage = messages.get(next);
+                if (!transport.isConnected()) {
+                    // First message, or the server dropped the connection. The
+                    // server and credentials come from the session.
+                    transport.connect();
+                }
+                try {
+                    Message message = buildMessage(outboxMessage.getRecipient(), outboxMessage.getSubject(),
+                            outboxMessage.getBody());
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (Exception e) {
+                    Log.e(TAG, "Error sending email " + outboxMessage.getMessageId(), e);
+                    errors.put(outboxMessage.getMessageId(), e);
+                }
+            }
+        } catch (MessagingException e) {
+            // Could not connect; the rest of this share fails with it
+            Log.e(TAG, "Error connecting to SMTP server", e);
+            for (int i = next; i < messages.size(); i++) {
+                errors.put(messages.get(i).getMessageId(), e);
+            }
+        } finally {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    Log.w(TAG, "Error closing SMTP connection", e);
+                }
             }
-        });
+        }
+    }
 
-        Message message = new MimeMessage(session);
+    private static Message buildMessage(String recipientEmail, String subject, String body) throws Exception {
+        Message message = new MimeMessage(getSession());
         message.setFrom(new InternetAddress(SMTP_FROM_EMAIL, SMTP_FROM_NAME));
         message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(recipientEmail));
         message.setSubject(subject);
         message.setText(body);
+        return message;
+    }
+
+    private static synchronized Session getSession() {
+        if (session == null) {
+            Properties props = new Properties();
+            props.put("mail.smtp.auth", "true");
+            props.put("mail.smtp.starttls.enable", "true");
+            props.put("mail.smtp.host", SMTP_HOST);
+            props.put("mail.smtp.port", SMTP_PORT);
+            props.put("mail.smtp.user", SMTP_USER);
+
+            session = Session.getInstance(props, new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(SMTP_USER, SMTP_PASSWORD);
+                }
+            });
+        }
+        return session;
+    }
 
-        Transport.send(message);
+    /**
+     * Send through another session, such as one for a local test server;
+     * {@code null} goes back to the configured server
+     */
+    @VisibleForTesting
+    public static synchronized void setSession(Session testSession) {
+        session = testSession;
     }
 
     private static class SendEmailTask extends AsyncTask<Void, Void, Exception> {
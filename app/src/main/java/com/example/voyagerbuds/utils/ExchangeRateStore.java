@@ -0,0 +1,325 @@
+package com.example.voyagerbuds.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Exchange rates of every currency against USD, parsed from the exchange-api
+ * currencies/usd.json payload into sorted parallel arrays and persisted in a
+ * small binary file, so conversions are an in-memory lookup.
+ * Until the first fetch only USD and the default VND rate are known.
+ */
+public class ExchangeRateStore {
+    private static final String TAG = "ExchangeRateStore";
+
+    // Using free exchange-api from https://github.com/fawazahmed0/exchange-api
+    private static final String API_URL = "https://cdn.jsdelivr.net/npm/@fawazahmed0/currency-api@latest/v1/currencies/usd.json";
+
+    private static final String FILE_NAME = "exchange_rates.bin";
+    private static final int FILE_VERSION = 1;
+
+    // Rate saved by older versions, used until the first fetch
+    private static final String PREF_NAME = "currency_prefs";
+    private static final String KEY_LEGACY_VND_RATE = "usd_to_vnd_rate";
+
+    // Default fallback rate: 1 USD = 25,450 VND
+    public static final double DEFAULT_USD_TO_VND_RATE = 25450.0;
+
+    private static ExchangeRateStore instance;
+
+    private final File file;
+    private final SharedPreferences prefs;
+    private final String apiUrl;
+    private final Executor executor;
+    // Replaced as a whole, so readers never see a half-updated table
+    private volatile RateTable table;
+    // One fetch at a time, on the shared network pool
+    private boolean fetchInProgress = false;
+
+    public static synchronized ExchangeRateStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ExchangeRateStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    ExchangeRateStore(Context context) {
+        this(context, API_URL, AppExecutors.network());
+    }
+
+    @VisibleForTesting
+    ExchangeRateStore(Context context, String apiUrl, Executor executor) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        this.prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        this.apiUrl = apiUrl;
+        this.executor = executor;
+    }
+
+    /**
+     * Units of {@code currency} per 1 USD, or NaN if the currency is unknown
+     */
+    public double getRate(String currency) {
+        return getTable().rateOf(normalize(currency));
+    }
+
+    /**
+     * Convert an amount between currencies. Amounts in an unknown currency
+     * are returned unchanged.
+     */
+    public double convert(double amount, String from, String to) {
+        RateTable rates = getTable();
+        double fromRate = rates.rateOf(normalize(from));
+        double toRate = rates.rateOf(normalize(to));
+        if (Double.isNaN(fromRate) || Double.isNaN(toRate)) {
+            return amount;
+        }
+        return amount / fromRate * toRate;
+    }
+
+    /**
+     * Convert many amounts to one currency, looking each currency up once per
+     * run of equal codes. Amounts in an unknown currency are copied unchanged.
+     *
+     * @param currencies Currency of each amount; null or empty means target
+     * @return Converted amounts, in the same order
+     */
+    public double[] convert(double[] amounts, String[] currencies, String target) {
+        RateTable rates = getTable();
+        double toRate = rates.rateOf(normalize(target));
+        double[] converted = new double[amounts.length];
+
+        String lastCurrency = null;
+        double factor = 1.0;
+        for (int i = 0; i < amounts.length; i++) {
+            String currency = currencies[i];
+            if (currency == null || currency.isEmpty()) {
+                converted[i] = amounts[i];
+                continue;
+            }
+            if (!currency.equals(lastCurrency)) {
+                lastCurrency = currency;
+                double fromRate = rates.rateOf(normalize(currency));
+                factor = Double.isNaN(fromRate) || Double.isNaN(toRate) ? 1.0 : toRate / fromRate;
+            }
+            converted[i] = amounts[i] * factor;
+        }
+        return converted;
+    }
+
+    /**
+     * Date of the last successful fetch (yyyy-MM-dd), or "" if never fetched
+     */
+    public String getFetchDate() {
+        return getTable().fetchDate;
+    }
+
+    /**
+     * Fetch fresh rates in the background unless they were fetched today
+     */
+    public void fetchIfNeeded() {
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+        synchronized (this) {
+            if (fetchInProgress) {
+                return;
+            }
+            fetchInProgress = true;
+        }
+        executor.execute(() -> {
+            try {
+                if (!today.equals(getTable().fetchDate)) {
+                    fetch(today);
+                }
+            } finally {
+                synchronized (this) {
+                    fetchInProgress = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Download the rates and make them current, dated {@code today}. Keeps the
+     * current rates if the request fails or the response has no rates.
+     */
+    @VisibleForTesting
+    void fetch(String today) {
+        try {
+            URL url = new URL(apiUrl);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(10000);
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                Log.e(TAG, "Failed to fetch exchange rates. Response code: " + responseCode);
+                connection.disconnect();
+                return;
+            }
+
+            StringBuilder response = new StringBuilder();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+                String inputLine;
+                while ((inputLine = in.readLine()) != null) {
+                    response.append(inputLine);
+                }
+            } finally {
+                connection.disconnect();
+            }
+
+            RateTable fetched = parse(response.toString(), today);
+            // USD is always in the table
+            if (fetched.codes.length <= 1) {
+                Log.e(TAG, "Exchange rate response had no rates");
+                return;
+            }
+            table = fetched;
+            save(fetched);
+            Log.d(TAG, "Exchange rates updated: " + fetched.codes.length + " currencies on " + today);
+        } catch (Exception e) {
+            Log.e(TAG, "Error fetching exchange rates", e);
+        }
+    }
+
+    /**
+     * Parse an exchange-api response:
+     * {"date":"2024-12-05","usd":{"vnd":25450.0,"eur":0.95,...}}
+     */
+    static RateTable parse(String json, String fetchDate) throws org.json.JSONException {
+        JSONObject usdRates = new JSONObject(json).getJSONObject("usd");
+        TreeMap<String, Double> sorted = new TreeMap<>();
+        sorted.put("usd", 1.0);
+        Iterator<String> keys = usdRates.keys();
+        while (keys.hasNext()) {
+            String code = keys.next();
+            double rate = usdRates.optDouble(code);
+            if (rate > 0 && !Double.isInfinite(rate)) {
+                sorted.put(normalize(code), rate);
+            }
+        }
+
+        String[] sortedCodes = new String[sorted.size()];
+        double[] rates = new double[sorted.size()];
+        int i = 0;
+        for (Map.Entry<String, Double> entry : sorted.entrySet()) {
+            sortedCodes[i] = entry.getKey();
+            rates[i] = entry.getValue();
+            i++;
+        }
+        return new RateTable(fetchDate, sortedCodes, rates);
+    }
+
+    private RateTable getTable() {
+        RateTable current = table;
+        if (current == null) {
+            synchronized (this) {
+                if (table == null) {
+                    table = load();
+                }
+                current = table;
+            }
+        }
+        return current;
+    }
+
+    private RateTable load() {
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == FILE_VERSION) {
+                    String fetchDate = in.readUTF();
+                    int count = in.readInt();
+                    String[] codes = new String[count];
+                    double[] rates = new double[count];
+                    for (int i = 0; i < count; i++) {
+                        codes[i] = in.readUTF();
+                        rates[i] = in.readDouble();
+                    }
+                    return new RateTable(fetchDate, codes, rates);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading exchange rates", e);
+            }
+        }
+        double vndRate = prefs.getFloat(KEY_LEGACY_VND_RATE, (float) DEFAULT_USD_TO_VND_RATE);
+        return new RateTable("", new String[] { "usd", "vnd" }, new double[] { 1.0, vndRate });
+    }
+
+    // Write to a temporary file first so a crash never leaves a truncated table
+    @VisibleForTesting
+    void save(RateTable rates) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(rates.fetchDate);
+            out.writeInt(rates.codes.length);
+            for (int i = 0; i < rates.codes.length; i++) {
+                out.writeUTF(rates.codes[i]);
+                out.writeDouble(rates.rates[i]);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving exchange rates", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.e(TAG, "Error replacing exchange rate file");
+            temp.delete();
+        }
+    }
+
+    // Codes are stored lowercase as in the API; "VNĐ" is accepted for VND
+    private static String normalize(String currency) {
+        if (currency == null) {
+            return "";
+        }
+        return currency.trim().toLowerCase(Locale.ROOT).replace('đ', 'd');
+    }
+
+    /**
+     * Immutable rate table: codes sorted for binary search, rates[i] units of
+     * codes[i] per 1 USD
+     */
+    static final class RateTable {
+        final String fetchDate;
+        final String[] codes;
+        final double[] rates;
+
+        RateTable(String fetchDate, String[] codes, double[] rates) {
+            this.fetchDate = fetchDate;
+            this.codes = codes;
+            this.rates = rates;
+        }
+
+        double rateOf(String code) {
+            int index = Arrays.binarySearch(codes, code);
+            return index >= 0 ? rates[index] : Double.NaN;
+        }
+    }
+}
@@ -24,13 +24,23 @@ public class ImageUtils {
 
     public static android.graphics.Bitmap rotateImageIfRequired(android.content.Context context,
             android.graphics.Bitmap img, android.net.Uri selectedImage) throws java.io.IOException {
+        int degrees = getRotationDegrees(context, selectedImage);
+        return degrees == 0 ? img : rotateImage(img, degrees);
+    }
+
+    /**
+     * Clockwise rotation the EXIF orientation of an image asks for: 0, 90, 180
+     * or 270
+     */
+    public static int getRotationDegrees(android.content.Context context, android.net.Uri selectedImage)
+            throws java.io.IOException {
         java.io.InputStream input = context.getContentResolver().openInputStream(selectedImage);
         androidx.exifinterface.media.ExifInterface ei;
         try {
             ei = new androidx.exifinterface.media.ExifInterface(input);
         } catch (java.io.IOException e) {
             e.printStackTrace();
-            return img;
+            return 0;
         } finally {
             if (input != null)
                 input.close();
@@ -41,13 +51,13 @@ public class ImageUtils {
 
         switch (orientation) {
             case androidx.exifinterface.media.ExifInterface.ORIENTATION_ROTATE_90:
-                return rotateImage(img, 90);
+                return 90;
             case androidx.exifinterface.media.ExifInterface.ORIENTATION_ROTATE_180:
-                return rotateImage(img, 180);
+                return 180;
             case androidx.exifinterface.media.ExifInterface.ORIENTATION_ROTATE_270:
-                return rotateImage(img, 270);
+                return 270;
             default:
-                return img;
+                return 0;
         }
     }
 
@@ -18,32 +18,41 @@ import java.time.format.DateTimeFormatter;
 
 public class NotificationHelper {
 
-    public static void scheduleNotification(Context context, ScheduleItem item) {
+    /**
+     * Time the reminder of a schedule item is due, in epoch millis, or -1 when
+     * it has no reminder or its day and start time cannot be parsed
+     */
+    public static long getTriggerAtMillis(ScheduleItem item) {
         if (item.getNotifyBeforeMinutes() <= 0) {
-            cancelNotification(context, item.getId());
-            return;
+            return -1;
         }
-
         try {
-            // Parse date and time
             // Assuming day is "yyyy-MM-dd" and startTime is "HH:mm"
             LocalDate date = LocalDate.parse(item.getDay());
             LocalTime time = LocalTime.parse(item.getStartTime());
-            LocalDateTime dateTime = LocalDateTime.of(date, time);
-
-            // Subtract minutes
-            LocalDateTime notifyTime = dateTime.minusMinutes(item.getNotifyBeforeMinutes());
-
-            // Convert to millis
-            long triggerAtMillis = notifyTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
-
-            // Check if time is in the past
-            if (triggerAtMillis < System.currentTimeMillis()) {
-                Log.d("NotificationHelper", "Notification time is in the past, skipping.");
-                return;
-            }
+            LocalDateTime notifyTime = LocalDateTime.of(date, time).minusMinutes(item.getNotifyBeforeMinutes());
+            return notifyTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
 
+    /**
+     * Arm the reminder of a schedule item with AlarmManager, replacing any
+     * alarm already armed for it. Called by
+     * {@link com.example.voyagerbuds.services.AlarmReconciler}, which
+     * keeps track of the armed alarms; screens should not call this directly.
+     *
+     * @return Whether the alarm was armed
+     */
+    public static boolean registerAlarm(Context context, ScheduleItem item, long triggerAtMillis) {
+        try {
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+            if (alarmManager == null) {
+                return false;
+            }
+            // The receiver reads the current title and time from the database;
+            // these extras are only a fallback
             Intent intent = new Intent(context, NotificationReceiver.class);
             intent.putExtra(NotificationReceiver.EXTRA_TITLE, "Upcoming Event: " + item.getTitle());
             intent.putExtra(NotificationReceiver.EXTRA_MESSAGE, "Event starts at " + item.getStartTime());
@@ -55,47 +64,65 @@ public class NotificationHelper {
                     intent,
                     PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
 
-            if (alarmManager != null) {
-                // Use setAlarmClock for maximum reliability and to bypass battery
-                // optimizations.
-                // This ensures the notification fires exactly when requested, even in Doze
-                // mode.
-                // It also doesn't require the SCHEDULE_EXACT_ALARM permission on Android 12+.
-
-                // Create an intent to open the app if the user taps the alarm icon info
-                // (optional)
-                Intent viewIntent = new Intent(context, com.example.voyagerbuds.activities.HomeActivity.class);
-                viewIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                PendingIntent viewPendingIntent = PendingIntent.getActivity(
-                        context,
-                        item.getId(),
-                        viewIntent,
-                        PendingIntent.FLAG_IMMUTABLE);
+            // Use setAlarmClock for maximum reliability and to bypass battery
+            // optimizations.
+            // This ensures the notification fires exactly when requested, even in Doze
+            // mode.
+            // It also doesn't require the SCHEDULE_EXACT_ALARM permission on Android 12+.
+
+            // Create an intent to open the app if the user taps the alarm icon info
+            // (optional)
+            Intent viewIntent = new Intent(context, com.example.voyagerbuds.activities.HomeActivity.class);
+            viewIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            PendingIntent viewPendingIntent = PendingIntent.getActivity(
+                    context,
+                    item.getId(),
+                    viewIntent,
+                    PendingIntent.FLAG_IMMUTABLE);
 
-                AlarmManager.AlarmClockInfo info = new AlarmManager.AlarmClockInfo(triggerAtMillis, viewPendingIntent);
-                alarmManager.setAlarmClock(info, pendingIntent);
-
-                Log.d("NotificationHelper", "Scheduled alarm for " + notifyTime.toString());
-            }
+            AlarmManager.AlarmClockInfo info = new AlarmManager.AlarmClockInfo(triggerAtMillis, viewPendingIntent);
+            alarmManager.setAlarmClock(info, pendingIntent);
 
+            Log.d("NotificationHelper", "Scheduled alarm for schedule " + item.getId() + " at " + triggerAtMillis);
+            return true;
         } catch (SecurityException se) {
             Log.e("NotificationHelper", "Permission denied for alarm", se);
         } catch (Exception e) {
             Log.e("NotificationHelper", "Error scheduling notification", e);
         }
+        return false;
     }
 
-    public static void cancelNotification(Context context, int scheduleId) {
+    /**
+     * Cancel the armed reminder of a schedule item, if any
+     */
+    public static void cancelAlarm(Context context, int scheduleId) {
+        PendingIntent pendingIntent = findAlarmIntent(context, scheduleId);
+        if (pendingIntent == null) {
+            return;
+        }
         AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(pendingIntent);
+        }
+        // Drop the intent too, so isAlarmRegistered reports it as gone
+        pendingIntent.cancel();
+    }
+
+    /**
+     * Whether the system still holds the alarm intent of a schedule item. It
+     * does not after a reboot or a force stop, which clear every alarm.
+     */
+    public static boolean isAlarmRegistered(Context context, int scheduleId) {
+        return findAlarmIntent(context, scheduleId) != null;
+    }
+
+    private static PendingIntent findAlarmIntent(Context context, int scheduleId) {
         Intent intent = new Intent(context, NotificationReceiver.class);
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+        return PendingIntent.getBroadcast(
                 context,
                 scheduleId,
                 intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
-
-        if (alarmManager != null) {
-            alarmManager.cancel(pendingIntent);
-        }
+                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
     }
 }
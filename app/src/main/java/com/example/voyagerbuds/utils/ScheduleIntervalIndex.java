@@ -0,0 +1,218 @@
+package com.example.voyagerbuds.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable index of one day's schedule time ranges (minutes since midnight)
+ * answering overlap and free-slot queries by binary search.
+ *
+ * Ranges are kept sorted by start with a running maximum of their ends, so the
+ * ranges overlapping [start, end) are found from the last range starting
+ * before {@code end}. Free slots come from the merged busy blocks, with a max
+ * tree over the gaps between them.
+ */
+public final class ScheduleIntervalIndex {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    // Returned when no schedule conflicts or no slot is free
+    public static final int NONE = -1;
+
+    private final int[] ids;
+    private final int[] starts;
+    private final int[] ends;
+
+    // Largest end among ranges 0..i, the schedule it belongs to, and the
+    // largest end of any other schedule, so one schedule can be excluded
+    private final int[] maxEnd;
+    private final int[] maxEndId;
+    private final int[] secondMaxEnd;
+    private final int[] secondMaxEndId;
+
+    // Disjoint busy blocks, sorted
+    private final int[] busyStarts;
+    private final int[] busyEnds;
+    // Max tree over the free gaps; gap i ends at busy block i, the last gap at
+    // the end of the day
+    private final int[] gapTree;
+    private final int gapLeaves;
+
+    /**
+     * @param ranges {scheduleId, startMinute, endMinute} entries in any order
+     */
+    public ScheduleIntervalIndex(List<int[]> ranges) {
+        List<int[]> sorted = new ArrayList<>();
+        for (int[] range : ranges) {
+            // Ranges that are empty or backwards cannot conflict with anything
+            if (range[2] > range[1]) {
+                sorted.add(range);
+            }
+        }
+        sorted.sort((a, b) -> Integer.compare(a[1], b[1]));
+
+        int n = sorted.size();
+        ids = new int[n];
+        starts = new int[n];
+        ends = new int[n];
+        maxEnd = new int[n];
+        maxEndId = new int[n];
+        secondMaxEnd = new int[n];
+        secondMaxEndId = new int[n];
+
+        int[] mergedStarts = new int[n];
+        int[] mergedEnds = new int[n];
+        int blocks = 0;
+
+        int best = Integer.MIN_VALUE, bestId = NONE;
+        int second = Integer.MIN_VALUE, secondId = NONE;
+        for (int i = 0; i < n; i++) {
+            int[] range = sorted.get(i);
+            ids[i] = range[0];
+            starts[i] = range[1];
+            ends[i] = range[2];
+
+            if (ends[i] > best) {
+                second = best;
+                secondId = bestId;
+                best = ends[i];
+                bestId = ids[i];
+            } else if (ends[i] > second) {
+                second = ends[i];
+                secondId = ids[i];
+            }
+            maxEnd[i] = best;
+            maxEndId[i] = bestId;
+            secondMaxEnd[i] = second;
+            secondMaxEndId[i] = secondId;
+
+            if (blocks > 0 && starts[i] <= mergedEnds[blocks - 1]) {
+                mergedEnds[blocks - 1] = Math.max(mergedEnds[blocks - 1], ends[i]);
+            } else {
+                mergedStarts[blocks] = starts[i];
+                mergedEnds[blocks] = ends[i];
+                blocks++;
+            }
+        }
+        busyStarts = Arrays.copyOf(mergedStarts, blocks);
+        busyEnds = Arrays.copyOf(mergedEnds, blocks);
+
+        int leaves = 1;
+        while (leaves < blocks + 1) {
+            leaves <<= 1;
+        }
+        gapLeaves = leaves;
+        gapTree = new int[2 * leaves];
+        Arrays.fill(gapTree, -1);
+        for (int i = 0; i <= blocks; i++) {
+            gapTree[leaves + i] = gapEnd(i) - gapStart(i);
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            gapTree[node] = Math.max(gapTree[2 * node], gapTree[2 * node + 1]);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(int scheduleId) {
+        for (int id : ids) {
+            if (id == scheduleId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find a schedule overlapping [start, end)
+     *
+     * @param excludeId Schedule to ignore, e.g. the one being edited
+     * @return ID of an overlapping schedule, or {@link #NONE}
+     */
+    public int findConflict(int start, int end, int excludeId) {
+        if (end <= start) {
+            return NONE;
+        }
+        // Last range starting before the end; only ranges up to it can overlap
+        int last = lowerBound(starts, end) - 1;
+        if (last < 0) {
+            return NONE;
+        }
+        if (maxEndId[last] != excludeId) {
+            return maxEnd[last] > start ? maxEndId[last] : NONE;
+        }
+        return secondMaxEnd[last] > start ? secondMaxEndId[last] : NONE;
+    }
+
+    /**
+     * Find the earliest start at or after {@code from} of a free slot lasting
+     * {@code duration} minutes that ends by midnight
+     *
+     * @return Minute of day the slot starts, or {@link #NONE}
+     */
+    public int findFreeSlot(int from, int duration) {
+        if (duration <= 0 || from < 0 || from + duration > MINUTES_PER_DAY) {
+            return NONE;
+        }
+        // Gap holding (or following the block holding) the start
+        int gap = lowerBound(busyStarts, from + 1);
+        int start = from;
+        if (gap > 0 && busyEnds[gap - 1] > from) {
+            start = busyEnds[gap - 1];
+        }
+        if (gapEnd(gap) - start >= duration) {
+            return start;
+        }
+        int next = firstGapAtLeast(1, 0, gapLeaves - 1, gap + 1, duration);
+        return next == NONE ? NONE : gapStart(next);
+    }
+
+    /**
+     * A copy of this index without one schedule
+     */
+    public ScheduleIntervalIndex without(int scheduleId) {
+        List<int[]> ranges = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != scheduleId) {
+                ranges.add(new int[] { ids[i], starts[i], ends[i] });
+            }
+        }
+        return new ScheduleIntervalIndex(ranges);
+    }
+
+    private int gapStart(int gap) {
+        return gap == 0 ? 0 : busyEnds[gap - 1];
+    }
+
+    private int gapEnd(int gap) {
+        return gap == busyStarts.length ? MINUTES_PER_DAY : busyStarts[gap];
+    }
+
+    // Leftmost gap at or after fromGap lasting at least duration minutes
+    private int firstGapAtLeast(int node, int lo, int hi, int fromGap, int duration) {
+        if (hi < fromGap || gapTree[node] < duration) {
+            return NONE;
+        }
+        if (lo == hi) {
+            return lo;
+        }
+        int mid = (lo + hi) >>> 1;
+        int found = firstGapAtLeast(2 * node, lo, mid, fromGap, duration);
+        return found != NONE ? found : firstGapAtLeast(2 * node + 1, mid + 1, hi, fromGap, duration);
+    }
+
+    // First index whose value is >= key
+    private static int lowerBound(int[] values, int key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
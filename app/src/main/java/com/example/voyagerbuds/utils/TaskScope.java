@@ -0,0 +1,147 @@
+package com.example.voyagerbuds.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Background work owned by a screen. Tasks run on the shared
+ * {@link AppExecutors} pools, one at a time per pool in submission order, like
+ * the single-thread executors screens used to create for themselves.
+ * When the owner is destroyed, queued tasks are dropped, running ones are
+ * interrupted and results posted with {@link #post(Runnable)} are skipped, so
+ * writes that must finish belong on {@link AppExecutors#db()} instead.
+ * Create it from the main thread.
+ */
+public class TaskScope implements LifecycleEventObserver {
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<AppExecutors.Pool, AppExecutors.SerialExecutor> executors = new EnumMap<>(
+            AppExecutors.Pool.class);
+    private final Set<ScopedTask> running = new HashSet<>();
+    private volatile boolean cancelled = false;
+
+    TaskScope(LifecycleOwner owner) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            cancelled = true;
+        } else {
+            owner.getLifecycle().addObserver(this);
+        }
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            source.getLifecycle().removeObserver(this);
+            cancel();
+        }
+    }
+
+    /**
+     * Run a task on a pool after the scope's earlier tasks on that pool. Does
+     * nothing once the scope is cancelled.
+     */
+    public void execute(AppExecutors.Pool pool, Runnable task) {
+        AppExecutors.SerialExecutor executor;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            executor = executors.get(pool);
+            if (executor == null) {
+                executor = new AppExecutors.SerialExecutor(AppExecutors.get(pool));
+                executors.put(pool, executor);
+            }
+        }
+        executor.execute(new ScopedTask(task));
+    }
+
+    /**
+     * Run on the main thread unless the scope has been cancelled by then
+     */
+    public void post(Runnable uiTask) {
+        mainHandler.post(() -> {
+            if (!cancelled) {
+                uiTask.run();
+            }
+        });
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Number of the scope's tasks waiting to start
+     */
+    public synchronized int getPendingCount() {
+        int pending = 0;
+        for (AppExecutors.SerialExecutor executor : executors.values()) {
+            pending += executor.getPendingCount();
+        }
+        return pending;
+    }
+
+    /**
+     * Drop queued tasks and interrupt running ones
+     */
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            for (AppExecutors.SerialExecutor executor : executors.values()) {
+                executor.clear();
+            }
+        }
+        synchronized (running) {
+            for (ScopedTask task : running) {
+                task.interrupt();
+            }
+        }
+    }
+
+    private final class ScopedTask implements Runnable {
+        private final Runnable task;
+        private Thread runner;
+
+        ScopedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            synchronized (running) {
+                if (cancelled) {
+                    return;
+                }
+                runner = Thread.currentThread();
+                running.add(this);
+            }
+            try {
+                task.run();
+            } finally {
+                synchronized (running) {
+                    running.remove(this);
+                    runner = null;
+                    // Don't let an interrupt meant for this task reach the next
+                    // one on the same pool thread
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        // Called with the running set locked
+        void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
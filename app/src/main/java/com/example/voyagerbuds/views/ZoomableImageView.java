@@ -1,16 +1,48 @@
 package com.example.voyagerbuds.views;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.net.Uri;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.util.LruCache;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 import android.view.View;
 
 import androidx.appcompat.widget.AppCompatImageView;
 
+import com.example.voyagerbuds.utils.AppExecutors;
+import com.example.voyagerbuds.utils.ImageUtils;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Image view with pinch zoom and drag. Given the source of its image with
+ * {@link #setTiledSource}, it also decodes the visible part of the full
+ * resolution image in tiles once zoomed past the shown bitmap, so deep zoom
+ * stays sharp while only a few screens of tiles are held in memory.
+ */
 public class ZoomableImageView extends AppCompatImageView implements View.OnTouchListener {
+    private static final String TAG = "ZoomableImageView";
+
+    // Edge of a decoded tile, in pixels
+    private static final int TILE_SIZE = 512;
+    // Tiles are decoded one at a time, so a fast pan never floods the pool
+    private static final Executor TILE_EXECUTOR = AppExecutors.serial(AppExecutors.Pool.DISK_IO);
 
     private Matrix matrix = new Matrix();
     private Matrix savedMatrix = new Matrix();
@@ -32,6 +64,18 @@ public class ZoomableImageView extends AppCompatImageView implements View.OnTouc
     private float mScaleFactor = 1.f;
     private boolean initialScaleSet = false;
 
+    // Full resolution source for tiled rendering, null when not tiling
+    private TileSource tileSource;
+    // Decoded tiles by "sample:column:row", sized in KB
+    private LruCache<String, Bitmap> tileCache;
+    private final Set<String> requestedTiles = new HashSet<>();
+    private final Paint tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix tileMatrix = new Matrix();
+    private final Matrix sourceMatrix = new Matrix();
+    private final Matrix viewToSource = new Matrix();
+    private final RectF visibleRect = new RectF();
+    private final float[] matrixValues = new float[9];
+
     public ZoomableImageView(Context context) {
         super(context);
         sharedConstructing(context);
@@ -256,4 +300,234 @@ public class ZoomableImageView extends AppCompatImageView implements View.OnTouc
         // Reset scale factor logic might need adjustment if we want to keep zoom level
         // For now, just rotating the matrix is enough for visual rotation
     }
+
+    /**
+     * Use the full resolution image at {@code imagePath} for sharp zoom. The
+     * shown bitmap must be that image, scaled down and upright.
+     *
+     * @param imagePath The path or URI of the image, or null to stop tiling
+     */
+    public void setTiledSource(String imagePath) {
+        if (tileSource != null) {
+            if (imagePath != null && imagePath.equals(tileSource.path)) {
+                return;
+            }
+            tileSource.release();
+            tileSource = null;
+            clearTiles();
+        }
+        if (imagePath == null) {
+            return;
+        }
+
+        TileSource source = new TileSource(imagePath);
+        tileSource = source;
+        Context context = getContext().getApplicationContext();
+        TILE_EXECUTOR.execute(() -> {
+            source.open(context);
+            post(() -> {
+                if (tileSource == source && source.decoder != null) {
+                    invalidate();
+                }
+            });
+        });
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (tileSource != null && tileSource.decoder != null && getDrawable() != null) {
+            drawTiles(canvas, tileSource);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // Tiles are decoded again if the view comes back
+        clearTiles();
+    }
+
+    private void drawTiles(Canvas canvas, TileSource source) {
+        int drawableWidth = getDrawable().getIntrinsicWidth();
+        if (drawableWidth <= 0 || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+
+        // Source pixels to drawable pixels, undoing the EXIF rotation
+        float orientedWidth = source.rotation % 180 == 0 ? source.width : source.height;
+        sourceMatrix.reset();
+        sourceMatrix.postRotate(source.rotation);
+        switch (source.rotation) {
+            case 90:
+                sourceMatrix.postTranslate(source.height, 0);
+                break;
+            case 180:
+                sourceMatrix.postTranslate(source.width, source.height);
+                break;
+            case 270:
+                sourceMatrix.postTranslate(0, source.width);
+                break;
+        }
+        float sourceToDrawable = drawableWidth / orientedWidth;
+        sourceMatrix.postScale(sourceToDrawable, sourceToDrawable);
+        sourceMatrix.postConcat(getImageMatrix());
+
+        // Only once the shown bitmap is drawn larger than its own pixels
+        sourceMatrix.getValues(matrixValues);
+        float screenPerSource = (float) Math.hypot(matrixValues[Matrix.MSCALE_X], matrixValues[Matrix.MSKEW_Y]);
+        if (screenPerSource * orientedWidth / drawableWidth <= 1f || !sourceMatrix.invert(viewToSource)) {
+            source.visibleRegion = null;
+            return;
+        }
+
+        // Nearest power of two, so tiles are drawn at between 0.7x and 1.4x
+        int sample = 1;
+        while (sample * 2 <= 1f / screenPerSource * 1.41f) {
+            sample *= 2;
+        }
+
+        visibleRect.set(0, 0, getWidth(), getHeight());
+        viewToSource.mapRect(visibleRect);
+        Rect region = new Rect(Math.max(0, (int) visibleRect.left), Math.max(0, (int) visibleRect.top),
+                Math.min(source.width, (int) Math.ceil(visibleRect.right)),
+                Math.min(source.height, (int) Math.ceil(visibleRect.bottom)));
+        if (region.isEmpty()) {
+            return;
+        }
+        source.visibleSample = sample;
+        source.visibleRegion = region;
+
+        int tileSpan = TILE_SIZE * sample;
+        for (int row = region.top / tileSpan; row * tileSpan < region.bottom; row++) {
+            for (int column = region.left / tileSpan; column * tileSpan < region.right; column++) {
+                String key = sample + ":" + column + ":" + row;
+                Bitmap tile = tileCache != null ? tileCache.get(key) : null;
+                if (tile == null) {
+                    requestTile(source, key, sample, column, row);
+                    continue;
+                }
+                tileMatrix.setScale(sample, sample);
+                tileMatrix.postTranslate(column * tileSpan, row * tileSpan);
+                tileMatrix.postConcat(sourceMatrix);
+                canvas.drawBitmap(tile, tileMatrix, tilePaint);
+            }
+        }
+    }
+
+    private void requestTile(TileSource source, String key, int sample, int column, int row) {
+        if (!requestedTiles.add(key)) {
+            return;
+        }
+        int tileSpan = TILE_SIZE * sample;
+        Rect tileRect = new Rect(column * tileSpan, row * tileSpan,
+                Math.min(source.width, (column + 1) * tileSpan),
+                Math.min(source.height, (row + 1) * tileSpan));
+        TILE_EXECUTOR.execute(() -> {
+            // Skipped if panned or zoomed away while it waited
+            Bitmap tile = source.isWanted(sample, tileRect) ? source.decode(tileRect, sample) : null;
+            post(() -> {
+                requestedTiles.remove(key);
+                if (tile != null && tileSource == source) {
+                    getTileCache().put(key, tile);
+                    invalidate();
+                }
+            });
+        });
+    }
+
+    private LruCache<String, Bitmap> getTileCache() {
+        if (tileCache == null) {
+            // A few screens of tiles at most
+            DisplayMetrics metrics = getResources().getDisplayMetrics();
+            int maxKb = 3 * metrics.widthPixels * metrics.heightPixels * 4 / 1024;
+            tileCache = new LruCache<String, Bitmap>(maxKb) {
+                @Override
+                protected int sizeOf(String key, Bitmap tile) {
+                    return tile.getAllocationByteCount() / 1024;
+                }
+
+            };
+        }
+        return tileCache;
+    }
+
+    private void clearTiles() {
+        if (tileCache != null) {
+            tileCache.evictAll();
+        }
+        requestedTiles.clear();
+    }
+
+    /**
+     * Region decoder of a full resolution image and the part of it in view.
+     * Opened, used and released on {@link #TILE_EXECUTOR}.
+     */
+    private static final class TileSource {
+        final String path;
+        volatile BitmapRegionDecoder decoder;
+        volatile int width;
+        volatile int height;
+        volatile int rotation;
+        volatile int visibleSample;
+        volatile Rect visibleRegion;
+        private volatile boolean released = false;
+
+        TileSource(String path) {
+            this.path = path;
+        }
+
+        @SuppressWarnings("deprecation")
+        void open(Context context) {
+            if (released) {
+                return;
+            }
+            Uri uri = path.startsWith("content://") || path.startsWith("file://")
+                    ? Uri.parse(path)
+                    : Uri.fromFile(new File(path));
+            try (InputStream input = context.getContentResolver().openInputStream(uri)) {
+                if (input == null) {
+                    return;
+                }
+                BitmapRegionDecoder opened = BitmapRegionDecoder.newInstance(input, false);
+                if (opened == null) {
+                    return;
+                }
+                rotation = ImageUtils.getRotationDegrees(context, uri);
+                width = opened.getWidth();
+                height = opened.getHeight();
+                decoder = opened;
+            } catch (Exception e) {
+                // Not a format that can be decoded by region; zoom stays on the bitmap
+                Log.w(TAG, "No tiled decoding for " + path, e);
+            }
+        }
+
+        boolean isWanted(int sample, Rect tileRect) {
+            Rect region = visibleRegion;
+            return !released && sample == visibleSample && region != null && Rect.intersects(region, tileRect);
+        }
+
+        Bitmap decode(Rect tileRect, int sample) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sample;
+            try {
+                return decoder.decodeRegion(tileRect, options);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to decode tile of " + path, e);
+                return null;
+            }
+        }
+
+        void release() {
+            released = true;
+            // After any decode already queued
+            TILE_EXECUTOR.execute(() -> {
+                if (decoder != null) {
+                    decoder.recycle();
+                    decoder = null;
+                }
+            });
+        }
+    }
 }
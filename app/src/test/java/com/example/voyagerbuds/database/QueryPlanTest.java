@@ -0,0 +1,211 @@
+package com.example.voyagerbuds.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.voyagerbuds.database.dao.CaptureDao;
+import com.example.voyagerbuds.database.dao.DashboardSummaryDao;
+import com.example.voyagerbuds.database.dao.ExpenseDao;
+import com.example.voyagerbuds.database.dao.ExpenseLedgerDao;
+import com.example.voyagerbuds.database.dao.MediaDao;
+import com.example.voyagerbuds.database.dao.ScheduleDao;
+import com.example.voyagerbuds.database.dao.TripDao;
+import com.example.voyagerbuds.database.dao.UserStatsDao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * EXPLAIN QUERY PLAN checks that the per-trip and per-user lookups of the
+ * DAOs are served by the secondary indexes from DatabaseHelper, and not by a
+ * table scan or a separate sort. The statements are the DAOs' own query
+ * constants.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class QueryPlanTest {
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = DatabaseHelper.getInstance(ApplicationProvider.getApplicationContext()).getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void tripsByUserUseUserCreatedIndex() {
+        for (String sql : Arrays.asList(TripDao.BY_USER_QUERY, TripDao.SUMMARIES_BY_USER_QUERY)) {
+            List<String> plan = plan(sql);
+            assertUsesIndex(plan, "idx_trips_user_created");
+            assertNoSort(plan);
+        }
+    }
+
+    @Test
+    public void tripByFirebaseIdUsesFirebaseUserIndex() {
+        assertUsesIndex(plan(TripDao.BY_FIREBASE_ID_QUERY), "idx_trips_firebase_user");
+    }
+
+    @Test
+    public void tripCoveringDayUsesUserStartDayIndex() {
+        List<String> plan = plan(TripDao.COVERING_DAY_QUERY);
+        assertUsesIndex(plan, "idx_trips_user_start_day");
+        assertNoSort(plan);
+    }
+
+    @Test
+    public void overlappingTripsUseUserStartDayIndex() {
+        assertUsesIndex(plan(TripDao.OVERLAPPING_QUERY), "idx_trips_user_start_day");
+    }
+
+    @Test
+    public void expensesByTripUseTripSpentIndex() {
+        for (String sql : Arrays.asList(ExpenseDao.BY_TRIP_QUERY, ExpenseDao.BY_TRIP_AND_CATEGORY_QUERY)) {
+            List<String> plan = plan(sql);
+            assertUsesIndex(plan, "idx_expenses_trip_spent");
+            assertNoSort(plan);
+        }
+    }
+
+    @Test
+    public void expenseTotalsUseTripSpentIndex() {
+        for (String sql : Arrays.asList(ExpenseDao.TOTAL_BY_TRIP_QUERY, ExpenseDao.TOTAL_BY_TRIP_AND_CATEGORY_QUERY,
+                ExpenseDao.TOTALS_BY_CURRENCY_QUERY)) {
+            assertUsesIndex(plan(sql), "idx_expenses_trip_spent");
+        }
+    }
+
+    @Test
+    public void capturesByTripUseTripCapturedIndex() {
+        for (String sql : Arrays.asList(CaptureDao.BY_TRIP_QUERY, CaptureDao.BY_TRIP_ASCENDING_QUERY,
+                CaptureDao.BY_TRIP_AND_TYPE_QUERY)) {
+            List<String> plan = plan(sql);
+            assertUsesIndex(plan, "idx_captures_trip_captured");
+            assertNoSort(plan);
+        }
+    }
+
+    @Test
+    public void captureCountsUseTripCapturedIndex() {
+        for (String sql : Arrays.asList(CaptureDao.COUNT_BY_TRIP_QUERY, CaptureDao.COUNT_BY_TRIP_AND_TYPE_QUERY)) {
+            assertUsesIndex(plan(sql), "idx_captures_trip_captured");
+        }
+    }
+
+    @Test
+    public void capturesByUserUseUserCapturedIndex() {
+        List<String> plan = plan(CaptureDao.BY_USER_QUERY);
+        assertUsesIndex(plan, "idx_captures_user_captured");
+        assertNoSort(plan);
+    }
+
+    @Test
+    public void schedulesByTripUseTripEpochStartIndex() {
+        // Only the text tie-breakers after the integer columns may be sorted
+        for (String sql : Arrays.asList(ScheduleDao.BY_TRIP_QUERY, ScheduleDao.BY_EPOCH_DAY_QUERY,
+                ScheduleDao.TIME_RANGES_BY_EPOCH_DAY_QUERY)) {
+            List<String> plan = plan(sql);
+            assertUsesIndex(plan, "idx_schedules_trip_epoch_start");
+            assertNoFullSort(plan);
+        }
+    }
+
+    @Test
+    public void schedulesByTextDayUseTripEpochStartIndex() {
+        // Days that are not dates are rare, so their rows are sorted
+        for (String sql : Arrays.asList(ScheduleDao.BY_TEXT_DAY_QUERY, ScheduleDao.TIME_RANGES_BY_TEXT_DAY_QUERY)) {
+            assertUsesIndex(plan(sql), "idx_schedules_trip_epoch_start");
+        }
+    }
+
+    @Test
+    public void remindersUseReminderIndex() {
+        assertUsesIndex(plan(ScheduleDao.REMINDERS_QUERY), "idx_schedules_reminder");
+    }
+
+    @Test
+    public void mediaByTripUseTripTakenIndex() {
+        for (String sql : Arrays.asList(MediaDao.BY_TRIP_QUERY, MediaDao.PAGE_BY_TRIP_QUERY,
+                MediaDao.LATEST_BY_TRIP_QUERY)) {
+            List<String> plan = plan(sql);
+            assertUsesIndex(plan, "idx_media_trip_taken");
+            assertNoSort(plan);
+        }
+    }
+
+    @Test
+    public void photoPathsByTripUseTripTakenIndex() {
+        assertUsesIndex(plan(MediaDao.PHOTO_PATHS_BY_TRIP_QUERY), "idx_media_trip_taken");
+    }
+
+    @Test
+    public void summaryReadsUsePrimaryKey() {
+        for (String sql : Arrays.asList(ExpenseLedgerDao.BY_TRIP_QUERY, DashboardSummaryDao.BY_USER_QUERY)) {
+            assertUsesIndex(plan(sql), "PRIMARY KEY");
+        }
+    }
+
+    @Test
+    public void tripCountsUseTripIndexes() {
+        List<String> plan = plan(UserStatsDao.TRIP_COUNTS_QUERY);
+        for (String index : Arrays.asList("idx_schedules_trip_epoch_start", "idx_expenses_trip_spent",
+                "idx_captures_trip_captured")) {
+            assertTrue("Expected " + index + " in " + plan, plan.toString().contains("INDEX " + index));
+        }
+        for (String step : plan) {
+            // Only the union of the user's child rows is scanned for grouping
+            assertFalse(plan.toString(), step.startsWith("SCAN") && !step.startsWith("SCAN (subquery"));
+        }
+    }
+
+    // Binds "1" to every parameter
+    private List<String> plan(String sql) {
+        String[] args = new String[sql.length() - sql.replace("?", "").length()];
+        Arrays.fill(args, "1");
+        List<String> steps = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                steps.add(cursor.getString(detail));
+            }
+        }
+        return steps;
+    }
+
+    private static void assertUsesIndex(List<String> plan, String index) {
+        boolean found = false;
+        for (String step : plan) {
+            found |= step.contains("USING " + index) || step.contains("INDEX " + index);
+            // A full scan would mean the index was not usable for the WHERE clause
+            assertFalse(plan.toString(), step.startsWith("SCAN"));
+        }
+        assertTrue("Expected " + index + " in " + plan, found);
+    }
+
+    private static void assertNoSort(List<String> plan) {
+        for (String step : plan) {
+            assertFalse(plan.toString(), step.contains("TEMP B-TREE"));
+        }
+    }
+
+    private static void assertNoFullSort(List<String> plan) {
+        for (String step : plan) {
+            assertFalse(plan.toString(), step.contains("TEMP B-TREE FOR ORDER BY"));
+        }
+    }
+}
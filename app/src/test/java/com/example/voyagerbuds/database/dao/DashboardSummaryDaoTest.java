@@ -0,0 +1,213 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.models.DashboardSummary;
+import com.example.voyagerbuds.models.Expense;
+import com.example.voyagerbuds.models.Trip;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the DashboardSummary rows kept by the triggers on Trips and
+ * Expenses equal the rows {@link DashboardSummaryDao#rebuildAll()} computes
+ * from scratch after every kind of trip and expense write.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DashboardSummaryDaoTest {
+    private static final double DELTA = 1e-9;
+    private static final String[] DESTINATIONS = { "Paris", "Hanoi", "Tokyo", "", null };
+    private static final String[] CURRENCIES = { "USD", "EUR", "VND", "", null };
+    private static final double[] BUDGETS = { 0, 100, 250.5 };
+
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        helper = DatabaseHelper.getInstance(ApplicationProvider.getApplicationContext());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void tripsAreCountedPerUserAndDestination() {
+        addTrip(1, "Paris", 100, "EUR");
+        addTrip(1, "Paris", 50, "EUR");
+        addTrip(1, null, 200, null);
+        addTrip(2, "Hanoi", 300, "VND");
+
+        DashboardSummary summary = helper.getDashboardSummary(1);
+        assertEquals(3, summary.getTripCount());
+        assertEquals(1, summary.getVisitsByDestination().size());
+        assertEquals(Integer.valueOf(2), summary.getVisitsByDestination().get("Paris"));
+        assertEquals(150.0, summary.getBudgetByCurrency().get("EUR"), DELTA);
+        // Trips without a budget currency are budgeted in USD
+        assertEquals(200.0, summary.getBudgetByCurrency().get("USD"), DELTA);
+        assertEquals(1, helper.getDashboardSummary(2).getTripCount());
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void expensesWithoutCurrencyUseTripCurrency() {
+        Trip trip = addTrip(1, "Paris", 100, "EUR");
+        addExpense(trip.getTripId(), 20, null);
+        addExpense(trip.getTripId(), 5, "");
+        addExpense(trip.getTripId(), 10, "USD");
+
+        DashboardSummary summary = helper.getDashboardSummary(1);
+        assertEquals(25.0, summary.getSpentByCurrency().get("EUR"), DELTA);
+        assertEquals(10.0, summary.getSpentByCurrency().get("USD"), DELTA);
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void changingTripCurrencyMovesItsBudgetAndSpend() {
+        Trip trip = addTrip(1, "Paris", 100, "EUR");
+        addExpense(trip.getTripId(), 20, null);
+        addExpense(trip.getTripId(), 10, "USD");
+
+        trip.setBudgetCurrency("VND");
+        trip.setDestination("Hanoi");
+        helper.updateTrip(trip);
+
+        DashboardSummary summary = helper.getDashboardSummary(1);
+        assertNull(summary.getBudgetByCurrency().get("EUR"));
+        assertNull(summary.getSpentByCurrency().get("EUR"));
+        assertEquals(100.0, summary.getBudgetByCurrency().get("VND"), DELTA);
+        assertEquals(20.0, summary.getSpentByCurrency().get("VND"), DELTA);
+        assertEquals(10.0, summary.getSpentByCurrency().get("USD"), DELTA);
+        assertFalse(summary.getVisitsByDestination().containsKey("Paris"));
+        assertEquals(Integer.valueOf(1), summary.getVisitsByDestination().get("Hanoi"));
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void updatingAndDeletingExpensesAdjustsSpend() {
+        Trip trip = addTrip(1, "Paris", 100, "EUR");
+        Expense expense = addExpense(trip.getTripId(), 20, "EUR");
+        Expense other = addExpense(trip.getTripId(), 7, "USD");
+
+        expense.setAmount(35);
+        expense.setCurrency("USD");
+        helper.updateExpense(expense);
+        helper.deleteExpense(other.getExpenseId());
+
+        DashboardSummary summary = helper.getDashboardSummary(1);
+        assertNull(summary.getSpentByCurrency().get("EUR"));
+        assertEquals(35.0, summary.getSpentByCurrency().get("USD"), DELTA);
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void deletingTripRemovesItsRows() {
+        Trip trip = addTrip(1, "Paris", 100, "EUR");
+        addExpense(trip.getTripId(), 20, null);
+        addTrip(1, "Tokyo", 50, "USD");
+
+        helper.deleteTrip(trip.getTripId());
+
+        DashboardSummary summary = helper.getDashboardSummary(1);
+        assertEquals(1, summary.getTripCount());
+        assertFalse(summary.getVisitsByDestination().containsKey("Paris"));
+        assertNull(summary.getBudgetByCurrency().get("EUR"));
+        assertTrue(summary.getSpentByCurrency().isEmpty());
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void randomWritesMatchRebuild() {
+        Random random = new Random(21);
+        List<Trip> trips = new ArrayList<>();
+        List<Expense> expenses = new ArrayList<>();
+        for (int step = 0; step < 200; step++) {
+            int action = random.nextInt(10);
+            if (trips.isEmpty() || action == 0) {
+                trips.add(addTrip(1 + random.nextInt(2), pick(random, DESTINATIONS),
+                        BUDGETS[random.nextInt(BUDGETS.length)], pick(random, CURRENCIES)));
+            } else if (action == 1 && trips.size() > 1) {
+                int tripId = trips.remove(random.nextInt(trips.size())).getTripId();
+                helper.deleteTrip(tripId);
+                expenses.removeIf(expense -> expense.getTripId() == tripId);
+            } else if (action == 2) {
+                Trip trip = trips.get(random.nextInt(trips.size()));
+                trip.setDestination(pick(random, DESTINATIONS));
+                trip.setBudget(BUDGETS[random.nextInt(BUDGETS.length)]);
+                trip.setBudgetCurrency(pick(random, CURRENCIES));
+                helper.updateTrip(trip);
+            } else if (action <= 5 || expenses.isEmpty()) {
+                expenses.add(addExpense(trips.get(random.nextInt(trips.size())).getTripId(),
+                        1 + random.nextInt(10000) / 100.0, pick(random, CURRENCIES)));
+            } else if (action <= 8) {
+                Expense expense = expenses.get(random.nextInt(expenses.size()));
+                expense.setCurrency(pick(random, CURRENCIES));
+                expense.setAmount(1 + random.nextInt(10000) / 100.0);
+                helper.updateExpense(expense);
+            } else {
+                helper.deleteExpense(expenses.remove(random.nextInt(expenses.size())).getExpenseId());
+            }
+            assertMatchesRebuild();
+        }
+    }
+
+    private Trip addTrip(int userId, String destination, double budget, String currency) {
+        Trip trip = new Trip();
+        trip.setUserId(userId);
+        trip.setTripName("Trip");
+        trip.setDestination(destination);
+        trip.setBudget(budget);
+        trip.setBudgetCurrency(currency);
+        long id = helper.addTrip(trip);
+        assertTrue(id > 0);
+        trip.setTripId((int) id);
+        return trip;
+    }
+
+    private Expense addExpense(int tripId, double amount, String currency) {
+        Expense expense = new Expense(0, tripId, "Food", amount, currency, null, 0);
+        assertTrue(helper.addExpense(expense) > 0);
+        return expense;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private void assertMatchesRebuild() {
+        List<String> maintained = rows();
+        helper.getDashboardSummaryDao().rebuildAll();
+        assertEquals(rows(), maintained);
+    }
+
+    private List<String> rows() {
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT userId, kind, key, count, amount FROM "
+                + DashboardSummaryDao.TABLE_NAME + " ORDER BY 1, 2, 3", null)) {
+            while (cursor.moveToNext()) {
+                // Sums are rounded, since adding and subtracting in another
+                // order leaves different rounding errors
+                rows.add(cursor.getInt(0) + "|" + cursor.getString(1) + "|" + cursor.getString(2) + "|"
+                        + cursor.getInt(3) + "|" + Math.round(cursor.getDouble(4) * 1e6));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.models.BudgetLedger;
+import com.example.voyagerbuds.models.Expense;
+import com.example.voyagerbuds.models.Trip;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the ExpenseLedger rows kept by the triggers on Expenses equal
+ * the rows {@link ExpenseLedgerDao#rebuildAll()} computes from scratch after
+ * every kind of expense and trip write.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ExpenseLedgerDaoTest {
+    private static final double DELTA = 1e-9;
+    private static final String[] CATEGORIES = { "Food", "Hotel", "Transport", "", null };
+    private static final String[] CURRENCIES = { "USD", "EUR", "VND", "", null };
+
+    private DatabaseHelper helper;
+    private int amountSeed;
+
+    @Before
+    public void setUp() {
+        helper = DatabaseHelper.getInstance(ApplicationProvider.getApplicationContext());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void insertsAreTotalledPerCategoryAndCurrency() {
+        int tripId = addTrip();
+        addExpense(tripId, "Food", 12.5, "USD");
+        addExpense(tripId, "Food", 30.0, "USD");
+        addExpense(tripId, "Hotel", 80.0, "EUR");
+        addExpense(tripId, null, 4.0, null);
+
+        BudgetLedger ledger = helper.getBudgetLedger(tripId);
+        assertEquals(126.5, ledger.getTotal(), DELTA);
+        assertEquals(4, ledger.getExpenseCount());
+        assertEquals(42.5, ledger.getTotalsByCategory().get("Food"), DELTA);
+        assertEquals(4.0, ledger.getTotalsByCategory().get(BudgetLedger.UNCATEGORIZED), DELTA);
+        assertEquals(42.5, ledger.getTotalsByCurrency().get("USD"), DELTA);
+        assertEquals(4.0, ledger.getNoCurrencyTotal(), DELTA);
+        assertEquals(80.0, ledger.getHighestAmount(), DELTA);
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void updateMovesExpenseBetweenRows() {
+        int tripId = addTrip();
+        Expense expense = addExpense(tripId, "Food", 20.0, "USD");
+        addExpense(tripId, "Food", 5.0, "USD");
+
+        expense.setCategory("Hotel");
+        expense.setCurrency("EUR");
+        expense.setAmount(25.0);
+        helper.updateExpense(expense);
+
+        BudgetLedger ledger = helper.getBudgetLedger(tripId);
+        assertEquals(5.0, ledger.getTotalsByCategory().get("Food"), DELTA);
+        assertEquals(25.0, ledger.getTotalsByCategory().get("Hotel"), DELTA);
+        assertEquals(expense.getExpenseId(), ledger.getHighestExpenseId());
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void deletingHighestExpenseRecomputesMaximum() {
+        int tripId = addTrip();
+        Expense highest = addExpense(tripId, "Food", 50.0, "USD");
+        Expense second = addExpense(tripId, "Food", 30.0, "USD");
+        addExpense(tripId, "Food", 10.0, "USD");
+
+        helper.deleteExpense(highest.getExpenseId());
+
+        BudgetLedger ledger = helper.getBudgetLedger(tripId);
+        assertEquals(second.getExpenseId(), ledger.getHighestExpenseId());
+        assertEquals(30.0, ledger.getHighestAmount(), DELTA);
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void deletingLastExpenseDropsRow() {
+        int tripId = addTrip();
+        Expense expense = addExpense(tripId, "Food", 15.0, "USD");
+
+        helper.deleteExpense(expense.getExpenseId());
+
+        assertEquals(0, helper.getBudgetLedger(tripId).getExpenseCount());
+        assertEquals(0, count("SELECT COUNT(*) FROM " + ExpenseLedgerDao.TABLE_NAME));
+    }
+
+    @Test
+    public void deletingTripClearsItsLedger() {
+        int tripId = addTrip();
+        int otherTripId = addTrip();
+        addExpense(tripId, "Food", 15.0, "USD");
+        addExpense(otherTripId, "Food", 25.0, "USD");
+
+        helper.deleteTrip(tripId);
+
+        assertEquals(0, helper.getBudgetLedger(tripId).getExpenseCount());
+        assertEquals(25.0, helper.getBudgetLedger(otherTripId).getTotal(), DELTA);
+        assertMatchesRebuild();
+    }
+
+    @Test
+    public void randomWritesMatchRebuild() {
+        Random random = new Random(13);
+        List<Integer> tripIds = new ArrayList<>();
+        List<Expense> expenses = new ArrayList<>();
+        for (int step = 0; step < 200; step++) {
+            int action = random.nextInt(10);
+            if (tripIds.isEmpty() || action == 0) {
+                tripIds.add(addTrip());
+            } else if (action == 1 && tripIds.size() > 1) {
+                int tripId = tripIds.remove(random.nextInt(tripIds.size()));
+                helper.deleteTrip(tripId);
+                expenses.removeIf(expense -> expense.getTripId() == tripId);
+            } else if (action <= 5 || expenses.isEmpty()) {
+                expenses.add(addExpense(tripIds.get(random.nextInt(tripIds.size())),
+                        pick(random, CATEGORIES), nextAmount(), pick(random, CURRENCIES)));
+            } else if (action <= 8) {
+                Expense expense = expenses.get(random.nextInt(expenses.size()));
+                expense.setCategory(pick(random, CATEGORIES));
+                expense.setCurrency(pick(random, CURRENCIES));
+                if (random.nextBoolean()) {
+                    expense.setAmount(nextAmount());
+                }
+                helper.updateExpense(expense);
+            } else {
+                helper.deleteExpense(expenses.remove(random.nextInt(expenses.size())).getExpenseId());
+            }
+            assertMatchesRebuild();
+        }
+    }
+
+    private int addTrip() {
+        Trip trip = new Trip();
+        trip.setUserId(1);
+        trip.setTripName("Trip");
+        long id = helper.addTrip(trip);
+        assertTrue(id > 0);
+        return (int) id;
+    }
+
+    private Expense addExpense(int tripId, String category, double amount, String currency) {
+        Expense expense = new Expense(0, tripId, category, amount, currency, null, 0);
+        assertTrue(helper.addExpense(expense) > 0);
+        return expense;
+    }
+
+    // Distinct amounts, so the highest expense of a row is never a tie
+    private double nextAmount() {
+        amountSeed++;
+        return 1 + (amountSeed * 7919 % 10007) / 10.0;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private void assertMatchesRebuild() {
+        List<String> maintained = rows();
+        helper.getExpenseLedgerDao().rebuildAll();
+        assertEquals(rows(), maintained);
+    }
+
+    private List<String> rows() {
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT tripId, category, currency, total,"
+                + " expense_count, max_amount, max_expense_id FROM " + ExpenseLedgerDao.TABLE_NAME
+                + " ORDER BY 1, 2, 3", null)) {
+            while (cursor.moveToNext()) {
+                // Sums are rounded, since adding and subtracting in another
+                // order leaves different rounding errors
+                rows.add(cursor.getInt(0) + "|" + cursor.getString(1) + "|" + cursor.getString(2) + "|"
+                        + Math.round(cursor.getDouble(3) * 1e6) + "|" + cursor.getInt(4) + "|"
+                        + Math.round(cursor.getDouble(5) * 1e6) + "|" + cursor.getInt(6));
+            }
+        }
+        return rows;
+    }
+
+    private int count(String sql) {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery(sql, null)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.voyagerbuds.database.dao;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.InvalidationTracker;
+import com.example.voyagerbuds.models.SearchResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Times as-you-type search over 50k indexed trips. Each keystroke is a new
+ * query that has to be ranked, so its first page must come back within a few
+ * milliseconds; later pages reuse the ranking.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SearchDaoPerformanceTest {
+    private static final int ROWS = 50_000;
+    private static final int USER_ID = 1;
+    private static final int OTHER_USER_ID = 2;
+    private static final int PAGE_SIZE = 20;
+    // Median and slowest keystroke
+    private static final double MEDIAN_BUDGET_MILLIS = 10;
+    private static final double WORST_BUDGET_MILLIS = 30;
+    private static final String[] SYLLABLES = { "ba", "be", "bi", "bo", "ka", "ke", "ki", "ko", "la", "le", "li",
+            "lo", "ma", "me", "mi", "mo", "na", "ne", "ni", "no", "ra", "re", "ri", "ro", "sa", "se", "si", "so",
+            "ta", "te", "ti", "to", "va", "ve", "vi", "vo" };
+
+    private DatabaseHelper helper;
+    private List<String> vocabulary;
+
+    @Before
+    public void setUp() {
+        helper = DatabaseHelper.getInstance(ApplicationProvider.getApplicationContext());
+        Random random = new Random(50);
+        vocabulary = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary.add(word.toString());
+        }
+        insertTrips(random);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void typingStaysWithinBudget() {
+        helper.search(USER_ID, "warm up", 0, PAGE_SIZE);
+
+        List<Double> millis = new ArrayList<>();
+        for (String word : vocabulary.subList(0, 8)) {
+            for (int length = 2; length <= word.length(); length++) {
+                long start = System.nanoTime();
+                List<SearchResult> page = helper.search(USER_ID, word.substring(0, length), 0, PAGE_SIZE);
+                millis.add((System.nanoTime() - start) / 1e6);
+                assertFalse(word.substring(0, length), page.isEmpty());
+            }
+        }
+
+        Collections.sort(millis);
+        double median = millis.get(millis.size() / 2);
+        double worst = millis.get(millis.size() - 1);
+        assertTrue("Median keystroke took " + median + " ms", median <= MEDIAN_BUDGET_MILLIS);
+        assertTrue("Slowest keystroke took " + worst + " ms", worst <= WORST_BUDGET_MILLIS);
+    }
+
+    @Test
+    public void laterPagesReuseRanking() {
+        String query = vocabulary.get(0).substring(0, 2);
+        List<SearchResult> first = helper.search(USER_ID, query, 0, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, first.size());
+        // A new best match that is not announced: ranking again would put it
+        // first and shift every later page by one
+        helper.getWritableDatabase().execSQL("INSERT INTO Trips (userId, trip_name) VALUES (?, ?)",
+                new Object[] { USER_ID, vocabulary.get(0) });
+
+        Set<Integer> seen = new HashSet<>();
+        for (SearchResult result : first) {
+            seen.add(result.getOwnerId());
+        }
+        double previousScore = first.get(first.size() - 1).getScore();
+        for (int offset = PAGE_SIZE; offset < SearchDao.MAX_RANKED_RESULTS; offset += PAGE_SIZE) {
+            List<SearchResult> page = helper.search(USER_ID, query, offset, PAGE_SIZE);
+            for (SearchResult result : page) {
+                assertTrue("Repeated " + result.getOwnerId(), seen.add(result.getOwnerId()));
+                assertTrue(result.getScore() <= previousScore);
+                previousScore = result.getScore();
+            }
+        }
+    }
+
+    @Test
+    public void otherUsersRowsAreNotReturned() {
+        assertTrue(helper.search(USER_ID, "zanzibar", 0, PAGE_SIZE).isEmpty());
+        assertEquals(PAGE_SIZE, helper.search(OTHER_USER_ID, "zanzibar", 0, PAGE_SIZE).size());
+    }
+
+    @Test
+    public void writeDropsCachedRanking() {
+        String query = vocabulary.get(1);
+        helper.search(USER_ID, query, 0, PAGE_SIZE);
+
+        helper.getWritableDatabase().execSQL("INSERT INTO Trips (userId, trip_name) VALUES (?, ?)",
+                new Object[] { USER_ID, query });
+        helper.getInvalidationTracker().notifyInvalidated(InvalidationTracker.TRIPS, InvalidationTracker.ANY_TRIP);
+
+        // The trip named just the query is the best match
+        List<SearchResult> after = helper.search(USER_ID, query, 0, PAGE_SIZE);
+        assertEquals(query, after.get(0).getTitle().replace(SearchResult.MATCH_START, "")
+                .replace(SearchResult.MATCH_END, ""));
+    }
+
+    // Every fifth trip belongs to another user, whose trips all mention Zanzibar
+    private void insertTrips(Random random) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO Trips (userId, trip_name, destination, notes) VALUES (?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROWS; i++) {
+                boolean other = i % 5 == 0;
+                insert.bindLong(1, other ? OTHER_USER_ID : USER_ID);
+                insert.bindString(2, words(random, 3));
+                insert.bindString(3, other ? "Zanzibar" : words(random, 1));
+                insert.bindString(4, words(random, 8));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append(vocabulary.get(random.nextInt(vocabulary.size())));
+        }
+        return words.toString();
+    }
+}
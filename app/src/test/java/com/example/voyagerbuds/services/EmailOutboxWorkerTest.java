@@ -0,0 +1,151 @@
+package com.example.voyagerbuds.services;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.ListenableWorker;
+import androidx.work.testing.TestWorkerBuilder;
+
+import com.example.voyagerbuds.database.DatabaseHelper;
+import com.example.voyagerbuds.database.dao.OutboxDao;
+import com.example.voyagerbuds.models.OutboxMessage;
+import com.example.voyagerbuds.utils.TestMailServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class EmailOutboxWorkerTest {
+    // A recipient InternetAddress.parse rejects
+    private static final String INVALID_RECIPIENT = "<unclosed@example.com";
+
+    private final TestMailServer server = new TestMailServer();
+    private Context context;
+    private OutboxDao outboxDao;
+
+    @Before
+    public void setUp() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+        outboxDao = DatabaseHelper.getInstance(context).getOutboxDao();
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void sendsWholeQueueInBatches() {
+        // More than one batch of 20
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            recipients.add("user" + i + "@example.com");
+        }
+        queue(recipients.toArray(new String[0]));
+
+        assertEquals(ListenableWorker.Result.success(), runWorker());
+
+        assertEquals(0, outboxDao.getPendingCount());
+        assertEquals(45, server.awaitMessages(45).length);
+    }
+
+    @Test
+    public void failedMessageStaysQueuedForRetry() {
+        server.goOffline();
+        queue("a@example.com", "b@example.com");
+
+        assertEquals(ListenableWorker.Result.retry(), runWorker());
+
+        List<OutboxMessage> pending = outboxDao.getPending(10);
+        assertEquals(2, pending.size());
+        for (OutboxMessage message : pending) {
+            assertEquals(1, message.getAttempts());
+            assertNotNull(message.getLastError());
+        }
+    }
+
+    @Test
+    public void retrySendsWhatIsLeft() {
+        server.goOffline();
+        queue("a@example.com");
+        assertEquals(ListenableWorker.Result.retry(), runWorker());
+        server.goOnline();
+        queue("b@example.com");
+
+        assertEquals(ListenableWorker.Result.success(), runWorker());
+
+        assertEquals(2, server.awaitMessages(2).length);
+        assertEquals(0, outboxDao.getPendingCount());
+    }
+
+    @Test
+    public void invalidRecipientIsDroppedWithoutRetry() {
+        queue("a@example.com", INVALID_RECIPIENT, "c@example.com");
+
+        assertEquals(ListenableWorker.Result.success(), runWorker());
+
+        assertEquals(0, outboxDao.getPendingCount());
+        assertEquals(2, server.awaitMessages(2).length);
+    }
+
+    @Test
+    public void onlyRejectedAddressesArePermanent() throws AddressException {
+        Address[] addresses = { new InternetAddress("a@example.com") };
+
+        assertTrue(EmailOutboxWorker.isPermanent(new AddressException("Missing '>'")));
+        assertTrue(EmailOutboxWorker.isPermanent(
+                new SendFailedException("Invalid Addresses", null, null, null, addresses)));
+        assertFalse(EmailOutboxWorker.isPermanent(
+                new SendFailedException("Try again later", null, null, addresses, null)));
+        assertFalse(EmailOutboxWorker.isPermanent(new MessagingException("Connection refused")));
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        server.goOffline();
+        queue("a@example.com");
+
+        for (int attempt = 1; attempt < EmailOutbox.MAX_ATTEMPTS; attempt++) {
+            assertEquals(ListenableWorker.Result.retry(), runWorker());
+            assertEquals(attempt, outboxDao.getPending(10).get(0).getAttempts());
+        }
+
+        // The last attempt fails too, and the message is dropped
+        assertEquals(ListenableWorker.Result.success(), runWorker());
+        assertEquals(0, outboxDao.getPendingCount());
+    }
+
+    private void queue(String... recipients) {
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (String recipient : recipients) {
+            messages.add(new OutboxMessage(recipient, "Check-in", "All good so far."));
+        }
+        outboxDao.insertAll(messages);
+    }
+
+    private ListenableWorker.Result runWorker() {
+        EmailOutboxWorker worker = TestWorkerBuilder.from(context, EmailOutboxWorker.class,
+                Executors.newSingleThreadExecutor()).build();
+        return worker.doWork();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.voyagerbuds.utils;
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class DateRangeIndexTest {
+    private static final long DAY = DateRangeIndex.DAY_MILLIS;
+
+    @Test
+    public void overlappingRangesMerge() {
+        DateRangeIndex index = index(new long[] { 10 * DAY, 12 * DAY }, new long[] { 15 * DAY, 20 * DAY });
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains(9 * DAY));
+        assertTrue(index.contains(10 * DAY));
+        assertTrue(index.contains(20 * DAY));
+        assertFalse(index.contains(20 * DAY + 1));
+    }
+
+    @Test
+    public void containedRangeMerges() {
+        DateRangeIndex index = index(new long[] { 10 * DAY, 12 * DAY }, new long[] { 30 * DAY, 14 * DAY });
+
+        assertEquals(1, index.size());
+        assertTrue(index.contains(25 * DAY));
+    }
+
+    @Test
+    public void adjacentRangesMerge() {
+        // Ends are inclusive, so a range starting one milli later continues it
+        DateRangeIndex index = index(new long[] { 10 * DAY, 15 * DAY + 1 }, new long[] { 15 * DAY, 20 * DAY });
+
+        assertEquals(1, index.size());
+        assertTrue(index.contains(15 * DAY + 1));
+    }
+
+    @Test
+    public void separateRangesStaySeparate() {
+        DateRangeIndex index = index(new long[] { 10 * DAY, 15 * DAY + 2 }, new long[] { 15 * DAY, 20 * DAY });
+
+        assertEquals(2, index.size());
+        assertFalse(index.contains(15 * DAY + 1));
+    }
+
+    @Test
+    public void unsortedRangesAreSorted() {
+        DateRangeIndex index = index(new long[] { 50 * DAY, 10 * DAY, 30 * DAY },
+                new long[] { 55 * DAY, 12 * DAY, 31 * DAY });
+
+        assertEquals(3, index.size());
+        assertTrue(index.contains(11 * DAY));
+        assertTrue(index.contains(30 * DAY));
+        assertTrue(index.contains(55 * DAY));
+        assertFalse(index.contains(40 * DAY));
+        assertFalse(index.contains(5 * DAY));
+        assertFalse(index.contains(60 * DAY));
+    }
+
+    @Test
+    public void backwardsRangesAreIgnored() {
+        DateRangeIndex index = index(new long[] { 20 * DAY, 10 * DAY }, new long[] { 10 * DAY, 12 * DAY });
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains(15 * DAY));
+    }
+
+    @Test
+    public void onlyCountRangesAreRead() {
+        DateRangeIndex index = new DateRangeIndex(new long[] { 10 * DAY, 30 * DAY }, new long[] { 12 * DAY, 32 * DAY },
+                1);
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains(31 * DAY));
+    }
+
+    @Test
+    public void emptyIndexContainsNothing() {
+        DateRangeIndex index = new DateRangeIndex(new long[0], new long[0], 0);
+
+        assertEquals(0, index.size());
+        assertFalse(index.contains(0));
+        assertFalse(index.contains(2024, 0, 1));
+    }
+
+    @Test
+    public void mergeMatchesBruteForce() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int count = random.nextInt(10);
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = random.nextInt(100);
+                ends[i] = starts[i] + random.nextInt(15) - 2;
+            }
+            DateRangeIndex index = new DateRangeIndex(starts, ends, count);
+
+            int runs = 0;
+            boolean previous = false;
+            for (long date = -1; date <= 120; date++) {
+                boolean expected = false;
+                for (int i = 0; i < count; i++) {
+                    expected |= starts[i] <= date && date <= ends[i];
+                }
+                assertEquals("date " + date, expected, index.contains(date));
+                if (expected && !previous) {
+                    runs++;
+                }
+                previous = expected;
+            }
+            // Every maximal run of covered dates is one merged range
+            assertEquals(runs, index.size());
+        }
+    }
+
+    @Test
+    public void utcDayStartMatchesEpochDay() {
+        LocalDate[] dates = { LocalDate.of(1970, 1, 1), LocalDate.of(1969, 12, 31), LocalDate.of(2000, 2, 29),
+                LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 1), LocalDate.of(2023, 12, 31),
+                LocalDate.of(2100, 3, 1), LocalDate.of(1600, 1, 1) };
+        for (LocalDate date : dates) {
+            assertEquals(date.toString(), date.toEpochDay() * DAY,
+                    DateRangeIndex.utcDayStart(date.getYear(), date.getMonthValue() - 1, date.getDayOfMonth()));
+        }
+    }
+
+    @Test
+    public void calendarDayLookupMatchesDateLookup() {
+        long start = DateRangeIndex.utcDayStart(2024, 1, 27);
+        long end = DateRangeIndex.utcDayStart(2024, 2, 2);
+        DateRangeIndex index = index(new long[] { start }, new long[] { end });
+
+        assertFalse(index.contains(2024, 1, 26));
+        assertTrue(index.contains(2024, 1, 27));
+        assertTrue(index.contains(2024, 1, 29));
+        assertTrue(index.contains(2024, 2, 1));
+        assertTrue(index.contains(2024, 2, 2));
+        assertFalse(index.contains(2024, 2, 3));
+        // Asked again, now answered from the cached month
+        assertTrue(index.contains(2024, 1, 28));
+        assertFalse(index.contains(2024, 2, 3));
+    }
+
+    @Test
+    public void parcelRoundTripKeepsRanges() {
+        DateRangeIndex index = index(new long[] { 30 * DAY, 10 * DAY, 12 * DAY },
+                new long[] { 31 * DAY, 14 * DAY, 20 * DAY });
+
+        Parcel parcel = Parcel.obtain();
+        try {
+            index.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            DateRangeIndex copy = DateRangeIndex.CREATOR.createFromParcel(parcel);
+
+            assertEquals(index.size(), copy.size());
+            for (long date = 0; date <= 40 * DAY; date += DAY / 2) {
+                assertEquals(index.contains(date), copy.contains(date));
+            }
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static DateRangeIndex index(long[] starts, long[] ends) {
+        return new DateRangeIndex(starts, ends, starts.length);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.voyagerbuds.utils;
+
+import com.example.voyagerbuds.models.OutboxMessage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class EmailSenderTest {
+    // A recipient InternetAddress.parse rejects, so only its message fails
+    private static final String INVALID_RECIPIENT = "<unclosed@example.com";
+    // EmailSender.MAX_CONNECTIONS
+    private static final int MAX_CONNECTIONS = 2;
+
+    private final TestMailServer server = new TestMailServer();
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void batchSendsEveryMessage() throws MessagingException {
+        List<OutboxMessage> batch = batch("a@example.com", "b@example.com", "c@example.com", "d@example.com",
+                "e@example.com");
+
+        Map<Long, Exception> errors = EmailSender.sendBatch(batch);
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        MimeMessage[] received = server.awaitMessages(batch.size());
+        assertEquals(batch.size(), received.length);
+        Set<String> recipients = new HashSet<>();
+        for (MimeMessage message : received) {
+            recipients.add(message.getRecipients(Message.RecipientType.TO)[0].toString());
+            assertEquals("Check-in", message.getSubject());
+        }
+        for (OutboxMessage message : batch) {
+            assertTrue(recipients.contains(message.getRecipient()));
+        }
+    }
+
+    @Test
+    public void batchReusesConnections() {
+        List<OutboxMessage> batch = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            batch.add(message(i + 1, "user" + i + "@example.com"));
+        }
+
+        assertTrue(EmailSender.sendBatch(batch).isEmpty());
+
+        assertEquals(12, server.awaitMessages(12).length);
+        assertEquals(MAX_CONNECTIONS, server.getConnectionCount());
+    }
+
+    @Test
+    public void singleMessageOpensOneConnection() {
+        assertTrue(EmailSender.sendBatch(batch("a@example.com")).isEmpty());
+
+        assertEquals(1, server.awaitMessages(1).length);
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void failedMessageDoesNotStopTheBatch() {
+        List<OutboxMessage> batch = batch("a@example.com", INVALID_RECIPIENT, "c@example.com", "d@example.com",
+                "e@example.com");
+
+        Map<Long, Exception> errors = EmailSender.sendBatch(batch);
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.containsKey(batch.get(1).getMessageId()));
+        assertEquals(4, server.awaitMessages(4).length);
+        // The failure stays on its connection, which goes on to the next message
+        assertEquals(MAX_CONNECTIONS, server.getConnectionCount());
+    }
+
+    @Test
+    public void emptyBatchOpensNoConnection() {
+        assertTrue(EmailSender.sendBatch(new ArrayList<>()).isEmpty());
+
+        assertEquals(0, server.getConnectionCount());
+    }
+
+    private static List<OutboxMessage> batch(String... recipients) {
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (int i = 0; i < recipients.length; i++) {
+            messages.add(message(i + 1, recipients[i]));
+        }
+        return messages;
+    }
+
+    private static OutboxMessage message(long messageId, String recipient) {
+        OutboxMessage message = new OutboxMessage(recipient, "Check-in", "All good so far.");
+        message.setMessageId(messageId);
+        return message;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.voyagerbuds.utils;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ExchangeRateStoreTest {
+    private static final double DELTA = 1e-9;
+    private static final String RESPONSE = "{\"date\":\"2024-12-05\",\"usd\":{"
+            + "\"vnd\":25450.0,\"eur\":0.95,\"jpy\":150.5,\"gbp\":0.8,"
+            + "\"zero\":0,\"negative\":-2,\"text\":\"n/a\"}}";
+
+    private static final String RATES_PATH = "/v1/currencies/usd.json";
+
+    private final MockWebServer server = new MockWebServer();
+    private Context context;
+
+    @Before
+    public void setUp() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void parseSortsCodesAndAddsUsd() throws JSONException {
+        ExchangeRateStore.RateTable table = ExchangeRateStore.parse(RESPONSE, "2024-12-05");
+
+        assertArrayEquals(new String[] { "eur", "gbp", "jpy", "usd", "vnd" }, table.codes);
+        assertArrayEquals(new double[] { 0.95, 0.8, 150.5, 1.0, 25450.0 }, table.rates, DELTA);
+        assertEquals("2024-12-05", table.fetchDate);
+    }
+
+    @Test
+    public void parseNormalizesCodes() throws JSONException {
+        ExchangeRateStore.RateTable table = ExchangeRateStore.parse("{\"usd\":{\" EUR \":0.9,\"vnđ\":25000}}", "");
+
+        assertEquals(0.9, table.rateOf("eur"), DELTA);
+        assertEquals(25000.0, table.rateOf("vnd"), DELTA);
+    }
+
+    @Test
+    public void rateOfUnknownCodeIsNaN() throws JSONException {
+        ExchangeRateStore.RateTable table = ExchangeRateStore.parse(RESPONSE, "2024-12-05");
+
+        assertTrue(Double.isNaN(table.rateOf("xyz")));
+        assertTrue(Double.isNaN(table.rateOf("")));
+        // Rates that are not positive numbers are dropped
+        assertTrue(Double.isNaN(table.rateOf("zero")));
+        assertTrue(Double.isNaN(table.rateOf("negative")));
+        assertTrue(Double.isNaN(table.rateOf("text")));
+    }
+
+    @Test
+    public void savedTableIsLoadedByNewStore() throws JSONException {
+        ExchangeRateStore.RateTable table = ExchangeRateStore.parse(RESPONSE, "2024-12-05");
+        new ExchangeRateStore(context).save(table);
+
+        ExchangeRateStore reloaded = new ExchangeRateStore(context);
+        assertEquals("2024-12-05", reloaded.getFetchDate());
+        for (int i = 0; i < table.codes.length; i++) {
+            assertEquals(table.codes[i], table.rates[i], reloaded.getRate(table.codes[i]), 0);
+        }
+        assertTrue(Double.isNaN(reloaded.getRate("xyz")));
+    }
+
+    @Test
+    public void storeWithoutFileKnowsOnlyUsdAndVnd() {
+        ExchangeRateStore store = new ExchangeRateStore(context);
+
+        assertEquals("", store.getFetchDate());
+        assertEquals(1.0, store.getRate("USD"), DELTA);
+        assertEquals(ExchangeRateStore.DEFAULT_USD_TO_VND_RATE, store.getRate("VNĐ"), DELTA);
+        assertTrue(Double.isNaN(store.getRate("EUR")));
+    }
+
+    @Test
+    public void convertGoesThroughUsd() throws JSONException {
+        ExchangeRateStore store = storeWith(RESPONSE);
+
+        assertEquals(25450.0, store.convert(1, "USD", "VND"), DELTA);
+        assertEquals(1 / 0.95, store.convert(1, "EUR", "USD"), DELTA);
+        // Cross rate between two non-base currencies
+        assertEquals(10 / 0.95 * 150.5, store.convert(10, "eur", "jpy"), DELTA);
+        assertEquals(42.0, store.convert(42, "GBP", "GBP"), DELTA);
+    }
+
+    @Test
+    public void convertLeavesUnknownCurrenciesUnchanged() throws JSONException {
+        ExchangeRateStore store = storeWith(RESPONSE);
+
+        assertEquals(5.0, store.convert(5, "XYZ", "USD"), DELTA);
+        assertEquals(5.0, store.convert(5, "USD", "XYZ"), DELTA);
+    }
+
+    @Test
+    public void batchConvertMatchesSingleConversions() throws JSONException {
+        ExchangeRateStore store = storeWith(RESPONSE);
+        double[] amounts = { 10, 20, 30, 40, 50, 60, 70 };
+        String[] currencies = { "EUR", "EUR", "JPY", "usd", "EUR", "VNĐ", "GBP" };
+
+        double[] converted = store.convert(amounts, currencies, "VND");
+
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(currencies[i], store.convert(amounts[i], currencies[i], "VND"), converted[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void batchConvertCopiesUnknownAndMissingCurrencies() throws JSONException {
+        ExchangeRateStore store = storeWith(RESPONSE);
+        double[] amounts = { 10, 20, 30, 40 };
+
+        double[] converted = store.convert(amounts, new String[] { "XYZ", null, "", "EUR" }, "USD");
+
+        assertArrayEquals(new double[] { 10, 20, 30, 40 / 0.95 }, converted, DELTA);
+    }
+
+    @Test
+    public void batchConvertToUnknownTargetCopiesAmounts() throws JSONException {
+        ExchangeRateStore store = storeWith(RESPONSE);
+        double[] amounts = { 10, 20 };
+
+        assertArrayEquals(amounts, store.convert(amounts, new String[] { "EUR", "VND" }, "XYZ"), DELTA);
+    }
+
+    @Test
+    public void fetchReplacesAndSavesRates() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(RESPONSE));
+        ExchangeRateStore store = fetchingStore();
+
+        store.fetch("2024-12-06");
+
+        assertEquals(RATES_PATH, server.takeRequest().getPath());
+        assertEquals("2024-12-06", store.getFetchDate());
+        assertEquals(0.95, store.getRate("EUR"), DELTA);
+        ExchangeRateStore reloaded = new ExchangeRateStore(context);
+        assertEquals("2024-12-06", reloaded.getFetchDate());
+        assertEquals(150.5, reloaded.getRate("JPY"), DELTA);
+    }
+
+    @Test
+    public void fetchKeepsRatesOnHttpError() {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody(RESPONSE));
+
+        assertFetchKeepsDefaultRates();
+    }
+
+    @Test
+    public void fetchKeepsRatesOnMalformedBody() {
+        server.enqueue(new MockResponse().setBody("<html>Service unavailable</html>"));
+
+        assertFetchKeepsDefaultRates();
+    }
+
+    @Test
+    public void fetchKeepsRatesWhenResponseHasNone() {
+        server.enqueue(new MockResponse().setBody("{\"date\":\"2024-12-06\",\"usd\":{}}"));
+
+        assertFetchKeepsDefaultRates();
+    }
+
+    @Test
+    public void fetchIfNeededSkipsRatesFetchedToday() throws JSONException {
+        new ExchangeRateStore(context).save(ExchangeRateStore.parse(RESPONSE, today()));
+
+        fetchingStore().fetchIfNeeded();
+
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void fetchIfNeededFetchesOlderRates() throws JSONException {
+        new ExchangeRateStore(context).save(ExchangeRateStore.parse(RESPONSE, "2024-12-05"));
+        server.enqueue(new MockResponse().setBody("{\"usd\":{\"eur\":0.9}}"));
+        ExchangeRateStore store = fetchingStore();
+
+        store.fetchIfNeeded();
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(today(), store.getFetchDate());
+        assertEquals(0.9, store.getRate("EUR"), DELTA);
+    }
+
+    private void assertFetchKeepsDefaultRates() {
+        ExchangeRateStore store = fetchingStore();
+
+        store.fetch("2024-12-06");
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals("", store.getFetchDate());
+        assertEquals(ExchangeRateStore.DEFAULT_USD_TO_VND_RATE, store.getRate("VND"), DELTA);
+        assertTrue(Double.isNaN(store.getRate("EUR")));
+    }
+
+    // Fetches from the local server, on the calling thread
+    private ExchangeRateStore fetchingStore() {
+        return new ExchangeRateStore(context, server.url(RATES_PATH).toString(), Runnable::run);
+    }
+
+    private static String today() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+    }
+
+    private ExchangeRateStore storeWith(String json) throws JSONException {
+        new ExchangeRateStore(context).save(ExchangeRateStore.parse(json, "2024-12-05"));
+        return new ExchangeRateStore(context);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.voyagerbuds.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleIntervalIndexTest {
+    private static final int NONE = ScheduleIntervalIndex.NONE;
+
+    @Test
+    public void emptyIndexHasNoConflictsAndAWholeFreeDay() {
+        ScheduleIntervalIndex index = new ScheduleIntervalIndex(new ArrayList<>());
+
+        assertEquals(0, index.size());
+        assertEquals(NONE, index.findConflict(0, ScheduleIntervalIndex.MINUTES_PER_DAY, NONE));
+        assertEquals(0, index.findFreeSlot(0, ScheduleIntervalIndex.MINUTES_PER_DAY));
+    }
+
+    @Test
+    public void emptyAndBackwardsRangesAreDropped() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 600, 600 }, new int[] { 2, 700, 650 },
+                new int[] { 3, 480, 540 });
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains(1));
+        assertFalse(index.contains(2));
+        assertTrue(index.contains(3));
+        assertEquals(NONE, index.findConflict(600, 700, NONE));
+    }
+
+    @Test
+    public void touchingRangesDoNotConflict() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 540, 600 });
+
+        assertEquals(NONE, index.findConflict(480, 540, NONE));
+        assertEquals(NONE, index.findConflict(600, 660, NONE));
+        assertEquals(1, index.findConflict(599, 660, NONE));
+        assertEquals(NONE, index.findConflict(570, 570, NONE));
+    }
+
+    @Test
+    public void conflictFoundThroughLongEarlierRange() {
+        // The all-morning schedule starts first but still covers 11:00, after
+        // two shorter ranges that have ended
+        ScheduleIntervalIndex index = index(new int[] { 1, 420, 720 }, new int[] { 2, 480, 510 },
+                new int[] { 3, 540, 570 });
+
+        assertEquals(1, index.findConflict(660, 690, NONE));
+    }
+
+    @Test
+    public void excludedScheduleHoldingMaxEndFallsBackToSecond() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 420, 720 }, new int[] { 2, 480, 690 },
+                new int[] { 3, 540, 570 });
+
+        assertEquals(1, index.findConflict(660, 700, NONE));
+        // Without schedule 1 the next largest end, 11:30 of schedule 2, still overlaps
+        assertEquals(2, index.findConflict(660, 700, 1));
+        assertEquals(NONE, index.findConflict(690, 700, 1));
+    }
+
+    @Test
+    public void excludingScheduleWithoutMaxEndKeepsMax() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 420, 720 }, new int[] { 2, 480, 690 });
+
+        assertEquals(1, index.findConflict(660, 700, 2));
+    }
+
+    @Test
+    public void excludingOnlyOverlapLeavesNoConflict() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 540, 600 }, new int[] { 2, 660, 720 });
+
+        assertEquals(NONE, index.findConflict(540, 600, 1));
+        assertEquals(NONE, index.without(1).findConflict(540, 600, NONE));
+        assertFalse(index.without(1).contains(1));
+        assertTrue(index.without(1).contains(2));
+    }
+
+    @Test
+    public void freeSlotStartsAtFromWhenFree() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 540, 600 });
+
+        assertEquals(480, index.findFreeSlot(480, 60));
+        assertEquals(600, index.findFreeSlot(600, 60));
+    }
+
+    @Test
+    public void freeSlotInsideBusyBlockStartsWhenBlockEnds() {
+        // 09:00-10:00 and 09:30-11:00 merge into one block
+        ScheduleIntervalIndex index = index(new int[] { 1, 540, 600 }, new int[] { 2, 570, 660 });
+
+        assertEquals(660, index.findFreeSlot(550, 30));
+    }
+
+    @Test
+    public void freeSlotSkipsGapsThatAreTooShort() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 480, 540 }, new int[] { 2, 560, 600 },
+                new int[] { 3, 630, 700 }, new int[] { 4, 760, 800 });
+
+        // Gaps after 08:00: 20, 30, 60 minutes, then the rest of the day
+        assertEquals(700, index.findFreeSlot(480, 60));
+        assertEquals(600, index.findFreeSlot(480, 30));
+        assertEquals(800, index.findFreeSlot(480, 61));
+        // The gap before 08:00 is long enough, but not what is left of it after 06:50
+        assertEquals(800, index.findFreeSlot(410, 80));
+        assertEquals(410, index.findFreeSlot(410, 70));
+    }
+
+    @Test
+    public void freeSlotMustEndByMidnight() {
+        ScheduleIntervalIndex index = index(new int[] { 1, 0, 1380 });
+
+        assertEquals(1380, index.findFreeSlot(0, 60));
+        assertEquals(NONE, index.findFreeSlot(0, 61));
+        assertEquals(NONE, index.findFreeSlot(1400, 60));
+        assertEquals(NONE, index.findFreeSlot(0, 0));
+        assertEquals(NONE, index.findFreeSlot(-1, 30));
+    }
+
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            List<int[]> ranges = new ArrayList<>();
+            int count = random.nextInt(12);
+            for (int id = 0; id < count; id++) {
+                int start = random.nextInt(ScheduleIntervalIndex.MINUTES_PER_DAY);
+                int end = Math.min(ScheduleIntervalIndex.MINUTES_PER_DAY, start + random.nextInt(240) - 10);
+                ranges.add(new int[] { id, start, end });
+            }
+            ScheduleIntervalIndex index = new ScheduleIntervalIndex(ranges);
+
+            for (int query = 0; query < 50; query++) {
+                int start = random.nextInt(ScheduleIntervalIndex.MINUTES_PER_DAY);
+                int end = start + random.nextInt(180);
+                int excludeId = random.nextInt(count + 1) - 1;
+                int conflict = index.findConflict(start, end, excludeId);
+                String message = Arrays.deepToString(ranges.toArray()) + " [" + start + ", " + end + ") excluding "
+                        + excludeId;
+                if (conflict == NONE) {
+                    assertFalse(message, anyOverlap(ranges, start, end, excludeId));
+                } else {
+                    assertTrue(message, conflict != excludeId && overlaps(ranges.get(conflict), start, end));
+                }
+
+                int duration = 1 + random.nextInt(120);
+                assertEquals(message + " slot of " + duration, bruteFreeSlot(ranges, start, duration),
+                        index.findFreeSlot(start, duration));
+            }
+        }
+    }
+
+    private static ScheduleIntervalIndex index(int[]... ranges) {
+        return new ScheduleIntervalIndex(Arrays.asList(ranges));
+    }
+
+    private static boolean overlaps(int[] range, int start, int end) {
+        return start < end && range[1] < range[2] && range[1] < end && range[2] > start;
+    }
+
+    private static boolean anyOverlap(List<int[]> ranges, int start, int end, int excludeId) {
+        for (int[] range : ranges) {
+            if (range[0] != excludeId && overlaps(range, start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int bruteFreeSlot(List<int[]> ranges, int from, int duration) {
+        for (int start = from; start + duration <= ScheduleIntervalIndex.MINUTES_PER_DAY; start++) {
+            if (!anyOverlap(ranges, start, start + duration, NONE)) {
+                return start;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.voyagerbuds.utils;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.sun.mail.smtp.SMTPTransport;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.Authenticator;
+import javax.mail.MessagingException;
+import javax.mail.NoSuchProviderException;
+import javax.mail.PasswordAuthentication;
+import javax.mail.Provider;
+import javax.mail.Session;
+import javax.mail.URLName;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * Local GreenMail SMTP server that {@link EmailSender} sends to while it runs.
+ * The session it installs counts the SMTP connections opened, so tests can
+ * check that a batch reuses them.
+ */
+public class TestMailServer {
+    private static final String USER = "voyager";
+    private static final String PASSWORD = "secret";
+    private static final long RECEIVE_TIMEOUT_MILLIS = 5000;
+
+    private static final AtomicInteger connections = new AtomicInteger();
+
+    private final GreenMail greenMail = new GreenMail(ServerSetupTest.SMTP);
+
+    public void start() throws NoSuchProviderException {
+        goOnline();
+        connections.set(0);
+        EmailSender.setSession(session());
+    }
+
+    public void stop() {
+        EmailSender.setSession(null);
+        greenMail.stop();
+    }
+
+    /**
+     * Stop the server but keep sending to it, so every connection is refused
+     * the way it is without a network
+     */
+    public void goOffline() {
+        greenMail.stop();
+    }
+
+    public void goOnline() {
+        greenMail.start();
+        greenMail.setUser(USER + "@example.com", USER, PASSWORD);
+    }
+
+    /**
+     * SMTP connections opened and authenticated since the server started
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Wait for a number of messages to arrive, and return all received so far
+     */
+    public MimeMessage[] awaitMessages(int count) {
+        greenMail.waitForIncomingEmail(RECEIVE_TIMEOUT_MILLIS, count);
+        return greenMail.getReceivedMessages();
+    }
+
+    private static Session session() throws NoSuchProviderException {
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.host", ServerSetupTest.SMTP.getBindAddress());
+        props.put("mail.smtp.port", String.valueOf(ServerSetupTest.SMTP.getPort()));
+        props.put("mail.smtp.user", USER);
+
+        Session session = Session.getInstance(props, new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(USER, PASSWORD);
+            }
+        });
+        session.setProvider(new Provider(Provider.Type.TRANSPORT, "smtp", CountingTransport.class.getName(),
+                "VoyagerBuds", null));
+        return session;
+    }
+
+    /**
+     * SMTP transport counting its successful connects. Created by JavaMail
+     * through reflection, so it must be public.
+     */
+    public static class CountingTransport extends SMTPTransport {
+        public CountingTransport(Session session, URLName urlName) {
+            super(session, urlName);
+        }
+
+        @Override
+        protected synchronized boolean protocolConnect(String host, int port, String user, String password)
+                throws MessagingException {
+            // JavaMail first tries without a password and then asks the
+            // authenticator, so only count attempts that connected
+            boolean connected = super.protocolConnect(host, port, user, password);
+            if (connected) {
+                connections.incrementAndGet();
+            }
+            return connected;
+        }
+    }
+}